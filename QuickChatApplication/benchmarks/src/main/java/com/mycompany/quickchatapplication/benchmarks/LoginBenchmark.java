@@ -0,0 +1,75 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication.benchmarks;
+
+import com.mycompany.quickchatapplication.Login;
+import com.mycompany.quickchatapplication.PasswordHasher;
+import com.mycompany.quickchatapplication.UserRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LoginBenchmark class to measure logins per second at each PBKDF2 work factor
+ * login hashes every time; cachedLogin repeats a login the registry has already
+ * verified. Each login also creates a session, which is ended again so sessions
+ * do not pile up over the run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+    @Param({"10000", "100000", "600000"})
+    public int iterations;
+
+    private PasswordHasher hasher;
+    private UserRegistry uncached;
+    private UserRegistry cached;
+
+    @Setup
+    public void setUp() {
+        hasher = new PasswordHasher(iterations);
+        uncached = new UserRegistry(16, hasher, 0);
+        cached = new UserRegistry(16, hasher, UserRegistry.DEFAULT_VERIFIED_TTL_MILLIS);
+        for (UserRegistry users : new UserRegistry[] {uncached, cached}) {
+            users.setRateLimiter(null);
+            users.register(new Login("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith"));
+            users.loginUser("kyl_1", "Ch&&sec@ke99!");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        hasher.close();
+    }
+
+    @Benchmark
+    public String login() {
+        String token = uncached.loginUser("kyl_1", "Ch&&sec@ke99!");
+        uncached.logout(token);
+        return token;
+    }
+
+    @Benchmark
+    public String cachedLogin() {
+        String token = cached.loginUser("kyl_1", "Ch&&sec@ke99!");
+        cached.logout(token);
+        return token;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication.benchmarks;
+
+import com.mycompany.quickchatapplication.Message;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MessageHashBenchmark class to measure Message.createMessageHash
+ * Covers a short message, a full 250 character message and a unicode message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageHashBenchmark {
+
+    @Param({"short", "long", "unicode"})
+    public String body;
+
+    private Message message;
+    private String content;
+
+    @Setup
+    public void setUp() {
+        message = new Message();
+        switch (body) {
+            case "short":
+                content = "Hi Mike, can you join us for dinner tonight";
+                break;
+            case "long":
+                StringBuilder sb = new StringBuilder();
+                while (sb.length() < 250) {
+                    sb.append("Hi Keegan, did you receive the payment? ");
+                }
+                content = sb.substring(0, 250);
+                break;
+            default:
+                content = "Molo Thandiwe, ngiyabonga kakhulu ngesipho sakho esihle 😀 café naïve résumé Ĳssel ending";
+                break;
+        }
+    }
+
+    @Benchmark
+    public String createMessageHash() {
+        return message.createMessageHash("1234567890", 42, content);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication.benchmarks;
+
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.RandomIdGenerator;
+import com.mycompany.quickchatapplication.SnowflakeIdGenerator;
+import com.mycompany.quickchatapplication.UniqueIdGenerator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MessageIdBenchmark class to measure Message.generateMessageId with each IdGenerator
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageIdBenchmark {
+
+    @Param({"random", "snowflake", "unique"})
+    public String generator;
+
+    private Message message;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        message = new Message();
+        switch (generator) {
+            case "snowflake":
+                message.setIdGenerator(new SnowflakeIdGenerator(0));
+                break;
+            case "unique":
+                // Fresh filter each iteration so it never saturates
+                message.setIdGenerator(new UniqueIdGenerator(50_000_000, 0.01));
+                break;
+            default:
+                message.setIdGenerator(new RandomIdGenerator());
+                break;
+        }
+    }
+
+    @Benchmark
+    public String generateMessageId() {
+        return message.generateMessageId();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication.benchmarks;
+
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.Metrics;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MetricsBenchmark class to measure what Metrics adds to a hot path
+ * Compares an empty method with a counted one and a timed one, and times
+ * Message.createMessageHash, with metrics off and on. With metrics off the
+ * counted and timed methods should cost no more than the empty one plus a
+ * flag read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private Message message;
+    private long value;
+
+    @Setup
+    public void setUp() {
+        Metrics.reset();
+        Metrics.setEnabled(enabled);
+        message = new Message();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Metrics.setEnabled(false);
+    }
+
+    @Benchmark
+    public long baseline() {
+        return ++value;
+    }
+
+    @Benchmark
+    public long count() {
+        Metrics.count(Metrics.Choice.SEND);
+        return ++value;
+    }
+
+    @Benchmark
+    public long timed() {
+        long start = Metrics.start();
+        value++;
+        Metrics.stop(Metrics.Timer.VALIDATE, start);
+        return value;
+    }
+
+    @Benchmark
+    public String createMessageHash() {
+        return message.createMessageHash("1234567890", 42, "Hi Mike, can you join us for dinner tonight");
+    }
+}
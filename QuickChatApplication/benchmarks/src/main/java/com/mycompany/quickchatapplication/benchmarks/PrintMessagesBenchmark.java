@@ -0,0 +1,60 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication.benchmarks;
+
+import com.mycompany.quickchatapplication.Message;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PrintMessagesBenchmark class to measure Message.printMessages for large histories
+ * Compares the full report with printing one page of the latest messages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PrintMessagesBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"10000", "1000000"})
+    public int entries;
+
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        message = new Message();
+        for (int i = 0; i < entries; i++) {
+            message.sentMessage(1, String.format("%010d", i), "+27718693002", "Hi Mike, can you join us for dinner tonight");
+        }
+    }
+
+    @Benchmark
+    public String printMessages() {
+        return message.printMessages();
+    }
+
+    @Benchmark
+    public StringBuilder printLatestPage() throws IOException {
+        StringBuilder page = new StringBuilder();
+        message.printMessages(page, message.returnTotalMessages() - PAGE_SIZE, PAGE_SIZE);
+        return page;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication.benchmarks;
+
+import com.mycompany.quickchatapplication.BatchingMessageWriter;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageLog;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StoreMessageBenchmark class to measure Message.storeMessage throughput
+ * Modes: "interval" appends straight to the log with interval fsync,
+ * "per-record" forces every record, "batched" goes through the group-commit writer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StoreMessageBenchmark {
+
+    @Param({"interval", "per-record", "batched"})
+    public String mode;
+
+    private Path directory;
+    private MessageLog log;
+    private BatchingMessageWriter writer;
+    private Message message;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("store-benchmark");
+        MessageLog.FsyncPolicy policy;
+        switch (mode) {
+            case "per-record":
+                policy = MessageLog.FsyncPolicy.PER_RECORD;
+                break;
+            case "batched":
+                policy = MessageLog.FsyncPolicy.GROUP_COMMIT;
+                break;
+            default:
+                policy = MessageLog.FsyncPolicy.INTERVAL;
+                break;
+        }
+        log = new MessageLog(directory, policy, MessageLog.DEFAULT_SEGMENT_SIZE, MessageLog.DEFAULT_FSYNC_INTERVAL_MILLIS);
+        message = new Message(log);
+        if ("batched".equals(mode)) {
+            writer = new BatchingMessageWriter(log);
+            message.setBatchWriter(writer);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void storeMessage() {
+        message.storeMessage("1234567890", "+27718693002", "Hi Mike, can you join us for dinner tonight");
+    }
+}
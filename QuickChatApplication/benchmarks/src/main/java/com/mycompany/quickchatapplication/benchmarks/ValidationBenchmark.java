@@ -0,0 +1,62 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication.benchmarks;
+
+import com.mycompany.quickchatapplication.Login;
+import com.mycompany.quickchatapplication.Message;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ValidationBenchmark class to measure recipient and password validation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationBenchmark {
+
+    @Param({"valid", "invalid"})
+    public String input;
+
+    private Message message;
+    private Login login;
+    private String recipient;
+
+    @Setup
+    public void setUp() {
+        message = new Message();
+        login = new Login();
+        if ("valid".equals(input)) {
+            recipient = "+27718693002";
+            login.setPassword("Ch&&sec@ke99!");
+        } else {
+            recipient = "08575975889";
+            login.setPassword("password");
+        }
+    }
+
+    @Benchmark
+    public int checkRecipientCell() {
+        return message.checkRecipientCell(recipient);
+    }
+
+    @Benchmark
+    public boolean checkPasswordComplexity() {
+        return login.checkPasswordComplexity();
+    }
+}
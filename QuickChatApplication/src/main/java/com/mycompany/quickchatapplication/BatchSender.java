@@ -0,0 +1,481 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BatchSender class to handle sending messages from a file without dialogs
+ * Each input row has a recipient, content and action (send, store or
+ * disregard, or 1-3 as in the send menu). Rows go through the same steps as
+ * the dialog flow: validateRecipientCell, validateMessageLength, a generated
+ * message ID, createMessageHash and sentMessage.
+ *
+ * Input is CSV (recipient,content,action with an optional header row and
+ * double-quoted fields) or, for files ending in .jsonl, one JSON object per
+ * line with "recipient", "content" (or "message") and "action" keys.
+ *
+ * The pipeline has three stages: the calling thread reads the file in chunks,
+ * a pool of workers processes chunks in parallel, and a writer thread writes
+ * each chunk's results in input order. The queue between them is bounded, so a
+ * slow output file holds back the reader instead of filling the heap.
+ *
+ * Output is CSV: line,status,messageId,messageHash,detail, where status is
+ * SENT, STORED, DISREGARDED, DUPLICATE or REJECTED and detail is the message
+ * the dialog would have shown. DUPLICATE rows were turned away by the Message's
+ * MessageDeduplicator, if it has one; like every row they are counted in Metrics
+ * and recorded as JFR events exactly as sentMessage does for the dialogs.
+ */
+public class BatchSender {
+    private static final int CHUNK_SIZE = 1024;
+    private static final String OUTPUT_HEADER = "line,status,messageId,messageHash,detail";
+
+    private final Message messageSystem;
+    private final int workers;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder disregarded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    /**
+     * Creates a batch sender using one worker per processor
+     * @param messageSystem the message system to send through
+     */
+    public BatchSender(Message messageSystem) {
+        this(messageSystem, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a batch sender
+     * @param messageSystem the message system to send through
+     * @param workers how many rows are processed in parallel
+     */
+    public BatchSender(Message messageSystem, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Need at least one worker: " + workers);
+        }
+        this.messageSystem = messageSystem;
+        this.workers = workers;
+    }
+
+    /**
+     * Processes every row of an input file and writes the results
+     * @param input the CSV or JSONL file to read
+     * @param output the results file to write
+     * @return a one-line summary of the counts and rate
+     * @throws IOException if either file cannot be read or written
+     */
+    public String run(Path input, Path output) throws IOException {
+        boolean jsonLines = input.getFileName().toString().endsWith(".jsonl");
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        ExecutorService writerThread = Executors.newSingleThreadExecutor();
+        BlockingQueue<Future<String>> results = new ArrayBlockingQueue<>(workers * 2);
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+                BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(OUTPUT_HEADER);
+            writer.newLine();
+            Future<?> writing = writerThread.submit(() -> writeResults(results, writer));
+
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            long firstLine = 1;
+            long lineNumber = 0;
+            String line;
+            try {
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (lineNumber == 1 && !jsonLines && isHeader(line)) {
+                        firstLine = 2;
+                        continue;
+                    }
+                    chunk.add(line);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        putResult(results, pool.submit(processor(chunk, firstLine, jsonLines)), writing);
+                        firstLine = lineNumber + 1;
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    putResult(results, pool.submit(processor(chunk, firstLine, jsonLines)), writing);
+                }
+                putResult(results, CompletableFuture.completedFuture(null), writing);
+                writing.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IllegalStateException("Batch send failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted during batch send", e);
+            }
+        } finally {
+            pool.shutdownNow();
+            writerThread.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        long total = sent.sum() + stored.sum() + disregarded.sum() + duplicates.sum() + rejected.sum();
+        return String.format("Processed %,d rows in %.2f s (%,d rows/sec): %,d sent, %,d stored, %,d disregarded, %,d duplicates, %,d rejected",
+                total, elapsed / 1e9, total * 1_000_000_000L / Math.max(1, elapsed),
+                sent.sum(), stored.sum(), disregarded.sum(), duplicates.sum(), rejected.sum());
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getStored() {
+        return stored.sum();
+    }
+
+    public long getDisregarded() {
+        return disregarded.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    private Callable<String> processor(List<String> chunk, long firstLine, boolean jsonLines) {
+        return () -> processChunk(chunk, firstLine, jsonLines);
+    }
+
+    /**
+     * Queues a chunk's result for the writer, waiting while the queue is full
+     * Gives up if the writer has stopped, so a failed output file cannot hang the reader.
+     */
+    private static void putResult(BlockingQueue<Future<String>> results, Future<String> result, Future<?> writing)
+            throws InterruptedException, ExecutionException {
+        while (!results.offer(result, 100, TimeUnit.MILLISECONDS)) {
+            if (writing.isDone()) {
+                writing.get();
+                throw new IllegalStateException("Batch writer stopped early");
+            }
+        }
+    }
+
+    /**
+     * Writer stage: writes chunk results in the order the chunks were read
+     */
+    private static void writeResults(BlockingQueue<Future<String>> results, Writer writer) {
+        // A completed future holding null marks the end of the input
+        try {
+            while (true) {
+                String text = results.take().get();
+                if (text == null) {
+                    return;
+                }
+                writer.write(text);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch worker failed", e.getCause());
+        }
+    }
+
+    private String processChunk(List<String> lines, long firstLine, boolean jsonLines) {
+        StringBuilder out = new StringBuilder(lines.size() * 64);
+        long lineNumber = firstLine;
+        for (String line : lines) {
+            if (!line.isBlank()) {
+                Map<String, String> row = jsonLines ? parseJsonLine(line) : parseCsvLine(line);
+                processRow(row, lineNumber, out);
+            }
+            lineNumber++;
+        }
+        return out.toString();
+    }
+
+    private void processRow(Map<String, String> row, long lineNumber, StringBuilder out) {
+        if (row == null) {
+            reject(lineNumber, "Row could not be read.", out);
+            return;
+        }
+        String recipient = row.getOrDefault("recipient", "");
+        String content = row.containsKey("content") ? row.get("content") : row.getOrDefault("message", "");
+        int choice = parseAction(row.getOrDefault("action", "send"));
+        if (choice == 0) {
+            reject(lineNumber, "Invalid choice.", out);
+            return;
+        }
+
+        String recipientStatus = messageSystem.validateRecipientCell(recipient);
+        if (!recipientStatus.equals("Cell phone number successfully captured.")) {
+            reject(lineNumber, recipientStatus, out);
+            return;
+        }
+        String lengthStatus = messageSystem.validateMessageLength(content);
+        if (!lengthStatus.equals("Message ready to send.")) {
+            reject(lineNumber, lengthStatus, out);
+            return;
+        }
+
+        String messageId = messageSystem.generateMessageId();
+        Message.MessageData[] recorded = new Message.MessageData[1];
+        String result = messageSystem.sentMessage(choice, messageId, recipient, content, null, data -> recorded[0] = data);
+        if (recorded[0] != null) {
+            (choice == 1 ? sent : stored).increment();
+            appendResult(out, lineNumber, choice == 1 ? "SENT" : "STORED", messageId, recorded[0].getMessageHash(), result);
+        } else if (choice == 2) {
+            disregarded.increment();
+            appendResult(out, lineNumber, "DISREGARDED", messageId, "", result);
+        } else if (result.startsWith("Duplicate") || result.startsWith("Message already")) {
+            duplicates.increment();
+            appendResult(out, lineNumber, "DUPLICATE", "", "", result);
+        } else {
+            reject(lineNumber, result, out);
+        }
+    }
+
+    private void reject(long lineNumber, String reason, StringBuilder out) {
+        rejected.increment();
+        appendResult(out, lineNumber, "REJECTED", "", "", reason);
+    }
+
+    private static void appendResult(StringBuilder out, long lineNumber, String status, String messageId, String hash, String detail) {
+        out.append(lineNumber).append(',').append(status).append(',').append(messageId).append(',');
+        appendCsvField(out, hash);
+        out.append(',');
+        appendCsvField(out, detail);
+        out.append('\n');
+    }
+
+    private static void appendCsvField(StringBuilder out, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Turns an action into a send menu choice
+     * @return 1 (send), 2 (disregard), 3 (store), or 0 if not recognised
+     */
+    static int parseAction(String action) {
+        switch (action.trim().toLowerCase()) {
+            case "1":
+            case "send":
+                return 1;
+            case "2":
+            case "disregard":
+                return 2;
+            case "3":
+            case "store":
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isHeader(String line) {
+        return line.trim().toLowerCase().startsWith("recipient");
+    }
+
+    /**
+     * Splits a CSV row into recipient, content and action
+     * Fields may be double-quoted, with "" standing for a quote inside the field.
+     * @return the fields by name, or null if the row is malformed
+     */
+    static Map<String, String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            field.setLength(0);
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        return null; // unterminated quote
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+            } else {
+                while (i < length && line.charAt(i) != ',') {
+                    field.append(line.charAt(i++));
+                }
+            }
+            fields.add(field.toString());
+            if (i >= length) {
+                break;
+            }
+            if (line.charAt(i) != ',') {
+                return null; // text after a closing quote
+            }
+            i++;
+        }
+        if (fields.size() < 2) {
+            return null;
+        }
+        Map<String, String> row = new HashMap<>(4);
+        row.put("recipient", fields.get(0).trim());
+        row.put("content", fields.get(1));
+        if (fields.size() > 2) {
+            row.put("action", fields.get(2));
+        }
+        return row;
+    }
+
+    /**
+     * Reads a flat JSON object of string (or bare number) values
+     * @return the values by key, or null if the line is not such an object
+     */
+    static Map<String, String> parseJsonLine(String line) {
+        Map<String, String> row = new HashMap<>(4);
+        int[] position = {skipSpace(line, 0)};
+        if (!expect(line, position, '{')) {
+            return null;
+        }
+        if (expect(line, position, '}')) {
+            return row;
+        }
+        while (true) {
+            String key = readJsonString(line, position);
+            if (key == null || !expect(line, position, ':')) {
+                return null;
+            }
+            String value;
+            if (position[0] < line.length() && line.charAt(position[0]) == '"') {
+                value = readJsonString(line, position);
+            } else {
+                int start = position[0];
+                while (position[0] < line.length() && ",} \t".indexOf(line.charAt(position[0])) < 0) {
+                    position[0]++;
+                }
+                value = line.substring(start, position[0]);
+            }
+            if (value == null) {
+                return null;
+            }
+            row.put(key, value);
+            if (expect(line, position, ',')) {
+                continue;
+            }
+            return expect(line, position, '}') ? row : null;
+        }
+    }
+
+    private static boolean expect(String line, int[] position, char c) {
+        int i = skipSpace(line, position[0]);
+        if (i < line.length() && line.charAt(i) == c) {
+            position[0] = skipSpace(line, i + 1);
+            return true;
+        }
+        position[0] = i;
+        return false;
+    }
+
+    private static int skipSpace(String line, int i) {
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String readJsonString(String line, int[] position) {
+        int i = position[0];
+        if (i >= line.length() || line.charAt(i) != '"') {
+            return null;
+        }
+        StringBuilder value = new StringBuilder();
+        i++;
+        while (i < line.length()) {
+            char c = line.charAt(i++);
+            if (c == '"') {
+                position[0] = skipSpace(line, i);
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (i >= line.length()) {
+                return null;
+            }
+            char escaped = line.charAt(i++);
+            switch (escaped) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 > line.length()) {
+                        return null;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(i, i + 4), 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default:
+                    value.append(escaped); // \" \\ \/
+                    break;
+            }
+        }
+        return null;
+    }
+}
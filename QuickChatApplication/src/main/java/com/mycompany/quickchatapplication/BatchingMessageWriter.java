@@ -0,0 +1,264 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BatchingMessageWriter class to handle group commit of stored messages
+ * Callers enqueue messages and receive a future; a single writer thread drains
+ * the queue, appends a whole batch to the MessageLog and syncs it once.
+ *
+ * The writer thread is never interrupted: it writes through the log's FileChannel,
+ * and an interrupt there would close the channel for good. close() clears the
+ * running flag instead, and the writer sees it within its 100 ms poll.
+ */
+public class BatchingMessageWriter implements Closeable {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+    public static final long DEFAULT_MAX_LINGER_MICROS = 200;
+    public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
+    // Batch sizes are counted in power-of-two buckets: 1, 2-3, 4-7, ...
+    private static final int HISTOGRAM_BUCKETS = 32;
+
+    private final MessageLog log;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread writerThread;
+    private final AtomicLongArray batchSizeHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private volatile long batchesWritten;
+    private volatile long messagesWritten;
+    private volatile boolean running = true;
+    // Held shared while enqueueing and exclusively by close(), so nothing is queued after the writer stops
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates a writer with default batch settings
+     * @param log the log that batches are appended to
+     */
+    public BatchingMessageWriter(MessageLog log) {
+        this(log, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LINGER_MICROS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a writer and starts its writer thread
+     * @param log the log that batches are appended to
+     * @param maxBatchSize the most messages written per sync
+     * @param maxLingerMicros how long to wait for a batch to fill once the first message arrives
+     * @param queueCapacity the most messages waiting to be written before enqueue blocks
+     */
+    public BatchingMessageWriter(MessageLog log, int maxBatchSize, long maxLingerMicros, int queueCapacity) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1: " + maxBatchSize);
+        }
+        this.log = log;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = TimeUnit.MICROSECONDS.toNanos(maxLingerMicros);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerThread = new Thread(this::writeLoop, "message-batch-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a message to be written in the next batch
+     * @param data the message to store
+     * @param timestamp the time the message was stored
+     * @return a future completed with the record address once the batch is synced
+     */
+    public CompletableFuture<Long> enqueue(Message.MessageData data, long timestamp) {
+        PendingWrite write = new PendingWrite(data, timestamp);
+        closeLock.readLock().lock();
+        try {
+            if (!running) {
+                write.future.completeExceptionally(new IOException("Batching writer is closed"));
+                return write.future;
+            }
+            // A full queue blocks here; the writer is still running, so it drains
+            queue.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.future.completeExceptionally(e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return write.future;
+    }
+
+    /**
+     * Returns the number of batches written so far
+     * @return the batch count
+     */
+    public long getBatchesWritten() {
+        return batchesWritten;
+    }
+
+    /**
+     * Returns the number of messages written so far
+     * @return the message count
+     */
+    public long getMessagesWritten() {
+        return messagesWritten;
+    }
+
+    /**
+     * Returns the batch-size distribution
+     * Bucket i counts batches whose size is in [2^i, 2^(i+1))
+     * @return a copy of the histogram buckets
+     */
+    public long[] getBatchSizeHistogram() {
+        long[] copy = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            copy[i] = batchSizeHistogram.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a readable summary of the batch-size distribution
+     * @return one line per non-empty bucket
+     */
+    public String batchSizeReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Batches: ").append(batchesWritten).append(", messages: ").append(messagesWritten).append("\n");
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            long count = batchSizeHistogram.get(i);
+            if (count > 0) {
+                sb.append((1L << i)).append("-").append((1L << (i + 1)) - 1).append(": ").append(count).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stops accepting messages, writes everything already queued and stops the writer thread
+     * The underlying log is left open.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                writerThread.join();
+                break;
+            } catch (InterruptedException e) {
+                // Keep waiting: the queued writes must finish before the log can be closed
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                // Nothing interrupts the writer; the loop condition decides whether to stop
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingWrite> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + maxLingerNanos;
+        while (batch.size() < maxBatchSize && running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    /**
+     * Appends and syncs one batch; no exception leaves here, so the writer thread never dies
+     * A message the log rejects (e.g. a field too long to store) fails only its own
+     * future. Any other failure fails every future in the batch not yet completed.
+     */
+    private void writeBatch(List<PendingWrite> batch) {
+        long[] addresses = new long[batch.size()];
+        boolean[] rejected = new boolean[batch.size()];
+        int written = 0;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                PendingWrite write = batch.get(i);
+                try {
+                    addresses[i] = log.append(write.data, write.timestamp);
+                    written++;
+                } catch (IllegalArgumentException e) {
+                    rejected[i] = true;
+                    write.future.completeExceptionally(e);
+                }
+            }
+            log.sync();
+        } catch (IOException | RuntimeException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (!rejected[i]) {
+                    batch.get(i).future.completeExceptionally(e);
+                }
+            }
+            return;
+        }
+        if (written > 0) {
+            batchSizeHistogram.incrementAndGet(63 - Long.numberOfLeadingZeros(written));
+            batchesWritten++;
+            messagesWritten += written;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (!rejected[i]) {
+                batch.get(i).future.complete(addresses[i]);
+            }
+        }
+    }
+
+    /**
+     * A message waiting to be written together with its caller's future
+     */
+    private static class PendingWrite {
+        private final Message.MessageData data;
+        private final long timestamp;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        PendingWrite(Message.MessageData data, long timestamp) {
+            this.data = data;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * ChatServer class to handle QuickChat over HTTP without the Swing dialogs
+ * Serves the same register, login, send, store and list steps as the desktop
+ * flow, for any number of users at once. Every request runs on its own virtual
+ * thread, so thousands of slow clients only cost a small amount of memory each.
+ *
+ * Endpoints (parameters as a form body or query string, replies as plain text):
+ *   POST /register  username, password, cell, firstName, lastName
+ *   POST /login     username, password            -> session token on the first line
+ *   POST /send      recipient, message            (needs Authorization: Bearer token)
+ *   POST /store     recipient, message            (needs Authorization: Bearer token)
+ *   POST /delete    messageId                     (needs Authorization: Bearer token)
+ *   GET  /messages  after, limit                  (needs Authorization: Bearer token)
+ *   GET  /metrics                                 -> counters and latencies, see Metrics.dump
+ * /messages returns one page of the messages the logged-in user sent and the
+ * number of the last one in the X-Last-Message header; pass it as "after" to
+ * get the next page.
+ * A body over 16 KB is answered with 413 and a badly encoded parameter with 400.
+ * /delete answers 404 unless the ID is one of the logged-in user's stored messages.
+ * /register and /login answer 503 while too many passwords are waiting to be hashed,
+ * and /login answers 429 with Retry-After once a user has used up their attempts.
+ * With a MessageDeduplicator set on the Message, /send and /store answer 409 to a
+ * suppressed repeat, or 200 without a message ID to a coalesced one.
+ */
+public class ChatServer implements Closeable {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Message messageSystem;
+    private final UserRegistry users;
+
+    /**
+     * Creates a server; call start() to begin accepting requests
+     * @param address the address to listen on (port 0 picks a free port)
+     * @param messageSystem the message system shared by all users
+     * @throws IOException if the socket cannot be bound
+     */
+    public ChatServer(InetSocketAddress address, Message messageSystem) throws IOException {
+        this(address, messageSystem, new UserRegistry());
+    }
+
+    /**
+     * Creates a server for an existing set of users; call start() to begin accepting requests
+     * @param address the address to listen on (port 0 picks a free port)
+     * @param messageSystem the message system shared by all users
+     * @param users the registered users, which new registrations are added to
+     * @throws IOException if the socket cannot be bound
+     */
+    public ChatServer(InetSocketAddress address, Message messageSystem, UserRegistry users) throws IOException {
+        this.messageSystem = messageSystem;
+        this.users = users;
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/register", post(this::register));
+        server.createContext("/login", post(this::login));
+        server.createContext("/send", post(exchange -> send(exchange, 1)));
+        server.createContext("/store", post(exchange -> send(exchange, 3)));
+        server.createContext("/delete", post(this::delete));
+        server.createContext("/messages", this::messages);
+        server.createContext("/metrics", ChatServer::metrics);
+    }
+
+    /**
+     * Returns the registered users
+     * @return the user registry
+     */
+    public UserRegistry getUsers() {
+        return users;
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server is listening on
+     * @return the bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and waits for running ones to finish
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void register(HttpExchange exchange) throws IOException {
+        Map<String, String> params = readParams(exchange);
+        Login login = new Login(params.getOrDefault("username", ""), params.getOrDefault("password", ""),
+                params.getOrDefault("cell", ""), params.getOrDefault("firstName", ""), params.getOrDefault("lastName", ""));
+        String status;
+        try {
+            status = users.register(login);
+        } catch (RejectedExecutionException e) {
+            reply(exchange, 503, "Server is busy, please try again later.");
+            return;
+        }
+        switch (status) {
+            case "Registration successful!":
+                reply(exchange, 200, status);
+                break;
+            case "Username already taken, please choose another.":
+            case "Cell phone number already registered to another user.":
+                reply(exchange, 409, status);
+                break;
+            default:
+                reply(exchange, 400, status);
+                break;
+        }
+    }
+
+    private void login(HttpExchange exchange) throws IOException {
+        Map<String, String> params = readParams(exchange);
+        String session;
+        try {
+            session = users.loginUser(params.getOrDefault("username", ""), params.getOrDefault("password", ""));
+        } catch (LoginThrottledException e) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf((e.getRetryAfterMillis() + 999) / 1000));
+            reply(exchange, 429, e.getMessage());
+            return;
+        } catch (RejectedExecutionException e) {
+            reply(exchange, 503, "Server is busy, please try again later.");
+            return;
+        }
+        if (session == null) {
+            reply(exchange, 401, "Username or password incorrect, please try again.");
+            return;
+        }
+        reply(exchange, 200, session + "\n" + users.getSessionUser(session).returnLoginStatus());
+    }
+
+    private void send(HttpExchange exchange, int choice) throws IOException {
+        Login user = sessionUser(exchange);
+        if (user == null) {
+            reply(exchange, 401, "Please log in first.");
+            return;
+        }
+        Map<String, String> params = readParams(exchange);
+        String recipient = params.getOrDefault("recipient", "");
+        String content = params.getOrDefault("message", "");
+
+        String recipientStatus = messageSystem.validateRecipientCell(recipient);
+        if (!recipientStatus.equals("Cell phone number successfully captured.")) {
+            reply(exchange, 400, recipientStatus);
+            return;
+        }
+        String lengthStatus = messageSystem.validateMessageLength(content);
+        if (!lengthStatus.equals("Message ready to send.")) {
+            reply(exchange, 400, lengthStatus);
+            return;
+        }
+        String messageId = messageSystem.generateMessageId();
+        String result = messageSystem.sentMessage(choice, messageId, recipient, content, user.getUsername());
+        if (result.startsWith("Duplicate")) {
+            reply(exchange, 409, result);
+        } else if (result.startsWith("Message already")) {
+            // Coalesced with the earlier copy, so this ID was never used
+            reply(exchange, 200, result);
+        } else if (result.startsWith("Error")) {
+            reply(exchange, 500, result);
+        } else {
+            reply(exchange, 200, result + "\nMessage ID: " + messageId);
+        }
+    }
+
+    private void delete(HttpExchange exchange) throws IOException {
+        Login user = sessionUser(exchange);
+        if (user == null) {
+            reply(exchange, 401, "Please log in first.");
+            return;
+        }
+        String result = messageSystem.deleteStoredMessage(readParams(exchange).getOrDefault("messageId", ""),
+                user.getUsername());
+        if (result.equals("Message successfully deleted.")) {
+            reply(exchange, 200, result);
+        } else if (result.equals("Message not found.")) {
+            reply(exchange, 404, result);
+        } else if (result.startsWith("Error")) {
+            reply(exchange, 500, result);
+        } else {
+            reply(exchange, 400, result);
+        }
+    }
+
+    private void messages(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                reply(exchange, 405, "Use GET.");
+                return;
+            }
+            Login user = sessionUser(exchange);
+            if (user == null) {
+                reply(exchange, 401, "Please log in first.");
+                return;
+            }
+            Map<String, String> params;
+            try {
+                params = parseParams(exchange.getRequestURI().getRawQuery());
+            } catch (BadRequestException e) {
+                reply(exchange, e.status, e.getMessage());
+                return;
+            }
+            int after;
+            int limit;
+            try {
+                after = Integer.parseInt(params.getOrDefault("after", "0"));
+                limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(DEFAULT_PAGE_SIZE)));
+            } catch (NumberFormatException e) {
+                reply(exchange, 400, "Please enter a valid number.");
+                return;
+            }
+            // Pages are capped, so one is built in memory; the next cursor goes in a header
+            StringBuilder page = new StringBuilder();
+            int last = messageSystem.printMessages(page, after, Math.max(0, Math.min(limit, MAX_PAGE_SIZE)),
+                    user.getUsername());
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            exchange.getResponseHeaders().set("X-Last-Message", String.valueOf(last));
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+                out.append(page);
+            }
+        }
+    }
+
+    private static void metrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                reply(exchange, 405, "Use GET.");
+                return;
+            }
+            byte[] body = Metrics.dump().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private Login sessionUser(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        return users.getSessionUser(header.substring("Bearer ".length()).trim());
+    }
+
+    /**
+     * Wraps a handler so it only accepts POST and always closes the exchange
+     */
+    private static HttpHandler post(HttpHandler handler) {
+        return exchange -> {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("POST")) {
+                    reply(exchange, 405, "Use POST.");
+                    return;
+                }
+                try {
+                    handler.handle(exchange);
+                } catch (BadRequestException e) {
+                    reply(exchange, e.status, e.getMessage());
+                }
+            }
+        };
+    }
+
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseParams(exchange.getRequestURI().getRawQuery());
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                if (body.size() + read > MAX_BODY_BYTES) {
+                    throw new BadRequestException(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes.");
+                }
+                body.write(chunk, 0, read);
+            }
+            params.putAll(parseParams(body.toString(StandardCharsets.UTF_8)));
+        }
+        return params;
+    }
+
+    private static Map<String, String> parseParams(String encoded) throws BadRequestException {
+        Map<String, String> params = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return params;
+        }
+        for (String pair : encoded.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            try {
+                params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                // A '%' not followed by two hex digits
+                throw new BadRequestException(400, "Badly encoded parameter: " + name);
+            }
+        }
+        return params;
+    }
+
+    private static void reply(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = (text + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * A request that cannot be read, answered with its status instead of dropping the connection
+     */
+    private static class BadRequestException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        BadRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * ColumnarMessageHistory class to handle keeping every sent message in a compact table
+ * A MessageData object with its four Strings costs about 300 bytes for a short
+ * message. Here each message is one long, giving where its record sits in a
+ * shared byte arena and how long it is. The record holds:
+ *   varint  the digits of the message ID packed with their count (and whether
+ *           the content is null)
+ *   varint  the digits of the cell number packed with their count and the "+"
+ *   varint  the sender: 0 for none, otherwise 1 + its place in a table of
+ *           usernames, so each username is kept once however many messages it sends
+ *   bytes   the content as UTF-8, up to the end of the record
+ * That is about 20 bytes plus the content for a typical message. The hash is
+ * not kept at all; it is worked out again from the record when asked for.
+ * A message that does not fit a record (an ID or number that is not all
+ * digits, or a hash that is not the derived one) is kept as it was given
+ * instead, so nothing is lost.
+ *
+ * Reads return small MessageData views that decode the row on demand; the
+ * fields are copied out on every call, so callers that read them repeatedly
+ * should keep the values. Appends are lock-free and numbered without gaps as
+ * in SentMessageList, and every message is kept.
+ */
+public class ColumnarMessageHistory extends AbstractList<Message.MessageData> implements MessageHistory {
+    private static final int FIRST_BUCKET_BITS = 5;
+    private static final int FIRST_BUCKET_SIZE = 1 << FIRST_BUCKET_BITS;
+    private static final int BUCKETS = 32 - FIRST_BUCKET_BITS;
+    private static final int MAX_SIZE = Integer.MAX_VALUE - FIRST_BUCKET_SIZE;
+
+    // Record arena: 1 MB chunks, up to 64 GB in all
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 16;
+    private static final int MAX_INLINE_CONTENT = 64 * 1024;
+    private static final int LENGTH_BITS = 24;
+
+    // Packed digits: value, then 5 bits of digit count, then 1 bit for a leading "+"
+    private static final int MAX_DIGITS = 16;
+    private static final int VALUE_SHIFT = 6;
+    private static final long NOT_PACKED = -1;
+    private static final long NULL_DIGITS = 31 << 1;
+    // Longest record header: two varints of up to 9 bytes and one of up to 5
+    private static final int MAX_HEADER = 23;
+
+    // Location markers; real locations are never negative
+    private static final long UNPUBLISHED = -1;
+    private static final long OVERFLOW = -2;
+
+    private final AtomicReferenceArray<Rows> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final AtomicReferenceArray<byte[]> arena = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicLong arenaEnd = new AtomicLong();
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicInteger overflowCount = new AtomicInteger();
+    private final Map<Integer, Message.MessageData> overflow = new ConcurrentHashMap<>();
+    private final Map<String, Integer> senderCodes = new ConcurrentHashMap<>();
+    private final List<String> senders = new CopyOnWriteArrayList<>();
+
+    /**
+     * Claims the next message number and stores the message built for it as a record
+     * @param factory builds the message for the claimed number (numbers start at 1)
+     * @return the message as built; later reads return views of the stored row
+     */
+    @Override
+    public Message.MessageData append(IntFunction<Message.MessageData> factory) {
+        int number = count.incrementAndGet();
+        if (number < 0 || number > MAX_SIZE) {
+            count.decrementAndGet();
+            throw new IllegalStateException("Message history is full");
+        }
+        Message.MessageData data = null;
+        try {
+            data = factory.apply(number);
+        } finally {
+            // Always fill the claimed row so readers waiting on it are released
+            store(number, data != null ? data : new Message.MessageData(null, number, null, null, ""));
+        }
+        return data;
+    }
+
+    /**
+     * Returns a view of the message with the given index (message number - 1)
+     * Waits briefly if the row was claimed but not yet published.
+     * @param index the index of the message
+     * @return a view of the message
+     */
+    @Override
+    public Message.MessageData get(int index) {
+        if (index < 0 || index >= count.get()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + count.get());
+        }
+        Rows rows;
+        while ((rows = buckets.get(bucketOf(index))) == null) {
+            Thread.onSpinWait();
+        }
+        int row = offsetOf(index);
+        long location;
+        while ((location = rows.locations.get(row)) == UNPUBLISHED) {
+            Thread.onSpinWait();
+        }
+        if (location == OVERFLOW) {
+            return overflow.get(index + 1);
+        }
+        return new Row(index + 1, location);
+    }
+
+    /**
+     * Returns the number of messages appended, which is also the last number handed out
+     * @return the message count
+     */
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public int totalAppended() {
+        return count.get();
+    }
+
+    @Override
+    public int retained() {
+        return count.get();
+    }
+
+    @Override
+    public int firstRetainedNumber() {
+        return 1;
+    }
+
+    @Override
+    public Message.MessageData getByNumber(int messageNumber) {
+        return messageNumber >= 1 && messageNumber <= count.get() ? get(messageNumber - 1) : null;
+    }
+
+    @Override
+    public List<Message.MessageData> view() {
+        return Collections.unmodifiableList(this);
+    }
+
+    /**
+     * Returns how many messages did not fit a record and are kept as given
+     * @return the overflow message count
+     */
+    public int getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Returns how many bytes of the record arena are in use, including chunk ends skipped over
+     * @return the arena size in bytes
+     */
+    public long getArenaBytes() {
+        return arenaEnd.get();
+    }
+
+    /**
+     * Removes every message and restarts numbering at 1
+     * Must not be called while other threads are appending.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, null);
+        }
+        for (int i = 0; i < MAX_CHUNKS && arena.get(i) != null; i++) {
+            arena.set(i, null);
+        }
+        arenaEnd.set(0);
+        overflow.clear();
+        overflowCount.set(0);
+        senderCodes.clear();
+        senders.clear();
+        count.set(0);
+    }
+
+    private void store(int number, Message.MessageData data) {
+        Rows rows = bucketFor(number - 1);
+        int row = offsetOf(number - 1);
+        long id = packDigits(data.getMessageId());
+        long recipient = packDigits(data.getRecipient());
+        String content = data.getMessageContent();
+        byte[] bytes = content == null ? null : content.getBytes(StandardCharsets.UTF_8);
+        if (id == NOT_PACKED || recipient == NOT_PACKED || data.getMessageNumber() != number
+                || (bytes != null && bytes.length > MAX_INLINE_CONTENT)
+                || !MessageHasher.hash(data.getMessageId(), number, content).equals(data.getMessageHash())) {
+            overflow.put(number, data);
+            overflowCount.incrementAndGet();
+            rows.locations.set(row, OVERFLOW);
+            return;
+        }
+        byte[] header = new byte[MAX_HEADER];
+        int headerLength = putVarLong(header, 0, (id << 1) | (bytes == null ? 1 : 0));
+        headerLength = putVarLong(header, headerLength, recipient);
+        headerLength = putVarLong(header, headerLength, senderCode(data.getSender()));
+        int length = headerLength + (bytes == null ? 0 : bytes.length);
+        long offset = allocate(length);
+        byte[] chunk = chunk(offset);
+        int start = (int) (offset & (CHUNK_SIZE - 1));
+        System.arraycopy(header, 0, chunk, start, headerLength);
+        if (bytes != null) {
+            System.arraycopy(bytes, 0, chunk, start + headerLength, bytes.length);
+        }
+        // Volatile write last: readers that see it also see the record bytes
+        rows.locations.set(row, (offset << LENGTH_BITS) | length);
+    }
+
+    /**
+     * Returns the code a sender is stored as, adding the username to the table on first use
+     */
+    private int senderCode(String sender) {
+        if (sender == null) {
+            return 0;
+        }
+        return senderCodes.computeIfAbsent(sender, name -> {
+            // Only this thread is adding name, and the map entry appears after the list entry
+            synchronized (senders) {
+                senders.add(name);
+                return senders.size();
+            }
+        });
+    }
+
+    private static int putVarLong(byte[] target, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Claims room in the arena that does not cross a chunk boundary
+     */
+    private long allocate(int length) {
+        while (true) {
+            long start = arenaEnd.getAndAdd(length);
+            if ((start >>> CHUNK_BITS) == ((start + length - 1) >>> CHUNK_BITS)) {
+                return start;
+            }
+            // The end of this chunk is skipped; try again at the start of the next
+        }
+    }
+
+    private byte[] chunk(long offset) {
+        int index = (int) (offset >>> CHUNK_BITS);
+        if (index >= MAX_CHUNKS) {
+            throw new IllegalStateException("Message content arena is full");
+        }
+        byte[] chunk = arena.get(index);
+        if (chunk == null) {
+            arena.compareAndSet(index, null, new byte[CHUNK_SIZE]);
+            chunk = arena.get(index);
+        }
+        return chunk;
+    }
+
+    /**
+     * Packs a string of up to 16 digits, optionally after a "+", into a long
+     * @return the packed value, or NOT_PACKED if the string is not of that form
+     */
+    static long packDigits(String value) {
+        if (value == null) {
+            return NULL_DIGITS;
+        }
+        int length = value.length();
+        int start = length > 0 && value.charAt(0) == '+' ? 1 : 0;
+        int digits = length - start;
+        if (digits > MAX_DIGITS) {
+            return NOT_PACKED;
+        }
+        long number = 0;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_PACKED;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return (number << VALUE_SHIFT) | ((long) digits << 1) | start;
+    }
+
+    /**
+     * Turns a value packed by packDigits back into its string, leading zeros included
+     */
+    static String unpackDigits(long packed) {
+        if (packed == NULL_DIGITS) {
+            return null;
+        }
+        int plus = (int) (packed & 1);
+        int digits = (int) (packed >>> 1) & 31;
+        long number = packed >>> VALUE_SHIFT;
+        char[] text = new char[plus + digits];
+        if (plus == 1) {
+            text[0] = '+';
+        }
+        for (int i = text.length - 1; i >= plus; i--) {
+            text[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return new String(text);
+    }
+
+    private Rows bucketFor(int index) {
+        int bucket = bucketOf(index);
+        Rows rows = buckets.get(bucket);
+        if (rows == null) {
+            buckets.compareAndSet(bucket, null, new Rows(FIRST_BUCKET_SIZE << bucket));
+            rows = buckets.get(bucket);
+        }
+        return rows;
+    }
+
+    private static int bucketOf(int index) {
+        return 31 - Integer.numberOfLeadingZeros(index + FIRST_BUCKET_SIZE) - FIRST_BUCKET_BITS;
+    }
+
+    private static int offsetOf(int index) {
+        return index + FIRST_BUCKET_SIZE - Integer.highestOneBit(index + FIRST_BUCKET_SIZE);
+    }
+
+    /**
+     * The record locations for one bucket of messages
+     */
+    private static class Rows {
+        final AtomicLongArray locations;
+
+        Rows(int size) {
+            long[] unpublished = new long[size];
+            Arrays.fill(unpublished, UNPUBLISHED);
+            locations = new AtomicLongArray(unpublished);
+        }
+    }
+
+    /**
+     * Flyweight view of one stored record; every getter decodes from the arena
+     */
+    private final class Row extends Message.MessageData {
+        private final byte[] chunk;
+        private final int start;
+        private final int end;
+
+        Row(int number, long location) {
+            super(null, number, null, null, null);
+            long offset = location >>> LENGTH_BITS;
+            this.chunk = arena.get((int) (offset >>> CHUNK_BITS));
+            this.start = (int) (offset & (CHUNK_SIZE - 1));
+            this.end = start + (int) (location & ((1 << LENGTH_BITS) - 1));
+        }
+
+        @Override
+        public String getMessageId() {
+            return unpackDigits(getVarLong(start) >>> 1);
+        }
+
+        @Override
+        public String getRecipient() {
+            return unpackDigits(getVarLong(skipVarLong(start)));
+        }
+
+        @Override
+        public String getSender() {
+            int code = (int) getVarLong(skipVarLong(skipVarLong(start)));
+            return code == 0 ? null : senders.get(code - 1);
+        }
+
+        @Override
+        public String getMessageContent() {
+            if (contentIsNull()) {
+                return null;
+            }
+            int content = contentStart();
+            return new String(chunk, content, end - content, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String getMessageHash() {
+            if (contentIsNull()) {
+                return MessageHasher.hash(getMessageId(), getMessageNumber(), null);
+            }
+            // Hashed straight from the arena bytes, without decoding the content
+            int content = contentStart();
+            return MessageHasher.hash(getMessageId(), getMessageNumber(), chunk, content, end - content);
+        }
+
+        private boolean contentIsNull() {
+            return (chunk[start] & 1) != 0;
+        }
+
+        private int contentStart() {
+            return skipVarLong(skipVarLong(skipVarLong(start)));
+        }
+
+        private long getVarLong(int position) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = chunk[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        private int skipVarLong(int position) {
+            while (chunk[position++] < 0) {
+                // continuation byte
+            }
+            return position;
+        }
+    }
+}
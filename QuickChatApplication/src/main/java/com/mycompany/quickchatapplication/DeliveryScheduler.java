@@ -0,0 +1,420 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DeliveryScheduler class to handle sending stored messages to their recipients
+ * Messages stored with "Store Message to send later" are read from the message
+ * log and queued per recipient. Every tick the scheduler takes up to one batch
+ * from each waiting recipient, up to maxPerTick messages in all, and hands
+ * them to a fixed pool of worker threads that deliver them through a Transport.
+ * The drain rate is therefore capped at maxPerTick per interval however large
+ * the backlog, and busy recipients cannot starve quiet ones. A tick does not
+ * wait for its batches, so a slow recipient only holds up its own messages:
+ * it is not given another batch until the one in progress is done.
+ *
+ * Each recipient's messages are delivered one at a time in the order they were
+ * stored; a failed delivery goes back to the front of its queue and is retried
+ * once a delay has passed, starting at one interval and doubling with each
+ * failure in a row that delivered nothing, up to MAX_RETRY_DELAY_MILLIS. At most maxQueued messages are held in memory: reading the
+ * log waits for deliveries to free up room (backpressure).
+ *
+ * Delivery is at least once. A delivered message is deleted from the log with
+ * a tombstone, so a restart skips it and the next compaction reclaims it; only
+ * a message whose tombstone could not be written is delivered again. Messages
+ * stored more than once under the same ID are delivered once.
+ */
+public class DeliveryScheduler implements Closeable {
+    public static final long DEFAULT_INTERVAL_MILLIS = 100;
+    public static final int DEFAULT_MAX_PER_TICK = 10_000;
+    public static final int DEFAULT_MAX_QUEUED = 100_000;
+    public static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+    // Messages taken from one recipient per tick
+    private static final int MAX_BATCH = 64;
+
+    private final Transport transport;
+    private final MessageLog source;
+    private final long intervalMillis;
+    private final int maxPerTick;
+    private final Semaphore room;
+    private final Map<String, RecipientQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<RecipientQueue> ready = new ConcurrentLinkedQueue<>();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timer;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    // IDs of the log messages queued or being delivered
+    private final Set<String> queuedIds = ConcurrentHashMap.newKeySet();
+    // Loader state, only touched by the loader thread
+    private long lastLoaded = -1;
+    private int loadedCompactions;
+    // Every record before this address has been queued or skipped
+    private volatile long loadedThrough;
+    private volatile boolean closed;
+
+    /**
+     * Creates a scheduler with the default schedule, using one worker per processor
+     * @param transport delivers the messages
+     * @param source the log to read stored messages from, or null to only deliver enqueued messages
+     */
+    public DeliveryScheduler(Transport transport, MessageLog source) {
+        this(transport, source, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_QUEUED,
+                DEFAULT_INTERVAL_MILLIS, DEFAULT_MAX_PER_TICK);
+    }
+
+    /**
+     * Creates a scheduler; call start() to begin delivering
+     * @param transport delivers the messages
+     * @param source the log to read stored messages from, or null to only deliver enqueued messages
+     * @param workers how many deliveries may run at once
+     * @param maxQueued how many messages may wait in memory before reading the log pauses
+     * @param intervalMillis the time between ticks
+     * @param maxPerTick the most messages delivered per tick
+     */
+    public DeliveryScheduler(Transport transport, MessageLog source, int workers, int maxQueued,
+            long intervalMillis, int maxPerTick) {
+        if (workers < 1 || maxQueued < 1 || intervalMillis < 1 || maxPerTick < 1) {
+            throw new IllegalArgumentException("Workers, queue size, interval and rate must be positive");
+        }
+        this.transport = transport;
+        this.source = source;
+        this.intervalMillis = intervalMillis;
+        this.maxPerTick = maxPerTick;
+        this.room = new Semaphore(maxQueued);
+        this.workers = Executors.newFixedThreadPool(workers, daemon("delivery-worker"));
+        this.timer = Executors.newScheduledThreadPool(2, daemon("delivery-timer"));
+    }
+
+    /**
+     * Starts the ticks, and reading the log if there is one
+     * @throws IllegalStateException if already started or closed
+     */
+    public void start() {
+        if (closed || !started.compareAndSet(false, true)) {
+            throw new IllegalStateException(closed ? "Scheduler closed" : "Scheduler already started");
+        }
+        timer.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        if (source != null) {
+            timer.scheduleWithFixedDelay(this::loadStored, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queues a message for delivery, waiting for room if too many are queued already
+     * @param message the message to deliver
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    public void enqueue(Message.MessageData message) throws InterruptedException {
+        enqueue(message, false);
+    }
+
+    /**
+     * Checks whether start() has been called
+     * @return true once the scheduler is delivering
+     */
+    public boolean isStarted() {
+        return started.get();
+    }
+
+    /**
+     * Returns how many messages are queued or being delivered
+     * @return the pending message count
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Returns how many recipients have messages waiting
+     * @return the number of recipient queues
+     */
+    public int getRecipients() {
+        return queues.size();
+    }
+
+    /**
+     * Returns how many messages have been delivered
+     * @return the delivered message count
+     */
+    public long getDelivered() {
+        return deliveredCount.sum();
+    }
+
+    /**
+     * Returns how many delivery attempts failed and were retried
+     * @return the failed attempt count
+     */
+    public long getFailed() {
+        return failedCount.sum();
+    }
+
+    /**
+     * Waits until nothing is queued and the log has been read to its end
+     * @param timeout the longest to wait
+     * @param unit the unit of timeout
+     * @return true if drained, false if the timeout passed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pending.get() > 0 || (source != null && loadedThrough < source.getEndAddress())) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            Thread.sleep(Math.min(intervalMillis, 10));
+        }
+        return true;
+    }
+
+    /**
+     * Stops delivering and waits for the batches already handed to the workers
+     * Messages still queued stay in the log and are delivered after the next start.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        timer.shutdownNow();
+        try {
+            timer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.close();
+    }
+
+    /**
+     * Takes the next batch from each waiting recipient and delivers them, up to maxPerTick in all
+     */
+    private void tick() {
+        long now = System.currentTimeMillis();
+        int budget = maxPerTick;
+        // Recipients put back during this tick wait for the next one
+        int waiting = ready.size();
+        RecipientQueue queue;
+        while (budget > 0 && waiting-- > 0 && (queue = ready.poll()) != null) {
+            List<Pending> batch = new ArrayList<>(Math.min(MAX_BATCH, budget));
+            boolean retrying;
+            synchronized (queue) {
+                retrying = queue.retryAt > now;
+                while (!retrying && batch.size() < MAX_BATCH && batch.size() < budget && !queue.messages.isEmpty()) {
+                    batch.add(queue.messages.poll());
+                }
+            }
+            if (retrying) {
+                ready.add(queue);
+                continue;
+            }
+            budget -= batch.size();
+            // Out of the ready list but still scheduled until deliver is done, so its batches never overlap
+            RecipientQueue target = queue;
+            workers.execute(() -> deliver(target, batch));
+        }
+    }
+
+    private void deliver(RecipientQueue queue, List<Pending> batch) {
+        int done = 0;
+        boolean failed = false;
+        try {
+            for (Pending message : batch) {
+                transport.deliver(message.data);
+                if (message.fromLog) {
+                    markDelivered(message.data);
+                }
+                done++;
+            }
+        } catch (IOException | RuntimeException e) {
+            failedCount.increment();
+            failed = true;
+        }
+        boolean again;
+        synchronized (queue) {
+            // Anything not delivered goes back in front, still in order
+            for (int i = batch.size() - 1; i >= done; i--) {
+                queue.messages.addFirst(batch.get(i));
+            }
+            if (failed) {
+                // A batch that got some messages through starts the backoff over
+                queue.failures = done > 0 ? 1 : queue.failures + 1;
+                queue.retryAt = System.currentTimeMillis() + retryDelay(queue.failures);
+            } else {
+                queue.failures = 0;
+            }
+            again = !queue.messages.isEmpty();
+            if (!again) {
+                queue.scheduled = false;
+                queue.removed = true;
+                queues.remove(queue.recipient, queue);
+            }
+        }
+        if (again) {
+            ready.add(queue);
+        }
+        deliveredCount.add(done);
+        pending.addAndGet(-done);
+        room.release(done);
+    }
+
+    /**
+     * Returns how long a recipient waits after failing a number of times in a row
+     */
+    private long retryDelay(int failures) {
+        return Math.min(MAX_RETRY_DELAY_MILLIS, intervalMillis << Math.min(failures - 1, 16));
+    }
+
+    /**
+     * Deletes a delivered message from the log; if that fails it is delivered again after a restart
+     */
+    private void markDelivered(Message.MessageData data) {
+        String messageId = data.getMessageId();
+        try {
+            source.delete(messageId, MessageLog.recordSize(data));
+        } catch (IOException e) {
+            System.err.println("Error marking message " + messageId + " delivered: " + e.getMessage());
+        }
+        // Only after the tombstone, so the loader always sees it as queued or deleted
+        queuedIds.remove(messageId);
+    }
+
+    private void enqueue(Message.MessageData message, boolean fromLog) throws InterruptedException {
+        room.acquire();
+        pending.incrementAndGet();
+        while (true) {
+            RecipientQueue queue = queues.computeIfAbsent(message.getRecipient(), RecipientQueue::new);
+            boolean schedule;
+            synchronized (queue) {
+                if (queue.removed) {
+                    continue; // emptied and dropped meanwhile; make a new one
+                }
+                queue.messages.add(new Pending(message, fromLog));
+                schedule = !queue.scheduled;
+                queue.scheduled = true;
+            }
+            if (schedule) {
+                ready.add(queue);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Queues the log records stored since the last call, skipping deleted and already queued ones
+     */
+    private void loadStored() {
+        try {
+            int compactions = source.getCompactions();
+            if (compactions != loadedCompactions) {
+                // Addresses changed; read it all again, the checks below skip what is done
+                lastLoaded = -1;
+                loadedCompactions = compactions;
+            }
+            long end = source.getEndAddress();
+            source.flush();
+            // Reads the segment files directly, so waiting for room does not hold the log lock
+            MessageLog.replay(source.getDirectory(), Math.max(0, lastLoaded), (address, data, timestamp) -> {
+                if (address <= lastLoaded) {
+                    return;
+                }
+                if (closed) {
+                    throw new SchedulerClosedException();
+                }
+                String messageId = data.getMessageId();
+                if (!source.isDeleted(address, messageId) && queuedIds.add(messageId)) {
+                    try {
+                        enqueue(data, true);
+                    } catch (InterruptedException e) {
+                        queuedIds.remove(messageId);
+                        Thread.currentThread().interrupt();
+                        throw new SchedulerClosedException();
+                    }
+                }
+                lastLoaded = address;
+            });
+            if (source.getCompactions() == compactions) {
+                loadedThrough = end;
+            }
+        } catch (SchedulerClosedException e) {
+            // Closing; the rest is read after the next start
+        } catch (IOException | RuntimeException e) {
+            // Caught so the next run tries again; an escaping exception would cancel loading for good.
+            // Closing interrupts a read in progress, which is not worth reporting
+            if (!closed) {
+                System.err.println("Error reading stored messages for delivery: " + e);
+            }
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Thrown out of the replay callback to stop loading once the scheduler is closing
+     */
+    private static class SchedulerClosedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SchedulerClosedException() {
+            super("Scheduler closed", null, false, false);
+        }
+    }
+
+    /**
+     * A message waiting for delivery, and whether it was read from the log
+     */
+    private static class Pending {
+        final Message.MessageData data;
+        final boolean fromLog;
+
+        Pending(Message.MessageData data, boolean fromLog) {
+            this.data = data;
+            this.fromLog = fromLog;
+        }
+    }
+
+    /**
+     * FIFO of one recipient's messages; scheduled while it is in the ready list or being delivered
+     * After a failed delivery it is given no batch before retryAt.
+     */
+    private static class RecipientQueue {
+        final String recipient;
+        final ArrayDeque<Pending> messages = new ArrayDeque<>();
+        boolean scheduled;
+        boolean removed;
+        int failures;
+        long retryAt;
+
+        RecipientQueue(String recipient) {
+            this.recipient = recipient;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * IdGenerator interface for the strategies Message uses to create message IDs
+ * Implementations produce a numeric ID and render it into at most ten
+ * characters, so every generated ID passes Message.checkMessageID.
+ */
+public interface IdGenerator {
+
+    /**
+     * Generates the next ID in numeric form
+     * @return the next ID
+     */
+    long nextId();
+
+    /**
+     * Writes an ID as text into a caller-supplied buffer without allocating
+     * @param id an ID returned by nextId
+     * @param target the buffer to write to
+     * @param offset where to start writing
+     * @return the number of bytes written
+     */
+    int render(long id, byte[] target, int offset);
+
+    /**
+     * Generates the next ID as a message ID string
+     * The only allocation is the returned String.
+     * @return the next message ID
+     */
+    default String nextMessageId() {
+        byte[] scratch = Scratch.BUFFER.get();
+        int length = render(nextId(), scratch, 0);
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes a value as exactly ten zero-padded decimal digits
+     * @param value a value in [0, 10^10)
+     * @param target the buffer to write to
+     * @param offset where to start writing
+     * @return the number of bytes written (always 10)
+     */
+    static int renderDecimal(long value, byte[] target, int offset) {
+        for (int i = offset + 9; i >= offset; i--) {
+            target[i] = (byte) ('0' + (int) (value % 10));
+            value /= 10;
+        }
+        return 10;
+    }
+
+    /**
+     * Per-thread scratch buffer used by nextMessageId
+     */
+    final class Scratch {
+        static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[16]);
+
+        private Scratch() {
+        }
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * InvertedIndex class to handle keyword search over message content
+ * Maps each term to the sorted list of document numbers containing it. Terms
+ * come from MessageHasher.forEachTerm, so a word matches exactly when it would
+ * contribute the same letters to a message hash.
+ *
+ * Posting lists are stored as variable-length deltas between document numbers
+ * (one byte for gaps under 128). New documents go into a small sorted buffer
+ * first, so documents added slightly out of order by concurrent senders are
+ * still encoded in order. Removing the oldest document of a list, as a bounded
+ * history does when it evicts, only moves the start of the list forward.
+ *
+ * Queries: words are ANDed, OR between words unions the groups on either side,
+ * and a word ending in '*' matches every term with that prefix. For example
+ * "dinner tonight OR lunch*" finds messages with both DINNER and TONIGHT, or
+ * with a word starting with LUNCH.
+ */
+public class InvertedIndex {
+    private static final int[] NONE = new int[0];
+
+    private final Map<String, Postings> terms = new HashMap<>();
+    // Sorted copy of the terms for prefix queries; rebuilt after new terms arrive
+    private String[] sortedTerms;
+    private int documents;
+
+    /**
+     * Indexes the content of a document
+     * @param document the document number (e.g. a message number), not negative
+     * @param content the text to index
+     */
+    public synchronized void add(int document, CharSequence content) {
+        MessageHasher.forEachTerm(content, term -> {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+                sortedTerms = null;
+            }
+            postings.add(document);
+        });
+        documents++;
+    }
+
+    /**
+     * Removes a document added earlier with the same content
+     * Terms whose last document is removed are dropped.
+     * @param document the document number
+     * @param content the text it was indexed with
+     */
+    public synchronized void remove(int document, CharSequence content) {
+        MessageHasher.forEachTerm(content, term -> {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(document) && postings.isEmpty()) {
+                terms.remove(term);
+                sortedTerms = null;
+            }
+        });
+        if (documents > 0) {
+            documents--;
+        }
+    }
+
+    /**
+     * Runs a query
+     * @param query words, OR and prefix* terms as described on the class
+     * @return the matching document numbers in ascending order
+     */
+    public synchronized int[] search(String query) {
+        int[] result = NONE;
+        for (String clause : query.trim().split("\\s+OR\\s+")) {
+            result = union(result, searchAll(clause));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the documents containing one term
+     * @param term the term, in any case
+     * @return the matching document numbers in ascending order
+     */
+    public synchronized int[] postings(String term) {
+        Postings postings = terms.get(normalize(term));
+        return postings == null ? NONE : postings.toArray();
+    }
+
+    /**
+     * Returns the number of distinct terms
+     * @return the vocabulary size
+     */
+    public synchronized int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Returns the number of documents added
+     * @return the document count
+     */
+    public synchronized int documentCount() {
+        return documents;
+    }
+
+    /**
+     * Returns the bytes used by the encoded posting lists
+     * @return the compressed size of all postings
+     */
+    public synchronized long encodedBytes() {
+        long total = 0;
+        for (Postings postings : terms.values()) {
+            postings.flush();
+            total += postings.length - postings.start;
+        }
+        return total;
+    }
+
+    /**
+     * Removes every term and document
+     */
+    public synchronized void clear() {
+        terms.clear();
+        sortedTerms = null;
+        documents = 0;
+    }
+
+    /**
+     * Writes the index in a compact binary form
+     * @param out the stream to write to
+     * @throws IOException if the stream fails
+     */
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(documents);
+        out.writeInt(terms.size());
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            Postings postings = entry.getValue();
+            postings.flush();
+            postings.rebase();
+            out.writeUTF(entry.getKey());
+            out.writeInt(postings.count);
+            out.writeInt(postings.last);
+            out.writeInt(postings.length);
+            out.write(postings.encoded, 0, postings.length);
+        }
+    }
+
+    /**
+     * Reads an index written by writeTo
+     * @param in the stream to read from
+     * @return the index
+     * @throws IOException if the stream fails or is not an index
+     */
+    public static InvertedIndex readFrom(DataInputStream in) throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        index.documents = in.readInt();
+        int termCount = in.readInt();
+        if (index.documents < 0 || termCount < 0) {
+            throw new IOException("Corrupt search index");
+        }
+        for (int i = 0; i < termCount; i++) {
+            String term = in.readUTF();
+            Postings postings = new Postings();
+            postings.count = in.readInt();
+            postings.last = in.readInt();
+            postings.length = in.readInt();
+            if (postings.count < 0 || postings.length < 0) {
+                throw new IOException("Corrupt search index");
+            }
+            postings.encoded = new byte[Math.max(8, postings.length)];
+            in.readFully(postings.encoded, 0, postings.length);
+            index.terms.put(term, postings);
+        }
+        return index;
+    }
+
+    private int[] searchAll(String clause) {
+        int[] result = null;
+        for (String word : clause.split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            String term = normalize(prefix ? word.substring(0, word.length() - 1) : word);
+            if (term.isEmpty() && !prefix) {
+                continue; // no letters, so it could never have been indexed
+            }
+            int[] matches;
+            if (prefix) {
+                matches = prefixPostings(term);
+            } else {
+                Postings postings = terms.get(term);
+                matches = postings == null ? NONE : postings.toArray();
+            }
+            result = result == null ? matches : intersect(result, matches);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result == null ? NONE : result;
+    }
+
+    private int[] prefixPostings(String prefix) {
+        if (sortedTerms == null) {
+            sortedTerms = terms.keySet().toArray(new String[0]);
+            Arrays.sort(sortedTerms);
+        }
+        int i = Arrays.binarySearch(sortedTerms, prefix);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        int[] result = NONE;
+        for (; i < sortedTerms.length && sortedTerms[i].startsWith(prefix); i++) {
+            result = union(result, terms.get(sortedTerms[i]).toArray());
+        }
+        return result;
+    }
+
+    private static String normalize(String word) {
+        StringBuilder term = new StringBuilder(word.length());
+        MessageHasher.forEachTerm(word, term::append);
+        return term.toString();
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int[] out = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Delta-encoded posting list with a small sorted buffer of recent documents
+     */
+    private static class Postings {
+        private static final int BUFFER_SIZE = 16;
+
+        byte[] encoded = new byte[8];
+        int length;
+        // Number of documents in encoded, and the last one
+        int count;
+        int last = -1;
+        // Where the first live delta starts, and the document it is a delta from
+        int start;
+        int base = -1;
+        private int[] buffer;
+        private int buffered;
+
+        void add(int document) {
+            if (buffer == null) {
+                buffer = new int[BUFFER_SIZE];
+            }
+            // Insertion sort from the end; documents nearly always arrive in order
+            int i = buffered;
+            while (i > 0 && buffer[i - 1] > document) {
+                i--;
+            }
+            if ((i > 0 && buffer[i - 1] == document) || document == last) {
+                return; // the word appears twice in the document
+            }
+            if (document < last) {
+                insertEncoded(document);
+                return;
+            }
+            System.arraycopy(buffer, i, buffer, i + 1, buffered - i);
+            buffer[i] = document;
+            buffered++;
+            if (buffered == BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            for (int i = 0; i < buffered; i++) {
+                encode(buffer[i]);
+            }
+            buffered = 0;
+        }
+
+        boolean isEmpty() {
+            return count + buffered == 0;
+        }
+
+        boolean remove(int document) {
+            for (int i = 0; i < buffered; i++) {
+                if (buffer[i] == document) {
+                    System.arraycopy(buffer, i + 1, buffer, i, buffered - i - 1);
+                    buffered--;
+                    return true;
+                }
+            }
+            if (count == 0 || document > last) {
+                return false;
+            }
+            int position = start;
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int first = base + delta;
+            if (document == first) {
+                // The oldest document: step over its delta and measure the next from it
+                start = position;
+                base = first;
+                count--;
+                if (count == 0) {
+                    reencode(NONE, 0, 0);
+                } else if (start > length / 2) {
+                    System.arraycopy(encoded, start, encoded, 0, length - start);
+                    length -= start;
+                    start = 0;
+                }
+                return true;
+            }
+            int[] all = toArray();
+            int at = Arrays.binarySearch(all, 0, count, document);
+            if (at < 0) {
+                return false;
+            }
+            int[] rest = Arrays.copyOf(all, count);
+            System.arraycopy(rest, at + 1, rest, at, count - at - 1);
+            reencode(rest, 0, count - 1);
+            return true;
+        }
+
+        /**
+         * Re-encodes the list so its first delta is from -1 again, as writeTo expects
+         */
+        void rebase() {
+            if (start != 0 || base != -1) {
+                reencode(Arrays.copyOf(toArray(), count), 0, count);
+            }
+        }
+
+        int[] toArray() {
+            int[] out = new int[count + buffered];
+            int position = start;
+            int value = base;
+            for (int i = 0; i < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = encoded[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += delta;
+                out[i] = value;
+            }
+            System.arraycopy(buffer == null ? NONE : buffer, 0, out, count, buffered);
+            return out;
+        }
+
+        private void reencode(int[] documents, int from, int to) {
+            length = 0;
+            count = 0;
+            last = -1;
+            start = 0;
+            base = -1;
+            for (int i = from; i < to; i++) {
+                encode(documents[i]);
+            }
+        }
+
+        private void encode(int document) {
+            if (length + 5 > encoded.length) {
+                encoded = Arrays.copyOf(encoded, Math.max(encoded.length * 2, length + 5));
+            }
+            // Deltas are from the previous document; the first is from -1
+            int delta = document - last;
+            while ((delta & ~0x7F) != 0) {
+                encoded[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            encoded[length++] = (byte) delta;
+            last = document;
+            count++;
+        }
+
+        /**
+         * Rare path for a document older than everything already encoded: re-encode the list
+         */
+        private void insertEncoded(int document) {
+            int[] all = toArray();
+            int at = Arrays.binarySearch(all, 0, count, document);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            reencode(all, 0, at);
+            encode(document);
+            for (int i = at; i < all.length - buffered; i++) {
+                encode(all[i]);
+            }
+        }
+    }
+}
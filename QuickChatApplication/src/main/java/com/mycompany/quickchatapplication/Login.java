@@ -3,14 +3,17 @@
  * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
  */
 package com.mycompany.quickchatapplication;
-import java.util.regex.Pattern;
 
 /**
  * Login class to handle user registration and authentication
+ * The password is kept as entered until setPasswordHash replaces it with a
+ * salted hash (UserRegistry does this on registration); after that only the
+ * hash is kept.
  */
 public class Login {
     private String username;
     private String password;
+    private String passwordHash;
     private String cellPhoneNumber;
     private String firstName;
     private String lastName;
@@ -38,7 +41,7 @@ public class Login {
      * @return true if username contains an underscore and is no more than 5 characters long
      */
     public boolean checkUserName() {
-        return username.contains("_") && username.length() <= 5;
+        return Validators.isValidUsername(username);
     }
 
     /**
@@ -46,27 +49,8 @@ public class Login {
      * @return true if password is at least 8 characters, contains a capital letter, a number, and a special character
      */
     public boolean checkPasswordComplexity() {
-        // Check for minimum length
-        if (password.length() < 8) {
-            return false;
-        }
-        
-        // Check for capital letter
-        if (!Pattern.compile("[A-Z]").matcher(password).find()) {
-            return false;
-        }
-        
-        // Check for number
-        if (!Pattern.compile("[0-9]").matcher(password).find()) {
-            return false;
-        }
-        
-        // Check for special character
-        if (!Pattern.compile("[^a-zA-Z0-9]").matcher(password).find()) {
-            return false;
-        }
-        
-        return true;
+        // Single pass over the password; see Validators for the exact rules
+        return Validators.isComplexPassword(password);
     }
 
     /**
@@ -76,9 +60,7 @@ public class Login {
     public boolean checkCellPhoneNumber() {
         // Cell phone number should start with + (international code) and be at most 13 characters
         // South African numbers are typically +27 followed by 9 digits
-        return cellPhoneNumber.startsWith("+") && 
-               cellPhoneNumber.length() <= 13 && 
-               Pattern.compile("^\\+\\d+$").matcher(cellPhoneNumber).matches();
+        return Validators.isInternationalNumber(cellPhoneNumber);
         /*
         To help create a regular expression-based cellphone number checker in Java, I used OpenAI's ChatGPT (2025). I prompted it with:
         "Write a Java method using regex to validate South African cellphone numbers that start with +27 followed by number which are no mor than 9 digits long."
@@ -91,19 +73,27 @@ public class Login {
      * @return String message indicating registration status
      */
     public String registerUser() {
-        if (!checkUserName()) {
-            return "Username is not correctly formatted, please ensure that your username contains an underscore and is no more than five characters in length.";
-        }
-        
-        if (!checkPasswordComplexity()) {
-            return "Password is not correctly formatted, please ensure that the password contains at least eight characters, a capital letter, a number, and a special character.";
+        long start = Metrics.start();
+        try {
+            if (!checkUserName()) {
+                Metrics.reject(Metrics.Rejection.USERNAME_FORMAT);
+                return "Username is not correctly formatted, please ensure that your username contains an underscore and is no more than five characters in length.";
+            }
+
+            if (!checkPasswordComplexity()) {
+                Metrics.reject(Metrics.Rejection.PASSWORD_COMPLEXITY);
+                return "Password is not correctly formatted, please ensure that the password contains at least eight characters, a capital letter, a number, and a special character.";
+            }
+
+            if (!checkCellPhoneNumber()) {
+                Metrics.reject(Metrics.Rejection.CELL_FORMAT);
+                return "Cell number is incorrectly formatted or does not contain an international code, please correct the number and try again.";
+            }
+
+            return "Registration successful!";
+        } finally {
+            Metrics.stop(Metrics.Timer.VALIDATE, start);
         }
-        
-        if (!checkCellPhoneNumber()) {
-            return "Cell number is incorrectly formatted or does not contain an international code, please correct the number and try again.";
-        }
-        
-        return "Registration successful!";
     }
 
     /**
@@ -113,10 +103,15 @@ public class Login {
      * @return true if login successful, false otherwise
      */
     public boolean loginUser(String enteredUsername, String enteredPassword) {
-        if (enteredUsername.equals(username) && enteredPassword.equals(password)) {
+        // The password is always checked, in constant time, whatever the username
+        boolean passwordMatches = passwordHash != null
+                ? PasswordHasher.verify(enteredPassword, passwordHash)
+                : PasswordHasher.constantTimeEquals(enteredPassword, password);
+        if (enteredUsername.equals(username) && passwordMatches) {
             loggedIn = true;
             return true;
         }
+        Metrics.reject(Metrics.Rejection.LOGIN_FAILED);
         return false;
     }
 
@@ -147,6 +142,16 @@ public class Login {
 
     public void setPassword(String password) {
         this.password = password;
+        this.passwordHash = null;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+        this.password = null;
     }
 
     public String getCellPhoneNumber() {
@@ -0,0 +1,195 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LoginRateLimiter class to handle limiting login attempts per username or cell number
+ * Each key has a token bucket: it starts with a burst of attempts, every attempt
+ * uses one, and they come back at a steady rate. Once a key runs dry it is
+ * locked out until the next token arrives.
+ *
+ * Buckets live in a fixed table of primitive longs instead of a map of objects,
+ * so hundreds of thousands of keys cost no allocation per attempt. A bucket is
+ * one long (refill time and tokens packed together) updated with
+ * compareAndSet, so attempts never block each other. Keys hash to a set of
+ * eight slots; when all are taken the new key replaces the fullest bucket,
+ * ideally one that has refilled completely and so has nothing to remember.
+ * The table therefore never grows, and a key that is locked out is the last
+ * to be forgotten, so flooding the limiter with new keys cannot unlock it.
+ */
+public class LoginRateLimiter {
+    public static final int DEFAULT_SLOTS = 1 << 18;
+    public static final int DEFAULT_BURST = 10;
+    public static final double DEFAULT_REFILL_PER_SECOND = 1.0 / 6; // ten a minute
+
+    private static final int WAYS = 8;
+    private static final long EMPTY = 0;
+    // A bucket is (milliseconds since start << 24) | thousandths of a token
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long ONE_TOKEN = 1000;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray buckets;
+    private final int mask;
+    private final long fullTokens;
+    private final double refillPerMilli;
+    private final long start = System.nanoTime();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LoginRateLimiter() {
+        this(DEFAULT_SLOTS, DEFAULT_BURST, DEFAULT_REFILL_PER_SECOND);
+    }
+
+    /**
+     * Creates a limiter
+     * @param slots how many keys to track at most (rounded up to a power of two)
+     * @param burst how many attempts a key may make in quick succession (1 to 16,000)
+     * @param refillPerSecond how many attempts a key gets back each second
+     */
+    public LoginRateLimiter(int slots, int burst, double refillPerSecond) {
+        if (slots < WAYS || burst < 1 || burst * ONE_TOKEN > TOKEN_MASK || !(refillPerSecond > 0)) {
+            throw new IllegalArgumentException("Invalid rate limit");
+        }
+        int size = Integer.highestOneBit(slots - 1) << 1;
+        this.keys = new AtomicLongArray(size);
+        this.buckets = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.fullTokens = burst * ONE_TOKEN;
+        // Thousandths of a token per millisecond is the same number as tokens per second
+        this.refillPerMilli = refillPerSecond;
+    }
+
+    /**
+     * Uses up one attempt for a key if it has any left
+     * @param key a username or cell phone number
+     * @return true if the attempt may go ahead
+     */
+    public boolean tryAcquire(CharSequence key) {
+        return acquire(key) == 0;
+    }
+
+    /**
+     * Uses up one attempt for a key if it has any left
+     * @param key a username or cell phone number
+     * @return 0 if the attempt may go ahead, otherwise how many milliseconds until it would
+     */
+    public long acquire(CharSequence key) {
+        long hash = keyOf(key);
+        int set = mix(hash) & mask & -WAYS;
+        long now = now();
+        while (true) {
+            int slot = find(hash, set);
+            if (slot < 0) {
+                slot = claim(hash, set, now);
+                if (slot < 0) {
+                    continue; // lost a race for the slot; look again
+                }
+            }
+            long bucket = buckets.get(slot);
+            if (keys.get(slot) != hash) {
+                continue; // evicted meanwhile
+            }
+            long tokens = tokens(bucket, now);
+            if (tokens < ONE_TOKEN) {
+                return Math.max(1, (long) Math.ceil((ONE_TOKEN - tokens) / refillPerMilli));
+            }
+            if (buckets.compareAndSet(slot, bucket, pack(Math.max(now, bucket >>> TOKEN_BITS), tokens - ONE_TOKEN))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns how many attempts a key has left right now, without using one
+     * @param key a username or cell phone number
+     * @return the whole attempts left
+     */
+    public int available(CharSequence key) {
+        long hash = keyOf(key);
+        int slot = find(hash, mix(hash) & mask & -WAYS);
+        return (int) ((slot < 0 ? fullTokens : tokens(buckets.get(slot), now())) / ONE_TOKEN);
+    }
+
+    /**
+     * Returns how many keys were forgotten to make room for new ones
+     * @return the eviction count
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    private int find(long hash, int set) {
+        for (int i = set; i < set + WAYS; i++) {
+            if (keys.get(i) == hash) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Takes a slot in the set for a new key, starting it with a full bucket
+     */
+    private int claim(long hash, int set, long now) {
+        int victim = -1;
+        long most = -1;
+        for (int i = set; i < set + WAYS; i++) {
+            if (keys.get(i) == EMPTY) {
+                victim = i;
+                break;
+            }
+            long tokens = tokens(buckets.get(i), now);
+            if (tokens > most) {
+                most = tokens;
+                victim = i;
+                if (tokens == fullTokens) {
+                    break;
+                }
+            }
+        }
+        long previous = keys.get(victim);
+        if (previous == hash || !keys.compareAndSet(victim, previous, hash)) {
+            return -1;
+        }
+        if (previous != EMPTY) {
+            evictions.incrementAndGet();
+        }
+        // A racing attempt on the old key may still land on this bucket; the
+        // next one finds the key changed and starts over
+        buckets.set(victim, pack(now, fullTokens));
+        return victim;
+    }
+
+    private long tokens(long bucket, long now) {
+        long elapsed = now - (bucket >>> TOKEN_BITS);
+        long tokens = bucket & TOKEN_MASK;
+        if (elapsed <= 0) {
+            return tokens;
+        }
+        return Math.min(fullTokens, tokens + (long) (elapsed * refillPerMilli));
+    }
+
+    private long now() {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static long pack(long millis, long tokens) {
+        return millis << TOKEN_BITS | tokens;
+    }
+
+    private static long keyOf(CharSequence key) {
+        long hash = SentMessageIndex.valueKey(key);
+        return hash == EMPTY ? -1 : hash;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+/**
+ * LoginThrottledException class to handle login attempts refused by a LoginRateLimiter
+ * Thrown before the password is checked, so a refused attempt costs no hashing.
+ */
+public class LoginThrottledException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    /**
+     * Creates the exception
+     * @param retryAfterMillis how long until another attempt would be allowed
+     */
+    public LoginThrottledException(long retryAfterMillis) {
+        super("Too many login attempts, please try again in " + Math.max(1, (retryAfterMillis + 999) / 1000) + " seconds.");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns how long until another attempt would be allowed
+     * @return the wait in milliseconds
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
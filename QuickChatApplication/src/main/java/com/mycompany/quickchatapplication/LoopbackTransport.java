@@ -0,0 +1,70 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LoopbackTransport class to handle delivery into in-memory inboxes
+ * A stand-in for a real network transport: each delivered message is added to
+ * its recipient's inbox in this process. Useful for tests and for running the
+ * delivery pipeline without sending anything anywhere.
+ */
+public class LoopbackTransport implements Transport {
+    private final Map<String, List<Message.MessageData>> inboxes = new ConcurrentHashMap<>();
+    private final LongAdder delivered = new LongAdder();
+    private final boolean keepMessages;
+
+    public LoopbackTransport() {
+        this(true);
+    }
+
+    /**
+     * Creates a loopback transport
+     * @param keepMessages false to only count deliveries, e.g. for very large backlogs
+     */
+    public LoopbackTransport(boolean keepMessages) {
+        this.keepMessages = keepMessages;
+    }
+
+    @Override
+    public void deliver(Message.MessageData message) throws IOException {
+        if (keepMessages) {
+            List<Message.MessageData> inbox = inboxes.computeIfAbsent(message.getRecipient(), recipient -> new ArrayList<>());
+            synchronized (inbox) {
+                inbox.add(message);
+            }
+        }
+        delivered.increment();
+    }
+
+    /**
+     * Returns the messages delivered to a recipient, in delivery order
+     * @param recipient the recipient cell number
+     * @return a copy of the recipient's inbox
+     */
+    public List<Message.MessageData> getInbox(String recipient) {
+        List<Message.MessageData> inbox = inboxes.get(recipient);
+        if (inbox == null) {
+            return new ArrayList<>();
+        }
+        synchronized (inbox) {
+            return new ArrayList<>(inbox);
+        }
+    }
+
+    /**
+     * Returns how many messages have been delivered
+     * @return the delivery count
+     */
+    public long getDelivered() {
+        return delivered.sum();
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MappedMessageStore class to handle reading the message log through memory maps
+ * Each segment of a MessageLog directory is mapped read-only. Records are exposed
+ * through a reusable MappedMessage view that decodes fields straight from the
+ * mapped bytes only when they are asked for, so scanning the store does not copy
+ * records onto the heap.
+ */
+public class MappedMessageStore implements Closeable {
+    public static final int FIELD_MESSAGE_ID = 0;
+    public static final int FIELD_RECIPIENT = 1;
+    public static final int FIELD_MESSAGE_CONTENT = 2;
+    public static final int FIELD_MESSAGE_HASH = 3;
+    /** Only present in records whose sender is known; see hasField */
+    public static final int FIELD_SENDER = 4;
+
+    // Offsets inside a message record, counted from the start of the record
+    private static final int TYPE_OFFSET = MessageLog.HEADER_SIZE;
+    private static final int TIMESTAMP_OFFSET = TYPE_OFFSET + 1;
+    private static final int NUMBER_OFFSET = TIMESTAMP_OFFSET + 8;
+    private static final int FIRST_FIELD_OFFSET = NUMBER_OFFSET + 4;
+
+    private final Path directory;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final List<Integer> segmentIndexes = new ArrayList<>();
+
+    /**
+     * Maps every segment currently in a log directory
+     * @param directory the MessageLog directory
+     * @throws IOException if a segment cannot be mapped
+     */
+    public MappedMessageStore(Path directory) throws IOException {
+        this.directory = directory;
+        mapSegments();
+    }
+
+    /**
+     * Maps the directory's segments again, picking up appended records and new segments
+     * @throws IOException if a segment cannot be mapped
+     */
+    public synchronized void refresh() throws IOException {
+        mapSegments();
+    }
+
+    /**
+     * Maps every segment in the directory, replacing the current mappings
+     * Private so the constructor does not call a method a subclass could override.
+     */
+    private void mapSegments() throws IOException {
+        List<Path> paths = MessageLog.listSegments(directory);
+        segments.clear();
+        segmentIndexes.clear();
+        for (Path path : paths) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // The mapping stays valid after the channel is closed
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                segmentIndexes.add(MessageLog.segmentIndexOf(path));
+            }
+        }
+    }
+
+    /**
+     * Returns a view of the record at the given address
+     * @param address a record address returned by MessageLog.append
+     * @return a view of the message
+     * @throws IllegalArgumentException if no message record starts at the address
+     */
+    public synchronized MappedMessage get(long address) {
+        int position = segmentIndexes.indexOf(MessageLog.segmentOf(address));
+        if (position < 0) {
+            throw new IllegalArgumentException("No segment for address " + address);
+        }
+        MappedMessage view = new MappedMessage();
+        if (!view.moveTo(segments.get(position), (int) MessageLog.offsetOf(address), MessageLog.segmentOf(address))
+                || view.type() != MessageLog.RECORD_MESSAGE) {
+            throw new IllegalArgumentException("No message record at address " + address);
+        }
+        return view;
+    }
+
+    /**
+     * Returns a cursor over every message record, oldest first
+     * The cursor is itself the MappedMessage view and is repositioned by next(),
+     * so values must be read (or copied with toMessageData) before advancing.
+     * @return a cursor positioned before the first message
+     */
+    public synchronized Cursor cursor() {
+        return new Cursor(new ArrayList<>(segments), new ArrayList<>(segmentIndexes));
+    }
+
+    /**
+     * Returns the number of mapped segments
+     * @return the segment count
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        // Mapped buffers are released by the garbage collector once unreachable
+        segments.clear();
+        segmentIndexes.clear();
+    }
+
+    /**
+     * A lazily decoded view of one message record in a mapped segment
+     */
+    public static class MappedMessage {
+        ByteBuffer segment;
+        int recordOffset;
+        int recordLength;
+        int segmentIndex;
+        // Offsets of the four string fields; -1 until first needed
+        private final int[] fieldOffsets = new int[5];
+
+        /**
+         * Returns the address of this record in the log
+         * @return the packed segment index and offset
+         */
+        public long getAddress() {
+            return MessageLog.address(segmentIndex, recordOffset);
+        }
+
+        // Getters; string getters decode a new String on each call
+        public long getTimestamp() {
+            return segment.getLong(recordOffset + TIMESTAMP_OFFSET);
+        }
+
+        public int getMessageNumber() {
+            return segment.getInt(recordOffset + NUMBER_OFFSET);
+        }
+
+        public String getMessageId() {
+            return getField(FIELD_MESSAGE_ID);
+        }
+
+        public String getRecipient() {
+            return getField(FIELD_RECIPIENT);
+        }
+
+        public String getMessageContent() {
+            return getField(FIELD_MESSAGE_CONTENT);
+        }
+
+        public String getMessageHash() {
+            return getField(FIELD_MESSAGE_HASH);
+        }
+
+        public String getSender() {
+            return hasField(FIELD_SENDER) ? getField(FIELD_SENDER) : null;
+        }
+
+        /**
+         * Checks whether the record holds a field; older records end after the hash
+         * @param field one of the FIELD_ constants
+         * @return true if the field is present
+         */
+        public boolean hasField(int field) {
+            return fieldOffset(field) >= 0;
+        }
+
+        /**
+         * Decodes one string field into a new String
+         * @param field one of the FIELD_ constants
+         * @return the field value
+         */
+        public String getField(int field) {
+            int offset = fieldOffset(field);
+            int length = segment.getShort(offset) & 0xFFFF;
+            byte[] bytes = new byte[length];
+            segment.get(offset + 2, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Appends one string field straight from the mapped bytes, without building a String
+         * @param field one of the FIELD_ constants
+         * @param out where to append the decoded characters
+         * @throws IOException if the Appendable fails
+         */
+        public void appendField(int field, Appendable out) throws IOException {
+            int offset = fieldOffset(field);
+            int length = segment.getShort(offset) & 0xFFFF;
+            int i = offset + 2;
+            int end = i + length;
+            while (i < end) {
+                int b = segment.get(i) & 0xFF;
+                if (b < 0x80) {
+                    out.append((char) b);
+                    i++;
+                } else {
+                    i = appendMultiByte(b, i, end, out);
+                }
+            }
+        }
+
+        /**
+         * Copies this record into a heap MessageData
+         * @return a detached copy of the message
+         */
+        public Message.MessageData toMessageData() {
+            return new Message.MessageData(getMessageId(), getMessageNumber(), getRecipient(),
+                    getMessageContent(), getMessageHash(), getSender());
+        }
+
+        byte type() {
+            return segment.get(recordOffset + TYPE_OFFSET);
+        }
+
+        /**
+         * Points the view at a record
+         * @return false if no complete record starts at the offset
+         */
+        boolean moveTo(ByteBuffer buffer, int offset, int index) {
+            if (offset < 0 || offset + MessageLog.HEADER_SIZE > buffer.limit()) {
+                return false;
+            }
+            int bodyLength = buffer.getInt(offset);
+            int length = MessageLog.HEADER_SIZE + bodyLength + MessageLog.TRAILER_SIZE;
+            if (bodyLength <= 0 || offset + length > buffer.limit()) {
+                return false;
+            }
+            segment = buffer;
+            recordOffset = offset;
+            recordLength = length;
+            segmentIndex = index;
+            fieldOffsets[0] = -1;
+            return true;
+        }
+
+        private int fieldOffset(int field) {
+            if (fieldOffsets[0] < 0) {
+                int offset = recordOffset + FIRST_FIELD_OFFSET;
+                int end = recordOffset + recordLength - MessageLog.TRAILER_SIZE;
+                for (int i = 0; i < fieldOffsets.length; i++) {
+                    fieldOffsets[i] = offset < end ? offset : -1;
+                    if (offset < end) {
+                        offset += 2 + (segment.getShort(offset) & 0xFFFF);
+                    }
+                }
+            }
+            return fieldOffsets[field];
+        }
+
+        private int appendMultiByte(int first, int i, int end, Appendable out) throws IOException {
+            int extra;
+            int codePoint;
+            if (first >= 0xF0) {
+                extra = 3;
+                codePoint = first & 0x07;
+            } else if (first >= 0xE0) {
+                extra = 2;
+                codePoint = first & 0x0F;
+            } else {
+                extra = 1;
+                codePoint = first & 0x1F;
+            }
+            if (i + extra >= end) {
+                // Truncated sequence; cannot happen for records written by MessageLog
+                out.append('\uFFFD');
+                return end;
+            }
+            for (int k = 1; k <= extra; k++) {
+                codePoint = (codePoint << 6) | (segment.get(i + k) & 0x3F);
+            }
+            if (Character.isBmpCodePoint(codePoint)) {
+                out.append((char) codePoint);
+            } else {
+                out.append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+            }
+            return i + extra + 1;
+        }
+    }
+
+    /**
+     * A forward-only cursor over the message records of the mapped segments
+     */
+    public static class Cursor extends MappedMessage {
+        private final List<MappedByteBuffer> cursorSegments;
+        private final List<Integer> cursorIndexes;
+        private int segmentPosition;
+        private int nextOffset;
+
+        Cursor(List<MappedByteBuffer> segments, List<Integer> indexes) {
+            this.cursorSegments = segments;
+            this.cursorIndexes = indexes;
+        }
+
+        /**
+         * Advances to the next message record
+         * @return false when there are no more records
+         */
+        public boolean next() {
+            while (segmentPosition < cursorSegments.size()) {
+                ByteBuffer buffer = cursorSegments.get(segmentPosition);
+                if (moveTo(buffer, nextOffset, cursorIndexes.get(segmentPosition))) {
+                    nextOffset += recordLength;
+                    if (type() == MessageLog.RECORD_MESSAGE) {
+                        return true;
+                    }
+                    continue;
+                }
+                segmentPosition++;
+                nextOffset = 0;
+            }
+            return false;
+        }
+    }
+}
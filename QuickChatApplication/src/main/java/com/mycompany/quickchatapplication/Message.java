@@ -4,26 +4,91 @@
  */
 package com.mycompany.quickchatapplication;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * Message class to handle messaging functionality
  * Allows users to send, store, and manage messages
+ * Safe to share between threads: message numbers are claimed atomically and
+ * sent messages are appended to a lock-free history. The history keeps every
+ * message by default, or only the most recent ones when given a bounded
+ * RingBufferMessageHistory.
  */
 public class Message {
-    private List<MessageData> sentMessages;
-    private int totalMessagesSent;
-    private Random random;
+    public static final Path DEFAULT_STORE_DIRECTORY = Paths.get("stored_messages");
+
+    // Shared store, opened on first use and kept open until the JVM exits
+    private static MessageLog defaultStore;
+
+    private final MessageHistory sentMessages;
+    private final SentMessageIndex sentIndex;
+    private final InvertedIndex sentSearch;
+    private final LongAdder totalMessagesStored;
+    private volatile MessageLog store;
+    private volatile BatchingMessageWriter batchWriter;
+    private volatile SentMessageJournal journal;
+    private volatile MessageDeduplicator deduplicator;
+    private volatile IdGenerator idGenerator = new RandomIdGenerator();
 
     public Message() {
-        this.sentMessages = new ArrayList<>();
-        this.totalMessagesSent = 0;
-        this.random = new Random();
+        this(null);
+    }
+
+    /**
+     * Creates a message system that stores messages in the given log
+     * @param store the log used by storeMessage, or null for the shared default store
+     */
+    public Message(MessageLog store) {
+        this(store, new SentMessageList());
+    }
+
+    /**
+     * Creates a message system with its own history of sent messages
+     * @param store the log used by storeMessage, or null for the shared default store
+     * @param history where sent messages are kept, e.g. a bounded RingBufferMessageHistory
+     */
+    public Message(MessageLog store, MessageHistory history) {
+        this.sentMessages = history;
+        this.sentIndex = new SentMessageIndex(history);
+        this.sentSearch = new InvertedIndex();
+        history.setEvictionListener(data -> {
+            sentIndex.remove(data);
+            sentSearch.remove(data.getMessageNumber(), data.getMessageContent());
+        });
+        this.totalMessagesStored = new LongAdder();
+        this.store = store;
+    }
+
+    /**
+     * Returns the shared store in DEFAULT_STORE_DIRECTORY, opening it on first use
+     * @return the default message log
+     */
+    public static synchronized MessageLog defaultStore() {
+        if (defaultStore == null) {
+            try {
+                defaultStore = new MessageLog(DEFAULT_STORE_DIRECTORY);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open message store", e);
+            }
+            final MessageLog opened = defaultStore;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    opened.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing message store: " + e.getMessage());
+                }
+            }));
+        }
+        return defaultStore;
     }
 
     /**
@@ -35,14 +100,25 @@ public class Message {
         private String recipient;
         private String messageContent;
         private String messageHash;
+        private String sender;
 
         public MessageData(String messageId, int messageNumber, String recipient, 
                           String messageContent, String messageHash) {
+            this(messageId, messageNumber, recipient, messageContent, messageHash, null);
+        }
+
+        /**
+         * Creates message data that records who sent the message
+         * @param sender the username of the sender, or null if not known
+         */
+        public MessageData(String messageId, int messageNumber, String recipient,
+                          String messageContent, String messageHash, String sender) {
             this.messageId = messageId;
             this.messageNumber = messageNumber;
             this.recipient = recipient;
             this.messageContent = messageContent;
             this.messageHash = messageHash;
+            this.sender = sender;
         }
 
         // Getters
@@ -51,6 +127,7 @@ public class Message {
         public String getRecipient() { return recipient; }
         public String getMessageContent() { return messageContent; }
         public String getMessageHash() { return messageHash; }
+        public String getSender() { return sender; }
     }
 
     /**
@@ -69,10 +146,7 @@ public class Message {
      */
     public int checkRecipientCell(String recipientCell) {
         // Check if number starts with + and is no more than 13 characters
-        if (recipientCell != null && 
-            recipientCell.startsWith("+") && 
-            recipientCell.length() <= 13 && 
-            Pattern.compile("^\\+\\d+$").matcher(recipientCell).matches()) {
+        if (Validators.isInternationalNumber(recipientCell)) {
             return 1; // Valid
         }
         return 0; // Invalid
@@ -87,32 +161,35 @@ public class Message {
      * @return the generated hash
      */
     public String createMessageHash(String messageId, int messageNumber, String messageContent) {
-        if (messageId == null || messageContent == null || messageId.length() < 2) {
-            return "";
-        }
-
-        // Get first two digits of message ID
-        String firstTwoDigits = messageId.substring(0, 2);
-        
-        // Split message into words and remove punctuation
-        String[] words = messageContent.trim().split("\\s+");
-        String firstWord = words.length > 0 ? words[0].replaceAll("[^a-zA-Z]", "") : "";
-        String lastWord = words.length > 1 ? words[words.length - 1].replaceAll("[^a-zA-Z]", "") : firstWord;
-        
-        // Create hash in format: XX:Y:FIRSTLAST
-        return (firstTwoDigits + ":" + messageNumber + ":" + firstWord.toUpperCase() + lastWord.toUpperCase());
+        // Single pass over the content; see MessageHasher for the exact word rules
+        MessageEvents.Hashed event = new MessageEvents.Hashed();
+        event.begin();
+        long start = Metrics.start();
+        String hash = MessageHasher.hash(messageId, messageNumber, messageContent);
+        Metrics.stop(Metrics.Timer.HASH, start);
+        event.finish(messageId, messageNumber, messageContent);
+        return hash;
     }
 
     /**
-     * Generates a random 10-digit message ID
-     * @return a random 10-digit string
+     * Generates a message ID using the configured IdGenerator
+     * By default this is a random 10-digit string.
+     * @return the generated message ID
      */
     public String generateMessageId() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < 10; i++) {
-            sb.append(random.nextInt(10));
-        }
-        return sb.toString();
+        MessageEvents.IdGenerated event = new MessageEvents.IdGenerated();
+        event.begin();
+        String messageId = idGenerator.nextMessageId();
+        event.finish(messageId);
+        return messageId;
+    }
+
+    /**
+     * Sets the strategy used by generateMessageId
+     * @param idGenerator the ID generator to use
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
     }
 
     /**
@@ -121,15 +198,22 @@ public class Message {
      * @return validation message
      */
     public String validateMessageLength(String message) {
-        if (message == null) {
-            return "Message cannot be null.";
-        }
-        
-        if (message.length() <= 250) {
-            return "Message ready to send.";
-        } else {
-            int excess = message.length() - 250;
-            return "Message exceeds 250 characters by " + excess + ", please reduce size.";
+        long start = Metrics.start();
+        try {
+            if (message == null) {
+                Metrics.reject(Metrics.Rejection.MESSAGE_NULL);
+                return "Message cannot be null.";
+            }
+
+            if (message.length() <= 250) {
+                return "Message ready to send.";
+            } else {
+                Metrics.reject(Metrics.Rejection.MESSAGE_TOO_LONG);
+                int excess = message.length() - 250;
+                return "Message exceeds 250 characters by " + excess + ", please reduce size.";
+            }
+        } finally {
+            Metrics.stop(Metrics.Timer.VALIDATE, start);
         }
     }
 
@@ -139,9 +223,16 @@ public class Message {
      * @return validation message
      */
     public String validateRecipientCell(String recipientCell) {
-        if (checkRecipientCell(recipientCell) == 1) {
+        MessageEvents.RecipientValidated event = new MessageEvents.RecipientValidated();
+        event.begin();
+        long start = Metrics.start();
+        int valid = checkRecipientCell(recipientCell);
+        Metrics.stop(Metrics.Timer.VALIDATE, start);
+        event.finish(recipientCell, valid == 1);
+        if (valid == 1) {
             return "Cell phone number successfully captured.";
         } else {
+            Metrics.reject(Metrics.Rejection.RECIPIENT_FORMAT);
             return "Cell phone number is incorrectly formatted or does not contain an international code. Please correct the number and try again.";
         }
     }
@@ -155,100 +246,583 @@ public class Message {
      * @return result message
      */
     public String sentMessage(int choice, String messageId, String recipient, String messageContent) {
-        switch (choice) {
-            case 1: // Send Message
-                totalMessagesSent++;
-                String hash = createMessageHash(messageId, totalMessagesSent, messageContent);
-                MessageData messageData = new MessageData(messageId, totalMessagesSent, recipient, messageContent, hash);
-                sentMessages.add(messageData);
-                return "Message successfully sent.";
+        return sentMessage(choice, messageId, recipient, messageContent, null);
+    }
+
+    /**
+     * Handles sending message based on user choice, recording who sent it
+     * @param choice user's choice (1=Send, 2=Disregard, 3=Store)
+     * @param messageId the message ID
+     * @param recipient the recipient
+     * @param messageContent the message content
+     * @param sender the username of the sender, or null if not known
+     * @return result message
+     */
+    public String sentMessage(int choice, String messageId, String recipient, String messageContent, String sender) {
+        return sentMessage(choice, messageId, recipient, messageContent, sender, null);
+    }
+
+    /**
+     * Handles sending message based on user choice, passing on the message once it is sent or stored
+     * @param choice user's choice (1=Send, 2=Disregard, 3=Store)
+     * @param messageId the message ID
+     * @param recipient the recipient
+     * @param messageContent the message content
+     * @param sender the username of the sender, or null if not known
+     * @param recorded receives the sent or stored message with its number and hash, or null
+     * @return result message
+     */
+    public String sentMessage(int choice, String messageId, String recipient, String messageContent, String sender,
+            Consumer<MessageData> recorded) {
+        // Repeats are turned away before anything is counted, so they only show as rejections
+        MessageDeduplicator claimed = choice == 1 || choice == 3 ? deduplicator : null;
+        if (isRepeat(claimed, recipient, messageContent)) {
+            if (claimed.getMode() == MessageDeduplicator.Mode.SUPPRESS) {
+                return choice == 1 ? "Duplicate message not sent." : "Duplicate message not stored.";
+            }
+            return choice == 1 ? "Message already sent." : "Message already stored.";
+        }
+        boolean remembered = false;
+        MessageEvents.Handled event = new MessageEvents.Handled();
+        event.begin();
+        try {
+            switch (choice) {
+                case 1: // Send Message
+                    Metrics.count(Metrics.Choice.SEND);
+                    MessageData sent = recordSentMessage(messageId, recipient, messageContent, sender);
+                    remember(claimed, recipient, messageContent);
+                    remembered = true;
+                    if (recorded != null) {
+                        recorded.accept(sent);
+                    }
+                    return "Message successfully sent.";
                 
-            case 2: // Disregard Message
-                return "Press 0 to delete message.";
+                case 2: // Disregard Message
+                    Metrics.count(Metrics.Choice.DISREGARD);
+                    return "Press 0 to delete message.";
                 
-            case 3: // Store Message
-                storeMessage(messageId, recipient, messageContent);
-                return "Message successfully stored.";
+                case 3: // Store Message
+                    Metrics.count(Metrics.Choice.STORE);
+                    MessageData stored = recordStoredMessage(messageId, recipient, messageContent, sender);
+                    if (stored == null) {
+                        // Released, so trying again is not taken for a repeat
+                        return "Error storing message.";
+                    }
+                    remember(claimed, recipient, messageContent);
+                    remembered = true;
+                    if (recorded != null) {
+                        recorded.accept(stored);
+                    }
+                    return "Message successfully stored.";
                 
-            default:
-                return "Invalid choice.";
+                default:
+                    Metrics.count(Metrics.Choice.INVALID);
+                    return "Invalid choice.";
+            }
+        } finally {
+            if (claimed != null && !remembered) {
+                claimed.release(recipient, messageContent);
+            }
+            event.finish(messageId, messageContent, choice);
         }
     }
 
     /**
-     * Stores message in JSON format
-     * Uses ChatGPT assistance for JSON file creation
+     * Records a sent message, numbering and indexing it
      * @param messageId the message ID
      * @param recipient the recipient
      * @param messageContent the message content
+     * @return the recorded message, with its number and hash
      */
-    public void storeMessage(String messageId, String recipient, String messageContent) {
-        /*
-         * JSON storage functionality created with assistance from ChatGPT (2025).
-         * Prompt: "Create a Java method to store message data in JSON format including messageId, recipient, and content"
-         * The code was adapted for this messaging application.
-         */
-        try (FileWriter writer = new FileWriter("stored_messages.json", true)) {
-            String hash = createMessageHash(messageId, totalMessagesSent + 1, messageContent);
-            
-            writer.write("{\n");
-            writer.write("  \"messageId\": \"" + messageId + "\",\n");
-            writer.write("  \"messageNumber\": " + (totalMessagesSent + 1) + ",\n");
-            writer.write("  \"recipient\": \"" + recipient + "\",\n");
-            writer.write("  \"messageContent\": \"" + messageContent + "\",\n");
-            writer.write("  \"messageHash\": \"" + hash + "\",\n");
-            writer.write("  \"timestamp\": \"" + System.currentTimeMillis() + "\"\n");
-            writer.write("},\n");
-            
-        } catch (IOException e) {
+    public MessageData recordSentMessage(String messageId, String recipient, String messageContent) {
+        return recordSentMessage(messageId, recipient, messageContent, null);
+    }
+
+    /**
+     * Records a sent message and who sent it, numbering and indexing it
+     * @param messageId the message ID
+     * @param recipient the recipient
+     * @param messageContent the message content
+     * @param sender the username of the sender, or null if not known
+     * @return the recorded message, with its number and hash
+     */
+    public MessageData recordSentMessage(String messageId, String recipient, String messageContent, String sender) {
+        return sentMessages.append(number -> {
+            MessageData data = new MessageData(messageId, number, recipient, messageContent,
+                    createMessageHash(messageId, number, messageContent), sender);
+            SentMessageJournal current = journal;
+            if (current != null) {
+                // Logged before anyone can see it, so a crash never loses a message already shown
+                try {
+                    current.append(data);
+                } catch (IOException | UncheckedIOException e) {
+                    System.err.println("Error logging sent message: " + e.getMessage());
+                }
+            }
+            // Indexed before it is published, so an eviction always finds it
+            sentIndex.add(data);
+            sentSearch.add(number, messageContent);
+            return data;
+        });
+    }
+
+    /**
+     * Stores a message and counts it as stored, as choice 3 of sentMessage does
+     * @param messageId the message ID
+     * @param recipient the recipient
+     * @param messageContent the message content
+     * @return the stored message, or null if it could not be written
+     */
+    public MessageData recordStoredMessage(String messageId, String recipient, String messageContent) {
+        return recordStoredMessage(messageId, recipient, messageContent, null);
+    }
+
+    /**
+     * Stores a message with its sender and counts it as stored, as choice 3 of sentMessage does
+     * @param messageId the message ID
+     * @param recipient the recipient
+     * @param messageContent the message content
+     * @param sender the username of the sender, or null if not known
+     * @return the stored message, or null if it could not be written
+     */
+    public MessageData recordStoredMessage(String messageId, String recipient, String messageContent, String sender) {
+        MessageData messageData = storeMessage(messageId, recipient, messageContent, sender);
+        totalMessagesStored.increment();
+        return messageData;
+    }
+
+    /**
+     * Stores message in the append-only message log
+     * @param messageId the message ID
+     * @param recipient the recipient
+     * @param messageContent the message content
+     * @return the stored message, or null if it could not be written
+     */
+    public MessageData storeMessage(String messageId, String recipient, String messageContent) {
+        return storeMessage(messageId, recipient, messageContent, null);
+    }
+
+    /**
+     * Stores message and who sent it in the append-only message log
+     * @param messageId the message ID
+     * @param recipient the recipient
+     * @param messageContent the message content
+     * @param sender the username of the sender, or null if not known
+     * @return the stored message, or null if it could not be written
+     */
+    public MessageData storeMessage(String messageId, String recipient, String messageContent, String sender) {
+        MessageEvents.Persisted event = new MessageEvents.Persisted();
+        event.begin();
+        MessageData messageData = newStoredMessage(messageId, recipient, messageContent, sender);
+        boolean stored = false;
+        long start = Metrics.start();
+        try {
+            if (batchWriter != null) {
+                // Wait for our batch to be synced; concurrent callers share the same sync
+                batchWriter.enqueue(messageData, System.currentTimeMillis()).join();
+            } else {
+                getStore().append(messageData, System.currentTimeMillis());
+            }
+            stored = true;
+            return messageData;
+        } catch (IOException | UncheckedIOException | CompletionException | IllegalArgumentException e) {
+            // IllegalArgumentException: the log rejected the message, e.g. a field too long to store
             System.err.println("Error storing message: " + e.getMessage());
+            return null;
+        } finally {
+            Metrics.stop(Metrics.Timer.STORE, start);
+            event.finish(messageId, messageContent, stored);
+        }
+    }
+
+    /**
+     * Queues a message on the batching writer without waiting for it to reach disk
+     * @param messageId the message ID
+     * @param recipient the recipient
+     * @param messageContent the message content
+     * @return a future completed with the record address once the message is synced
+     */
+    public CompletableFuture<Long> storeMessageAsync(String messageId, String recipient, String messageContent) {
+        if (batchWriter == null) {
+            throw new IllegalStateException("No batching writer configured");
+        }
+        return batchWriter.enqueue(newStoredMessage(messageId, recipient, messageContent, null), System.currentTimeMillis());
+    }
+
+    /**
+     * Claims the message with the deduplicator, if there is one, counting a rejection for a repeat
+     * The claim is recorded by remember once the message has been sent or stored,
+     * and released by sentMessage otherwise.
+     */
+    private static boolean isRepeat(MessageDeduplicator deduplicator, String recipient, String messageContent) {
+        if (deduplicator == null || deduplicator.claim(recipient, messageContent)) {
+            return false;
+        }
+        Metrics.reject(Metrics.Rejection.DUPLICATE);
+        return true;
+    }
+
+    private static void remember(MessageDeduplicator deduplicator, String recipient, String messageContent) {
+        if (deduplicator != null) {
+            deduplicator.record(recipient, messageContent);
         }
     }
 
+    private void restoreSentMessage(MessageData data) {
+        if (data.getMessageNumber() <= sentMessages.totalAppended()) {
+            return;
+        }
+        sentMessages.resumeAfter(data.getMessageNumber() - 1);
+        sentMessages.append(number -> {
+            if (data.getMessageId() != null) {
+                sentIndex.add(data);
+                sentSearch.add(number, data.getMessageContent());
+            }
+            return data;
+        });
+    }
+
+    /**
+     * Builds a message to store, numbered as the next message to be sent
+     */
+    private MessageData newStoredMessage(String messageId, String recipient, String messageContent, String sender) {
+        int messageNumber = sentMessages.totalAppended() + 1;
+        String hash = createMessageHash(messageId, messageNumber, messageContent);
+        return new MessageData(messageId, messageNumber, recipient, messageContent, hash, sender);
+    }
+
+    /**
+     * Routes stored messages through a batching writer (group commit)
+     * @param batchWriter the writer to use, or null to append directly to the store
+     */
+    public void setBatchWriter(BatchingMessageWriter batchWriter) {
+        this.batchWriter = batchWriter;
+    }
+
+    /**
+     * Turns on checking for the same message sent to the same recipient again
+     * Repeats within the deduplicator's window are not sent or stored a second
+     * time by sentMessage; see MessageDeduplicator.Mode for what the user is told.
+     * @param deduplicator the deduplicator to use, or null to allow repeats
+     */
+    public void setDeduplicator(MessageDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * Returns the deduplicator checking for repeated messages
+     * @return the deduplicator, or null if repeats are allowed
+     */
+    public MessageDeduplicator getDeduplicator() {
+        return deduplicator;
+    }
+
+    /**
+     * Restores sent messages from a journal and logs every message sent afterwards to it
+     * Recovered messages keep their numbers and hashes, and numbering carries on
+     * after the last one. Must be called before any message is sent.
+     * @param journal the journal to recover from and log to
+     * @return the number of messages recovered
+     * @throws IOException if the journal cannot be read
+     * @throws IllegalStateException if messages have already been sent
+     */
+    public int recoverSentMessages(SentMessageJournal journal) throws IOException {
+        if (sentMessages.totalAppended() > 0) {
+            throw new IllegalStateException("Messages have already been sent");
+        }
+        int before = sentMessages.retained();
+        int lastNumber = journal.recover(this::restoreSentMessage);
+        sentMessages.resumeAfter(lastNumber);
+        journal.attach(sentMessages);
+        this.journal = journal;
+        return sentMessages.retained() - before;
+    }
+
+    /**
+     * Returns the log used to store messages
+     * @return the message log
+     */
+    public MessageLog getStore() {
+        MessageLog current = store;
+        if (current == null) {
+            current = defaultStore();
+            store = current;
+        }
+        return current;
+    }
+
     /**
      * Returns a formatted string of all sent messages
+     * Builds the whole report in memory; use the paged printMessages for large histories.
      * @return string containing all message details
      */
     public String printMessages() {
-        if (sentMessages.isEmpty()) {
+        if (sentMessages.retained() == 0) {
             return "No messages sent yet.";
         }
 
         StringBuilder sb = new StringBuilder();
         sb.append("=== SENT MESSAGES ===\n");
-        
-        for (MessageData msg : sentMessages) {
-            sb.append("Message ID: ").append(msg.getMessageId()).append("\n");
-            sb.append("Message Hash: ").append(msg.getMessageHash()).append("\n");
-            sb.append("Recipient: ").append(msg.getRecipient()).append("\n");
-            sb.append("Message: ").append(msg.getMessageContent()).append("\n");
-            sb.append("------------------------\n");
-        }
-        
+        try {
+            printMessages(sb, 0, Integer.MAX_VALUE);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
         return sb.toString();
     }
 
+    /**
+     * Writes one page of sent messages, oldest first, in the printMessages format
+     * Only the messages on the page are visited, so the cost depends on the page
+     * size and not on how many messages were sent. Pass the returned number back
+     * as afterNumber to get the next page.
+     * @param out where to write the page, e.g. a Writer or StringBuilder
+     * @param afterNumber the page starts after this message number (0 for the first page)
+     * @param limit the most messages to write
+     * @return the number of the last message written, or afterNumber if none were
+     * @throws IOException if the Appendable fails
+     */
+    public int printMessages(Appendable out, int afterNumber, int limit) throws IOException {
+        int last = sentMessages.totalAppended();
+        int number = Math.max(afterNumber, sentMessages.firstRetainedNumber() - 1);
+        int written = 0;
+        while (written < limit && number < last) {
+            number++;
+            MessageData msg = sentMessages.getByNumber(number);
+            if (msg == null) {
+                continue; // evicted while paging
+            }
+            appendMessage(out, msg);
+            written++;
+        }
+        return written == 0 ? afterNumber : number;
+    }
+
+    /**
+     * Writes one page of the sent messages of one sender, oldest first
+     * Only the messages on the page are visited, found by a binary search of the
+     * sender's message numbers in the sender index.
+     * @param out where to write the page, e.g. a Writer or StringBuilder
+     * @param afterNumber the page starts after this message number (0 for the first page)
+     * @param limit the most messages to write
+     * @param sender the username whose messages to write
+     * @return the number of the last message written, or afterNumber if none were
+     * @throws IOException if the Appendable fails
+     */
+    public int printMessages(Appendable out, int afterNumber, int limit, String sender) throws IOException {
+        int last = afterNumber;
+        for (MessageData msg : sentIndex.findBySender(sender, afterNumber, limit)) {
+            appendMessage(out, msg);
+            last = msg.getMessageNumber();
+        }
+        return last;
+    }
+
+    private static void appendMessage(Appendable out, MessageData msg) throws IOException {
+        out.append("Message ID: ").append(msg.getMessageId()).append("\n");
+        out.append("Message Hash: ").append(msg.getMessageHash()).append("\n");
+        out.append("Recipient: ").append(msg.getRecipient()).append("\n");
+        out.append("Message: ").append(msg.getMessageContent()).append("\n");
+        out.append("------------------------\n");
+    }
+
+    /**
+     * Returns a formatted string of all stored messages
+     * Builds the whole report in memory; use printStoredMessages(Appendable) for large stores.
+     * @return string containing all stored message details
+     */
+    public String printStoredMessages() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            return printStoredMessages(sb) == 0 ? "No messages stored yet." : sb.toString();
+        } catch (IOException | UncheckedIOException e) {
+            return "Error reading stored messages: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Writes every stored message, oldest first, in the printStoredMessages format
+     * Reads the message log through memory maps; fields are copied from the
+     * mapped segments straight to out without intermediate Strings, so only
+     * what out itself keeps is held in memory.
+     * @param out where to write, e.g. a Writer on a file or socket
+     * @return the number of messages written
+     * @throws IOException if the log cannot be read or the Appendable fails
+     */
+    public int printStoredMessages(Appendable out) throws IOException {
+        MessageLog log = getStore();
+        MappedMessageStore store;
+        synchronized (log) {
+            // Mapped under the log lock so a compaction cannot swap segments mid-open
+            log.flush();
+            store = new MappedMessageStore(log.getDirectory());
+        }
+        int written = 0;
+        try (MappedMessageStore mapped = store) {
+            MappedMessageStore.Cursor cursor = mapped.cursor();
+            while (cursor.next()) {
+                if (log.isDeleted(cursor.getAddress(), cursor.getMessageId())) {
+                    continue;
+                }
+                if (written == 0) {
+                    out.append("=== STORED MESSAGES ===\n");
+                }
+                out.append("Message ID: ");
+                cursor.appendField(MappedMessageStore.FIELD_MESSAGE_ID, out);
+                out.append("\nMessage Hash: ");
+                cursor.appendField(MappedMessageStore.FIELD_MESSAGE_HASH, out);
+                out.append("\nRecipient: ");
+                cursor.appendField(MappedMessageStore.FIELD_RECIPIENT, out);
+                out.append("\nMessage: ");
+                cursor.appendField(MappedMessageStore.FIELD_MESSAGE_CONTENT, out);
+                out.append("\n------------------------\n");
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Deletes a stored message so it is no longer listed, searched or delivered
+     * The space it used is reclaimed the next time the store is compacted.
+     * @param messageId the ID of the stored message
+     * @return result message
+     */
+    public String deleteStoredMessage(String messageId) {
+        return deleteStoredMessage(messageId, null);
+    }
+
+    /**
+     * Deletes a stored message of one sender
+     * Only an ID that is stored and not yet deleted is deleted, so the store
+     * holds at most one tombstone per stored message. Another sender's message
+     * is reported as not found, the same as an unknown ID.
+     * @param messageId the exact ID of the stored message
+     * @param sender the username that must have stored it, or null for any sender
+     * @return result message
+     */
+    public String deleteStoredMessage(String messageId, String sender) {
+        if (messageId == null || messageId.isEmpty()) {
+            return "Please enter a message ID.";
+        }
+        try {
+            if (getStore().deleteIfLive(messageId, owner -> sender == null || sender.equals(owner)) < 0) {
+                return "Message not found.";
+            }
+            return "Message successfully deleted.";
+        } catch (IOException | UncheckedIOException e) {
+            return "Error deleting message: " + e.getMessage();
+        }
+    }
+
     /**
      * Returns the total number of messages sent
      * @return total count of sent messages
      */
     public int returnTotalMessages() {
-        return totalMessagesSent;
+        return sentMessages.totalAppended();
+    }
+
+    /**
+     * Returns the number of messages stored to send later
+     * @return total count of stored messages
+     */
+    public long returnTotalStored() {
+        return totalMessagesStored.sum();
     }
 
     /**
-     * Gets the list of sent messages (for testing purposes)
-     * @return list of sent messages
+     * Gets the list of sent messages still held in memory (for testing purposes)
+     * The list is a read-only view of the history, not a copy.
+     * @return list of sent messages, oldest first
      */
     public List<MessageData> getSentMessages() {
-        return new ArrayList<>(sentMessages);
+        return sentMessages.view();
+    }
+
+    /**
+     * Finds the sent messages to a recipient using the recipient index
+     * @param recipient the recipient cell number
+     * @return the messages still held in memory, oldest first
+     */
+    public List<MessageData> findMessagesByRecipient(String recipient) {
+        return sentIndex.findByRecipient(recipient);
+    }
+
+    /**
+     * Finds the sent messages of one sender using the sender index
+     * @param sender the username of the sender
+     * @return the messages still held in memory, oldest first
+     */
+    public List<MessageData> findMessagesBySender(String sender) {
+        return sentIndex.findBySender(sender);
+    }
+
+    /**
+     * Finds a sent message by its hash using the hash index
+     * @param messageHash the message hash
+     * @return the latest matching message, or null if there is none in memory
+     */
+    public MessageData findMessageByHash(String messageHash) {
+        return sentIndex.findByHash(messageHash);
+    }
+
+    /**
+     * Finds a sent message by its ID using the ID index
+     * @param messageId the message ID
+     * @return the latest matching message, or null if there is none in memory
+     */
+    public MessageData findMessageById(String messageId) {
+        return sentIndex.findById(messageId);
+    }
+
+    /**
+     * Searches the content of sent messages still held in memory
+     * @param query words to match; see InvertedIndex for OR and prefix* terms
+     * @return the matching messages, oldest first
+     */
+    public List<MessageData> searchSentMessages(String query) {
+        List<MessageData> found = new ArrayList<>();
+        for (int number : sentSearch.search(query)) {
+            MessageData data = sentMessages.getByNumber(number);
+            if (data != null) {
+                found.add(data);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Searches the content of stored messages using the store's search index
+     * @param query words to match; see InvertedIndex for OR and prefix* terms
+     * @return the matching messages in the order they were stored
+     */
+    public List<MessageData> searchStoredMessages(String query) {
+        try {
+            return getStore().getSearchIndex().search(query);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error searching stored messages: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Returns the history sent messages are kept in
+     * @return the sent message history
+     */
+    public MessageHistory getHistory() {
+        return sentMessages;
     }
 
     /**
      * Resets the message counter and clears sent messages (for testing)
+     * Must not be called while other threads are sending.
      */
     public void resetMessages() {
         sentMessages.clear();
-        totalMessagesSent = 0;
+        sentIndex.clear();
+        sentSearch.clear();
+        totalMessagesStored.reset();
     }
 }
\ No newline at end of file
@@ -0,0 +1,398 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MessageDeduplicator class to handle spotting the same message sent twice in a short time
+ * Each (recipient, content) pair is reduced to a 64-bit fingerprint and looked up
+ * in a sliding-window Bloom filter. The window is split into generations, each
+ * its own Bloom filter; new fingerprints go into the newest generation and, once
+ * a generation is windowMillis / GENERATIONS old, the oldest one is cleared and
+ * reused. A repeat is therefore always caught within windowMillis * 3 / 4 and
+ * never after windowMillis.
+ *
+ * Memory is fixed when the deduplicator is created and does not grow with
+ * traffic. The price is false positives: a new message may be taken for a
+ * repeat with about the configured probability, which rises if more than the
+ * expected number of messages arrive in one window. getFalsePositiveRate()
+ * estimates the current rate from how full the filters are.
+ *
+ * A Bloom filter cannot forget a single fingerprint, so callers that may fail
+ * to deliver a message claim it first and record it only once it has gone out,
+ * or release it if it did not; isDuplicate checks and records at once. A claimed
+ * fingerprint is held in a small set until then, so the same message claimed
+ * again while the first is still being sent is taken for a repeat.
+ */
+public class MessageDeduplicator {
+
+    /**
+     * What Message does with a repeated message
+     */
+    public enum Mode {
+        /** Turn the repeat away and tell the user it was not sent */
+        SUPPRESS,
+        /** Treat the repeat as the message already sent: report success but record nothing new */
+        COALESCE
+    }
+
+    public static final int GENERATIONS = 4;
+    public static final long DEFAULT_WINDOW_MILLIS = 60_000;
+    public static final int DEFAULT_EXPECTED_PER_WINDOW = 100_000;
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long PRIME = 0x100000001B3L;
+
+    private final Mode mode;
+    private final long windowMillis;
+    private final long generationMillis;
+    private final AtomicLongArray[] generations = new AtomicLongArray[GENERATIONS];
+    private final long bits;
+    private final int hashes;
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong checked = new AtomicLong();
+    private final Set<Long> claimed = ConcurrentHashMap.newKeySet();
+    private volatile int current;
+    private volatile long currentStart = Long.MIN_VALUE;
+
+    public MessageDeduplicator() {
+        this(Mode.SUPPRESS, DEFAULT_WINDOW_MILLIS, DEFAULT_EXPECTED_PER_WINDOW, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Creates a deduplicator
+     * @param mode what to do with a repeated message
+     * @param windowMillis how long a message counts as recent
+     * @param expectedPerWindow how many messages to expect in one window
+     * @param falsePositiveRate the chance of taking a new message for a repeat, e.g. 0.001
+     */
+    public MessageDeduplicator(Mode mode, long windowMillis, int expectedPerWindow, double falsePositiveRate) {
+        if (mode == null || windowMillis < GENERATIONS || expectedPerWindow < 1
+                || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Invalid deduplication settings");
+        }
+        this.mode = mode;
+        this.windowMillis = windowMillis;
+        this.generationMillis = windowMillis / GENERATIONS;
+        // A lookup checks every generation, so each gets a share of the false positive budget
+        double perGeneration = falsePositiveRate / GENERATIONS;
+        double perGenerationCount = Math.ceil((double) expectedPerWindow / (GENERATIONS - 1));
+        double ln2 = Math.log(2);
+        long size = (long) Math.ceil(-perGenerationCount * Math.log(perGeneration) / (ln2 * ln2));
+        this.bits = Math.max(64, (size + 63) & ~63L);
+        this.hashes = Math.max(1, (int) Math.round(bits / perGenerationCount * ln2));
+        if (bits > 1L << 31) {
+            throw new IllegalArgumentException("Deduplication window too large");
+        }
+        for (int i = 0; i < GENERATIONS; i++) {
+            generations[i] = new AtomicLongArray((int) (bits / 64));
+        }
+    }
+
+    /**
+     * Reduces a message to a 64-bit fingerprint of its recipient and content
+     * FNV-1a over the characters of both, with a separator so ("ab", "c") and
+     * ("a", "bc") differ, followed by a final mix so every bit depends on every character.
+     * @param recipient the recipient cell number
+     * @param content the message content
+     * @return the fingerprint
+     */
+    public static long fingerprint(CharSequence recipient, CharSequence content) {
+        long hash = SEED;
+        hash = mix(hash, recipient);
+        hash = (hash ^ 0xFFFF) * PRIME;
+        hash = mix(hash, content);
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Records a message and reports whether it was probably seen within the window
+     * @param recipient the recipient cell number
+     * @param content the message content
+     * @return true if the message is probably a repeat
+     */
+    public boolean isDuplicate(CharSequence recipient, CharSequence content) {
+        return isDuplicate(fingerprint(recipient, content), System.currentTimeMillis());
+    }
+
+    /**
+     * Records a fingerprint and reports whether it was probably seen within the window
+     * @param fingerprint the message's fingerprint
+     * @param nowMillis the current time in milliseconds
+     * @return true if the fingerprint is probably a repeat
+     */
+    public boolean isDuplicate(long fingerprint, long nowMillis) {
+        rotate(nowMillis);
+        checked.incrementAndGet();
+        int h1 = (int) fingerprint;
+        int h2 = (int) (fingerprint >>> 32) | 1;
+        int newest = current;
+        for (int g = 0; g < GENERATIONS; g++) {
+            if (g != newest && contains(generations[g], h1, h2)) {
+                add(generations[newest], h1, h2);
+                duplicates.incrementAndGet();
+                return true;
+            }
+        }
+        // Adding to the newest generation reports whether every bit was already set
+        if (add(generations[newest], h1, h2)) {
+            duplicates.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Claims a message for sending unless it was probably seen within the window
+     * Checking and claiming are one step: until the claim is recorded or released,
+     * claiming the same message again fails, so two threads sending the same new
+     * message at once cannot both go ahead. Call record once the message has been
+     * sent or stored, or release if it failed, so it is not taken for a repeat
+     * when it is tried again.
+     * @param recipient the recipient cell number
+     * @param content the message content
+     * @return true if the message is new and now claimed, false if it is probably a repeat
+     */
+    public boolean claim(CharSequence recipient, CharSequence content) {
+        return claim(fingerprint(recipient, content), System.currentTimeMillis());
+    }
+
+    /**
+     * Claims a fingerprint unless it was probably seen within the window or is already claimed
+     * @param fingerprint the message's fingerprint
+     * @param nowMillis the current time in milliseconds
+     * @return true if the fingerprint is new and now claimed, false if it is probably a repeat
+     */
+    public boolean claim(long fingerprint, long nowMillis) {
+        if (!claimed.add(fingerprint)) {
+            checked.incrementAndGet();
+            duplicates.incrementAndGet();
+            return false;
+        }
+        // record adds to the filter before ending a claim, so a message is always in one or the other
+        if (isRecent(fingerprint, nowMillis)) {
+            claimed.remove(fingerprint);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ends a claim without recording the message, e.g. because it could not be stored
+     * @param recipient the recipient cell number
+     * @param content the message content
+     */
+    public void release(CharSequence recipient, CharSequence content) {
+        release(fingerprint(recipient, content));
+    }
+
+    /**
+     * Ends the claim on a fingerprint without recording it
+     * @param fingerprint the message's fingerprint
+     */
+    public void release(long fingerprint) {
+        claimed.remove(fingerprint);
+    }
+
+    /**
+     * Reports whether a message was probably seen within the window, without recording it
+     * Only looks: a caller about to send the message should claim it instead.
+     * @param recipient the recipient cell number
+     * @param content the message content
+     * @return true if the message is probably a repeat
+     */
+    public boolean isRecent(CharSequence recipient, CharSequence content) {
+        return isRecent(fingerprint(recipient, content), System.currentTimeMillis());
+    }
+
+    /**
+     * Reports whether a fingerprint was probably seen within the window, without recording it
+     * A repeat found in an older generation is carried into the newest, as isDuplicate does.
+     * @param fingerprint the message's fingerprint
+     * @param nowMillis the current time in milliseconds
+     * @return true if the fingerprint is probably a repeat
+     */
+    public boolean isRecent(long fingerprint, long nowMillis) {
+        rotate(nowMillis);
+        checked.incrementAndGet();
+        int h1 = (int) fingerprint;
+        int h2 = (int) (fingerprint >>> 32) | 1;
+        int newest = current;
+        for (int g = 0; g < GENERATIONS; g++) {
+            if (contains(generations[g], h1, h2)) {
+                if (g != newest) {
+                    add(generations[newest], h1, h2);
+                }
+                duplicates.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a message that has been sent or stored, ending its claim
+     * @param recipient the recipient cell number
+     * @param content the message content
+     */
+    public void record(CharSequence recipient, CharSequence content) {
+        record(fingerprint(recipient, content), System.currentTimeMillis());
+    }
+
+    /**
+     * Records a fingerprint in the newest generation, ending its claim
+     * @param fingerprint the message's fingerprint
+     * @param nowMillis the current time in milliseconds
+     */
+    public void record(long fingerprint, long nowMillis) {
+        rotate(nowMillis);
+        add(generations[current], (int) fingerprint, (int) (fingerprint >>> 32) | 1);
+        claimed.remove(fingerprint);
+    }
+
+    /**
+     * Estimates the chance that a new message is taken for a repeat right now
+     * @return the estimated false positive rate, from how full each generation is
+     */
+    public double getFalsePositiveRate() {
+        double allMiss = 1;
+        for (AtomicLongArray generation : generations) {
+            long set = 0;
+            for (int i = 0; i < generation.length(); i++) {
+                set += Long.bitCount(generation.get(i));
+            }
+            allMiss *= 1 - Math.pow((double) set / bits, hashes);
+        }
+        return 1 - allMiss;
+    }
+
+    /**
+     * Returns what Message does with a repeated message
+     * @return the mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns how long a message counts as recent
+     * @return the window in milliseconds
+     */
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Returns how many messages were taken for repeats
+     * @return the duplicate count
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * Returns how many messages were checked
+     * @return the checked count
+     */
+    public long getChecked() {
+        return checked.get();
+    }
+
+    /**
+     * Returns the memory held by the filters
+     * @return the size of every generation together, in bytes
+     */
+    public long getMemoryBytes() {
+        return GENERATIONS * bits / 8;
+    }
+
+    /**
+     * Returns how many bit positions each fingerprint sets
+     * @return the number of hash functions
+     */
+    public int getHashFunctions() {
+        return hashes;
+    }
+
+    private void rotate(long nowMillis) {
+        long start = currentStart;
+        if (start != Long.MIN_VALUE && nowMillis - start < generationMillis) {
+            return;
+        }
+        synchronized (this) {
+            start = currentStart;
+            if (start == Long.MIN_VALUE) {
+                currentStart = nowMillis;
+                return;
+            }
+            long elapsed = nowMillis - start;
+            if (elapsed < generationMillis) {
+                return;
+            }
+            // After a whole window without messages every generation is stale
+            long steps = Math.min(GENERATIONS, elapsed / generationMillis);
+            int next = current;
+            for (long i = 0; i < steps; i++) {
+                next = (next + 1) % GENERATIONS;
+                AtomicLongArray generation = generations[next];
+                for (int j = 0; j < generation.length(); j++) {
+                    generation.set(j, 0);
+                }
+            }
+            current = next;
+            currentStart = start + elapsed / generationMillis * generationMillis;
+        }
+    }
+
+    private boolean contains(AtomicLongArray generation, int h1, int h2) {
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((generation.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean add(AtomicLongArray generation, int h1, int h2) {
+        boolean present = true;
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long previous = generation.get(word);
+            if ((previous & mask) == 0) {
+                present = false;
+                generation.getAndAccumulate(word, mask, (value, m) -> value | m);
+            }
+        }
+        return present;
+    }
+
+    private long index(int hash) {
+        // Maps a 32-bit hash onto [0, bits) without a division
+        return ((hash & 0xFFFFFFFFL) * bits) >>> 32;
+    }
+
+    private static long mix(long hash, CharSequence value) {
+        if (value == null) {
+            return (hash ^ 0xFFFE) * PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * PRIME;
+        }
+        return hash;
+    }
+}
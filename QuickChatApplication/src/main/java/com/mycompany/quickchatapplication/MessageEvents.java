@@ -0,0 +1,187 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+/**
+ * MessageEvents class to handle tracing each stage of a message with JDK Flight Recorder
+ * Message emits one event per stage: ID generated, recipient validated, hash
+ * created, send/disregard/store chosen and stored message persisted. Each
+ * carries the message ID, its size and how long the stage took, so slow
+ * messages can be picked out of a production recording without an agent.
+ *
+ * The events cost nothing until a recording enables them. The bundled
+ * settings file quickchat.jfc enables just these events; use it through
+ * configuration() or startRecording, or copy it out and pass it to
+ * -XX:StartFlightRecording:settings=quickchat.jfc.
+ */
+public final class MessageEvents {
+    public static final String SETTINGS = "quickchat.jfc";
+    public static final String PREFIX = "com.mycompany.quickchatapplication.";
+
+    private MessageEvents() {
+    }
+
+    /**
+     * Loads the bundled settings that enable only the message events
+     * @return the QuickChat recording configuration
+     * @throws IOException if the settings cannot be read
+     */
+    public static Configuration configuration() throws IOException {
+        try (InputStream in = MessageEvents.class.getResourceAsStream(SETTINGS)) {
+            if (in == null) {
+                throw new IOException("Missing " + SETTINGS);
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            } catch (ParseException e) {
+                throw new IOException("Invalid " + SETTINGS + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Starts a recording of the message events, written to a file when it stops
+     * @param destination the .jfr file to write
+     * @return the running recording; stop or close it to write the file
+     * @throws IOException if the settings cannot be read or the file cannot be written
+     */
+    public static Recording startRecording(Path destination) throws IOException {
+        Recording recording = new Recording(configuration());
+        recording.setName("QuickChat");
+        recording.setDestination(destination);
+        recording.setToDisk(true);
+        recording.start();
+        return recording;
+    }
+
+    /**
+     * Fields shared by every message event
+     */
+    @Category({"QuickChat", "Message"})
+    @StackTrace(false)
+    abstract static class MessageEvent extends Event {
+        @Label("Message ID")
+        String messageId;
+
+        @Label("Size")
+        @Description("Length of the message, or of the ID or cell number for events before there is one, in characters")
+        int size;
+    }
+
+    @Name(PREFIX + "MessageIdGenerated")
+    @Label("Message ID Generated")
+    static final class IdGenerated extends MessageEvent {
+        void finish(String messageId) {
+            end();
+            if (shouldCommit()) {
+                this.messageId = messageId;
+                size = messageId == null ? 0 : messageId.length();
+                commit();
+            }
+        }
+    }
+
+    @Name(PREFIX + "RecipientValidated")
+    @Label("Recipient Validated")
+    static final class RecipientValidated extends MessageEvent {
+        @Label("Recipient")
+        String recipient;
+
+        @Label("Valid")
+        boolean valid;
+
+        void finish(String recipient, boolean valid) {
+            end();
+            if (shouldCommit()) {
+                this.recipient = recipient;
+                size = recipient == null ? 0 : recipient.length();
+                this.valid = valid;
+                commit();
+            }
+        }
+    }
+
+    @Name(PREFIX + "MessageHashed")
+    @Label("Message Hashed")
+    static final class Hashed extends MessageEvent {
+        @Label("Message Number")
+        int messageNumber;
+
+        void finish(String messageId, int messageNumber, String messageContent) {
+            end();
+            if (shouldCommit()) {
+                this.messageId = messageId;
+                this.messageNumber = messageNumber;
+                size = messageContent == null ? 0 : messageContent.length();
+                commit();
+            }
+        }
+    }
+
+    @Name(PREFIX + "MessageHandled")
+    @Label("Message Handled")
+    @Description("The user's choice to send, disregard or store a message")
+    static final class Handled extends MessageEvent {
+        @Label("Choice")
+        String choice;
+
+        void finish(String messageId, String messageContent, int choice) {
+            end();
+            if (shouldCommit()) {
+                this.messageId = messageId;
+                size = messageContent == null ? 0 : messageContent.length();
+                switch (choice) {
+                    case 1:
+                        this.choice = "send";
+                        break;
+                    case 2:
+                        this.choice = "disregard";
+                        break;
+                    case 3:
+                        this.choice = "store";
+                        break;
+                    default:
+                        this.choice = "invalid";
+                        break;
+                }
+                commit();
+            }
+        }
+    }
+
+    @Name(PREFIX + "MessagePersisted")
+    @Label("Message Persisted")
+    static final class Persisted extends MessageEvent {
+        @Label("Stored")
+        @Description("False if the message could not be written")
+        boolean stored;
+
+        void finish(String messageId, String messageContent, boolean stored) {
+            end();
+            if (shouldCommit()) {
+                this.messageId = messageId;
+                size = messageContent == null ? 0 : messageContent.length();
+                this.stored = stored;
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.function.Consumer;
+
+/**
+ * MessageHasher class to handle building message hashes without regex or copies
+ * Produces exactly what Message.createMessageHash always has:
+ *   first two characters of the message ID : message number : FIRSTLAST
+ * where FIRST and LAST are the ASCII letters of the first and last words,
+ * upper-cased. Words are separated by the characters \s matches, after trimming
+ * characters up to ' ' from both ends, as String.trim().split("\\s+") did.
+ *
+ * The content is scanned once from the front for the first word and once from
+ * the back for the last word, and letters are written straight into the output.
+ */
+public final class MessageHasher {
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    private MessageHasher() {
+    }
+
+    /**
+     * Creates the hash for a message
+     * @param messageId the message ID
+     * @param messageNumber the message number
+     * @param messageContent the message content
+     * @return the hash, or "" if the ID is shorter than two characters or either value is null
+     */
+    public static String hash(CharSequence messageId, int messageNumber, CharSequence messageContent) {
+        if (messageContent == null) {
+            return "";
+        }
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        if (!appendPrefix(messageId, messageNumber, out)) {
+            return "";
+        }
+        appendWords(messageContent, out);
+        return out.toString();
+    }
+
+    /**
+     * Creates the hash for a message whose content is UTF-8 bytes
+     * Word separators and letters are all ASCII, so the bytes are scanned directly
+     * without decoding.
+     * @param messageId the message ID
+     * @param messageNumber the message number
+     * @param content the buffer holding the UTF-8 content
+     * @param offset where the content starts
+     * @param length the content length in bytes
+     * @return the hash, or "" if the ID is shorter than two characters or either value is null
+     */
+    public static String hash(CharSequence messageId, int messageNumber, byte[] content, int offset, int length) {
+        if (content == null) {
+            return "";
+        }
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        if (!appendPrefix(messageId, messageNumber, out)) {
+            return "";
+        }
+        appendWords(content, offset, offset + length, out);
+        return out.toString();
+    }
+
+    /**
+     * Appends the hash for a message to a caller-owned buffer
+     * @param messageId the message ID
+     * @param messageNumber the message number
+     * @param messageContent the message content
+     * @param out the buffer to append to
+     * @return false (and nothing appended) if the ID is shorter than two characters or either value is null
+     */
+    public static boolean appendHash(CharSequence messageId, int messageNumber, CharSequence messageContent, StringBuilder out) {
+        if (messageContent == null || messageId == null || messageId.length() < 2) {
+            return false;
+        }
+        appendPrefix(messageId, messageNumber, out);
+        appendWords(messageContent, out);
+        return true;
+    }
+
+    /**
+     * Splits content into search terms using the same word rules as the hash
+     * Each word is reduced to its ASCII letters, upper-cased, exactly as the first
+     * and last words are for the hash; words with no letters are skipped.
+     * @param content the message content
+     * @param visitor receives each term in order, including repeats
+     */
+    public static void forEachTerm(CharSequence content, Consumer<String> visitor) {
+        if (content == null) {
+            return;
+        }
+        StringBuilder term = new StringBuilder(16);
+        int length = content.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isSeparator(content.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && !isSeparator(content.charAt(i))) {
+                i++;
+            }
+            term.setLength(0);
+            appendLetters(content, start, i, term);
+            if (term.length() > 0) {
+                visitor.accept(term.toString());
+            }
+        }
+    }
+
+    private static boolean appendPrefix(CharSequence messageId, int messageNumber, StringBuilder out) {
+        if (messageId == null || messageId.length() < 2) {
+            return false;
+        }
+        out.append(messageId.charAt(0)).append(messageId.charAt(1)).append(':').append(messageNumber).append(':');
+        return true;
+    }
+
+    private static void appendWords(CharSequence content, StringBuilder out) {
+        // trim(): skip everything up to ' ' at both ends
+        int start = 0;
+        int end = content.length();
+        while (start < end && content.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && content.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int firstEnd = start;
+        while (firstEnd < end && !isSeparator(content.charAt(firstEnd))) {
+            firstEnd++;
+        }
+        int lastStart = end;
+        while (lastStart > firstEnd && !isSeparator(content.charAt(lastStart - 1))) {
+            lastStart--;
+        }
+
+        appendLetters(content, start, firstEnd, out);
+        // A single word is used as both the first and the last word
+        appendLetters(content, firstEnd == end ? start : lastStart, end, out);
+    }
+
+    private static void appendWords(byte[] content, int from, int to, StringBuilder out) {
+        int start = from;
+        int end = to;
+        while (start < end && (content[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (content[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+
+        int firstEnd = start;
+        while (firstEnd < end && !isSeparator((char) content[firstEnd])) {
+            firstEnd++;
+        }
+        int lastStart = end;
+        while (lastStart > firstEnd && !isSeparator((char) content[lastStart - 1])) {
+            lastStart--;
+        }
+
+        appendLetters(content, start, firstEnd, out);
+        appendLetters(content, firstEnd == end ? start : lastStart, end, out);
+    }
+
+    private static void appendLetters(CharSequence content, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = content.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                out.append((char) (c - ('a' - 'A')));
+            } else if (c >= 'A' && c <= 'Z') {
+                out.append(c);
+            }
+        }
+    }
+
+    private static void appendLetters(byte[] content, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            byte c = content[i];
+            if (c >= 'a' && c <= 'z') {
+                out.append((char) (c - ('a' - 'A')));
+            } else if (c >= 'A' && c <= 'Z') {
+                out.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Checks for the characters matched by the regex \s
+     */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
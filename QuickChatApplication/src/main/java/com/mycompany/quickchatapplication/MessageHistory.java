@@ -0,0 +1,88 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * MessageHistory interface for the in-memory record of sent messages
+ * Implementations hand out message numbers (starting at 1, no gaps) and keep
+ * some or all of the messages sent. Reads never copy the history: iterators
+ * and list views read the retained messages in place, oldest first.
+ */
+public interface MessageHistory extends Iterable<Message.MessageData> {
+
+    /**
+     * Claims the next message number and records the message built for it
+     * @param factory builds the message for the claimed number
+     * @return the recorded message
+     */
+    Message.MessageData append(IntFunction<Message.MessageData> factory);
+
+    /**
+     * Returns how many messages have ever been appended (the last number handed out)
+     * @return the total number of messages sent
+     */
+    int totalAppended();
+
+    /**
+     * Returns the number of messages currently held in memory
+     * @return the retained message count
+     */
+    int retained();
+
+    /**
+     * Returns the number of the oldest message still held in memory
+     * @return the oldest retained message number, or totalAppended() + 1 if none
+     */
+    int firstRetainedNumber();
+
+    /**
+     * Looks up a retained message by its number
+     * @param messageNumber the message number
+     * @return the message, or null if it was never sent or has been evicted
+     */
+    Message.MessageData getByNumber(int messageNumber);
+
+    /**
+     * Returns a read-only, live list view of the retained messages, oldest first
+     * @return a view of the retained messages
+     */
+    List<Message.MessageData> view();
+
+    /**
+     * Registers a callback for messages dropped from memory
+     * Histories that keep every message never call it.
+     * @param listener called with each evicted message, or null for none
+     */
+    default void setEvictionListener(Consumer<Message.MessageData> listener) {
+    }
+
+    /**
+     * Moves numbering on so the next append gets lastNumber + 1
+     * Used when restoring a history whose earlier messages were lost or dropped.
+     * The skipped numbers are filled with empty messages that have no ID; histories
+     * that only keep recent messages may skip them without holding anything.
+     * Must not be called while other threads are appending.
+     * @param lastNumber the number the history should continue after
+     * @throws IllegalStateException if more messages than that were already appended
+     */
+    default void resumeAfter(int lastNumber) {
+        if (lastNumber < totalAppended()) {
+            throw new IllegalStateException("Already past message " + lastNumber + ": " + totalAppended());
+        }
+        while (totalAppended() < lastNumber) {
+            append(number -> new Message.MessageData(null, number, null, null, ""));
+        }
+    }
+
+    /**
+     * Removes every message and restarts numbering at 1
+     * Must not be called while other threads are appending.
+     */
+    void clear();
+}
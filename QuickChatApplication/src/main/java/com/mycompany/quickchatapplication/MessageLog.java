@@ -0,0 +1,1149 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * MessageLog class to handle persistent storage of messages
+ * Messages are appended to a directory of segment files that stay open for the
+ * lifetime of the log, so storing a message never opens or closes a file.
+ *
+ * Record format (big-endian):
+ *   int    length of the body (type byte + payload)
+ *   byte   record type
+ *   ...    payload
+ *   int    CRC32 of the body
+ *
+ * Message payload: long timestamp, int messageNumber, then messageId, recipient,
+ * messageContent and messageHash as unsigned-short length prefixed UTF-8, and
+ * the sender's username in the same form when it is known. Records written
+ * before senders were kept simply end after the hash.
+ * Tombstone payload: long timestamp, then the deleted messageId. A tombstone
+ * deletes every earlier message record with exactly that ID.
+ * Compacted payload: long timestamp. Written first in a segment produced by
+ * compact(), which replaces every earlier segment.
+ *
+ * Deleted and superseded records stay on disk until compact() rewrites the
+ * sealed segments with only the latest live record of each message ID, so the
+ * store's size and the time to scan it follow the number of live messages.
+ */
+public class MessageLog implements Closeable {
+
+    /**
+     * When appended records are forced to disk
+     */
+    public enum FsyncPolicy {
+        /** Force after every record */
+        PER_RECORD,
+        /** Force only when the caller asks via sync(), e.g. once per batch */
+        GROUP_COMMIT,
+        /**
+         * Force at most the configured interval after a record is appended, also
+         * when no further record follows; a shared background thread forces
+         * records that are still waiting once the interval is up
+         */
+        INTERVAL
+    }
+
+    public static final byte RECORD_MESSAGE = 1;
+    public static final byte RECORD_TOMBSTONE = 2;
+    public static final byte RECORD_COMPACTED = 3;
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1000;
+
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".log";
+    static final String COMPACT_FILE = "compact.tmp";
+    static final int HEADER_SIZE = 4;
+    static final int TRAILER_SIZE = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int OFFSET_BITS = 40;
+    // One daemon thread forces whatever each INTERVAL log is still holding, once per interval
+    private static final ScheduledThreadPoolExecutor SYNCER = createSyncer();
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long segmentSize;
+    private final long fsyncIntervalMillis;
+    private final ByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    // Latest tombstone address per message ID; only what compaction has not yet removed
+    private final Tombstones tombstones = new Tombstones();
+    private final Object compactionLock = new Object();
+    // Scheduled by the first append rather than the constructor, so SYNCER never sees a log still being built
+    private ScheduledFuture<?> intervalSync;
+
+    private FileChannel channel;
+    private int segmentIndex;
+    private long segmentPosition;
+    private long lastSyncMillis;
+    private boolean unsynced;
+    private boolean closed;
+    private StoredMessageSearch searchIndex;
+    // Live message IDs, built by the first deleteIfLive and dropped when segments are replaced
+    private Map<String, LiveMessage> liveMessages;
+    private volatile int compactions;
+    private long deadBytes;
+
+    /**
+     * Opens (or creates) a log in the given directory with default settings
+     * @param directory the directory holding the segment files
+     * @throws IOException if the directory or segment cannot be opened
+     */
+    public MessageLog(Path directory) throws IOException {
+        this(directory, FsyncPolicy.INTERVAL, DEFAULT_SEGMENT_SIZE, DEFAULT_FSYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Opens (or creates) a log in the given directory
+     * @param directory the directory holding the segment files
+     * @param fsyncPolicy when appended records are forced to disk
+     * @param segmentSize the size after which a new segment is started
+     * @param fsyncIntervalMillis the force interval used by FsyncPolicy.INTERVAL
+     * @throws IOException if the directory or segment cannot be opened
+     */
+    public MessageLog(Path directory, FsyncPolicy fsyncPolicy, long segmentSize, long fsyncIntervalMillis)
+            throws IOException {
+        if (segmentSize <= HEADER_SIZE + TRAILER_SIZE) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.segmentSize = segmentSize;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.lastSyncMillis = System.currentTimeMillis();
+
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(COMPACT_FILE));
+        List<Path> segments = finishCompaction(directory);
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            openSegment(segmentIndexOf(last));
+            // Drop a torn record left behind by a crash mid-write
+            long validEnd = scan(channel, segmentIndex, 0, null);
+            if (validEnd < channel.size()) {
+                channel.truncate(validEnd);
+            }
+            segmentPosition = validEnd;
+            channel.position(validEnd);
+            loadTombstones(segments);
+        }
+    }
+
+    /**
+     * Appends a message record to the log
+     * @param data the message to store
+     * @param timestamp the time the message was stored
+     * @return the address of the record (segment index and offset)
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized long append(Message.MessageData data, long timestamp) throws IOException {
+        ensureOpen();
+        byte[] id = utf8(data.getMessageId());
+        byte[] recipient = utf8(data.getRecipient());
+        byte[] content = utf8(data.getMessageContent());
+        byte[] hash = utf8(data.getMessageHash());
+        byte[] sender = data.getSender() == null ? null : utf8(data.getSender());
+
+        int bodyLength = 1 + 8 + 4 + 2 + id.length + 2 + recipient.length
+                + 2 + content.length + 2 + hash.length + (sender == null ? 0 : 2 + sender.length);
+        int recordLength = HEADER_SIZE + bodyLength + TRAILER_SIZE;
+        long address = reserve(recordLength);
+
+        ByteBuffer record = beginRecord(recordLength);
+        int start = record.position();
+        record.putInt(bodyLength);
+        record.put(RECORD_MESSAGE);
+        record.putLong(timestamp);
+        record.putInt(data.getMessageNumber());
+        putString(record, id);
+        putString(record, recipient);
+        putString(record, content);
+        putString(record, hash);
+        if (sender != null) {
+            putString(record, sender);
+        }
+        finishRecord(record, start, bodyLength);
+        if (searchIndex != null) {
+            // Called under the log lock, so the index sees records in log order
+            searchIndex.onMessage(address, data, timestamp);
+        }
+        if (liveMessages != null) {
+            liveMessages.computeIfAbsent(data.getMessageId(), key -> new LiveMessage()).add(data);
+        }
+        afterAppend();
+        return address;
+    }
+
+    /**
+     * Deletes a stored message by appending a tombstone for its ID
+     * Every record of the message stored before now is hidden from replay(RecordVisitor)
+     * and the search index at once, and dropped from disk by the next compact().
+     * Deleting an ID that was never stored does nothing beyond writing the tombstone.
+     * Only the tombstone counts towards getDeadBytes(); see delete(String, long).
+     * @param messageId the exact ID of the message to delete
+     * @return the address of the tombstone
+     * @throws IOException if the tombstone cannot be written
+     */
+    public long delete(String messageId) throws IOException {
+        return delete(messageId, 0);
+    }
+
+    /**
+     * Deletes a stored message whose records' size is known
+     * @param messageId the exact ID of the message to delete
+     * @param recordBytes the size of the records deleted, as given by recordSize,
+     *                    counted towards getDeadBytes() with the tombstone
+     * @return the address of the tombstone
+     * @throws IOException if the tombstone cannot be written
+     */
+    public synchronized long delete(String messageId, long recordBytes) throws IOException {
+        ensureOpen();
+        byte[] id = utf8(messageId);
+        int bodyLength = 1 + 8 + 2 + id.length;
+        int recordLength = HEADER_SIZE + bodyLength + TRAILER_SIZE;
+        long address = reserve(recordLength);
+
+        ByteBuffer record = beginRecord(recordLength);
+        int start = record.position();
+        record.putInt(bodyLength);
+        record.put(RECORD_TOMBSTONE);
+        record.putLong(System.currentTimeMillis());
+        putString(record, id);
+        finishRecord(record, start, bodyLength);
+        tombstones.put(messageId, address);
+        deadBytes += recordLength + Math.max(0, recordBytes);
+        if (liveMessages != null) {
+            liveMessages.remove(messageId);
+        }
+        afterAppend();
+        return address;
+    }
+
+    /**
+     * Deletes a stored message only if it is live and every live record of it passes a check
+     * The lookup, the check and the tombstone happen under the log lock, so a
+     * message deleted twice at once gets one tombstone and its records count
+     * towards getDeadBytes() once. Live IDs are looked up in an index of the log
+     * built on first use, not by scanning the segments on every delete.
+     * @param messageId the exact ID of the message to delete
+     * @param sender checks the sender of each live record, which is null if not known
+     * @return the address of the tombstone, or -1 if nothing was deleted
+     * @throws IOException if the log cannot be read or the tombstone written
+     */
+    public synchronized long deleteIfLive(String messageId, Predicate<String> sender) throws IOException {
+        ensureOpen();
+        if (liveMessages == null) {
+            Map<String, LiveMessage> live = new HashMap<>();
+            replay((address, data, timestamp) -> live.computeIfAbsent(data.getMessageId(),
+                    id -> new LiveMessage()).add(data));
+            liveMessages = live;
+        }
+        LiveMessage message = liveMessages.get(messageId);
+        if (message == null || !message.senders.stream().allMatch(sender)) {
+            return -1;
+        }
+        return delete(messageId, message.bytes);
+    }
+
+    /**
+     * Returns the size of the record append(MessageData, long) writes for a message
+     * @param data the message
+     * @return the record size in bytes
+     */
+    public static int recordSize(Message.MessageData data) {
+        int bodyLength = 1 + 8 + 4 + 2 + utf8(data.getMessageId()).length + 2 + utf8(data.getRecipient()).length
+                + 2 + utf8(data.getMessageContent()).length + 2 + utf8(data.getMessageHash()).length
+                + (data.getSender() == null ? 0 : 2 + utf8(data.getSender()).length);
+        return HEADER_SIZE + bodyLength + TRAILER_SIZE;
+    }
+
+    /**
+     * Checks whether the message record at an address has been deleted
+     * @param address the address of the message record
+     * @param messageId the ID of the message stored there
+     * @return true if a tombstone for the ID was written after the record
+     */
+    public boolean isDeleted(long address, String messageId) {
+        return messageId != null && tombstones.get(messageId) > address;
+    }
+
+    /**
+     * Returns how many deleted message IDs are waiting for compaction
+     * @return the number of tombstones held in memory
+     */
+    public int getTombstoneCount() {
+        return tombstones.size();
+    }
+
+    /**
+     * Returns roughly how many bytes of the log the next compact() would reclaim
+     * Counts the tombstones and the deleted records whose size was given to
+     * delete(String, long) since the log was opened or last compacted; records
+     * deleted before the log was opened count only by their tombstones.
+     * @return the dead bytes known of
+     */
+    public synchronized long getDeadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Returns how many times the log has been compacted since it was opened
+     * Record addresses from before a compaction no longer point at the same records.
+     * @return the compaction count
+     */
+    public int getCompactions() {
+        return compactions;
+    }
+
+    /**
+     * Returns the total size of the segment files
+     * @return the size of the log in bytes, including buffered records
+     * @throws IOException if a segment cannot be measured
+     */
+    public synchronized long getSize() throws IOException {
+        long size = buffer.position();
+        for (Path segment : listSegments(directory)) {
+            size += Files.size(segment);
+        }
+        return size;
+    }
+
+    /**
+     * Rewrites the log without deleted or duplicate records
+     * The active segment is sealed first. Every sealed segment is then copied
+     * into one new segment holding only the latest record of each message ID
+     * that has not been deleted, in their original order; tombstones are
+     * dropped. The new segment replaces the old ones in one atomic rename, so a
+     * crash leaves either the old segments or the compacted one. Appends carry on
+     * into the new active segment while the copy is made; only the rename waits
+     * for the log lock.
+     *
+     * Addresses change: the search index is rebuilt on its next use, and
+     * callers holding addresses should check getCompactions().
+     * @return the number of bytes reclaimed
+     * @throws IOException if the segments cannot be read or the copy written
+     */
+    public long compact() throws IOException {
+        synchronized (compactionLock) {
+            int last;
+            long sealedDead;
+            synchronized (this) {
+                ensureOpen();
+                if (segmentPosition > 0) {
+                    rollSegment();
+                }
+                last = segmentIndex - 1;
+                sealedDead = deadBytes;
+            }
+            List<Path> sealed = new ArrayList<>();
+            long before = 0;
+            for (Path segment : listSegments(directory)) {
+                if (segmentIndexOf(segment) <= last) {
+                    sealed.add(segment);
+                    before += Files.size(segment);
+                }
+            }
+            if (sealed.isEmpty()) {
+                return 0;
+            }
+
+            // Pass 1: where the latest copy of each message ID is
+            Tombstones latest = new Tombstones();
+            for (Path segment : sealed) {
+                try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    scan(in, segmentIndexOf(segment), 0, (address, data, timestamp) -> {
+                        latest.put(data.getMessageId(), address);
+                    });
+                }
+            }
+
+            // Pass 2: copy the live records after a compacted marker
+            Path temp = directory.resolve(COMPACT_FILE);
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer copy = ByteBuffer.allocate(BUFFER_SIZE);
+                copy.putInt(1 + 8).put(RECORD_COMPACTED).putLong(System.currentTimeMillis());
+                copy.putInt(checksum(copy, HEADER_SIZE, 1 + 8));
+                for (Path segment : sealed) {
+                    try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                        copyLive(in, segmentIndexOf(segment), latest, copy, out);
+                    }
+                }
+                copy.flip();
+                while (copy.hasRemaining()) {
+                    out.write(copy);
+                }
+                out.force(true);
+            }
+            long after = Files.size(temp);
+
+            synchronized (this) {
+                // The saved search index holds old addresses; it goes first in case of a crash
+                searchIndex = null;
+                liveMessages = null;
+                Files.deleteIfExists(directory.resolve(StoredMessageSearch.FILE_NAME));
+                Files.move(temp, directory.resolve(segmentName(last)),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                for (Path segment : sealed) {
+                    if (segmentIndexOf(segment) < last) {
+                        Files.deleteIfExists(segment);
+                    }
+                }
+                // Every record these tombstones deleted is gone now
+                tombstones.removeBefore(address(last + 1, 0));
+                deadBytes = Math.max(0, deadBytes - sealedDead);
+                compactions++;
+            }
+            return before - after;
+        }
+    }
+
+    /**
+     * Deletes the sealed segments that hold only records before an address
+     * For logs whose older records are kept elsewhere, e.g. a write-ahead log
+     * once a snapshot covers them. The segment holding the address, and the
+     * one being appended to, are always kept.
+     * @param address the first address that must stay replayable
+     * @return the number of bytes deleted
+     * @throws IOException if a segment cannot be deleted
+     */
+    public long truncateBefore(long address) throws IOException {
+        synchronized (compactionLock) {
+            synchronized (this) {
+                ensureOpen();
+                int keep = Math.min(segmentOf(address), segmentIndex);
+                long deleted = 0;
+                liveMessages = null;
+                for (Path segment : listSegments(directory)) {
+                    if (segmentIndexOf(segment) < keep) {
+                        deleted += Files.size(segment);
+                        Files.delete(segment);
+                    }
+                }
+                return deleted;
+            }
+        }
+    }
+
+    /**
+     * Copies the messages of a legacy stored_messages.json into this log, once
+     * The file is streamed with StoredMessageReader and only the latest record
+     * of each message ID is copied, found with a temporary StoredMessageIndex.
+     * Records the log rejects (e.g. a field too long to store) are skipped.
+     * Once the copies are synced the file is renamed with a ".migrated" suffix,
+     * so the next start does not import it again.
+     * @param jsonFile the legacy file written by the original storeMessage
+     * @return the number of messages imported
+     * @throws IOException if the file cannot be read or the log written
+     */
+    public int importLegacy(Path jsonFile) throws IOException {
+        Path indexFile = jsonFile.resolveSibling(jsonFile.getFileName() + StoredMessageIndex.DEFAULT_SUFFIX);
+        int[] imported = new int[1];
+        try (StoredMessageIndex index = StoredMessageIndex.open(jsonFile, indexFile);
+                StoredMessageReader reader = new StoredMessageReader(jsonFile)) {
+            reader.forEach(0, (offset, data, timestamp) -> {
+                try {
+                    if (index.offsetOf(data.getMessageId()) == offset) {
+                        append(data, timestamp);
+                        imported[0]++;
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping stored message " + data.getMessageId() + ": " + e.getMessage());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        sync();
+        Files.move(jsonFile, jsonFile.resolveSibling(jsonFile.getFileName() + ".migrated"),
+                StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(indexFile);
+        return imported[0];
+    }
+
+    /**
+     * Writes buffered records to the segment file without forcing them to disk
+     * @throws IOException if the buffer cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        drain();
+    }
+
+    /**
+     * Writes buffered records and forces the current segment to disk
+     * @throws IOException if the segment cannot be written or forced
+     */
+    public synchronized void sync() throws IOException {
+        ensureOpen();
+        drain();
+        if (unsynced) {
+            channel.force(false);
+            unsynced = false;
+        }
+        lastSyncMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Replays every message in the log in append order, leaving out deleted ones
+     * @param visitor receives each message record
+     * @throws IOException if a segment cannot be read
+     */
+    public synchronized void replay(RecordVisitor visitor) throws IOException {
+        replay(0, visitor);
+    }
+
+    /**
+     * Replays the messages from a given address onwards, leaving out deleted ones
+     * @param fromAddress the address of the first record to replay
+     * @param visitor receives each message record
+     * @throws IOException if a segment cannot be read
+     */
+    public synchronized void replay(long fromAddress, RecordVisitor visitor) throws IOException {
+        ensureOpen();
+        drain();
+        replay(directory, fromAddress, (address, data, timestamp) -> {
+            if (!isDeleted(address, data.getMessageId())) {
+                visitor.onMessage(address, data, timestamp);
+            }
+        });
+    }
+
+    /**
+     * Replays every valid record in the segments of a log directory
+     * Deleted messages are included; use isDeleted to skip them.
+     * @param directory the log directory
+     * @param visitor receives each message record
+     * @throws IOException if a segment cannot be read
+     */
+    public static void replay(Path directory, RecordVisitor visitor) throws IOException {
+        replay(directory, 0, visitor);
+    }
+
+    /**
+     * Replays the valid records of a log directory from a given address onwards
+     * Earlier segments are skipped without being opened.
+     * @param directory the log directory
+     * @param fromAddress the address of the first record to replay
+     * @param visitor receives each message record
+     * @throws IOException if a segment cannot be read
+     */
+    public static void replay(Path directory, long fromAddress, RecordVisitor visitor) throws IOException {
+        int fromSegment = segmentOf(fromAddress);
+        for (Path segment : listSegments(directory)) {
+            int index = segmentIndexOf(segment);
+            if (index < fromSegment) {
+                continue;
+            }
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                scan(in, index, index == fromSegment ? offsetOf(fromAddress) : 0, visitor);
+            }
+        }
+    }
+
+    /**
+     * Returns the address the next record will be written at
+     * @return the end of the log
+     */
+    public synchronized long getEndAddress() {
+        return address(segmentIndex, segmentPosition);
+    }
+
+    /**
+     * Returns the full-text index over this log's messages, opening it on first use
+     * The index is kept in the log directory and saved when the log is closed.
+     * @return the search index
+     * @throws IOException if the index cannot be loaded or brought up to date
+     */
+    public synchronized StoredMessageSearch getSearchIndex() throws IOException {
+        ensureOpen();
+        if (searchIndex == null) {
+            drain();
+            searchIndex = StoredMessageSearch.open(this);
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Returns the directory holding the segment files
+     * @return the log directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the fsync policy of this log
+     * @return the fsync policy
+     */
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Returns the index of the segment currently being appended to
+     * @return the active segment index
+     */
+    public synchronized int getActiveSegmentIndex() {
+        return segmentIndex;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (intervalSync != null) {
+            intervalSync.cancel(false);
+        }
+        try {
+            if (searchIndex != null) {
+                searchIndex.close();
+            }
+            sync();
+            channel.close();
+        } finally {
+            closed = true;
+        }
+    }
+
+    /**
+     * Callback for records found while replaying a log
+     */
+    public interface RecordVisitor {
+        /**
+         * Called for each stored message
+         * @param address the address of the record
+         * @param data the stored message
+         * @param timestamp the time the message was stored
+         */
+        void onMessage(long address, Message.MessageData data, long timestamp);
+
+        /**
+         * Called for each tombstone
+         * @param address the address of the tombstone
+         * @param messageId the ID of the deleted message
+         * @param timestamp the time the message was deleted
+         */
+        default void onDelete(long address, String messageId, long timestamp) {
+        }
+    }
+
+    /**
+     * Builds a record address from a segment index and an offset in that segment
+     * @param segment the segment index
+     * @param offset the byte offset in the segment
+     * @return the packed address
+     */
+    public static long address(int segment, long offset) {
+        return ((long) segment << OFFSET_BITS) | offset;
+    }
+
+    /**
+     * Extracts the segment index from a record address
+     * @param address the packed address
+     * @return the segment index
+     */
+    public static int segmentOf(long address) {
+        return (int) (address >>> OFFSET_BITS);
+    }
+
+    /**
+     * Extracts the segment offset from a record address
+     * @param address the packed address
+     * @return the byte offset in the segment
+     */
+    public static long offsetOf(long address) {
+        return address & ((1L << OFFSET_BITS) - 1);
+    }
+
+    /**
+     * Lists the segment files of a log directory in index order
+     * @param directory the log directory
+     * @return the segment paths, oldest first
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Returns the file name of a segment
+     * @param index the segment index
+     * @return the segment file name
+     */
+    static String segmentName(int index) {
+        return String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Parses the segment index out of a segment file name
+     * @param segment the segment path
+     * @return the segment index
+     */
+    static int segmentIndexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Decodes a message body positioned just after the record type byte
+     * @param body the record body
+     * @return the decoded message
+     */
+    static Message.MessageData decodeMessage(ByteBuffer body) {
+        body.getLong(); // timestamp
+        int messageNumber = body.getInt();
+        String messageId = getString(body);
+        String recipient = getString(body);
+        String messageContent = getString(body);
+        String messageHash = getString(body);
+        String sender = body.hasRemaining() ? getString(body) : null;
+        return new Message.MessageData(messageId, messageNumber, recipient, messageContent, messageHash, sender);
+    }
+
+    private static void dispatch(ByteBuffer body, long address, RecordVisitor visitor) {
+        byte type = body.get();
+        if (type == RECORD_MESSAGE) {
+            long timestamp = body.getLong(body.position());
+            visitor.onMessage(address, decodeMessage(body), timestamp);
+        } else if (type == RECORD_TOMBSTONE) {
+            long timestamp = body.getLong();
+            visitor.onDelete(address, getString(body), timestamp);
+        }
+    }
+
+    /**
+     * Copies the message records of one segment that are the latest of their ID and not deleted
+     */
+    private void copyLive(FileChannel in, int index, Tombstones latest, ByteBuffer copy, FileChannel out)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long position = 0;
+        long size = in.size();
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(in, header, position);
+            int bodyLength = header.getInt(0);
+            if (bodyLength <= 0 || position + HEADER_SIZE + bodyLength + TRAILER_SIZE > size) {
+                break;
+            }
+            int recordLength = HEADER_SIZE + bodyLength + TRAILER_SIZE;
+            ByteBuffer record = ByteBuffer.allocate(recordLength);
+            readFully(in, record, position);
+            if (checksum(record, HEADER_SIZE, bodyLength) != record.getInt(HEADER_SIZE + bodyLength)) {
+                break;
+            }
+            long address = address(index, position);
+            if (record.get(HEADER_SIZE) == RECORD_MESSAGE) {
+                // Skip the type, timestamp and number to reach the ID
+                record.position(HEADER_SIZE + 1 + 8 + 4);
+                String messageId = getString(record);
+                if (latest.get(messageId) == address && !isDeleted(address, messageId)) {
+                    if (copy.remaining() < recordLength) {
+                        copy.flip();
+                        while (copy.hasRemaining()) {
+                            out.write(copy);
+                        }
+                        copy.clear();
+                    }
+                    record.clear();
+                    if (recordLength > copy.capacity()) {
+                        while (record.hasRemaining()) {
+                            out.write(record);
+                        }
+                    } else {
+                        copy.put(record);
+                    }
+                }
+            }
+            position += recordLength;
+        }
+    }
+
+    /**
+     * Completes a compaction that was interrupted after its rename
+     * Segments older than the newest compacted one were already copied into it.
+     * @return the remaining segments, oldest first
+     */
+    private static List<Path> finishCompaction(Path directory) throws IOException {
+        List<Path> segments = listSegments(directory);
+        int compacted = -1;
+        for (int i = segments.size() - 1; i >= 0 && compacted < 0; i--) {
+            if (isCompacted(segments.get(i))) {
+                compacted = i;
+            }
+        }
+        for (int i = 0; i < compacted; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+        return compacted > 0 ? new ArrayList<>(segments.subList(compacted, segments.size())) : segments;
+    }
+
+    private static boolean isCompacted(Path segment) throws IOException {
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(HEADER_SIZE + 1);
+            if (in.size() < start.capacity()) {
+                return false;
+            }
+            readFully(in, start, 0);
+            return start.get(HEADER_SIZE) == RECORD_COMPACTED;
+        }
+    }
+
+    /**
+     * Reads the tombstones written since the last compaction
+     * A compacted segment holds none, so only the segments after it are read.
+     */
+    private void loadTombstones(List<Path> segments) throws IOException {
+        RecordVisitor collector = new RecordVisitor() {
+            @Override
+            public void onMessage(long address, Message.MessageData data, long timestamp) {
+            }
+
+            @Override
+            public void onDelete(long address, String messageId, long timestamp) {
+                tombstones.put(messageId, address);
+                deadBytes += HEADER_SIZE + 1 + 8 + 2 + utf8(messageId).length + TRAILER_SIZE;
+            }
+        };
+        for (Path segment : segments) {
+            int index = segmentIndexOf(segment);
+            if (segment == segments.get(0) && index != segmentIndex && isCompacted(segment)) {
+                continue;
+            }
+            if (index == segmentIndex) {
+                scan(channel, index, 0, collector);
+            } else {
+                try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    scan(in, index, 0, collector);
+                }
+            }
+        }
+    }
+
+    private long reserve(int recordLength) throws IOException {
+        // Roll to a new segment when this record would not fit, unless the segment is still empty
+        if (segmentPosition > 0 && segmentPosition + recordLength > segmentSize) {
+            rollSegment();
+        }
+        return address(segmentIndex, segmentPosition);
+    }
+
+    private void rollSegment() throws IOException {
+        drain();
+        channel.force(false);
+        channel.close();
+        openSegment(segmentIndex + 1);
+    }
+
+    /**
+     * Returns the buffer to write a record of the given length into, with room for it
+     */
+    private ByteBuffer beginRecord(int recordLength) throws IOException {
+        ByteBuffer record = recordLength <= buffer.capacity() ? buffer : ByteBuffer.allocate(recordLength);
+        if (record != buffer || buffer.remaining() < recordLength) {
+            drain();
+        }
+        return record;
+    }
+
+    /**
+     * Appends the checksum of a record written from start and accounts for it
+     */
+    private void finishRecord(ByteBuffer record, int start, int bodyLength) throws IOException {
+        record.putInt(recordChecksum(record, start + HEADER_SIZE, bodyLength));
+        if (record != buffer) {
+            record.flip();
+            writeFully(record);
+        }
+        segmentPosition += HEADER_SIZE + bodyLength + TRAILER_SIZE;
+        unsynced = true;
+    }
+
+    private void afterAppend() throws IOException {
+        switch (fsyncPolicy) {
+            case PER_RECORD:
+                sync();
+                break;
+            case INTERVAL:
+                if (System.currentTimeMillis() - lastSyncMillis >= fsyncIntervalMillis) {
+                    sync();
+                }
+                if (intervalSync == null && fsyncIntervalMillis > 0) {
+                    intervalSync = SYNCER.scheduleWithFixedDelay(this::syncIfDue, fsyncIntervalMillis,
+                            fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+                break;
+            default:
+                // GROUP_COMMIT: the caller decides when to sync
+                break;
+        }
+    }
+
+    /**
+     * Forces any records an INTERVAL log is still holding, run by SYNCER every interval
+     * A record therefore waits at most one interval even if nothing is appended after it.
+     */
+    private synchronized void syncIfDue() {
+        if (closed || (buffer.position() == 0 && !unsynced)) {
+            return;
+        }
+        try {
+            sync();
+        } catch (IOException e) {
+            System.err.println("Error syncing message log: " + e.getMessage());
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createSyncer() {
+        ScheduledThreadPoolExecutor syncer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("message-log-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Closed logs drop out of the queue at once instead of at their next run
+        syncer.setRemoveOnCancelPolicy(true);
+        return syncer;
+    }
+
+    private void openSegment(int index) throws IOException {
+        Path path = directory.resolve(segmentName(index));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentIndex = index;
+        segmentPosition = channel.size();
+        channel.position(segmentPosition);
+    }
+
+    private void drain() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Message log is closed: " + directory);
+        }
+    }
+
+    /**
+     * Walks the valid records of one segment, stopping at the first torn or corrupt record
+     * @param in the segment channel
+     * @param index the segment index
+     * @param start the offset of the first record to read
+     * @param visitor receives each record, or null to only validate
+     * @return the offset just past the last valid record
+     */
+    private static long scan(FileChannel in, int index, long start, RecordVisitor visitor) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long position = start;
+        long size = in.size();
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(in, header, position);
+            int bodyLength = header.getInt(0);
+            if (bodyLength <= 0 || position + HEADER_SIZE + bodyLength + TRAILER_SIZE > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(bodyLength + TRAILER_SIZE);
+            readFully(in, body, position + HEADER_SIZE);
+            if (checksum(body, 0, bodyLength) != body.getInt(bodyLength)) {
+                break;
+            }
+            if (visitor != null) {
+                body.position(0).limit(bodyLength);
+                dispatch(body, address(index, position), visitor);
+            }
+            position += HEADER_SIZE + bodyLength + TRAILER_SIZE;
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = in.read(target, position + target.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+        target.flip();
+    }
+
+    private int recordChecksum(ByteBuffer source, int from, int length) {
+        crc.reset();
+        return update(crc, source, from, length);
+    }
+
+    private static int checksum(ByteBuffer source, int from, int length) {
+        return update(new CRC32(), source, from, length);
+    }
+
+    private static int update(CRC32 checksum, ByteBuffer source, int from, int length) {
+        ByteBuffer view = source.duplicate();
+        view.limit(from + length).position(from);
+        checksum.update(view);
+        return (int) checksum.getValue();
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Field too long to store: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer target, byte[] bytes) {
+        target.putShort((short) bytes.length);
+        target.put(bytes);
+    }
+
+    static String getString(ByteBuffer source) {
+        int length = source.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Map from message ID to a record address, as two parallel open-addressed arrays
+     * so an entry costs its ID string and a long rather than a HashMap node and a boxed Long.
+     * IDs are compared exactly: "1", "01" and "+1" are different messages.
+     */
+    /**
+     * The senders and total record size of the live records of one message ID
+     */
+    private static class LiveMessage {
+        private final List<String> senders = new ArrayList<>(1);
+        private long bytes;
+
+        void add(Message.MessageData data) {
+            senders.add(data.getSender());
+            bytes += recordSize(data);
+        }
+    }
+
+    private static class Tombstones {
+        private String[] ids = new String[16];
+        private long[] addresses = filled(16);
+        private int size;
+
+        synchronized void put(String messageId, long address) {
+            int slot = find(ids, messageId);
+            if (ids[slot] == null) {
+                if ((size + 1) * 2 > ids.length) {
+                    resize(ids.length * 2, Long.MIN_VALUE);
+                    slot = find(ids, messageId);
+                }
+                size++;
+                ids[slot] = messageId;
+            }
+            addresses[slot] = Math.max(addresses[slot], address);
+        }
+
+        /**
+         * Returns the address stored for an ID, or -1 if there is none
+         */
+        synchronized long get(String messageId) {
+            if (size == 0) {
+                return -1;
+            }
+            return addresses[find(ids, messageId)];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void removeBefore(long address) {
+            resize(ids.length, address);
+        }
+
+        /**
+         * Rehashes into a table of the given capacity, keeping entries at or after keepFrom
+         */
+        private void resize(int capacity, long keepFrom) {
+            String[] oldIds = ids;
+            long[] oldAddresses = addresses;
+            ids = new String[capacity];
+            addresses = filled(capacity);
+            size = 0;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != null && oldAddresses[i] >= keepFrom) {
+                    int slot = find(ids, oldIds[i]);
+                    ids[slot] = oldIds[i];
+                    addresses[slot] = oldAddresses[i];
+                    size++;
+                }
+            }
+        }
+
+        private static int find(String[] ids, String messageId) {
+            int mask = ids.length - 1;
+            int h = messageId.hashCode() * 0x9E3779B9;
+            int slot = (h ^ (h >>> 16)) & mask;
+            while (ids[slot] != null && !ids[slot].equals(messageId)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static long[] filled(int capacity) {
+            long[] empty = new long[capacity];
+            Arrays.fill(empty, -1);
+            return empty;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MessageLogCompactor class to handle compacting a message log in the background
+ * Checks the log on a single daemon thread every interval and compacts it once
+ * enough messages have been deleted, so deleted records do not pile up on disk:
+ * either minTombstones deleted IDs, or dead bytes (see MessageLog.getDeadBytes())
+ * of at least maxDeadRatio times the live bytes. The ratio keeps a small log of
+ * large deleted messages from waiting for the count, and a large log from being
+ * rewritten for a few deletes; below MIN_DEAD_BYTES only the count applies.
+ * See MessageLog.compact() for what a compaction keeps.
+ */
+public class MessageLogCompactor implements Closeable {
+    public static final long DEFAULT_INTERVAL_MILLIS = 60_000;
+    public static final int DEFAULT_MIN_TOMBSTONES = 10_000;
+    public static final double DEFAULT_MAX_DEAD_RATIO = 0.5;
+    public static final long MIN_DEAD_BYTES = 1024 * 1024;
+
+    private final MessageLog log;
+    private final long intervalMillis;
+    private final int minTombstones;
+    private final double maxDeadRatio;
+    private final ScheduledExecutorService timer;
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong reclaimed = new AtomicLong();
+
+    /**
+     * Creates a compactor with the default schedule; call start() to begin checking
+     * @param log the log to compact
+     */
+    public MessageLogCompactor(MessageLog log) {
+        this(log, DEFAULT_INTERVAL_MILLIS, DEFAULT_MIN_TOMBSTONES);
+    }
+
+    /**
+     * Creates a compactor with the default dead to live ratio; call start() to begin checking
+     * @param log the log to compact
+     * @param intervalMillis the time between checks
+     * @param minTombstones how many deleted messages trigger a compaction
+     */
+    public MessageLogCompactor(MessageLog log, long intervalMillis, int minTombstones) {
+        this(log, intervalMillis, minTombstones, DEFAULT_MAX_DEAD_RATIO);
+    }
+
+    /**
+     * Creates a compactor; call start() to begin checking
+     * @param log the log to compact
+     * @param intervalMillis the time between checks
+     * @param minTombstones how many deleted messages trigger a compaction
+     * @param maxDeadRatio the dead to live bytes ratio that triggers a compaction
+     */
+    public MessageLogCompactor(MessageLog log, long intervalMillis, int minTombstones, double maxDeadRatio) {
+        if (intervalMillis < 1 || minTombstones < 1 || !(maxDeadRatio > 0)) {
+            throw new IllegalArgumentException("Interval and thresholds must be positive");
+        }
+        this.log = log;
+        this.intervalMillis = intervalMillis;
+        this.minTombstones = minTombstones;
+        this.maxDeadRatio = maxDeadRatio;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "message-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts checking the log every interval
+     */
+    public void start() {
+        timer.scheduleWithFixedDelay(this::check, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Compacts the log now, whatever the number of deleted messages
+     * @return the number of bytes reclaimed
+     * @throws IOException if the log cannot be compacted
+     */
+    public long compactNow() throws IOException {
+        long bytes = log.compact();
+        runs.incrementAndGet();
+        reclaimed.addAndGet(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns how many compactions this compactor has run
+     * @return the compaction count
+     */
+    public long getRuns() {
+        return runs.get();
+    }
+
+    /**
+     * Returns how many bytes this compactor's compactions have reclaimed
+     * @return the reclaimed byte count
+     */
+    public long getReclaimed() {
+        return reclaimed.get();
+    }
+
+    /**
+     * Stops checking and waits for a compaction in progress to finish
+     */
+    @Override
+    public void close() {
+        timer.shutdown();
+        try {
+            timer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks whether the log has enough deleted messages or dead bytes to compact
+     * @return true if the next check would compact
+     * @throws IOException if the log cannot be measured
+     */
+    public boolean isDue() throws IOException {
+        if (log.getTombstoneCount() >= minTombstones) {
+            return true;
+        }
+        long dead = log.getDeadBytes();
+        if (dead < MIN_DEAD_BYTES) {
+            return false;
+        }
+        long live = Math.max(0, log.getSize() - dead);
+        return dead >= maxDeadRatio * live;
+    }
+
+    private void check() {
+        try {
+            if (isDue()) {
+                compactNow();
+            }
+        } catch (IOException e) {
+            System.err.println("Error compacting stored messages: " + e.getMessage());
+        }
+    }
+}
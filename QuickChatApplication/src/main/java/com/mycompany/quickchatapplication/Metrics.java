@@ -0,0 +1,311 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics class to handle counting and timing what Login and Message do
+ * Counts every sentMessage choice and every validation rejection by reason,
+ * and keeps a LatencyHistogram per timer. Everything is off until enabled with
+ * setEnabled(true) or -Dquickchat.metrics=true; while off, each call site costs
+ * one read of a flag. Readings are available as a JMX MBean (see registerMBean)
+ * and as a plain text dump.
+ *
+ * Typical use on a hot path:
+ *   long start = Metrics.start();
+ *   ... work ...
+ *   Metrics.stop(Metrics.Timer.STORE, start);
+ */
+public final class Metrics {
+
+    /**
+     * Outcomes of Message.sentMessage
+     */
+    public enum Choice {
+        SEND, DISREGARD, STORE, INVALID
+    }
+
+    /**
+     * Reasons input is turned away by registration, login, message validation or deduplication
+     */
+    public enum Rejection {
+        USERNAME_FORMAT, PASSWORD_COMPLEXITY, CELL_FORMAT, USERNAME_TAKEN, CELL_TAKEN,
+        LOGIN_FAILED, LOGIN_THROTTLED, RECIPIENT_FORMAT, MESSAGE_NULL, MESSAGE_TOO_LONG, DUPLICATE
+    }
+
+    /**
+     * Timed operations
+     */
+    public enum Timer {
+        /** Checking a username, password, cell number or message */
+        VALIDATE,
+        /** Creating a message hash */
+        HASH,
+        /** Writing a stored message to the message log */
+        STORE
+    }
+
+    public static final String PROPERTY = "quickchat.metrics";
+    public static final String OBJECT_NAME = "com.mycompany.quickchatapplication:type=Metrics";
+
+    private static final LongAdder[] CHOICES = adders(Choice.values().length);
+    private static final LongAdder[] REJECTIONS = adders(Rejection.values().length);
+    private static final LatencyHistogram[] TIMERS = new LatencyHistogram[Timer.values().length];
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private static volatile boolean enabled = Boolean.getBoolean(PROPERTY);
+
+    static {
+        for (int i = 0; i < TIMERS.length; i++) {
+            TIMERS[i] = new LatencyHistogram();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Checks whether metrics are being recorded
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording on or off; readings so far are kept
+     * @param on true to record
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Counts one sentMessage outcome
+     * @param choice the outcome
+     */
+    public static void count(Choice choice) {
+        if (enabled) {
+            CHOICES[choice.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Counts one rejected input
+     * @param reason why it was rejected
+     */
+    public static void reject(Rejection reason) {
+        if (enabled) {
+            REJECTIONS[reason.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Starts timing an operation
+     * @return the start time to pass to stop, or 0 when disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since start in a timer's histogram
+     * Does nothing if start is 0, i.e. metrics were disabled when timing began.
+     * @param timer the timer to record in
+     * @param start the value returned by start()
+     */
+    public static void stop(Timer timer, long start) {
+        if (start != 0) {
+            TIMERS[timer.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns how often an outcome has been counted
+     * @param choice the outcome
+     * @return the count
+     */
+    public static long getCount(Choice choice) {
+        return CHOICES[choice.ordinal()].sum();
+    }
+
+    /**
+     * Returns how often a rejection has been counted
+     * @param reason the rejection reason
+     * @return the count
+     */
+    public static long getCount(Rejection reason) {
+        return REJECTIONS[reason.ordinal()].sum();
+    }
+
+    /**
+     * Returns the histogram of a timer
+     * @param timer the timer
+     * @return its histogram
+     */
+    public static LatencyHistogram getHistogram(Timer timer) {
+        return TIMERS[timer.ordinal()];
+    }
+
+    /**
+     * Clears every counter and histogram
+     */
+    public static void reset() {
+        for (LongAdder adder : CHOICES) {
+            adder.reset();
+        }
+        for (LongAdder adder : REJECTIONS) {
+            adder.reset();
+        }
+        for (LatencyHistogram histogram : TIMERS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes every reading as plain text, one "name{labels} value" line each
+     * Latencies are in nanoseconds.
+     * @param out where to write
+     * @throws IOException if out cannot be written
+     */
+    public static void dump(Appendable out) throws IOException {
+        out.append("# QuickChat metrics, ").append(enabled ? "enabled" : "disabled").append('\n');
+        for (Choice choice : Choice.values()) {
+            line(out, "quickchat_choice_total{choice=\"" + label(choice) + "\"}", getCount(choice));
+        }
+        for (Rejection reason : Rejection.values()) {
+            line(out, "quickchat_rejection_total{reason=\"" + label(reason) + "\"}", getCount(reason));
+        }
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram histogram = getHistogram(timer);
+            String name = "quickchat_latency_nanos";
+            String labels = "timer=\"" + label(timer) + "\"";
+            line(out, name + "_count{" + labels + "}", histogram.getCount());
+            line(out, name + "_mean{" + labels + "}", Math.round(histogram.getMean()));
+            for (double percentile : PERCENTILES) {
+                line(out, name + "{" + labels + ",quantile=\"" + percentile / 100 + "\"}", histogram.getPercentile(percentile));
+            }
+            line(out, name + "_max{" + labels + "}", histogram.getMax());
+        }
+    }
+
+    /**
+     * Returns every reading as plain text
+     * @return the dump, as written by dump(Appendable)
+     */
+    public static String dump() {
+        StringBuilder text = new StringBuilder();
+        try {
+            dump(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Registers the metrics MBean with the platform MBean server, once
+     * @return the name it is registered under
+     */
+    public static synchronized ObjectName registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MBean(), name);
+            }
+            return name;
+        } catch (InstanceAlreadyExistsException e) {
+            return null;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBean", e);
+        }
+    }
+
+    private static void line(Appendable out, String name, long value) throws IOException {
+        out.append(name).append(' ').append(Long.toString(value)).append('\n');
+    }
+
+    private static String label(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * The MBean view of the static readings
+     */
+    private static class MBean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            Metrics.setEnabled(on);
+        }
+
+        @Override
+        public Map<String, Long> getChoiceCounts() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (Choice choice : Choice.values()) {
+                counts.put(label(choice), getCount(choice));
+            }
+            return counts;
+        }
+
+        @Override
+        public Map<String, Long> getRejectionCounts() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (Rejection reason : Rejection.values()) {
+                counts.put(label(reason), getCount(reason));
+            }
+            return counts;
+        }
+
+        @Override
+        public Map<String, Long> getLatencyNanos() {
+            Map<String, Long> latencies = new LinkedHashMap<>();
+            for (Timer timer : Timer.values()) {
+                LatencyHistogram histogram = getHistogram(timer);
+                latencies.put(label(timer) + ".count", histogram.getCount());
+                for (double percentile : PERCENTILES) {
+                    latencies.put(label(timer) + ".p" + String.valueOf(percentile).replace(".0", ""),
+                            histogram.getPercentile(percentile));
+                }
+                latencies.put(label(timer) + ".max", histogram.getMax());
+            }
+            return latencies;
+        }
+
+        @Override
+        public String dump() {
+            return Metrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
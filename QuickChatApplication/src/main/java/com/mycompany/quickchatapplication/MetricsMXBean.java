@@ -0,0 +1,55 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.Map;
+
+/**
+ * MetricsMXBean interface for reading QuickChat metrics over JMX
+ * Registered by Metrics.registerMBean() as com.mycompany.quickchatapplication:type=Metrics.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Checks whether metrics are being recorded
+     * @return true if enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Turns recording on or off
+     * @param on true to record
+     */
+    void setEnabled(boolean on);
+
+    /**
+     * Returns the count of each sentMessage outcome
+     * @return counts by outcome name
+     */
+    Map<String, Long> getChoiceCounts();
+
+    /**
+     * Returns the count of each rejection reason
+     * @return counts by reason name
+     */
+    Map<String, Long> getRejectionCounts();
+
+    /**
+     * Returns the count, percentiles and maximum of each timer
+     * @return nanoseconds by "timer.statistic", e.g. "store.p99"
+     */
+    Map<String, Long> getLatencyNanos();
+
+    /**
+     * Returns every reading as plain text
+     * @return the metrics dump
+     */
+    String dump();
+
+    /**
+     * Clears every counter and histogram
+     */
+    void reset();
+}
@@ -0,0 +1,206 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.Closeable;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PasswordHasher class to handle salted PBKDF2 password hashes
+ * Hashes are stored as "pbkdf2-sha256$iterations$salt$hash" (Base64 salt and
+ * hash), so the work factor can be raised later and older hashes still verify
+ * with the iteration count they were made with.
+ *
+ * Hashing is deliberately slow, so verifyAsync runs it on a small fixed pool of
+ * worker threads with a bounded queue. A burst of logins then waits for a
+ * worker (or is turned away when the queue is full) instead of taking every
+ * CPU away from message sending.
+ */
+public class PasswordHasher implements Closeable {
+    // OWASP's recommended minimum for PBKDF2-HMAC-SHA256
+    public static final int DEFAULT_ITERATIONS = 600_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    private static final int DEFAULT_MAX_QUEUED = 1024;
+
+    private final int iterations;
+    private final ThreadPoolExecutor workers;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Creates a hasher with the default work factor, using half the processors for hashing
+     */
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Creates a hasher using half the processors for hashing
+     * @param iterations the PBKDF2 work factor for new hashes
+     */
+    public PasswordHasher(int iterations) {
+        this(iterations, Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Creates a hasher
+     * @param iterations the PBKDF2 work factor for new hashes
+     * @param threads how many threads may hash passwords at once
+     * @param maxQueued how many verifications may wait for a thread before new ones are refused
+     */
+    public PasswordHasher(int iterations, int threads, int maxQueued) {
+        if (iterations < 1 || threads < 1 || maxQueued < 1) {
+            throw new IllegalArgumentException("Iterations, threads and queue size must be positive");
+        }
+        this.iterations = iterations;
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Returns the work factor used for new hashes
+     * @return the PBKDF2 iteration count
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes a password with a new random salt on the calling thread
+     * @param password the password
+     * @return the encoded hash
+     */
+    public String hash(CharSequence password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Hashes a password with a new random salt on the worker pool
+     * @param password the password
+     * @return a future completing with the encoded hash
+     * @throws RejectedExecutionException if too many hashes are already waiting
+     */
+    public CompletableFuture<String> hashAsync(CharSequence password) {
+        return CompletableFuture.supplyAsync(() -> hash(password), workers);
+    }
+
+    /**
+     * Checks a password against a hash on the worker pool
+     * @param password the password entered by the user
+     * @param encoded a hash made by hash
+     * @return a future completing with true if the password matches
+     * @throws RejectedExecutionException if too many verifications are already waiting
+     */
+    public CompletableFuture<Boolean> verifyAsync(CharSequence password, String encoded) {
+        return CompletableFuture.supplyAsync(() -> verify(password, encoded), workers);
+    }
+
+    /**
+     * Checks whether a hash was made with a different work factor than this hasher's
+     * @param encoded a hash made by hash
+     * @return true if the password should be hashed again after the next successful login
+     */
+    public boolean needsRehash(String encoded) {
+        return iterationsOf(encoded) != iterations;
+    }
+
+    /**
+     * Checks a password against a hash on the calling thread
+     * Compares in constant time, so the time taken does not reveal how much matched.
+     * @param password the password entered by the user
+     * @param encoded a hash made by hash
+     * @return true if the password matches, false if not or if the hash is malformed
+     */
+    public static boolean verify(CharSequence password, String encoded) {
+        String[] parts = encoded == null ? new String[0] : encoded.split("\\$");
+        if (password == null || parts.length != 4 || !parts[0].equals(PREFIX)) {
+            return false;
+        }
+        try {
+            int rounds = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return rounds > 0 && MessageDigest.isEqual(expected, pbkdf2(password, salt, rounds));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the work factor a hash was made with
+     * @param encoded a hash made by hash
+     * @return the iteration count, or 0 if the hash is malformed
+     */
+    public static int iterationsOf(String encoded) {
+        String[] parts = encoded == null ? new String[0] : encoded.split("\\$");
+        try {
+            return parts.length == 4 && parts[0].equals(PREFIX) ? Integer.parseInt(parts[1]) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Compares two strings in time that depends only on their lengths
+     * @param a the first string, may be null
+     * @param b the second string, may be null
+     * @return true if both are non-null and equal
+     */
+    public static boolean constantTimeEquals(CharSequence a, CharSequence b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(a.toString().getBytes(StandardCharsets.UTF_8), b.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stops the worker threads; queued verifications still finish
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    private static byte[] pbkdf2(CharSequence password, byte[] salt, int rounds) {
+        char[] chars = new char[password.length()];
+        CharBuffer.wrap(password).get(chars);
+        KeySpec spec = new PBEKeySpec(chars, salt, rounds, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // Every Java SE implementation has to provide PBKDF2WithHmacSHA256
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+}
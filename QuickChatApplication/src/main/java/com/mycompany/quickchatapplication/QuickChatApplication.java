@@ -3,16 +3,165 @@
  */
 
 package com.mycompany.quickchatapplication;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
 import javax.swing.JOptionPane;
+import jdk.jfr.Recording;
 
 /**
  * QuickChat Application - Main class that combines login and messaging functionality
+ * Run with --server [port] to serve QuickChat over HTTP instead (see ChatServer),
+ * or with --batch input [output] to send messages from a file (see BatchSender).
+ * The dialogs and the server keep sent messages across runs in the same journal
+ * (see SentMessageJournal); --batch only reports on its input file.
  */
 public class QuickChatApplication {
+    // Messages shown per dialog by "Show recently sent messages"
+    private static final int MESSAGES_PER_PAGE = 10;
+    // Where stored messages were kept before the message log
+    private static final String LEGACY_STORE_FILE = "stored_messages.json";
+    // Keeps only this many sent messages in memory when set, e.g. -Dquickchat.history.size=10000
+    private static final String HISTORY_SIZE_PROPERTY = "quickchat.history.size";
     
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            runServer(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+        
+        Path usersFile = Paths.get(UserRegistry.FILE_NAME);
+        UserRegistry users;
+        try {
+            users = UserRegistry.load(usersFile);
+        } catch (IOException e) {
+            System.err.println("Could not load registered users: " + e.getMessage());
+            users = new UserRegistry();
+        }
+        Message messageSystem = new Message(null, sentHistory(new SentMessageList()));
+        importLegacyStore(messageSystem);
+        try {
+            SentMessageJournal journal = recoverSentMessages(messageSystem);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Could not save sent messages: " + e.getMessage());
+                }
+            }));
+        } catch (IOException e) {
+            // Carry on without keeping this run's messages
+            System.err.println("Could not recover sent messages: " + e.getMessage());
+        }
+        
+        // Returning users can skip straight to logging in
+        boolean hasAccount = users.size() > 0 && JOptionPane.showConfirmDialog(null,
+                "Do you already have an account?", "QuickChat", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+        if (!hasAccount && !registerUser(users, usersFile)) {
+            return;
+        }
+        
+        // Login process
+        JOptionPane.showMessageDialog(null, "=== Login ===");
+        String loginUsername = JOptionPane.showInputDialog("Enter username:");
+        if (loginUsername == null) return;
+        
+        String loginPassword = JOptionPane.showInputDialog("Enter password:");
+        if (loginPassword == null) return;
+        
+        String session = users.loginUser(loginUsername, loginPassword);
+        JOptionPane.showMessageDialog(null, "Login Status: " + (session != null
+                ? users.getSessionUser(session).returnLoginStatus() : "Username or password incorrect, please try again."));
+        
+        if (session == null) {
+            return; // Exit if login failed - users can only send messages if logged in successfully
+        }
+        
+        // Welcome to QuickChat - requirement 2
+        JOptionPane.showMessageDialog(null, "Welcome to QuickChat.");
+        
+        // Get number of messages user wants to send - requirement 5
+        String numMessagesStr = JOptionPane.showInputDialog("How many messages would you like to send?");
+        if (numMessagesStr == null) return;
+        
+        int numMessages;
+        try {
+            numMessages = Integer.parseInt(numMessagesStr);
+            if (numMessages <= 0) {
+                JOptionPane.showMessageDialog(null, "Please enter a positive number.");
+                return;
+            }
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(null, "Please enter a valid number.");
+            return;
+        }
+        
+        // Main application loop - requirement 4: runs until user selects quit
+        boolean running = true;
+        int messagesCreated = 0;
+        
+        while (running) {
+            // Display numeric menu - requirement 3
+            String menuMessage = "Choose an option:\n1. Send Messages\n2. Show recently sent messages\n3. Quit\n\nEnter your choice (1-3):";
+            String choiceStr = JOptionPane.showInputDialog(menuMessage);
+            
+            if (choiceStr == null) {
+                running = false;
+                continue;
+            }
+            
+            int choice;
+            try {
+                choice = Integer.parseInt(choiceStr);
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(null, "Please enter a valid number (1-3).");
+                continue;
+            }
+            
+            switch (choice) {
+                case 1: // Send Messages
+                    if (messagesCreated < numMessages) {
+                        sendMessage(messageSystem, messagesCreated + 1);
+                        messagesCreated++;
+                    } else {
+                        JOptionPane.showMessageDialog(null, "You have reached your message limit of " + numMessages + " messages.");
+                    }
+                    break;
+                    
+                case 2: // Show recently sent messages - requirement 3b
+                    showRecentMessages(messageSystem);
+                    break;
+                    
+                case 3: // Quit - requirement 3c
+                    running = false;
+                    // Display total messages sent - requirement 8
+                    JOptionPane.showMessageDialog(null, "Total messages sent: " + messageSystem.returnTotalMessages());
+                    break;
+                    
+                default:
+                    JOptionPane.showMessageDialog(null, "Invalid choice. Please select 1, 2, or 3.");
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Registers a new account, asking for each detail until it is valid
+     * @param users the registry to add the account to
+     * @param usersFile the snapshot to save the registry to afterwards
+     * @return true if registration succeeded, false if it failed or was cancelled
+     */
+    private static boolean registerUser(UserRegistry users, Path usersFile) {
         Login login = new Login();
-        Message messageSystem = new Message();
         
         // Registration process (using your existing logic)
         JOptionPane.showMessageDialog(null, "=== User Registration and Login System ===\nPlease register a new account:");
@@ -21,7 +170,7 @@ public class QuickChatApplication {
         boolean validUsername = false;
         while (!validUsername) {
             String username = JOptionPane.showInputDialog("Enter username:");
-            if (username == null) return; // User cancelled
+            if (username == null) return false; // User cancelled
             
             login.setUsername(username);
             
@@ -37,7 +186,7 @@ public class QuickChatApplication {
         boolean validPassword = false;
         while (!validPassword) {
             String password = JOptionPane.showInputDialog("Enter password:");
-            if (password == null) return; // User cancelled
+            if (password == null) return false; // User cancelled
             
             login.setPassword(password);
             
@@ -53,7 +202,7 @@ public class QuickChatApplication {
         boolean validCellPhone = false;
         while (!validCellPhone) {
             String cellPhone = JOptionPane.showInputDialog("Enter South African cell phone number:");
-            if (cellPhone == null) return; // User cancelled
+            if (cellPhone == null) return false; // User cancelled
             
             login.setCellPhoneNumber(cellPhone);
             
@@ -69,7 +218,7 @@ public class QuickChatApplication {
         boolean validFirstName = false;
         while (!validFirstName) {
             String firstName = JOptionPane.showInputDialog("Enter your first name:");
-            if (firstName == null) return; // User cancelled
+            if (firstName == null) return false; // User cancelled
             
             if (firstName != null && !firstName.trim().isEmpty()) {
                 login.setFirstName(firstName);
@@ -84,7 +233,7 @@ public class QuickChatApplication {
         boolean validLastName = false;
         while (!validLastName) {
             String lastName = JOptionPane.showInputDialog("Enter your last name:");
-            if (lastName == null) return; // User cancelled
+            if (lastName == null) return false; // User cancelled
             
             if (lastName != null && !lastName.trim().isEmpty()) {
                 login.setLastName(lastName);
@@ -96,93 +245,220 @@ public class QuickChatApplication {
         }
         
         // Register the user and display registration status
-        String registerStatus = login.registerUser();
+        String registerStatus = users.register(login);
         JOptionPane.showMessageDialog(null, "Registration Status: " + registerStatus);
         
         if (!registerStatus.equals("Registration successful!")) {
-            return; // Exit if registration failed
+            return false; // Exit if registration failed
         }
-        
-        // Login process
-        JOptionPane.showMessageDialog(null, "=== Login ===");
-        String loginUsername = JOptionPane.showInputDialog("Enter username:");
-        if (loginUsername == null) return;
-        
-        String loginPassword = JOptionPane.showInputDialog("Enter password:");
-        if (loginPassword == null) return;
-        
-        boolean loginSuccess = login.loginUser(loginUsername, loginPassword);
-        JOptionPane.showMessageDialog(null, "Login Status: " + login.returnLoginStatus());
-        
-        if (!loginSuccess) {
-            return; // Exit if login failed - users can only send messages if logged in successfully
-        }
-        
-        // Welcome to QuickChat - requirement 2
-        JOptionPane.showMessageDialog(null, "Welcome to QuickChat.");
-        
-        // Get number of messages user wants to send - requirement 5
-        String numMessagesStr = JOptionPane.showInputDialog("How many messages would you like to send?");
-        if (numMessagesStr == null) return;
-        
-        int numMessages;
         try {
-            numMessages = Integer.parseInt(numMessagesStr);
-            if (numMessages <= 0) {
-                JOptionPane.showMessageDialog(null, "Please enter a positive number.");
+            users.save(usersFile);
+        } catch (IOException e) {
+            System.err.println("Could not save registered users: " + e.getMessage());
+        }
+        return true;
+    }
+    
+    /**
+     * Runs QuickChat as a headless HTTP server instead of the dialog flow
+     * Usage: --server [port]. Listens on localhost until the JVM is stopped; registered
+     * users are loaded from users.dat at startup and saved back on shutdown, and sent
+     * messages are recovered from the journal in sent_messages/ and logged to it. Metrics
+     * are on unless -Dquickchat.metrics=false, and can be read from /metrics or over JMX.
+     * With -Dquickchat.jfr=file.jfr the message events are recorded to that file until shutdown.
+     * With -Dquickchat.dedup=suppress (or coalesce) a message repeated to the same recipient
+     * within -Dquickchat.dedup.window milliseconds (default a minute) is not sent again.
+     * With -Dquickchat.history.size=N only the last N sent messages are kept in memory.
+     * With -Dquickchat.delivery=true stored messages are delivered by a DeliveryScheduler and
+     * then deleted from the log; the only transport so far is the in-process LoopbackTransport.
+     * @param args the command line arguments, starting with --server
+     */
+    private static void runServer(String[] args) {
+        int port = ChatServer.DEFAULT_PORT;
+        if (args.length > 1) {
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid port: " + args[1]);
                 return;
             }
-        } catch (NumberFormatException e) {
-            JOptionPane.showMessageDialog(null, "Please enter a valid number.");
+        }
+        try {
+            Path usersFile = Paths.get(UserRegistry.FILE_NAME);
+            UserRegistry users = UserRegistry.load(usersFile);
+            // Keeps every sent message, so hold them as compact records rather than objects
+            Message messageSystem = new Message(null, sentHistory(new ColumnarMessageHistory()));
+            importLegacyStore(messageSystem);
+            String dedup = System.getProperty("quickchat.dedup");
+            if (dedup != null) {
+                messageSystem.setDeduplicator(new MessageDeduplicator(
+                        MessageDeduplicator.Mode.valueOf(dedup.toUpperCase(Locale.ROOT)),
+                        Long.getLong("quickchat.dedup.window", MessageDeduplicator.DEFAULT_WINDOW_MILLIS),
+                        MessageDeduplicator.DEFAULT_EXPECTED_PER_WINDOW, MessageDeduplicator.DEFAULT_FALSE_POSITIVE_RATE));
+            }
+            SentMessageJournal journal = recoverSentMessages(messageSystem);
+            ChatServer server = new ChatServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), messageSystem, users);
+            MessageLogCompactor compactor = new MessageLogCompactor(messageSystem.getStore());
+            // The server is what runs in production, so record metrics unless told not to
+            Metrics.setEnabled(!"false".equals(System.getProperty(Metrics.PROPERTY)));
+            Metrics.registerMBean();
+            String jfrFile = System.getProperty("quickchat.jfr");
+            Recording recording = jfrFile == null ? null : MessageEvents.startRecording(Paths.get(jfrFile));
+            server.start();
+            compactor.start();
+            DeliveryScheduler delivery = Boolean.getBoolean("quickchat.delivery")
+                    ? new DeliveryScheduler(new LoopbackTransport(false), messageSystem.getStore()) : null;
+            if (delivery != null) {
+                delivery.start();
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                if (delivery != null) {
+                    delivery.close();
+                }
+                compactor.close();
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Could not save sent messages: " + e.getMessage());
+                }
+                if (recording != null) {
+                    // Stopping writes the recording to its destination
+                    recording.stop();
+                    recording.close();
+                }
+                try {
+                    users.save(usersFile);
+                } catch (IOException e) {
+                    System.err.println("Could not save registered users: " + e.getMessage());
+                }
+            }));
+            System.out.println("QuickChat server listening on http://localhost:" + server.getPort());
+        } catch (IOException e) {
+            System.err.println("Could not start server: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid server setting: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Recovers sent messages from the journal in sent_messages/ and logs every new one to it
+     * @param messageSystem the Message to recover into, before anything is sent
+     * @return the journal, to be closed on shutdown
+     * @throws IOException if the journal cannot be opened or read
+     */
+    private static SentMessageJournal recoverSentMessages(Message messageSystem) throws IOException {
+        SentMessageJournal journal = new SentMessageJournal(Paths.get(SentMessageJournal.DEFAULT_DIRECTORY));
+        try {
+            long recoveryStart = System.nanoTime();
+            int recovered = messageSystem.recoverSentMessages(journal);
+            if (recovered > 0) {
+                System.out.printf("Recovered %d sent messages in %d ms (%d from the log)%n", recovered,
+                        (System.nanoTime() - recoveryStart) / 1_000_000, journal.getRecoveredFromLog());
+            }
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            try {
+                journal.close();
+            } catch (IOException closing) {
+                e.addSuppressed(closing);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Picks where sent messages are kept in memory
+     * With -Dquickchat.history.size=N only the last N are kept, in a RingBufferMessageHistory;
+     * older ones are dropped from memory, so "Show recently sent messages" and search only see those.
+     * @param unbounded the history to use when no size is set
+     * @return the history to give to Message
+     */
+    private static MessageHistory sentHistory(MessageHistory unbounded) {
+        Integer size = Integer.getInteger(HISTORY_SIZE_PROPERTY);
+        if (size == null) {
+            return unbounded;
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException(HISTORY_SIZE_PROPERTY + " must be at least 1: " + size);
+        }
+        return new RingBufferMessageHistory(size);
+    }
+    
+    /**
+     * Copies stored_messages.json, written by earlier versions, into the message log once
+     * The file is renamed afterwards, so later starts skip this.
+     * @param messageSystem the message system whose store receives the messages
+     */
+    private static void importLegacyStore(Message messageSystem) {
+        Path legacy = Paths.get(LEGACY_STORE_FILE);
+        if (!Files.exists(legacy)) {
+            return;
+        }
+        try {
+            int imported = messageSystem.getStore().importLegacy(legacy);
+            System.out.println("Imported " + imported + " stored messages from " + legacy);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Could not import " + legacy + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Sends every message in a CSV or JSONL file without any dialogs
+     * Usage: --batch input [output]. Results go to input.results.csv by default.
+     * @param args the command line arguments, starting with --batch
+     */
+    private static void runBatch(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: --batch input.csv|input.jsonl [output.csv]");
+            return;
+        }
+        Path input = Paths.get(args[1]);
+        Path output = args.length > 2 ? Paths.get(args[2]) : input.resolveSibling(input.getFileName() + ".results.csv");
+        try {
+            System.out.println(new BatchSender(new Message()).run(input, output));
+            System.out.println("Results written to " + output);
+        } catch (IOException e) {
+            System.err.println("Batch send failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Shows sent messages one page at a time, newest page first
+     * Only the messages on the current page are formatted, however many were sent.
+     * @param messageSystem the message system instance
+     */
+    private static void showRecentMessages(Message messageSystem) {
+        MessageHistory history = messageSystem.getHistory();
+        if (history.retained() == 0) {
+            JOptionPane.showMessageDialog(null, "No messages sent yet.");
             return;
         }
         
-        // Main application loop - requirement 4: runs until user selects quit
-        boolean running = true;
-        int messagesCreated = 0;
-        
-        while (running) {
-            // Display numeric menu - requirement 3
-            String menuMessage = "Choose an option:\n1. Send Messages\n2. Show recently sent messages\n3. Quit\n\nEnter your choice (1-3):";
-            String choiceStr = JOptionPane.showInputDialog(menuMessage);
-            
-            if (choiceStr == null) {
-                running = false;
-                continue;
-            }
-            
-            int choice;
+        int afterNumber = Math.max(0, history.totalAppended() - MESSAGES_PER_PAGE);
+        while (true) {
+            StringBuilder page = new StringBuilder();
+            page.append("=== SENT MESSAGES ").append(Math.max(afterNumber + 1, history.firstRetainedNumber())).append("-")
+                    .append(Math.min(afterNumber + MESSAGES_PER_PAGE, history.totalAppended()))
+                    .append(" of ").append(history.totalAppended()).append(" ===\n");
             try {
-                choice = Integer.parseInt(choiceStr);
-            } catch (NumberFormatException e) {
-                JOptionPane.showMessageDialog(null, "Please enter a valid number (1-3).");
-                continue;
+                messageSystem.printMessages(page, afterNumber, MESSAGES_PER_PAGE);
+            } catch (IOException e) {
+                // StringBuilder does not throw
+                return;
             }
             
-            switch (choice) {
-                case 1: // Send Messages
-                    if (messagesCreated < numMessages) {
-                        sendMessage(messageSystem, messagesCreated + 1);
-                        messagesCreated++;
-                    } else {
-                        JOptionPane.showMessageDialog(null, "You have reached your message limit of " + numMessages + " messages.");
-                    }
-                    break;
-                    
-                case 2: // Show recently sent messages - requirement 3b
-                    JOptionPane.showMessageDialog(null, "Coming Soon.");
-                    break;
-                    
-                case 3: // Quit - requirement 3c
-                    running = false;
-                    // Display total messages sent - requirement 8
-                    JOptionPane.showMessageDialog(null, "Total messages sent: " + messageSystem.returnTotalMessages());
-                    break;
-                    
-                default:
-                    JOptionPane.showMessageDialog(null, "Invalid choice. Please select 1, 2, or 3.");
-                    break;
+            boolean hasOlder = afterNumber >= history.firstRetainedNumber();
+            if (!hasOlder) {
+                JOptionPane.showMessageDialog(null, page.toString());
+                return;
+            }
+            int option = JOptionPane.showConfirmDialog(null, page + "\nShow older messages?",
+                    "Recently sent messages", JOptionPane.YES_NO_OPTION);
+            if (option != JOptionPane.YES_OPTION) {
+                return;
             }
+            afterNumber = Math.max(0, afterNumber - MESSAGES_PER_PAGE);
         }
     }
     
@@ -0,0 +1,26 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RandomIdGenerator class to handle random 10-digit message IDs
+ * Draws one random number per ID from ThreadLocalRandom, so concurrent callers
+ * never contend on a shared seed. IDs are random, not guaranteed unique.
+ */
+public class RandomIdGenerator implements IdGenerator {
+    static final long ID_SPACE = 10_000_000_000L;
+
+    @Override
+    public long nextId() {
+        return ThreadLocalRandom.current().nextLong(ID_SPACE);
+    }
+
+    @Override
+    public int render(long id, byte[] target, int offset) {
+        return IdGenerator.renderDecimal(id, target, offset);
+    }
+}
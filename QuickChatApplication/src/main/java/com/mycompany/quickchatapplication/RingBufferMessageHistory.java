@@ -0,0 +1,257 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * RingBufferMessageHistory class to handle a bounded history of the last N sent messages
+ * Message number n lives in slot (n - 1) % capacity. Writing a message
+ * evicts whatever was in its slot, and evicted messages are appended to an
+ * optional spill log so nothing is lost, only moved out of memory.
+ * Appends are lock-free; numbering stays gap-free as in SentMessageList.
+ */
+public class RingBufferMessageHistory implements MessageHistory {
+    private final int capacity;
+    private final AtomicReferenceArray<Message.MessageData> slots;
+    private final AtomicInteger count = new AtomicInteger();
+    private final MessageLog spillLog;
+    private volatile Consumer<Message.MessageData> evictionListener;
+    private final List<Message.MessageData> view = Collections.unmodifiableList(new RetainedView());
+
+    /**
+     * Creates a history that keeps only the last messages and drops older ones
+     * @param capacity how many messages to keep in memory
+     */
+    public RingBufferMessageHistory(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Creates a history that keeps the last messages and spills older ones to a log
+     * @param capacity how many messages to keep in memory
+     * @param spillLog the log evicted messages are appended to, or null to drop them
+     */
+    public RingBufferMessageHistory(int capacity, MessageLog spillLog) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.spillLog = spillLog;
+    }
+
+    @Override
+    public Message.MessageData append(IntFunction<Message.MessageData> factory) {
+        int number = count.incrementAndGet();
+        if (number < 0) {
+            count.decrementAndGet();
+            throw new IllegalStateException("Message history is full");
+        }
+        Message.MessageData data = null;
+        try {
+            data = factory.apply(number);
+        } finally {
+            publish(number, data != null ? data : new Message.MessageData(null, number, null, null, ""));
+        }
+        return data;
+    }
+
+    @Override
+    public int totalAppended() {
+        return count.get();
+    }
+
+    @Override
+    public int retained() {
+        return Math.min(count.get(), capacity);
+    }
+
+    @Override
+    public int firstRetainedNumber() {
+        return Math.max(1, count.get() - capacity + 1);
+    }
+
+    @Override
+    public Message.MessageData getByNumber(int messageNumber) {
+        if (messageNumber < 1 || messageNumber > count.get()) {
+            return null;
+        }
+        int slot = (messageNumber - 1) % capacity;
+        while (true) {
+            Message.MessageData data = slots.get(slot);
+            if (data != null && data.getMessageNumber() >= messageNumber) {
+                return data.getMessageNumber() == messageNumber ? data : null;
+            }
+            if (messageNumber < firstRetainedNumber()) {
+                return null;
+            }
+            // Claimed but not yet published
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public List<Message.MessageData> view() {
+        return view;
+    }
+
+    /**
+     * Iterates over the retained messages, oldest first
+     * Messages evicted while iterating are skipped.
+     * @return an iterator that reads the ring in place
+     */
+    @Override
+    public Iterator<Message.MessageData> iterator() {
+        return new Iterator<Message.MessageData>() {
+            private int nextNumber = firstRetainedNumber();
+            private final int lastNumber = count.get();
+            private Message.MessageData next = advance();
+
+            private Message.MessageData advance() {
+                while (nextNumber <= lastNumber) {
+                    Message.MessageData data = getByNumber(nextNumber++);
+                    if (data != null) {
+                        return data;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Message.MessageData next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Message.MessageData current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    @Override
+    public void setEvictionListener(Consumer<Message.MessageData> listener) {
+        this.evictionListener = listener;
+    }
+
+    /**
+     * Moves numbering on so the next append gets lastNumber + 1
+     * Numbers that would already have left the ring are skipped without writing anything.
+     * @param lastNumber the number the history should continue after
+     */
+    @Override
+    public void resumeAfter(int lastNumber) {
+        int total = count.get();
+        if (lastNumber < total) {
+            throw new IllegalStateException("Already past message " + lastNumber + ": " + total);
+        }
+        if (lastNumber - total > capacity) {
+            // Everything retained now, and every skipped number but the last lap, is gone
+            for (int i = 0; i < capacity; i++) {
+                Message.MessageData previous = slots.getAndSet(i, null);
+                if (previous != null) {
+                    evict(previous);
+                }
+            }
+            count.set(lastNumber - capacity);
+        }
+        MessageHistory.super.resumeAfter(lastNumber);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, null);
+        }
+        count.set(0);
+    }
+
+    /**
+     * Returns how many messages the ring holds at most
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void publish(int number, Message.MessageData data) {
+        int slot = (number - 1) % capacity;
+        while (true) {
+            Message.MessageData previous = slots.get(slot);
+            if (previous != null && previous.getMessageNumber() > number) {
+                // A writer a full lap ahead already took the slot; this message is already old
+                evict(data);
+                return;
+            }
+            if (slots.compareAndSet(slot, previous, data)) {
+                if (previous != null) {
+                    evict(previous);
+                }
+                return;
+            }
+        }
+    }
+
+    private void evict(Message.MessageData data) {
+        if (data.getMessageId() == null && data.getMessageContent() == null) {
+            // A placeholder for a failed append or a skipped number; nothing to keep
+            return;
+        }
+        Consumer<Message.MessageData> listener = evictionListener;
+        if (listener != null) {
+            listener.accept(data);
+        }
+        if (spillLog == null) {
+            return;
+        }
+        try {
+            spillLog.append(data, System.currentTimeMillis());
+        } catch (IOException e) {
+            System.err.println("Error spilling message " + data.getMessageNumber() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * List view of the messages retained right now; index 0 is the oldest
+     */
+    private class RetainedView extends AbstractList<Message.MessageData> {
+        @Override
+        public Message.MessageData get(int index) {
+            if (index < 0 || index >= retained()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + retained());
+            }
+            Message.MessageData data = getByNumber(firstRetainedNumber() + index);
+            if (data == null) {
+                throw new IndexOutOfBoundsException("Message at index " + index + " was evicted");
+            }
+            return data;
+        }
+
+        @Override
+        public int size() {
+            return retained();
+        }
+
+        @Override
+        public Iterator<Message.MessageData> iterator() {
+            return RingBufferMessageHistory.this.iterator();
+        }
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SentMessageIndex class to handle lookups of sent messages by recipient, sender, hash and ID
+ * Each index maps a 64-bit key to the message numbers that have it, and the
+ * messages themselves are read back from the history. Keys are primitive longs:
+ * numeric values such as "+27718693002" or "1234567890" are parsed straight
+ * into a long and anything else is hashed, so no String is kept per entry.
+ * Because different values can share a key, every candidate is checked against
+ * the message before it is returned.
+ *
+ * Tables are split into lock stripes by key, so senders only contend when they
+ * touch the same stripe.
+ */
+public class SentMessageIndex {
+    private static final int LOCK_STRIPES = 64;
+
+    private final MessageHistory history;
+    private final PostingTable byRecipient = new PostingTable();
+    private final PostingTable bySender = new PostingTable();
+    private final PostingTable byHash = new PostingTable();
+    private final PostingTable byId = new PostingTable();
+
+    /**
+     * Creates an empty index over a history
+     * @param history the history that index lookups read messages from
+     */
+    public SentMessageIndex(MessageHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Adds a message to every index
+     * @param data the message, with its number already assigned
+     */
+    public void add(Message.MessageData data) {
+        int number = data.getMessageNumber();
+        if (data.getRecipient() != null) {
+            byRecipient.add(valueKey(data.getRecipient()), number);
+        }
+        if (data.getSender() != null) {
+            bySender.add(valueKey(data.getSender()), number);
+        }
+        if (data.getMessageHash() != null) {
+            byHash.add(valueKey(data.getMessageHash()), number);
+        }
+        if (data.getMessageId() != null) {
+            byId.add(valueKey(data.getMessageId()), number);
+        }
+    }
+
+    /**
+     * Removes a message from every index, e.g. when the history evicts it
+     * @param data the message to remove
+     */
+    public void remove(Message.MessageData data) {
+        int number = data.getMessageNumber();
+        if (data.getRecipient() != null) {
+            byRecipient.remove(valueKey(data.getRecipient()), number);
+        }
+        if (data.getSender() != null) {
+            bySender.remove(valueKey(data.getSender()), number);
+        }
+        if (data.getMessageHash() != null) {
+            byHash.remove(valueKey(data.getMessageHash()), number);
+        }
+        if (data.getMessageId() != null) {
+            byId.remove(valueKey(data.getMessageId()), number);
+        }
+    }
+
+    /**
+     * Finds every retained message sent to a recipient
+     * @param recipient the recipient cell number
+     * @return the messages, oldest first
+     */
+    public List<Message.MessageData> findByRecipient(String recipient) {
+        return all(byRecipient, recipient, false);
+    }
+
+    /**
+     * Finds every retained message sent by a user
+     * @param sender the username of the sender
+     * @return the messages, oldest first
+     */
+    public List<Message.MessageData> findBySender(String sender) {
+        return all(bySender, sender, true);
+    }
+
+    /**
+     * Finds one page of the retained messages sent by a user
+     * The sender's message numbers are kept sorted, so the page is found by a
+     * binary search for afterNumber and only the messages on it are read back.
+     * @param sender the username of the sender
+     * @param afterNumber the page starts after this message number (0 for the first page)
+     * @param limit the most messages to return
+     * @return the messages, oldest first
+     */
+    public List<Message.MessageData> findBySender(String sender, int afterNumber, int limit) {
+        List<Message.MessageData> found = new ArrayList<>(Math.min(Math.max(limit, 0), 64));
+        if (sender == null) {
+            return found;
+        }
+        long key = valueKey(sender);
+        int after = afterNumber;
+        while (found.size() < limit) {
+            int wanted = limit - found.size();
+            int[] numbers = bySender.after(key, after, wanted);
+            for (int number : numbers) {
+                Message.MessageData data = history.getByNumber(number);
+                // Numbers of other senders sharing the key, or evicted since, are skipped
+                if (data != null && sender.equals(data.getSender())) {
+                    found.add(data);
+                }
+            }
+            if (numbers.length < wanted) {
+                break;
+            }
+            after = numbers[numbers.length - 1];
+        }
+        return found;
+    }
+
+    /**
+     * Finds the latest retained message with a message hash
+     * @param messageHash the message hash
+     * @return the message, or null if there is none
+     */
+    public Message.MessageData findByHash(String messageHash) {
+        if (messageHash == null) {
+            return null;
+        }
+        return latest(byHash.get(valueKey(messageHash)), messageHash, false);
+    }
+
+    /**
+     * Finds the latest retained message with a message ID
+     * @param messageId the message ID
+     * @return the message, or null if there is none
+     */
+    public Message.MessageData findById(String messageId) {
+        if (messageId == null) {
+            return null;
+        }
+        return latest(byId.get(valueKey(messageId)), messageId, true);
+    }
+
+    /**
+     * Removes every entry from the index
+     */
+    public void clear() {
+        byRecipient.clear();
+        bySender.clear();
+        byHash.clear();
+        byId.clear();
+    }
+
+    private List<Message.MessageData> all(PostingTable table, String value, boolean matchSender) {
+        List<Message.MessageData> found = new ArrayList<>();
+        if (value == null) {
+            return found;
+        }
+        int[] numbers = table.get(valueKey(value));
+        for (int number : numbers) {
+            Message.MessageData data = history.getByNumber(number);
+            if (data != null && value.equals(matchSender ? data.getSender() : data.getRecipient())) {
+                found.add(data);
+            }
+        }
+        return found;
+    }
+
+    private Message.MessageData latest(int[] numbers, String value, boolean matchId) {
+        Message.MessageData best = null;
+        for (int number : numbers) {
+            if (best != null && number < best.getMessageNumber()) {
+                continue;
+            }
+            Message.MessageData data = history.getByNumber(number);
+            if (data == null) {
+                continue;
+            }
+            String actual = matchId ? data.getMessageId() : data.getMessageHash();
+            if (value.equals(actual)) {
+                best = data;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Turns a value into a 64-bit key
+     * Up to 18 digits, optionally after a leading '+', are parsed as a number;
+     * anything else is hashed into the negative range so the two never collide.
+     * "+27..." and "27..." share a key, which the lookup check sorts out.
+     */
+    static long valueKey(CharSequence value) {
+        int length = value.length();
+        int start = length > 0 && value.charAt(0) == '+' ? 1 : 0;
+        if (length > start && length - start <= 18) {
+            long number = 0;
+            int i = start;
+            for (; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                number = number * 10 + (c - '0');
+            }
+            if (i == length) {
+                return number;
+            }
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash | Long.MIN_VALUE;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Map from a long key to a list of message numbers, split into lock stripes
+     */
+    private static class PostingTable {
+        private final Stripe[] stripes = new Stripe[LOCK_STRIPES];
+
+        PostingTable() {
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        void add(long key, int number) {
+            int hash = mix(key);
+            stripes[hash & (LOCK_STRIPES - 1)].add(key, hash >>> 6, number);
+        }
+
+        void remove(long key, int number) {
+            int hash = mix(key);
+            stripes[hash & (LOCK_STRIPES - 1)].remove(key, hash >>> 6, number);
+        }
+
+        int[] get(long key) {
+            int hash = mix(key);
+            return stripes[hash & (LOCK_STRIPES - 1)].get(key, hash >>> 6);
+        }
+
+        int[] after(long key, int afterNumber, int limit) {
+            int hash = mix(key);
+            return stripes[hash & (LOCK_STRIPES - 1)].after(key, hash >>> 6, afterNumber, limit);
+        }
+
+        void clear() {
+            for (Stripe stripe : stripes) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * One open-addressing table of keys and their postings, guarded by its own lock
+     * Most keys (hashes, IDs) belong to a single message, so the first number is
+     * kept inline in the table and a Postings list is only made for a second one.
+     * Slots whose postings become empty stay in place and are dropped the next
+     * time the table grows.
+     */
+    private static class Stripe {
+        private static final int INITIAL_CAPACITY = 16;
+        private static final int[] NONE = new int[0];
+        // Inline marker for a slot that is in use but holds no inline number
+        private static final int NO_INLINE = -1;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        // 0 = free slot, NO_INLINE = numbers (if any) are in postings, else the only number
+        private int[] inline = new int[INITIAL_CAPACITY];
+        private Postings[] postings = new Postings[INITIAL_CAPACITY];
+        private int used;
+
+        synchronized void add(long key, int hash, int number) {
+            int slot = find(key, hash);
+            if (inline[slot] == 0) {
+                if ((used + 1) * 4 > keys.length * 3) {
+                    grow();
+                    slot = find(key, hash);
+                }
+                keys[slot] = key;
+                inline[slot] = number;
+                used++;
+                return;
+            }
+            Postings list = postings[slot];
+            if (list == null) {
+                list = new Postings();
+                postings[slot] = list;
+            }
+            if (inline[slot] != NO_INLINE) {
+                list.add(inline[slot]);
+                inline[slot] = NO_INLINE;
+            }
+            list.add(number);
+        }
+
+        synchronized void remove(long key, int hash, int number) {
+            int slot = find(key, hash);
+            if (inline[slot] == number) {
+                inline[slot] = NO_INLINE;
+            } else if (postings[slot] != null) {
+                postings[slot].remove(number);
+            }
+        }
+
+        synchronized int[] get(long key, int hash) {
+            int slot = find(key, hash);
+            if (inline[slot] > 0) {
+                return new int[] {inline[slot]};
+            }
+            Postings list = postings[slot];
+            return list == null ? NONE : list.toArray();
+        }
+
+        synchronized int[] after(long key, int hash, int afterNumber, int limit) {
+            int slot = find(key, hash);
+            if (inline[slot] > 0) {
+                return inline[slot] > afterNumber && limit > 0 ? new int[] {inline[slot]} : NONE;
+            }
+            Postings list = postings[slot];
+            return list == null ? NONE : list.after(afterNumber, limit);
+        }
+
+        synchronized void clear() {
+            keys = new long[INITIAL_CAPACITY];
+            inline = new int[INITIAL_CAPACITY];
+            postings = new Postings[INITIAL_CAPACITY];
+            used = 0;
+        }
+
+        private int find(long key, int hash) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (inline[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private boolean isLive(int slot) {
+            return inline[slot] > 0 || (postings[slot] != null && postings[slot].size() > 0);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldInline = inline;
+            Postings[] oldPostings = postings;
+            int live = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (isLive(i)) {
+                    live++;
+                }
+            }
+            int capacity = INITIAL_CAPACITY;
+            while ((live + 1) * 2 > capacity) {
+                capacity <<= 1;
+            }
+            keys = new long[capacity];
+            inline = new int[capacity];
+            postings = new Postings[capacity];
+            used = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldInline[i] > 0 || (oldPostings[i] != null && oldPostings[i].size() > 0)) {
+                    int slot = find(oldKeys[i], mix(oldKeys[i]) >>> 6);
+                    keys[slot] = oldKeys[i];
+                    inline[slot] = oldInline[i];
+                    postings[slot] = oldPostings[i];
+                    used++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable sorted list of message numbers
+     * Numbers arrive roughly in order, so one that arrives late is moved only
+     * past the few numbers added before it. The history evicts the oldest first,
+     * so removal from the front only moves the start marker.
+     */
+    private static class Postings {
+        private int[] numbers = new int[4];
+        private int start;
+        private int end;
+
+        int size() {
+            return end - start;
+        }
+
+        void add(int number) {
+            if (end == numbers.length) {
+                int size = size();
+                if (start > 0 && size < numbers.length / 2) {
+                    System.arraycopy(numbers, start, numbers, 0, size);
+                } else {
+                    numbers = Arrays.copyOfRange(numbers, start, start + Math.max(4, size * 2));
+                }
+                start = 0;
+                end = size;
+            }
+            int i = end;
+            while (i > start && numbers[i - 1] > number) {
+                numbers[i] = numbers[i - 1];
+                i--;
+            }
+            numbers[i] = number;
+            end++;
+        }
+
+        void remove(int number) {
+            int i = Arrays.binarySearch(numbers, start, end, number);
+            if (i < 0) {
+                return;
+            }
+            if (i == start) {
+                start++;
+            } else {
+                System.arraycopy(numbers, i + 1, numbers, i, end - i - 1);
+                end--;
+            }
+        }
+
+        int[] after(int afterNumber, int limit) {
+            int i = Arrays.binarySearch(numbers, start, end, afterNumber);
+            // The first number greater than afterNumber
+            i = i < 0 ? -i - 1 : i + 1;
+            return Arrays.copyOfRange(numbers, i, i + Math.max(0, Math.min(limit, end - i)));
+        }
+
+        int[] toArray() {
+            return Arrays.copyOfRange(numbers, start, end);
+        }
+    }
+}
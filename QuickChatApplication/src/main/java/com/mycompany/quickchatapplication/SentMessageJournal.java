@@ -0,0 +1,513 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * SentMessageJournal class to handle keeping sent messages across restarts
+ * Every sent message is written to a write-ahead log (a MessageLog in the "wal"
+ * subdirectory) before it becomes visible, and every snapshotInterval messages
+ * a snapshot is taken on a background thread. Once the snapshot is safely on
+ * disk the log segments it covers are deleted.
+ *
+ * Snapshots are incremental: each one writes only the messages sent since the
+ * last into a new chunk file, named after the first message number it covers.
+ * Like a binary counter, a new chunk takes in the chunks before it while they
+ * hold no more messages than it does, so there are about log2(messages /
+ * snapshotInterval) chunks and each message is rewritten about as many times,
+ * rather than the whole history being written every interval. Chunks holding
+ * only messages a bounded history has dropped are deleted.
+ *
+ * recover() reads the chunks and then only the log records written after the
+ * newest, so the log it replays depends on the snapshot interval rather than
+ * on how many messages have ever been sent; reading the chunks takes time in
+ * proportion to the messages the history keeps. Numbering carries on where it
+ * stopped.
+ *
+ * Chunk format (big-endian, written to a temporary file and renamed):
+ *   int    magic "QCS2"
+ *   long   log address the snapshot was taken at
+ *   int    last message number
+ *   int    message count, then for each message its number followed by
+ *          messageId, recipient, messageContent, messageHash and sender, each
+ *          a present flag and modified UTF-8 string ("QCS1" snapshots, written
+ *          before senders were kept, have no sender and are still read)
+ *   long   CRC32 of everything before it
+ * A single snapshot.dat, written before snapshots were incremental, is read as
+ * the chunk starting at message 1.
+ */
+public class SentMessageJournal implements Closeable {
+    public static final String DEFAULT_DIRECTORY = "sent_messages";
+    public static final String LOG_DIRECTORY = "wal";
+    public static final String SNAPSHOT_FILE = "snapshot.dat";
+    public static final String SNAPSHOT_PREFIX = "snapshot-";
+    public static final String SNAPSHOT_SUFFIX = ".dat";
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+    public static final long LOG_SEGMENT_SIZE = 8L * 1024 * 1024;
+
+    private static final int MAGIC = 0x51435332;
+    private static final int MAGIC_WITHOUT_SENDER = 0x51435331;
+    private static final String TEMP_FILE = "snapshot.tmp";
+
+    private final Path directory;
+    private final MessageLog log;
+    private final int snapshotInterval;
+    private final ExecutorService snapshotter;
+    private final AtomicInteger sinceSnapshot = new AtomicInteger();
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+    private final AtomicInteger snapshots = new AtomicInteger();
+    private final AtomicLong snapshotMessages = new AtomicLong();
+    // Oldest first; guarded by this
+    private final List<Chunk> chunks;
+    private volatile MessageHistory history;
+    private volatile int recoveredFromLog;
+
+    /**
+     * Opens (or creates) a journal with the default snapshot interval
+     * The log is forced to disk at most a second after each message.
+     * @param directory the directory holding the log and snapshot
+     * @throws IOException if the log cannot be opened
+     */
+    public SentMessageJournal(Path directory) throws IOException {
+        this(directory, MessageLog.FsyncPolicy.INTERVAL, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Opens (or creates) a journal
+     * Records always reach the operating system before append returns, so a crash
+     * of the process loses nothing; fsyncPolicy decides what a power cut can lose.
+     * @param directory the directory holding the log and snapshot
+     * @param fsyncPolicy when logged messages are forced to disk
+     * @param snapshotInterval how many messages to log between snapshots
+     * @throws IOException if the log or the snapshot chunks cannot be opened
+     */
+    public SentMessageJournal(Path directory, MessageLog.FsyncPolicy fsyncPolicy, int snapshotInterval)
+            throws IOException {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be positive: " + snapshotInterval);
+        }
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(TEMP_FILE));
+        this.chunks = loadChunks(directory);
+        this.log = new MessageLog(directory.resolve(LOG_DIRECTORY), fsyncPolicy, LOG_SEGMENT_SIZE,
+                MessageLog.DEFAULT_FSYNC_INTERVAL_MILLIS);
+        this.snapshotter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sent-message-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Replays the snapshot chunks and then the log records written after them, oldest first
+     * Messages are passed on in number order. A number that was claimed but never
+     * logged before a crash is left out, so the next message may skip ahead.
+     * @param restore receives each recovered message
+     * @return the last recovered message number, or 0 if there was nothing to recover
+     * @throws IOException if the snapshot is damaged or the log cannot be read
+     */
+    public synchronized int recover(Consumer<Message.MessageData> restore) throws IOException {
+        long fromAddress = 0;
+        int lastNumber = 0;
+        for (Chunk chunk : chunks) {
+            int covered = lastNumber;
+            for (Message.MessageData data : readChunk(chunk.file)) {
+                if (data.getMessageNumber() > covered) {
+                    restore.accept(data);
+                }
+            }
+            fromAddress = chunk.address;
+            lastNumber = chunk.lastNumber;
+        }
+
+        // Concurrent senders may have logged out of order, so sort the tail by number
+        int covered = lastNumber;
+        List<Message.MessageData> tail = new ArrayList<>();
+        log.replay(fromAddress, (address, data, timestamp) -> {
+            if (data.getMessageNumber() > covered) {
+                tail.add(data);
+            }
+        });
+        tail.sort(Comparator.comparingInt(Message.MessageData::getMessageNumber));
+        for (Message.MessageData data : tail) {
+            restore.accept(data);
+            lastNumber = data.getMessageNumber();
+        }
+        recoveredFromLog = tail.size();
+        return lastNumber;
+    }
+
+    /**
+     * Sets the history that automatic snapshots are taken of
+     * @param history the history this journal logs, or null to stop taking snapshots
+     */
+    public void attach(MessageHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Logs a sent message, starting a background snapshot once enough have been logged
+     * @param data the message, with its number and hash
+     * @throws IOException if the message cannot be written
+     */
+    public void append(Message.MessageData data) throws IOException {
+        log.append(data, System.currentTimeMillis());
+        log.flush();
+        sinceSnapshot.incrementAndGet();
+        scheduleSnapshot();
+    }
+
+    /**
+     * Writes a snapshot chunk of the attached history and deletes the log segments it covers
+     * Only the messages sent since the last snapshot are written, together with
+     * those of any earlier chunks this one takes in (see the class comment).
+     * Senders are not blocked; messages sent while it runs stay in the log.
+     * @throws IOException if the snapshot cannot be written
+     * @throws IllegalStateException if no history is attached
+     */
+    public synchronized void snapshot() throws IOException {
+        MessageHistory current = history;
+        if (current == null) {
+            throw new IllegalStateException("No history attached");
+        }
+        // Read the log end first: every message numbered after lastNumber is logged after it
+        int logged = sinceSnapshot.get();
+        log.flush();
+        long address = log.getEndAddress();
+        int lastNumber = current.totalAppended();
+        int firstRetained = current.firstRetainedNumber();
+        int previous = chunks.isEmpty() ? 0 : chunks.get(chunks.size() - 1).lastNumber;
+        List<Message.MessageData> messages = collect(current, Math.max(previous + 1, firstRetained), lastNumber);
+
+        int from = previous + 1;
+        int merged = chunks.size();
+        int count = messages.size();
+        while (merged > 0 && chunks.get(merged - 1).count <= count) {
+            merged--;
+            count += chunks.get(merged).count;
+            from = chunks.get(merged).first;
+        }
+        if (from <= previous) {
+            List<Message.MessageData> older = collect(current, Math.max(from, firstRetained), previous);
+            older.addAll(messages);
+            messages = older;
+        }
+
+        Path file = directory.resolve(snapshotName(from));
+        Path temp = directory.resolve(TEMP_FILE);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeChunk(out, address, lastNumber, messages);
+        }
+        // Replaces the oldest chunk taken in; the rest are inside the new one, so a crash before they go is harmless
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        List<Chunk> takenIn = chunks.subList(merged, chunks.size());
+        for (Chunk chunk : takenIn) {
+            if (!chunk.file.equals(file)) {
+                Files.deleteIfExists(chunk.file);
+            }
+        }
+        takenIn.clear();
+        chunks.add(new Chunk(from, lastNumber, messages.size(), address, file));
+        // Chunks of messages the history has dropped are not needed to recover it
+        while (chunks.size() > 1 && chunks.get(0).lastNumber < firstRetained) {
+            Files.deleteIfExists(chunks.remove(0).file);
+        }
+
+        log.truncateBefore(address);
+        sinceSnapshot.addAndGet(-logged);
+        snapshots.incrementAndGet();
+        snapshotMessages.addAndGet(messages.size());
+    }
+
+    /**
+     * Returns how many messages the last recover() read from the log after the snapshot
+     * @return the replayed log record count
+     */
+    public int getRecoveredFromLog() {
+        return recoveredFromLog;
+    }
+
+    /**
+     * Returns how many snapshots this journal has written
+     * @return the snapshot count
+     */
+    public int getSnapshots() {
+        return snapshots.get();
+    }
+
+    /**
+     * Returns how many messages snapshots have written, counting a message again each time a chunk is rewritten
+     * @return the messages written to snapshot chunks
+     */
+    public long getSnapshotMessages() {
+        return snapshotMessages.get();
+    }
+
+    /**
+     * Returns how many snapshot chunks recovery would read
+     * @return the chunk count
+     */
+    public synchronized int getSnapshotChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * Lists the snapshot chunk files of a journal directory, oldest first
+     * @param directory the journal directory
+     * @return the chunk files, not including a snapshot.dat from before chunks
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<Path> listSnapshots(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(SentMessageJournal::isSnapshot).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns how many messages have been logged since the last snapshot
+     * @return the messages a recovery would replay from the log
+     */
+    public int getSinceSnapshot() {
+        return sinceSnapshot.get();
+    }
+
+    /**
+     * Returns the write-ahead log
+     * @return the log of sent messages
+     */
+    public MessageLog getLog() {
+        return log;
+    }
+
+    /**
+     * Waits for a snapshot in progress, takes a final one and closes the log
+     * The final snapshot makes the next recovery read almost nothing from the log.
+     * @throws IOException if the snapshot or log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (history != null && sinceSnapshot.get() > 0) {
+                snapshot();
+            }
+        } finally {
+            log.close();
+        }
+    }
+
+    private void scheduleSnapshot() {
+        if (sinceSnapshot.get() < snapshotInterval || history == null
+                || !snapshotPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            snapshotter.execute(() -> {
+                try {
+                    snapshot();
+                } catch (IOException e) {
+                    System.err.println("Error writing sent message snapshot: " + e.getMessage());
+                } finally {
+                    snapshotPending.set(false);
+                }
+                // Messages logged while it ran may already need the next one
+                scheduleSnapshot();
+            });
+        } catch (RejectedExecutionException e) {
+            // Closing; close() takes the last snapshot itself
+            snapshotPending.set(false);
+        }
+    }
+
+    private static List<Message.MessageData> collect(MessageHistory history, int from, int to) {
+        List<Message.MessageData> messages = new ArrayList<>();
+        for (int number = from; number <= to; number++) {
+            Message.MessageData data = history.getByNumber(number);
+            if (data != null) {
+                messages.add(data);
+            }
+        }
+        return messages;
+    }
+
+    private static void writeChunk(FileChannel file, long address, int lastNumber, List<Message.MessageData> messages)
+            throws IOException {
+        // Not closed here, so the channel is still open to be forced
+        CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(file), 64 * 1024), new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+        out.writeInt(MAGIC);
+        out.writeLong(address);
+        out.writeInt(lastNumber);
+        out.writeInt(messages.size());
+        for (Message.MessageData data : messages) {
+            out.writeInt(data.getMessageNumber());
+            writeString(out, data.getMessageId());
+            writeString(out, data.getRecipient());
+            writeString(out, data.getMessageContent());
+            writeString(out, data.getMessageHash());
+            writeString(out, data.getSender());
+        }
+        out.flush();
+        out.writeLong(checked.getChecksum().getValue());
+        out.flush();
+        file.force(true);
+    }
+
+    /**
+     * Reads every message of a chunk, checking its CRC before any is returned
+     */
+    private static List<Message.MessageData> readChunk(Path file) throws IOException {
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 * 1024), new CRC32());
+                DataInputStream in = new DataInputStream(checked)) {
+            int magic = readMagic(in, file);
+            in.readLong(); // log address
+            in.readInt(); // last number
+            int count = in.readInt();
+            List<Message.MessageData> messages = new ArrayList<>(Math.min(count, 1 << 16));
+            for (int i = 0; i < count; i++) {
+                int number = in.readInt();
+                messages.add(new Message.MessageData(readString(in), number, readString(in),
+                        readString(in), readString(in), magic == MAGIC ? readString(in) : null));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Damaged sent message snapshot: " + file);
+            }
+            return messages;
+        } catch (EOFException | UTFDataFormatException e) {
+            throw new IOException("Damaged sent message snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Reads the chunk headers, dropping chunks left inside a newer one by a crash mid-snapshot
+     */
+    private static List<Chunk> loadChunks(Path directory) throws IOException {
+        List<Chunk> found = new ArrayList<>();
+        Path legacy = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(legacy)) {
+            found.add(readHeader(legacy, 1));
+        }
+        for (Path file : listSnapshots(directory)) {
+            String name = file.getFileName().toString();
+            found.add(readHeader(file, Integer.parseInt(
+                    name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()))));
+        }
+        found.sort(Comparator.comparingInt((Chunk chunk) -> chunk.first)
+                .thenComparing(Comparator.comparingInt((Chunk chunk) -> chunk.lastNumber).reversed()));
+        List<Chunk> chunks = new ArrayList<>();
+        for (Chunk chunk : found) {
+            if (!chunks.isEmpty() && chunk.lastNumber <= chunks.get(chunks.size() - 1).lastNumber) {
+                Files.deleteIfExists(chunk.file);
+            } else {
+                chunks.add(chunk);
+            }
+        }
+        return chunks;
+    }
+
+    private static Chunk readHeader(Path file, int first) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 32))) {
+            readMagic(in, file);
+            long address = in.readLong();
+            int lastNumber = in.readInt();
+            int count = in.readInt();
+            return new Chunk(first, lastNumber, count, address, file);
+        } catch (EOFException e) {
+            throw new IOException("Damaged sent message snapshot: " + file, e);
+        }
+    }
+
+    private static int readMagic(DataInputStream in, Path file) throws IOException {
+        int magic = in.readInt();
+        if (magic != MAGIC && magic != MAGIC_WITHOUT_SENDER) {
+            throw new IOException("Not a sent message snapshot: " + file);
+        }
+        return magic;
+    }
+
+    private static String snapshotName(int first) {
+        return String.format("%s%010d%s", SNAPSHOT_PREFIX, first, SNAPSHOT_SUFFIX);
+    }
+
+    private static boolean isSnapshot(Path file) {
+        String name = file.getFileName().toString();
+        return name.length() == snapshotName(0).length() && name.startsWith(SNAPSHOT_PREFIX)
+                && name.endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * One snapshot file: the messages numbered first to lastNumber that the history still kept
+     */
+    private static class Chunk {
+        final int first;
+        final int lastNumber;
+        final int count;
+        final long address;
+        final Path file;
+
+        Chunk(int first, int lastNumber, int count, long address, Path file) {
+            this.first = first;
+            this.lastNumber = lastNumber;
+            this.count = count;
+            this.address = address;
+            this.file = file;
+        }
+    }
+}
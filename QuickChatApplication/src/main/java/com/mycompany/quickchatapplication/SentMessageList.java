@@ -0,0 +1,154 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * SentMessageList class to handle lock-free, numbered appends of sent messages
+ * Each append claims the next message number with a single atomic increment and
+ * then publishes the message into the slot for that number, so numbers are
+ * handed out in order with no gaps and appends never block each other.
+ *
+ * Slots live in buckets that double in size (32, 64, 128, ...), so the list
+ * grows without ever copying or locking existing entries. Every message is kept.
+ */
+public class SentMessageList extends AbstractList<Message.MessageData> implements MessageHistory {
+    private static final int FIRST_BUCKET_BITS = 5;
+    private static final int FIRST_BUCKET_SIZE = 1 << FIRST_BUCKET_BITS;
+    private static final int BUCKETS = 32 - FIRST_BUCKET_BITS;
+    private static final int MAX_SIZE = Integer.MAX_VALUE - FIRST_BUCKET_SIZE;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<Message.MessageData>> buckets =
+            new AtomicReferenceArray<>(BUCKETS);
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Claims the next message number and appends the message built for it
+     * @param factory builds the message for the claimed number (numbers start at 1)
+     * @return the appended message
+     */
+    @Override
+    public Message.MessageData append(IntFunction<Message.MessageData> factory) {
+        int number = count.incrementAndGet();
+        if (number < 0 || number > MAX_SIZE) {
+            count.decrementAndGet();
+            throw new IllegalStateException("Sent message list is full");
+        }
+        Message.MessageData data = null;
+        try {
+            data = factory.apply(number);
+        } finally {
+            // Always fill the claimed slot so readers waiting on it are released
+            bucketFor(number - 1).set(offsetOf(number - 1), data != null ? data : new Message.MessageData(null, number, null, null, ""));
+        }
+        return data;
+    }
+
+    /**
+     * Returns the message with the given index (message number - 1)
+     * Waits briefly if the slot was claimed but not yet published.
+     * @param index the index of the message
+     * @return the message
+     */
+    @Override
+    public Message.MessageData get(int index) {
+        if (index < 0 || index >= count.get()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + count.get());
+        }
+        AtomicReferenceArray<Message.MessageData> bucket;
+        while ((bucket = buckets.get(bucketOf(index))) == null) {
+            Thread.onSpinWait();
+        }
+        Message.MessageData data;
+        while ((data = bucket.get(offsetOf(index))) == null) {
+            Thread.onSpinWait();
+        }
+        return data;
+    }
+
+    /**
+     * Returns the number of messages appended, which is also the last number handed out
+     * @return the message count
+     */
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public int totalAppended() {
+        return count.get();
+    }
+
+    @Override
+    public int retained() {
+        return count.get();
+    }
+
+    @Override
+    public int firstRetainedNumber() {
+        return 1;
+    }
+
+    @Override
+    public Message.MessageData getByNumber(int messageNumber) {
+        return messageNumber >= 1 && messageNumber <= count.get() ? get(messageNumber - 1) : null;
+    }
+
+    @Override
+    public List<Message.MessageData> view() {
+        return Collections.unmodifiableList(this);
+    }
+
+    /**
+     * Copies the messages appended so far into a new list
+     * @return a snapshot of the list
+     */
+    public List<Message.MessageData> snapshot() {
+        int size = count.get();
+        List<Message.MessageData> copy = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(get(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Removes every message and restarts numbering at 1
+     * Must not be called while other threads are appending.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, null);
+        }
+        count.set(0);
+    }
+
+    private AtomicReferenceArray<Message.MessageData> bucketFor(int index) {
+        int bucket = bucketOf(index);
+        AtomicReferenceArray<Message.MessageData> slots = buckets.get(bucket);
+        if (slots == null) {
+            buckets.compareAndSet(bucket, null, new AtomicReferenceArray<>(FIRST_BUCKET_SIZE << bucket));
+            slots = buckets.get(bucket);
+        }
+        return slots;
+    }
+
+    private static int bucketOf(int index) {
+        return 31 - Integer.numberOfLeadingZeros(index + FIRST_BUCKET_SIZE) - FIRST_BUCKET_BITS;
+    }
+
+    private static int offsetOf(int index) {
+        return index + FIRST_BUCKET_SIZE - Integer.highestOneBit(index + FIRST_BUCKET_SIZE);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SnowflakeIdGenerator class to handle time-ordered, unique message IDs
+ * Each ID packs milliseconds since EPOCH_MILLIS, a node number and a per-millisecond
+ * sequence into 59 bits:
+ *   41 bits time | 6 bits node | 12 bits sequence
+ * IDs are rendered as ten base-62 characters (62^10 > 2^59), so they still fit
+ * the ten character message ID limit and sort in generation order.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+    // 2025-01-01T00:00:00Z
+    public static final long EPOCH_MILLIS = 1735689600000L;
+    public static final int NODE_BITS = 6;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIME_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    private static final byte[] BASE62 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".getBytes();
+
+    private final long node;
+    // Last issued (time << SEQUENCE_BITS | sequence), advanced with CAS
+    private final AtomicLong lastState = new AtomicLong();
+
+    /**
+     * Creates a generator for one node
+     * @param node the node number, 0 to MAX_NODE
+     */
+    public SnowflakeIdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long lastTime = last >>> SEQUENCE_BITS;
+            long next;
+            if (now > lastTime) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // Same millisecond (or the clock went back): continue the sequence,
+                // borrowing from the next millisecond when it wraps
+                next = last + 1;
+            }
+            if (lastState.compareAndSet(last, next)) {
+                long time = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (time << TIME_SHIFT) | (node << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    @Override
+    public int render(long id, byte[] target, int offset) {
+        for (int i = offset + 9; i >= offset; i--) {
+            target[i] = BASE62[(int) (id % 62)];
+            id /= 62;
+        }
+        return 10;
+    }
+
+    /**
+     * Extracts the generation time from an ID
+     * @param id an ID returned by nextId
+     * @return the epoch milliseconds the ID was generated at
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIME_SHIFT) + EPOCH_MILLIS;
+    }
+
+    /**
+     * Extracts the node number from an ID
+     * @param id an ID returned by nextId
+     * @return the node that generated the ID
+     */
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE);
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * StoredMessageIndex class to handle lookups of stored messages by message ID
+ * Keeps an on-disk open-addressing hash table from messageId to the byte offset
+ * of the record in stored_messages.json. The table is kept at most half full so
+ * a lookup touches one slot (rarely a few neighbours) and then reads one record;
+ * it doubles in size whenever records turn out smaller than expected.
+ * MessageLog.importLegacy uses it to copy only the latest record of each ID.
+ *
+ * Index file layout (big-endian):
+ *   int  magic, int version, long indexed length of the JSON file,
+ *   long entry count, int capacity, int reserved
+ *   then capacity slots of { long key, long offset }
+ * A key of 0 marks an empty slot. When the same messageId is stored more than
+ * once, the index points at the latest record.
+ */
+public class StoredMessageIndex implements Closeable {
+    public static final String DEFAULT_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x51434958; // "QCIX"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 16;
+    private static final int MIN_CAPACITY = 1024;
+    // Smallest record the original storeMessage could write, used to size new tables
+    private static final int MIN_RECORD_BYTES = 100;
+    private static final long MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE;
+
+    private final Path jsonFile;
+    private final Path indexFile;
+    private final StoredMessageReader reader;
+    private FileChannel indexChannel;
+    private MappedByteBuffer table;
+    private int capacity;
+    private long count;
+    private long indexedLength;
+
+    private StoredMessageIndex(Path jsonFile, Path indexFile) throws IOException {
+        this.jsonFile = jsonFile;
+        this.indexFile = indexFile;
+        this.reader = new StoredMessageReader(jsonFile);
+    }
+
+    /**
+     * Opens the index for a stored message file, next to it with the .idx suffix
+     * @param jsonFile the JSON file written by storeMessage
+     * @return the opened index, brought up to date with the file
+     * @throws IOException if the file or index cannot be read or written
+     */
+    public static StoredMessageIndex open(Path jsonFile) throws IOException {
+        return open(jsonFile, jsonFile.resolveSibling(jsonFile.getFileName() + DEFAULT_SUFFIX));
+    }
+
+    /**
+     * Opens (building or extending as needed) the index for a stored message file
+     * @param jsonFile the JSON file written by storeMessage
+     * @param indexFile the index file
+     * @return the opened index, brought up to date with the file
+     * @throws IOException if the file or index cannot be read or written
+     */
+    public static StoredMessageIndex open(Path jsonFile, Path indexFile) throws IOException {
+        StoredMessageIndex index = new StoredMessageIndex(jsonFile, indexFile);
+        try {
+            index.load();
+            index.refresh();
+        } catch (IOException | RuntimeException e) {
+            index.close();
+            throw e;
+        }
+        return index;
+    }
+
+    /**
+     * Indexes records appended to the JSON file since the index was last updated
+     * @throws IOException if the file or index cannot be read or written
+     */
+    public synchronized void refresh() throws IOException {
+        long size = reader.size();
+        if (size < indexedLength) {
+            // The file was replaced or truncated; start over
+            create(capacityFor(size));
+        }
+        if (size == indexedLength) {
+            return;
+        }
+        long needed = count + Math.max(1, (size - indexedLength) / MIN_RECORD_BYTES);
+        if (needed * 2 > capacity) {
+            create(capacityFor(size));
+        }
+        try {
+            indexedLength = reader.forEach(indexedLength, (address, data, timestamp) -> {
+                try {
+                    put(data.getMessageId(), address);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writeHeader();
+    }
+
+    /**
+     * Finds a stored message by its ID
+     * @param messageId the message ID
+     * @return the most recently stored message with this ID, or null if there is none
+     * @throws IOException if the record cannot be read
+     */
+    public synchronized Message.MessageData find(String messageId) throws IOException {
+        long offset = offsetOf(messageId);
+        return offset < 0 ? null : reader.readAt(offset);
+    }
+
+    /**
+     * Finds the byte offset of a stored message by its ID
+     * @param messageId the message ID
+     * @return the offset of the most recent record with this ID, or -1 if there is none
+     * @throws IOException if a candidate record cannot be read
+     */
+    public synchronized long offsetOf(String messageId) throws IOException {
+        if (messageId == null) {
+            return -1;
+        }
+        long key = keyOf(messageId);
+        int mask = capacity - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long slotKey = table.getLong(HEADER_SIZE + slot * SLOT_SIZE);
+            if (slotKey == 0) {
+                return -1;
+            }
+            if (slotKey == key) {
+                long offset = table.getLong(HEADER_SIZE + slot * SLOT_SIZE + 8);
+                // Numeric IDs map to unique keys; hashed keys are confirmed against the record
+                if (isNumericKey(key) || messageId.equals(reader.readAt(offset).getMessageId())) {
+                    return offset;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct message IDs in the index
+     * @return the entry count
+     */
+    public synchronized long size() {
+        return count;
+    }
+
+    /**
+     * Returns the JSON file this index covers
+     * @return the stored message file
+     */
+    public Path getJsonFile() {
+        return jsonFile;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (table != null) {
+                table.force();
+            }
+        } finally {
+            try {
+                if (indexChannel != null) {
+                    indexChannel.close();
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        if (Files.exists(indexFile) && Files.size(indexFile) >= HEADER_SIZE) {
+            map(Files.size(indexFile));
+            if (table.getInt(0) == MAGIC && table.getInt(4) == VERSION) {
+                indexedLength = table.getLong(8);
+                count = table.getLong(16);
+                capacity = table.getInt(24);
+                if (Integer.bitCount(capacity) == 1 && HEADER_SIZE + (long) capacity * SLOT_SIZE == Files.size(indexFile)) {
+                    return;
+                }
+            }
+        }
+        create(capacityFor(reader.size()));
+    }
+
+    private void create(int newCapacity) throws IOException {
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+        Files.deleteIfExists(indexFile);
+        capacity = newCapacity;
+        count = 0;
+        indexedLength = 0;
+        map(HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        writeHeader();
+    }
+
+    private void map(long length) throws IOException {
+        indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        table = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+
+    private void writeHeader() {
+        table.putInt(0, MAGIC);
+        table.putInt(4, VERSION);
+        table.putLong(8, indexedLength);
+        table.putLong(16, count);
+        table.putInt(24, capacity);
+        table.putInt(28, 0);
+    }
+
+    private void put(String messageId, long offset) throws IOException {
+        if (messageId == null) {
+            return;
+        }
+        long key = keyOf(messageId);
+        int mask = capacity - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            int position = HEADER_SIZE + slot * SLOT_SIZE;
+            long slotKey = table.getLong(position);
+            if (slotKey == 0) {
+                if ((count + 1) * 2 > capacity) {
+                    grow();
+                    put(messageId, offset);
+                    return;
+                }
+                table.putLong(position, key);
+                table.putLong(position + 8, offset);
+                count++;
+                return;
+            }
+            if (slotKey == key) {
+                table.putLong(position + 8, offset);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the table at twice its capacity, keeping every entry
+     * Entries are copied out first because create() replaces the mapped file.
+     */
+    private void grow() throws IOException {
+        if ((long) capacity * 2 > MAX_CAPACITY) {
+            throw new IOException("Stored message file too large to index: " + count + " message IDs");
+        }
+        long[] keys = new long[(int) count];
+        long[] offsets = new long[(int) count];
+        int entries = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = HEADER_SIZE + slot * SLOT_SIZE;
+            long slotKey = table.getLong(position);
+            if (slotKey != 0) {
+                keys[entries] = slotKey;
+                offsets[entries] = table.getLong(position + 8);
+                entries++;
+            }
+        }
+        long indexed = indexedLength;
+        create(capacity * 2);
+        int mask = capacity - 1;
+        for (int i = 0; i < entries; i++) {
+            int slot = mix(keys[i]) & mask;
+            while (table.getLong(HEADER_SIZE + slot * SLOT_SIZE) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table.putLong(HEADER_SIZE + slot * SLOT_SIZE, keys[i]);
+            table.putLong(HEADER_SIZE + slot * SLOT_SIZE + 8, offsets[i]);
+        }
+        count = entries;
+        indexedLength = indexed;
+        writeHeader();
+    }
+
+    private static int capacityFor(long fileSize) {
+        long expected = Math.max(MIN_CAPACITY, 2 * (fileSize / MIN_RECORD_BYTES + 1));
+        long capacity = Long.highestOneBit(expected - 1) << 1;
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Stored message file too large to index: " + fileSize + " bytes");
+        }
+        return (int) capacity;
+    }
+
+    /**
+     * Turns a message ID into a non-zero table key
+     * IDs of up to 17 digits are packed with their length, so "1" and "01" get
+     * different keys; anything else is hashed into the negative range so the two
+     * kinds never collide.
+     */
+    static long keyOf(String messageId) {
+        int length = messageId.length();
+        if (length > 0 && length <= 17) {
+            long value = 0;
+            int i = 0;
+            for (; i < length; i++) {
+                char c = messageId.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+            }
+            if (i == length) {
+                return value << 5 | length;
+            }
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ messageId.charAt(i)) * 0x100000001b3L;
+        }
+        return hash | Long.MIN_VALUE;
+    }
+
+    private static boolean isNumericKey(long key) {
+        return key > 0;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
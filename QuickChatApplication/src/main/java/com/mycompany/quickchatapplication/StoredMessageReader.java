@@ -0,0 +1,289 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * StoredMessageReader class to handle reading stored_messages.json back
+ * The file is a sequence of JSON objects separated by commas (the format the
+ * original storeMessage wrote). Records are parsed one at a time from a small
+ * buffer, so the file is never loaded into memory as a whole.
+ */
+public class StoredMessageReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long bufferStart;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Opens a stored message file for reading
+     * @param file the JSON file written by storeMessage
+     * @throws IOException if the file cannot be opened
+     */
+    public StoredMessageReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Streams every complete record starting at the given byte offset
+     * A trailing record that is cut off is ignored.
+     * @param fromOffset the byte offset to start at (0 for the whole file)
+     * @param visitor receives each record with its byte offset as the address
+     * @return the byte offset just past the last complete record
+     * @throws IOException if the file cannot be read or a record is malformed
+     */
+    public long forEach(long fromOffset, MessageLog.RecordVisitor visitor) throws IOException {
+        seek(fromOffset);
+        long end = fromOffset;
+        try {
+            while (true) {
+                long start = skipToRecord();
+                if (start < 0) {
+                    break;
+                }
+                ParsedRecord record = parseObject();
+                end = position();
+                visitor.onMessage(start, record.data, record.timestamp);
+            }
+        } catch (EOFException e) {
+            // Last record is incomplete; stop at the previous one
+        }
+        return end;
+    }
+
+    /**
+     * Reads the single record starting at a byte offset
+     * @param offset the offset of the record's opening brace
+     * @return the stored message
+     * @throws IOException if no complete record starts at the offset
+     */
+    public Message.MessageData readAt(long offset) throws IOException {
+        seek(offset);
+        if (skipToRecord() != offset) {
+            throw new IOException("No stored message at offset " + offset);
+        }
+        return parseObject().data;
+    }
+
+    /**
+     * Returns the current size of the underlying file
+     * @return the file size in bytes
+     * @throws IOException if the size cannot be read
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long position() {
+        return bufferStart + buffer.position();
+    }
+
+    private void seek(long offset) throws IOException {
+        if (offset >= bufferStart && offset <= bufferStart + buffer.limit()) {
+            buffer.position((int) (offset - bufferStart));
+            return;
+        }
+        bufferStart = offset;
+        buffer.clear().limit(0);
+    }
+
+    private int next() throws IOException {
+        if (!buffer.hasRemaining()) {
+            bufferStart += buffer.limit();
+            buffer.clear();
+            int read = channel.read(buffer, bufferStart);
+            buffer.flip();
+            if (read <= 0) {
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private int nextOrEof() throws IOException {
+        int b = next();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int b;
+        do {
+            b = nextOrEof();
+        } while (b == ' ' || b == '\n' || b == '\r' || b == '\t');
+        return b;
+    }
+
+    /**
+     * Skips separators between records
+     * @return the offset of the next opening brace, or -1 at end of file
+     */
+    private long skipToRecord() throws IOException {
+        while (true) {
+            int b = next();
+            if (b < 0) {
+                return -1;
+            }
+            if (b == '{') {
+                return position() - 1;
+            }
+            if (b != ',' && b != '[' && b != ']' && b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                throw new IOException("Unexpected character '" + (char) b + "' at offset " + (position() - 1));
+            }
+        }
+    }
+
+    private ParsedRecord parseObject() throws IOException {
+        String messageId = null;
+        String recipient = null;
+        String messageContent = null;
+        String messageHash = null;
+        int messageNumber = 0;
+        long timestamp = 0;
+
+        int b = skipWhitespace();
+        while (b != '}') {
+            if (b != '"') {
+                throw new IOException("Expected field name at offset " + (position() - 1));
+            }
+            String key = readString();
+            if (skipWhitespace() != ':') {
+                throw new IOException("Expected ':' after \"" + key + "\" at offset " + (position() - 1));
+            }
+            b = skipWhitespace();
+            String value;
+            if (b == '"') {
+                value = readString();
+                b = skipWhitespace();
+            } else {
+                int length = 0;
+                while (b != ',' && b != '}' && b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                    length = append(length, (byte) b);
+                    b = nextOrEof();
+                }
+                value = new String(scratch, 0, length, StandardCharsets.US_ASCII);
+                if (b != ',' && b != '}') {
+                    b = skipWhitespace();
+                }
+            }
+
+            switch (key) {
+                case "messageId":
+                    messageId = value;
+                    break;
+                case "messageNumber":
+                    messageNumber = Integer.parseInt(value);
+                    break;
+                case "recipient":
+                    recipient = value;
+                    break;
+                case "messageContent":
+                    messageContent = value;
+                    break;
+                case "messageHash":
+                    messageHash = value;
+                    break;
+                case "timestamp":
+                    timestamp = Long.parseLong(value);
+                    break;
+                default:
+                    // Unknown fields are skipped
+                    break;
+            }
+
+            if (b == ',') {
+                b = skipWhitespace();
+            } else if (b != '}') {
+                throw new IOException("Expected ',' or '}' at offset " + (position() - 1));
+            }
+        }
+        ParsedRecord record = new ParsedRecord();
+        record.data = new Message.MessageData(messageId, messageNumber, recipient, messageContent, messageHash);
+        record.timestamp = timestamp;
+        return record;
+    }
+
+    /**
+     * Reads a JSON string whose opening quote has already been consumed
+     */
+    private String readString() throws IOException {
+        int length = 0;
+        while (true) {
+            int b = nextOrEof();
+            if (b == '"') {
+                return new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            if (b == '\\') {
+                int escaped = nextOrEof();
+                switch (escaped) {
+                    case 'n':
+                        b = '\n';
+                        break;
+                    case 't':
+                        b = '\t';
+                        break;
+                    case 'r':
+                        b = '\r';
+                        break;
+                    case 'b':
+                        b = '\b';
+                        break;
+                    case 'f':
+                        b = '\f';
+                        break;
+                    case 'u':
+                        int codeUnit = 0;
+                        for (int i = 0; i < 4; i++) {
+                            codeUnit = (codeUnit << 4) | Character.digit(nextOrEof(), 16);
+                        }
+                        byte[] encoded = String.valueOf((char) codeUnit).getBytes(StandardCharsets.UTF_8);
+                        for (byte e : encoded) {
+                            length = append(length, e);
+                        }
+                        continue;
+                    default:
+                        b = escaped; // \" \\ \/
+                        break;
+                }
+            }
+            length = append(length, (byte) b);
+        }
+    }
+
+    private int append(int length, byte b) {
+        if (length == scratch.length) {
+            scratch = Arrays.copyOf(scratch, length * 2);
+        }
+        scratch[length] = b;
+        return length + 1;
+    }
+
+    /**
+     * A parsed record and the timestamp stored alongside it
+     */
+    private static class ParsedRecord {
+        private Message.MessageData data;
+        private long timestamp;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * StoredMessageSearch class to handle full-text search over the message log
+ * Stored messages are numbered in log order and their content is added to an
+ * InvertedIndex as each record is appended. The index and the address of each
+ * numbered message are saved to search.idx in the log directory, together with
+ * the address of the last record indexed, so reopening only indexes records
+ * appended since the last save instead of rebuilding from scratch.
+ *
+ * Instances belong to a MessageLog; get one with MessageLog.getSearchIndex().
+ */
+public class StoredMessageSearch implements Closeable {
+    public static final String FILE_NAME = "search.idx";
+
+    private static final int MAGIC = 0x51435349; // "QCSI"
+    private static final int VERSION = 1;
+
+    private final MessageLog log;
+    private final Path file;
+    // Addresses are only valid until the log is next compacted
+    private final int generation;
+    private InvertedIndex index;
+    private long[] addresses;
+    private int count;
+    private long lastIndexed;
+
+    private StoredMessageSearch(MessageLog log) {
+        this.log = log;
+        this.file = log.getDirectory().resolve(FILE_NAME);
+        this.generation = log.getCompactions();
+        reset();
+    }
+
+    /**
+     * Loads the saved index for a log and indexes any records appended since
+     * Called by MessageLog with its lock held.
+     */
+    static StoredMessageSearch open(MessageLog log) throws IOException {
+        StoredMessageSearch search = new StoredMessageSearch(log);
+        if (!search.load() || search.lastIndexed >= log.getEndAddress()) {
+            // Missing, unreadable or ahead of the log (e.g. the log was replaced)
+            search.reset();
+        }
+        log.replay(Math.max(0, search.lastIndexed), search::onMessage);
+        return search;
+    }
+
+    /**
+     * Runs a query against the stored messages
+     * Deleted messages are left out. If the log has been compacted since this
+     * index was opened, the query runs on the log's rebuilt index instead.
+     * @param query the query, as described on InvertedIndex
+     * @return the matching messages in the order they were stored
+     * @throws IOException if the log cannot be read
+     */
+    public List<Message.MessageData> search(String query) throws IOException {
+        long[] matches;
+        synchronized (this) {
+            int[] documents = index.search(query);
+            matches = new long[documents.length];
+            for (int i = 0; i < documents.length; i++) {
+                matches[i] = addresses[documents[i]];
+            }
+        }
+        List<Message.MessageData> found = new ArrayList<>(matches.length);
+        if (matches.length == 0) {
+            return found;
+        }
+        // Compaction swaps segments under the log lock, so the addresses stay valid while it is held
+        synchronized (log) {
+            if (log.getCompactions() != generation) {
+                return log.getSearchIndex().search(query);
+            }
+            log.flush();
+            try (MappedMessageStore mapped = new MappedMessageStore(log.getDirectory())) {
+                for (long address : matches) {
+                    MappedMessageStore.MappedMessage message = mapped.get(address);
+                    if (!log.isDeleted(address, message.getMessageId())) {
+                        found.add(message.toMessageData());
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns how many stored messages are indexed
+     * @return the indexed message count
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns the index over the stored message contents
+     * Document numbers are stored messages counted from 0 in log order.
+     * @return the inverted index
+     */
+    public synchronized InvertedIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Writes the index to search.idx, replacing the previous file in one step
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save() throws IOException {
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastIndexed);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeLong(addresses[i]);
+            }
+            index.writeTo(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        save();
+    }
+
+    /**
+     * Indexes one stored message; records at or before the last indexed one are skipped
+     */
+    synchronized void onMessage(long address, Message.MessageData data, long timestamp) {
+        if (address <= lastIndexed) {
+            return;
+        }
+        if (count == addresses.length) {
+            addresses = Arrays.copyOf(addresses, count * 2);
+        }
+        addresses[count] = address;
+        index.add(count, data.getMessageContent());
+        count++;
+        lastIndexed = address;
+    }
+
+    private void reset() {
+        index = new InvertedIndex();
+        addresses = new long[64];
+        count = 0;
+        lastIndexed = -1;
+    }
+
+    private boolean load() {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            lastIndexed = in.readLong();
+            count = in.readInt();
+            if (count < 0) {
+                return false;
+            }
+            addresses = new long[Math.max(64, count)];
+            for (int i = 0; i < count; i++) {
+                addresses[i] = in.readLong();
+            }
+            index = InvertedIndex.readFrom(in);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Rebuilding search index: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.IOException;
+
+/**
+ * Transport interface for handing a message over to its recipient
+ * DeliveryScheduler calls deliver for each recipient's messages in the order
+ * they were stored, and never for two messages to the same recipient at once.
+ * Calls for different recipients run concurrently, so implementations must be
+ * thread-safe.
+ */
+public interface Transport {
+
+    /**
+     * Delivers one message
+     * @param message the message to deliver
+     * @throws IOException if it could not be delivered; it is retried later
+     */
+    void deliver(Message.MessageData message) throws IOException;
+}
@@ -0,0 +1,123 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * UniqueIdGenerator class to handle random 10-digit message IDs that do not repeat within one process
+ * Every issued ID is recorded in a Bloom filter. A candidate that the filter
+ * reports as possibly issued is thrown away and another is drawn, so a false
+ * positive only costs an extra draw and this generator never hands out the
+ * same ID twice. The filter lives only in memory and starts empty, so IDs
+ * issued before a restart, or by another generator, may be drawn again.
+ * Memory is fixed by the expected number of IDs and the false-positive rate.
+ */
+public class UniqueIdGenerator implements IdGenerator {
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_ATTEMPTS = 1000;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * Creates a generator sized for an expected number of IDs
+     * @param expectedIds how many IDs will be generated
+     * @param falsePositiveRate the filter's false-positive rate at that many IDs
+     */
+    public UniqueIdGenerator(long expectedIds, double falsePositiveRate) {
+        if (expectedIds < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid filter size: " + expectedIds + " ids at " + falsePositiveRate);
+        }
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.min(Integer.MAX_VALUE, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedIds * ln2));
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public long nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long candidate = random.nextLong(RandomIdGenerator.ID_SPACE);
+            if (claim(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Unique ID filter is saturated");
+    }
+
+    @Override
+    public int render(long id, byte[] target, int offset) {
+        return IdGenerator.renderDecimal(id, target, offset);
+    }
+
+    /**
+     * Checks whether an ID may have been issued already
+     * @param id the ID to check
+     * @return false if the ID was definitely never issued
+     */
+    public boolean mightContain(long id) {
+        long h1 = mix(id);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of the filter
+     * @return the number of bits in the filter
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Records a candidate unless the filter says it may have been issued
+     * The same candidate always maps to the same lock, so two threads drawing
+     * the same number cannot both claim it.
+     */
+    private boolean claim(long candidate) {
+        synchronized (locks[(int) (candidate & (LOCK_STRIPES - 1))]) {
+            if (mightContain(candidate)) {
+                return false;
+            }
+            long h1 = mix(candidate);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+            return true;
+        }
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
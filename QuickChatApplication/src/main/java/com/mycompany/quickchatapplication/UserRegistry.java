@@ -0,0 +1,460 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * UserRegistry class to handle many registered users and their sessions
+ * Accounts are Login instances kept in concurrent maps keyed by username and
+ * by cell phone number, so lookups and logins stay O(1) with any number of
+ * users and threads. A successful login hands out a random session token.
+ *
+ * Passwords are hashed with a PasswordHasher when a user registers, and
+ * checked on its worker pool when they log in. After a successful check the
+ * same username and password are trusted for a short while without hashing
+ * again, so clients that log in repeatedly do not pay for PBKDF2 every time.
+ * Attempts are rate limited per username and per cell number before any of
+ * that happens (see LoginRateLimiter). An unknown username is checked against
+ * a dummy hash, so it takes as long to turn away as a wrong password.
+ *
+ * The accounts (not the sessions) can be saved to a compact binary snapshot
+ * and loaded again on startup instead of registering everyone again. Only
+ * hashes are ever written; passwords found in a snapshot from an older
+ * version are hashed while it is loaded.
+ */
+public class UserRegistry {
+    public static final String FILE_NAME = "users.dat";
+    public static final long DEFAULT_VERIFIED_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final int MAGIC = 0x51435552; // "QCUR"
+    private static final int VERSION = 2;
+    private static final int TOKEN_BYTES = 16;
+
+    private final Map<String, Login> byUsername;
+    private final Map<String, Login> byCell;
+    private final Map<String, Login> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final PasswordHasher hasher;
+    private final VerifiedLogins verified;
+    private volatile String dummyHash;
+    private volatile LoginRateLimiter limiter = new LoginRateLimiter();
+
+    public UserRegistry() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty registry sized for an expected number of users
+     * @param expectedUsers how many users to make room for up front
+     */
+    public UserRegistry(int expectedUsers) {
+        this(expectedUsers, DefaultHasher.INSTANCE, DEFAULT_VERIFIED_TTL_MILLIS);
+    }
+
+    /**
+     * Creates an empty registry
+     * @param expectedUsers how many users to make room for up front
+     * @param hasher hashes and checks passwords
+     * @param verifiedTtlMillis how long a checked password is trusted without hashing again (0 to always hash)
+     */
+    public UserRegistry(int expectedUsers, PasswordHasher hasher, long verifiedTtlMillis) {
+        this.byUsername = new ConcurrentHashMap<>(expectedUsers);
+        this.byCell = new ConcurrentHashMap<>(expectedUsers);
+        this.hasher = hasher;
+        this.verified = new VerifiedLogins(verifiedTtlMillis);
+    }
+
+    /**
+     * Sets the limit on login attempts per username and per cell number
+     * @param limiter the limiter to use, or null to allow unlimited attempts
+     */
+    public void setRateLimiter(LoginRateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Returns the limit on login attempts
+     * @return the limiter, or null if attempts are unlimited
+     */
+    public LoginRateLimiter getRateLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Registers a user after the same checks as Login.registerUser
+     * Usernames and cell phone numbers must both be unused. The password is
+     * replaced with its hash before the user can log in.
+     * @param login the new user's details
+     * @return String message indicating registration status
+     * @throws RejectedExecutionException if too many passwords are already waiting to be hashed
+     */
+    public String register(Login login) {
+        String status = login.registerUser();
+        if (!status.equals("Registration successful!")) {
+            return status;
+        }
+        // Cheap checks first, so taken names do not cost a hash
+        if (byUsername.containsKey(login.getUsername())) {
+            Metrics.reject(Metrics.Rejection.USERNAME_TAKEN);
+            return "Username already taken, please choose another.";
+        }
+        if (byCell.containsKey(login.getCellPhoneNumber())) {
+            Metrics.reject(Metrics.Rejection.CELL_TAKEN);
+            return "Cell phone number already registered to another user.";
+        }
+        login.setPasswordHash(hasher.hashAsync(login.getPassword()).join());
+        if (byUsername.putIfAbsent(login.getUsername(), login) != null) {
+            Metrics.reject(Metrics.Rejection.USERNAME_TAKEN);
+            return "Username already taken, please choose another.";
+        }
+        if (byCell.putIfAbsent(login.getCellPhoneNumber(), login) != null) {
+            byUsername.remove(login.getUsername(), login);
+            Metrics.reject(Metrics.Rejection.CELL_TAKEN);
+            return "Cell phone number already registered to another user.";
+        }
+        return status;
+    }
+
+    /**
+     * Attempts to log in a user and starts a session if it succeeds
+     * @param username the username entered by the user
+     * @param password the password entered by the user
+     * @return a new session token, or null if the username or password is wrong
+     * @throws LoginThrottledException if the username or its cell number has used up its attempts
+     * @throws RejectedExecutionException if too many passwords are already waiting to be checked
+     */
+    public String loginUser(String username, String password) {
+        if (username == null || password == null) {
+            return null;
+        }
+        Login login = byUsername.get(username);
+        LoginRateLimiter limiter = this.limiter;
+        if (limiter != null) {
+            // Unknown usernames are limited too, so guessing them is no cheaper
+            long wait = limiter.acquire(username);
+            if (wait == 0 && login != null) {
+                wait = limiter.acquire(login.getCellPhoneNumber());
+            }
+            if (wait > 0) {
+                Metrics.reject(Metrics.Rejection.LOGIN_THROTTLED);
+                throw new LoginThrottledException(wait);
+            }
+        }
+        if (login == null) {
+            // Spend as long as a wrong password would, so response times do not reveal who is registered
+            hasher.verifyAsync(password, dummyHash()).join();
+            Metrics.reject(Metrics.Rejection.LOGIN_FAILED);
+            return null;
+        }
+        String hash;
+        synchronized (login) {
+            hash = login.getPasswordHash();
+        }
+        boolean success;
+        if (verified.contains(username, hash, password)) {
+            success = true;
+        } else {
+            success = hasher.verifyAsync(password, hash).join();
+            if (success) {
+                verified.add(username, hash, password);
+                if (hasher.needsRehash(hash)) {
+                    rehash(login, hash, password);
+                }
+            }
+        }
+        if (!success) {
+            Metrics.reject(Metrics.Rejection.LOGIN_FAILED);
+            return null;
+        }
+        synchronized (login) {
+            login.setLoggedIn(true);
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = HexFormat.of().formatHex(bytes);
+        sessions.put(token, login);
+        return token;
+    }
+
+    /**
+     * Ends a session
+     * @param token the session token from loginUser
+     * @return true if the session existed
+     */
+    public boolean logout(String token) {
+        return sessions.remove(token) != null;
+    }
+
+    /**
+     * Returns the user a session belongs to
+     * @param token the session token from loginUser
+     * @return the logged in user, or null if the token is unknown
+     */
+    public Login getSessionUser(String token) {
+        return token == null ? null : sessions.get(token);
+    }
+
+    /**
+     * Finds a registered user by username
+     * @param username the username
+     * @return the user, or null if nobody has that username
+     */
+    public Login getUser(String username) {
+        return byUsername.get(username);
+    }
+
+    /**
+     * Finds a registered user by cell phone number
+     * @param cellPhoneNumber the number exactly as registered
+     * @return the user, or null if nobody has that number
+     */
+    public Login getUserByCell(String cellPhoneNumber) {
+        return byCell.get(cellPhoneNumber);
+    }
+
+    /**
+     * Returns the number of registered users
+     * @return the user count
+     */
+    public int size() {
+        return byUsername.size();
+    }
+
+    /**
+     * Writes every registered user to a snapshot, replacing the previous file in one step
+     * Only password hashes are written. Registrations that happen while saving
+     * may or may not be included.
+     * @param file the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Login[] users = byUsername.values().toArray(new Login[0]);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(users.length);
+            for (Login user : users) {
+                String hash;
+                synchronized (user) {
+                    hash = user.getPasswordHash();
+                }
+                out.writeUTF(user.getUsername());
+                // Always hashed now; the flag lets older snapshots with passwords be read
+                out.writeBoolean(true);
+                out.writeUTF(hash);
+                out.writeUTF(user.getCellPhoneNumber());
+                out.writeUTF(user.getFirstName());
+                out.writeUTF(user.getLastName());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot written by save, using the default password hasher
+     * @param file the snapshot file
+     * @return the registry, empty if the file does not exist
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static UserRegistry load(Path file) throws IOException {
+        return load(file, DefaultHasher.INSTANCE, DEFAULT_VERIFIED_TTL_MILLIS);
+    }
+
+    /**
+     * Loads a snapshot written by save
+     * Users are trusted as already validated, so loading skips registerUser.
+     * Passwords kept by older versions are hashed on the hasher's workers and
+     * the file is saved again at once, so they no longer sit on disk.
+     * @param file the snapshot file
+     * @param hasher hashes and checks passwords
+     * @param verifiedTtlMillis how long a checked password is trusted without hashing again
+     * @return the registry, empty if the file does not exist
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static UserRegistry load(Path file, PasswordHasher hasher, long verifiedTtlMillis) throws IOException {
+        if (!Files.exists(file)) {
+            return new UserRegistry(16, hasher, verifiedTtlMillis);
+        }
+        UserRegistry registry;
+        List<Login> unhashed = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Not a user snapshot: " + file);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Corrupt user snapshot: " + file);
+            }
+            registry = new UserRegistry(count, hasher, verifiedTtlMillis);
+            for (int i = 0; i < count; i++) {
+                Login login;
+                if (version == 1) {
+                    // Version 1 kept the password itself
+                    login = new Login(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                } else {
+                    String username = in.readUTF();
+                    boolean hashed = in.readBoolean();
+                    String password = in.readUTF();
+                    login = new Login(username, hashed ? null : password, in.readUTF(), in.readUTF(), in.readUTF());
+                    if (hashed) {
+                        login.setPasswordHash(password);
+                    }
+                }
+                if (login.getPasswordHash() == null) {
+                    unhashed.add(login);
+                }
+                registry.byUsername.put(login.getUsername(), login);
+                registry.byCell.put(login.getCellPhoneNumber(), login);
+            }
+        }
+        if (!unhashed.isEmpty()) {
+            registry.hashPasswords(unhashed);
+            registry.save(file);
+        }
+        return registry;
+    }
+
+    /**
+     * Replaces the passwords of users loaded from an older snapshot with their hashes
+     * Hashes run on the hasher's workers; when its queue is full the loading
+     * thread hashes the next one itself, which also keeps the queue from growing.
+     */
+    private void hashPasswords(List<Login> users) {
+        List<CompletableFuture<String>> hashes = new ArrayList<>(users.size());
+        for (Login user : users) {
+            try {
+                hashes.add(hasher.hashAsync(user.getPassword()));
+            } catch (RejectedExecutionException e) {
+                hashes.add(CompletableFuture.completedFuture(hasher.hash(user.getPassword())));
+            }
+        }
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setPasswordHash(hashes.get(i).join());
+        }
+    }
+
+    /**
+     * Returns a hash of a random password, made on first use, to check unknown usernames against
+     */
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            byte[] password = new byte[TOKEN_BYTES];
+            random.nextBytes(password);
+            hash = hasher.hash(HexFormat.of().formatHex(password));
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Replaces a user's hash with one at the current work factor, unless it changed meanwhile
+     */
+    private void rehash(Login login, String oldHash, String password) {
+        try {
+            String newHash = hasher.hashAsync(password).join();
+            synchronized (login) {
+                if (oldHash.equals(login.getPasswordHash())) {
+                    login.setPasswordHash(newHash);
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            // Busy; try again at the next login
+        }
+    }
+
+    /**
+     * Shared hasher for registries that do not bring their own, created on first use
+     */
+    private static class DefaultHasher {
+        static final PasswordHasher INSTANCE = new PasswordHasher();
+    }
+
+    /**
+     * Short-lived record of logins whose password already checked out
+     * Entries are keyed by an HMAC of the username, stored hash and password
+     * under a random per-process key, so the passwords themselves are never
+     * kept, and a password change (a new stored hash) invalidates old entries.
+     */
+    private static class VerifiedLogins {
+        private static final int MAX_ENTRIES = 100_000;
+
+        private final long ttlNanos;
+        private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+        private final ThreadLocal<Mac> macs;
+
+        VerifiedLogins(long ttlMillis) {
+            this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            SecretKeySpec spec = new SecretKeySpec(key, "HmacSHA256");
+            this.macs = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac mac = Mac.getInstance("HmacSHA256");
+                    mac.init(spec);
+                    return mac;
+                } catch (GeneralSecurityException e) {
+                    // Every Java SE implementation has to provide HmacSHA256
+                    throw new IllegalStateException("HmacSHA256 is not available", e);
+                }
+            });
+        }
+
+        boolean contains(String username, String hash, String password) {
+            if (ttlNanos <= 0) {
+                return false;
+            }
+            Long expiry = expiries.get(key(username, hash, password));
+            return expiry != null && expiry - System.nanoTime() > 0;
+        }
+
+        void add(String username, String hash, String password) {
+            if (ttlNanos <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (expiries.size() >= MAX_ENTRIES) {
+                expiries.values().removeIf(expiry -> expiry - now <= 0);
+                if (expiries.size() >= MAX_ENTRIES) {
+                    expiries.clear();
+                }
+            }
+            expiries.put(key(username, hash, password), now + ttlNanos);
+        }
+
+        private String key(String username, String hash, String password) {
+            Mac mac = macs.get();
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(hash.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
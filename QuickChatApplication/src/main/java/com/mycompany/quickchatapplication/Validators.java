@@ -0,0 +1,92 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.quickchatapplication;
+
+/**
+ * Validators class to handle the input checks shared by Login and Message
+ * Each check is a single pass over the characters and allocates nothing.
+ * Results match the regular expressions these checks replaced:
+ *   cell number: starts with "+", at most 13 characters, matches ^\+\d+$
+ *   password:    at least 8 characters, contains [A-Z], [0-9] and [^a-zA-Z0-9]
+ */
+public final class Validators {
+    public static final int MAX_CELL_NUMBER_LENGTH = 13;
+    public static final int MIN_PASSWORD_LENGTH = 8;
+
+    private Validators() {
+    }
+
+    /**
+     * Checks if a cell number has an international code and only digits after it
+     * @param cellNumber the number to check
+     * @return true if the number is "+" followed by 1 to 12 digits
+     */
+    public static boolean isInternationalNumber(CharSequence cellNumber) {
+        if (cellNumber == null) {
+            return false;
+        }
+        int length = cellNumber.length();
+        if (length < 2 || length > MAX_CELL_NUMBER_LENGTH || cellNumber.charAt(0) != '+') {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            char c = cellNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a password meets the complexity requirements
+     * @param password the password to check
+     * @return true if the password is at least 8 characters and contains a capital
+     *         letter, a number and a special character
+     */
+    public static boolean isComplexPassword(CharSequence password) {
+        if (password == null) {
+            return false;
+        }
+        int length = password.length();
+        if (length < MIN_PASSWORD_LENGTH) {
+            return false;
+        }
+        boolean capital = false;
+        boolean digit = false;
+        boolean special = false;
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                capital = true;
+            } else if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c < 'a' || c > 'z') {
+                special = true;
+            }
+            if (capital && digit && special) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a username contains an underscore and is no more than 5 characters long
+     * @param username the username to check
+     * @return true if the username is correctly formatted
+     */
+    public static boolean isValidUsername(CharSequence username) {
+        if (username == null || username.length() > 5) {
+            return false;
+        }
+        for (int i = 0; i < username.length(); i++) {
+            if (username.charAt(i) == '_') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
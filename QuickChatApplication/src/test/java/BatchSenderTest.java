@@ -0,0 +1,128 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.BatchSender;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageDeduplicator;
+import com.mycompany.quickchatapplication.MessageLog;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the BatchSender class.
+ * Tests CSV and JSONL input, rejections, duplicates, result ordering and throughput.
+ */
+public class BatchSenderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testCsvBatch() throws IOException {
+        Path input = directory.resolve("messages.csv");
+        Files.write(input, List.of(
+                "recipient,content,action",
+                "+27718693002,\"Hi Mike, can you join us for dinner tonight\",send",
+                "08575975889,Hi Keegan,send",
+                "+27838884567,Did you get the cake?,store",
+                "+27838884567,Ignore me,disregard",
+                "+27838884567,\"Broken quote,send"), StandardCharsets.UTF_8);
+        Path output = directory.resolve("results.csv");
+
+        try (MessageLog store = new MessageLog(directory.resolve("store"))) {
+            Message message = new Message(store);
+            BatchSender sender = new BatchSender(message, 2);
+            sender.run(input, output);
+
+            assertEquals(1, sender.getSent());
+            assertEquals(1, sender.getStored());
+            assertEquals(1, sender.getDisregarded());
+            assertEquals(2, sender.getRejected());
+            assertEquals(1, message.returnTotalMessages());
+            assertEquals(1, message.returnTotalStored());
+        }
+
+        List<String> results = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals("line,status,messageId,messageHash,detail", results.get(0));
+        assertTrue(results.get(1).startsWith("2,SENT,"));
+        assertTrue(results.get(1).endsWith(":1:HITONIGHT,Message successfully sent."));
+        assertTrue(results.get(2).startsWith("3,REJECTED,,,Cell phone number is incorrectly formatted"));
+        assertTrue(results.get(3).startsWith("4,STORED,"));
+        assertTrue(results.get(4).startsWith("5,DISREGARDED,"));
+        assertTrue(results.get(5).startsWith("6,REJECTED,"));
+    }
+
+    @Test
+    public void testJsonLinesBatch() throws IOException {
+        Path input = directory.resolve("messages.jsonl");
+        Files.write(input, List.of(
+                "{\"recipient\": \"+27718693002\", \"content\": \"Say \\\"hi\\\" \\u00e9\", \"action\": 1}",
+                "{\"recipient\": \"+27718693002\", \"message\": \"No action means send\"}",
+                "not json"), StandardCharsets.UTF_8);
+        Path output = directory.resolve("results.csv");
+
+        Message message = new Message();
+        BatchSender sender = new BatchSender(message, 1);
+        sender.run(input, output);
+
+        assertEquals(2, sender.getSent());
+        assertEquals(1, sender.getRejected());
+        assertEquals("Say \"hi\" é", message.getSentMessages().get(0).getMessageContent());
+    }
+
+    @Test
+    public void testRepeatedRowsAreDuplicates() throws IOException {
+        Path input = directory.resolve("repeats.csv");
+        Files.write(input, List.of(
+                "+27718693002,Hi Mike,send",
+                "+27718693002,Hi Mike,send",
+                "+27718693002,Hi Mike,store"), StandardCharsets.UTF_8);
+        Path output = directory.resolve("results.csv");
+
+        Message message = new Message();
+        message.setDeduplicator(new MessageDeduplicator());
+        BatchSender sender = new BatchSender(message, 1);
+        sender.run(input, output);
+
+        assertEquals(1, sender.getSent());
+        assertEquals(2, sender.getDuplicates());
+        assertEquals(1, message.returnTotalMessages());
+        List<String> results = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertTrue(results.get(2).startsWith("2,DUPLICATE,,,Duplicate message not sent."), results.get(2));
+        assertTrue(results.get(3).startsWith("3,DUPLICATE,,,Duplicate message not stored."), results.get(3));
+    }
+
+    @Test
+    public void testLargeBatchKeepsInputOrder() throws IOException {
+        int rows = 200_000;
+        Path input = directory.resolve("large.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(i % 100 == 99 ? "invalid," : "+27718693002,");
+                writer.write("Message number " + i + ",send\n");
+            }
+        }
+        Path output = directory.resolve("large-results.csv");
+
+        Message message = new Message();
+        BatchSender sender = new BatchSender(message);
+        System.out.println(sender.run(input, output));
+
+        assertEquals(rows / 100, sender.getRejected());
+        assertEquals(rows - rows / 100, message.returnTotalMessages());
+        List<String> results = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(rows + 1, results.size());
+        for (int i = 1; i <= rows; i++) {
+            assertTrue(results.get(i).startsWith(i + ","), results.get(i));
+        }
+    }
+}
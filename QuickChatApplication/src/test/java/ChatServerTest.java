@@ -0,0 +1,199 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.ChatServer;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageLog;
+import com.mycompany.quickchatapplication.Metrics;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the ChatServer class.
+ * Drives register, login, send, store, delete, list and metrics over HTTP on a local port.
+ */
+public class ChatServerTest {
+
+    @TempDir
+    Path directory;
+
+    private MessageLog store;
+    private Message message;
+    private ChatServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        store = new MessageLog(directory);
+        message = new Message(store);
+        server = new ChatServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), message);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.close();
+        store.close();
+    }
+
+    private HttpResponse<String> post(String path, String token, String... params) throws IOException, InterruptedException {
+        StringBuilder form = new StringBuilder();
+        for (int i = 0; i < params.length; i += 2) {
+            if (form.length() > 0) {
+                form.append('&');
+            }
+            form.append(params[i]).append('=').append(URLEncoder.encode(params[i + 1], StandardCharsets.UTF_8));
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form.toString()));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String registerAndLogin(String username) throws IOException, InterruptedException {
+        return registerAndLogin(username, "+27838968976");
+    }
+
+    private String registerAndLogin(String username, String cell) throws IOException, InterruptedException {
+        HttpResponse<String> registered = post("/register", null, "username", username, "password", "Ch&&sec@ke99!",
+                "cell", cell, "firstName", "Kyle", "lastName", "Smith");
+        assertEquals(200, registered.statusCode(), registered.body());
+        HttpResponse<String> loggedIn = post("/login", null, "username", username, "password", "Ch&&sec@ke99!");
+        assertEquals(200, loggedIn.statusCode(), loggedIn.body());
+        assertTrue(loggedIn.body().contains("Welcome Kyle, Smith it is great to see you again."));
+        return loggedIn.body().lines().findFirst().orElseThrow();
+    }
+
+    @Test
+    public void testRegisterLoginSendAndList() throws IOException, InterruptedException {
+        String token = registerAndLogin("kyl_1");
+
+        HttpResponse<String> sent = post("/send", token, "recipient", "+27718693002", "message", "Hi Mike, can you join us for dinner tonight");
+        assertEquals(200, sent.statusCode());
+        assertTrue(sent.body().startsWith("Message successfully sent."));
+        HttpResponse<String> stored = post("/store", token, "recipient", "+27718693002", "message", "Stored for later");
+        assertEquals(200, stored.statusCode());
+        assertEquals(1, message.returnTotalMessages());
+        assertEquals(1, message.returnTotalStored());
+        String storedId = stored.body().substring(stored.body().indexOf("Message ID: ") + "Message ID: ".length()).trim();
+        String other = registerAndLogin("kyl_9", "+27838968979");
+        assertEquals(404, post("/delete", other, "messageId", storedId).statusCode(), "only the sender may delete it");
+        assertEquals(404, post("/delete", token, "messageId", "0" + storedId).statusCode());
+        assertEquals(200, post("/delete", token, "messageId", storedId).statusCode());
+        assertEquals(404, post("/delete", token, "messageId", storedId).statusCode());
+        assertEquals("No messages stored yet.", message.printStoredMessages());
+        assertEquals(1, store.getTombstoneCount(), "unknown IDs write no tombstones");
+
+        HttpResponse<String> listed = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/messages?after=0&limit=10"))
+                .header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, listed.statusCode());
+        assertEquals("1", listed.headers().firstValue("X-Last-Message").orElse(""));
+        assertTrue(listed.body().contains("Message: Hi Mike, can you join us for dinner tonight"));
+    }
+
+    @Test
+    public void testRejectsBadInput() throws IOException, InterruptedException {
+        assertEquals(400, post("/register", null, "username", "kyle!!!!!!!", "password", "password", "cell", "08966553").statusCode());
+        assertEquals(401, post("/login", null, "username", "nobody", "password", "x").statusCode());
+        assertEquals(401, post("/send", null, "recipient", "+27718693002", "message", "Hi").statusCode());
+
+        String token = registerAndLogin("kyl_2");
+        assertEquals(409, post("/register", null, "username", "kyl_2", "password", "Ch&&sec@ke99!",
+                "cell", "+27838968976", "firstName", "Kyle", "lastName", "Smith").statusCode());
+        HttpResponse<String> badCell = post("/send", token, "recipient", "08575975889", "message", "Hi");
+        assertEquals(400, badCell.statusCode());
+        assertEquals(0, message.returnTotalMessages());
+    }
+
+    @Test
+    public void testListsOnlyOwnMessages() throws IOException, InterruptedException {
+        String first = registerAndLogin("kyl_5", "+27838968976");
+        String second = registerAndLogin("kyl_6", "+27838968977");
+        assertEquals(200, post("/send", first, "recipient", "+27718693002", "message", "From the first user").statusCode());
+        assertEquals(200, post("/send", second, "recipient", "+27718693002", "message", "From the second user").statusCode());
+        assertEquals(200, post("/send", first, "recipient", "+27718693002", "message", "First user again").statusCode());
+
+        HttpResponse<String> listed = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/messages?limit=1"))
+                .header("Authorization", "Bearer " + first).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals("1", listed.headers().firstValue("X-Last-Message").orElse(""));
+        assertTrue(listed.body().contains("From the first user"));
+        listed = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/messages?after=1"))
+                .header("Authorization", "Bearer " + first).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals("3", listed.headers().firstValue("X-Last-Message").orElse(""));
+        assertTrue(listed.body().contains("First user again"));
+        assertFalse(listed.body().contains("second user"));
+        assertEquals("kyl_6", message.findMessageById(message.getSentMessages().get(1).getMessageId()).getSender());
+    }
+
+    @Test
+    public void testAnswersUnreadableRequests() throws IOException, InterruptedException {
+        HttpResponse<String> tooLarge = post("/login", null, "username", "x".repeat(20_000), "password", "x");
+        assertEquals(413, tooLarge.statusCode());
+        HttpRequest badEscape = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("username=%zz&password=x")).build();
+        assertEquals(400, client.send(badEscape, HttpResponse.BodyHandlers.ofString()).statusCode());
+        // The server is still answering
+        registerAndLogin("kyl_7");
+    }
+
+    @Test
+    public void testMetrics() throws IOException, InterruptedException {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        try {
+            String token = registerAndLogin("kyl_4");
+            assertEquals(200, post("/send", token, "recipient", "+27718693002", "message", "Hi Mike").statusCode());
+            assertEquals(400, post("/send", token, "recipient", "08575975889", "message", "Hi").statusCode());
+
+            HttpResponse<String> metrics = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, metrics.statusCode());
+            assertTrue(metrics.body().contains("quickchat_choice_total{choice=\"send\"} 1\n"), metrics.body());
+            assertTrue(metrics.body().contains("quickchat_rejection_total{reason=\"recipient_format\"} 1\n"), metrics.body());
+        } finally {
+            Metrics.setEnabled(false);
+            Metrics.reset();
+        }
+    }
+
+    @Test
+    public void testManyConcurrentClients() throws Exception {
+        String token = registerAndLogin("kyl_3");
+        int clients = 500;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                results.add(pool.submit(() -> post("/send", token, "recipient", "+27718693002", "message", "Hello from a client").statusCode()));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(200, result.get());
+            }
+        }
+        assertEquals(clients, message.returnTotalMessages());
+    }
+}
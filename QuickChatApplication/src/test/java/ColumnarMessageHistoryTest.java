@@ -0,0 +1,158 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.ColumnarMessageHistory;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageHasher;
+import com.mycompany.quickchatapplication.SentMessageList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ColumnarMessageHistory class.
+ * Tests that messages read back exactly as they were sent, that messages which
+ * do not fit a record are kept as given, concurrent appends and the record
+ * arena's size per message.
+ */
+public class ColumnarMessageHistoryTest {
+
+    private static Message.MessageData message(String id, int number, String recipient, String content) {
+        return new Message.MessageData(id, number, recipient, content, MessageHasher.hash(id, number, content));
+    }
+
+    private static void assertSameMessage(Message.MessageData expected, Message.MessageData actual) {
+        assertEquals(expected.getMessageId(), actual.getMessageId());
+        assertEquals(expected.getMessageNumber(), actual.getMessageNumber());
+        assertEquals(expected.getRecipient(), actual.getRecipient());
+        assertEquals(expected.getMessageContent(), actual.getMessageContent());
+        assertEquals(expected.getMessageHash(), actual.getMessageHash());
+        assertEquals(expected.getSender(), actual.getSender());
+    }
+
+    @Test
+    public void testMessagesReadBackAsSent() {
+        ColumnarMessageHistory history = new ColumnarMessageHistory();
+        List<Message.MessageData> sent = new ArrayList<>();
+        String[][] rows = {
+            {"0012345678", "+27718693002", "Hi Mike, can you join us for dinner tonight"},
+            {"9999999999", "+27838884567", "Where are you? You are late! I have asked you to be on time."},
+            {"0000000001", "+2", ""},
+            {"1234567890", "+27838968976", "Ünïcödé — emoji 😀 and accents"},
+            {"1234567890", "0838968976", "Local number without a plus"},
+        };
+        for (String[] row : rows) {
+            sent.add(history.append(number -> message(row[0], number, row[1], row[2])));
+        }
+        sent.add(history.append(number -> message("1234567890", number, "+27718693002", null)));
+
+        assertEquals(0, history.getOverflowCount());
+        assertEquals(sent.size(), history.size());
+        for (int i = 0; i < sent.size(); i++) {
+            assertSameMessage(sent.get(i), history.getByNumber(i + 1));
+        }
+        assertEquals("00:1:HITONIGHT", history.get(0).getMessageHash());
+    }
+
+    @Test
+    public void testSendersAreKeptOncePerUsername() {
+        ColumnarMessageHistory history = new ColumnarMessageHistory();
+        List<Message.MessageData> sent = new ArrayList<>();
+        String[] senders = {"kyl_1", null, "kyl_2", "kyl_1"};
+        for (String sender : senders) {
+            sent.add(history.append(number -> new Message.MessageData("1234567890", number, "+27718693002", "Hello there",
+                    MessageHasher.hash("1234567890", number, "Hello there"), sender)));
+        }
+        assertEquals(0, history.getOverflowCount());
+        for (int i = 0; i < sent.size(); i++) {
+            assertSameMessage(sent.get(i), history.getByNumber(i + 1));
+        }
+        assertEquals("kyl_1", history.getByNumber(4).getSender());
+    }
+
+    @Test
+    public void testMessagesThatDoNotFitAreKeptAsGiven() {
+        ColumnarMessageHistory history = new ColumnarMessageHistory();
+        Message.MessageData letters = history.append(number -> message("ABC1234567", number, "+27718693002", "Hello there"));
+        Message.MessageData customHash = history.append(number -> new Message.MessageData("1234567890", number, "+27718693002", "Hello there", "CUSTOM"));
+        Message.MessageData longRecipient = history.append(number -> message("1234567890", number, "+123456789012345678", "Hello there"));
+        Message.MessageData packed = history.append(number -> message("1234567890", number, "+27718693002", "Hello there"));
+
+        assertEquals(3, history.getOverflowCount());
+        assertSame(letters, history.getByNumber(1));
+        assertSame(customHash, history.getByNumber(2));
+        assertSame(longRecipient, history.getByNumber(3));
+        assertNotSame(packed, history.getByNumber(4));
+        assertSameMessage(packed, history.getByNumber(4));
+    }
+
+    @Test
+    public void testWorksAsMessageHistory() {
+        Message columnar = new Message(null, new ColumnarMessageHistory());
+        Message objects = new Message(null, new SentMessageList());
+        for (Message message : List.of(columnar, objects)) {
+            message.sentMessage(1, "1234567890", "+27718693002", "Hi Mike, can you join us for dinner tonight");
+            message.sentMessage(1, "9876543210", "+27838884567", "Hi Keegan, did you receive the payment?");
+        }
+
+        assertEquals(objects.printMessages(), columnar.printMessages());
+        assertEquals("9876543210", columnar.findMessageByHash("98:2:HIPAYMENT").getMessageId());
+        assertEquals(1, columnar.findMessagesByRecipient("+27718693002").size());
+        assertEquals(1, columnar.searchSentMessages("payment").size());
+    }
+
+    @Test
+    public void testConcurrentAppends() throws Exception {
+        ColumnarMessageHistory history = new ColumnarMessageHistory();
+        int threads = 8;
+        int perThread = 50_000;
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        history.append(number -> message(String.format("%010d", number), number, "+27718693002",
+                                "Message number " + number + " " + "x".repeat(number % 300)));
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        }
+
+        assertEquals(threads * perThread, history.size());
+        int number = 1;
+        for (Message.MessageData data : history) {
+            assertEquals(number, data.getMessageNumber());
+            assertEquals(String.format("%010d", number), data.getMessageId());
+            assertEquals("Message number " + number + " " + "x".repeat(number % 300), data.getMessageContent());
+            number++;
+        }
+    }
+
+    @Test
+    public void testRecordsCostAboutTwentyBytesPlusContent() {
+        ColumnarMessageHistory history = new ColumnarMessageHistory();
+        int count = 100_000;
+        long contentBytes = 0;
+        for (int i = 0; i < count; i++) {
+            String id = String.format("%010d", 1_234_567_890L + i);
+            String content = "Hi Mike, can you join us for dinner tonight " + (i + 1);
+            contentBytes += content.length();
+            history.append(number -> message(id, number, "+2771869" + (3000 + number % 1000), content));
+        }
+
+        assertEquals(count, history.totalAppended());
+        assertEquals(0, history.getOverflowCount());
+        // The 20 bytes a message also cover the chunk ends skipped over, under one record per 1 MB chunk
+        assertTrue(history.getArenaBytes() <= contentBytes + 20L * count,
+                "Arena: " + history.getArenaBytes() + ", content: " + contentBytes);
+    }
+}
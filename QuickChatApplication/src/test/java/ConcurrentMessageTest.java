@@ -0,0 +1,83 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Message;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Multi-threaded stress tests for the Message class.
+ * Checks that concurrent senders never lose a message or a message number,
+ * and prints send throughput for increasing thread counts.
+ */
+public class ConcurrentMessageTest {
+
+    private static final int MESSAGES_PER_THREAD = 50_000;
+
+    /**
+     * Sends MESSAGES_PER_THREAD messages from each of the given number of threads
+     * @return the elapsed time in nanoseconds
+     */
+    private long sendConcurrently(Message message, int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] senders = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final String recipient = String.format("+27%09d", t);
+            senders[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                    message.sentMessage(1, "1234567890", recipient, "Hi Mike, can you join us for dinner tonight");
+                }
+            });
+            senders[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    @Test
+    @DisplayName("Concurrent sends keep numbering gap-free")
+    public void testConcurrentSendsAreGapFree() throws InterruptedException {
+        Message message = new Message();
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        sendConcurrently(message, threads);
+
+        int expected = threads * MESSAGES_PER_THREAD;
+        assertEquals(expected, message.returnTotalMessages());
+
+        List<Message.MessageData> sent = message.getSentMessages();
+        assertEquals(expected, sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            Message.MessageData data = sent.get(i);
+            assertEquals(i + 1, data.getMessageNumber());
+            assertEquals("12:" + (i + 1) + ":HITONIGHT", data.getMessageHash());
+        }
+    }
+
+    @Test
+    @DisplayName("Send throughput by thread count")
+    public void testSendThroughputScaling() throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        sendConcurrently(new Message(), cores); // warm-up
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            Message message = new Message();
+            long elapsed = sendConcurrently(message, threads);
+            long total = (long) threads * MESSAGES_PER_THREAD;
+            assertEquals(total, message.returnTotalMessages());
+            System.out.printf("%d thread(s): %,d sends/sec%n", threads, total * 1_000_000_000L / Math.max(1, elapsed));
+        }
+    }
+}
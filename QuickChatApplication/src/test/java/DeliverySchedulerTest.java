@@ -0,0 +1,235 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.DeliveryScheduler;
+import com.mycompany.quickchatapplication.LoopbackTransport;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageLog;
+import com.mycompany.quickchatapplication.Transport;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the DeliveryScheduler class.
+ * Tests per-recipient ordering, retries and their backoff, slow recipients,
+ * resuming after a restart, the rate cap and draining a large backlog with
+ * bounded memory.
+ */
+public class DeliverySchedulerTest {
+
+    @TempDir
+    Path directory;
+
+    private static Message.MessageData message(int number, int recipients) {
+        return new Message.MessageData(String.format("%010d", number), number, String.format("+27%09d", number % recipients),
+                "Stored message " + number, "00:" + number + ":STOREDNUMBER");
+    }
+
+    private static void store(MessageLog log, int from, int to, int recipients) throws IOException {
+        for (int number = from; number <= to; number++) {
+            log.append(message(number, recipients), number);
+        }
+    }
+
+    private static void assertInOrder(List<Message.MessageData> inbox) {
+        for (int i = 1; i < inbox.size(); i++) {
+            assertTrue(inbox.get(i - 1).getMessageNumber() < inbox.get(i).getMessageNumber(), "Out of order at " + i);
+        }
+    }
+
+    @Test
+    public void testDeliversEachRecipientInOrder() throws Exception {
+        LoopbackTransport transport = new LoopbackTransport();
+        try (MessageLog log = new MessageLog(directory);
+                DeliveryScheduler scheduler = new DeliveryScheduler(transport, log, 4, 1_000, 5, 100)) {
+            store(log, 1, 1_000, 3);
+            scheduler.start();
+            assertTrue(scheduler.awaitDrained(30, TimeUnit.SECONDS));
+
+            assertEquals(1_000, transport.getDelivered());
+            for (int recipient = 0; recipient < 3; recipient++) {
+                List<Message.MessageData> inbox = transport.getInbox(String.format("+27%09d", recipient));
+                assertTrue(inbox.size() >= 333);
+                assertInOrder(inbox);
+            }
+            assertEquals(0, scheduler.getRecipients(), "empty queues are dropped");
+        }
+    }
+
+    @Test
+    public void testFailedDeliveriesAreRetriedInOrder() throws Exception {
+        LoopbackTransport inboxes = new LoopbackTransport();
+        AtomicInteger calls = new AtomicInteger();
+        Transport flaky = message -> {
+            if (calls.incrementAndGet() % 3 == 0) {
+                throw new IOException("Network unreachable");
+            }
+            inboxes.deliver(message);
+        };
+        try (DeliveryScheduler scheduler = new DeliveryScheduler(flaky, null, 2, 1_000, 5, 100)) {
+            scheduler.start();
+            for (int number = 1; number <= 300; number++) {
+                scheduler.enqueue(message(number, 2));
+            }
+            assertTrue(scheduler.awaitDrained(30, TimeUnit.SECONDS));
+
+            assertEquals(300, scheduler.getDelivered());
+            assertTrue(scheduler.getFailed() > 0);
+            assertEquals(150, inboxes.getInbox("+27000000000").size());
+            assertInOrder(inboxes.getInbox("+27000000000"));
+            assertInOrder(inboxes.getInbox("+27000000001"));
+        }
+    }
+
+    @Test
+    public void testSlowRecipientDoesNotHoldUpOthers() throws Exception {
+        LoopbackTransport inboxes = new LoopbackTransport();
+        CountDownLatch release = new CountDownLatch(1);
+        Transport slow = message -> {
+            if (message.getRecipient().equals("+27000000000")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            inboxes.deliver(message);
+        };
+        try (DeliveryScheduler scheduler = new DeliveryScheduler(slow, null, 2, 1_000, 5, 100)) {
+            scheduler.start();
+            scheduler.enqueue(message(0, 2));
+            for (int number = 1; number <= 400; number += 2) {
+                scheduler.enqueue(message(number, 2));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (inboxes.getInbox("+27000000001").size() < 200 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(200, inboxes.getInbox("+27000000001").size(), "delivered over many ticks while one recipient hangs");
+            assertTrue(inboxes.getInbox("+27000000000").isEmpty());
+
+            release.countDown();
+            assertTrue(scheduler.awaitDrained(30, TimeUnit.SECONDS));
+            assertEquals(201, scheduler.getDelivered());
+        }
+    }
+
+    @Test
+    public void testFailingRecipientBacksOff() throws Exception {
+        LoopbackTransport inboxes = new LoopbackTransport();
+        AtomicInteger attempts = new AtomicInteger();
+        Transport down = message -> {
+            if (message.getRecipient().equals("+27000000000")) {
+                attempts.incrementAndGet();
+                throw new IOException("Network unreachable");
+            }
+            inboxes.deliver(message);
+        };
+        try (DeliveryScheduler scheduler = new DeliveryScheduler(down, null, 2, 1_000, 5, 100)) {
+            scheduler.start();
+            scheduler.enqueue(message(0, 2));
+            Thread.sleep(300);
+            scheduler.enqueue(message(1, 2));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (inboxes.getInbox("+27000000001").isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            // 5, 10, 20, 40, 80 and 160 ms apart instead of every 5 ms tick
+            assertTrue(attempts.get() >= 2, "retried at all");
+            assertTrue(attempts.get() <= 8, "retried " + attempts.get() + " times in 300 ms");
+            assertEquals(1, inboxes.getInbox("+27000000001").size(), "other recipients are not held back");
+            assertEquals(1, scheduler.getPending());
+        }
+    }
+
+    @Test
+    public void testRestartSkipsDeliveredMessages() throws Exception {
+        try (MessageLog log = new MessageLog(directory)) {
+            store(log, 1, 500, 10);
+            LoopbackTransport first = new LoopbackTransport();
+            try (DeliveryScheduler scheduler = new DeliveryScheduler(first, log, 2, 1_000, 5, 1_000)) {
+                scheduler.start();
+                assertTrue(scheduler.awaitDrained(30, TimeUnit.SECONDS));
+            }
+            assertEquals(500, first.getDelivered());
+
+            store(log, 501, 510, 10);
+            LoopbackTransport second = new LoopbackTransport();
+            try (DeliveryScheduler scheduler = new DeliveryScheduler(second, log, 2, 1_000, 5, 1_000)) {
+                scheduler.start();
+                assertTrue(scheduler.awaitDrained(30, TimeUnit.SECONDS));
+            }
+            assertEquals(10, second.getDelivered(), "only messages stored since the last run are delivered");
+            assertEquals(501, second.getInbox("+27000000001").get(0).getMessageNumber());
+        }
+    }
+
+    @Test
+    public void testStartsOnlyOnce() {
+        DeliveryScheduler scheduler = new DeliveryScheduler(new LoopbackTransport(), null, 1, 10, 5, 10);
+        assertFalse(scheduler.isStarted());
+        scheduler.start();
+        assertTrue(scheduler.isStarted());
+        assertThrows(IllegalStateException.class, scheduler::start);
+        scheduler.close();
+        assertThrows(IllegalStateException.class, scheduler::start);
+    }
+
+    @Test
+    public void testRateIsCappedPerTick() throws Exception {
+        int count = 20_000;
+        int perTick = 1_000;
+        long interval = 10; // so at most 100,000 a second
+        LoopbackTransport transport = new LoopbackTransport(false);
+        try (DeliveryScheduler scheduler = new DeliveryScheduler(transport, null, 2, count, interval, perTick)) {
+            for (int number = 1; number <= count; number++) {
+                scheduler.enqueue(message(number, 1_000));
+            }
+            long start = System.nanoTime();
+            scheduler.start();
+            assertTrue(scheduler.awaitDrained(30, TimeUnit.SECONDS));
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            long fastest = count / perTick * interval;
+            System.out.printf("Delivered %,d messages at a cap of %,d/s in %d ms (no faster than %d ms)%n",
+                    count, perTick * 1000 / interval, millis, fastest);
+            assertEquals(count, transport.getDelivered());
+            assertTrue(millis >= fastest * 9 / 10, "Drained in " + millis + " ms");
+        }
+    }
+
+    @Test
+    public void testMillionMessageBacklog() throws Exception {
+        int count = 1_000_000;
+        int maxQueued = 50_000;
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, MessageLog.DEFAULT_SEGMENT_SIZE, 0)) {
+            store(log, 1, count, 10_000);
+            LoopbackTransport transport = new LoopbackTransport(false);
+            try (DeliveryScheduler scheduler = new DeliveryScheduler(transport, log,
+                    Runtime.getRuntime().availableProcessors(), maxQueued, 10, 50_000)) {
+                long start = System.nanoTime();
+                scheduler.start();
+                int mostPending = 0;
+                while (!scheduler.awaitDrained(50, TimeUnit.MILLISECONDS)) {
+                    mostPending = Math.max(mostPending, scheduler.getPending());
+                }
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.printf("Drained %,d stored messages in %d ms (%,d/s), at most %,d queued%n",
+                        count, millis, count * 1000L / Math.max(1, millis), mostPending);
+
+                assertEquals(count, transport.getDelivered());
+                assertTrue(mostPending <= maxQueued, "Queued: " + mostPending);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.IdGenerator;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.RandomIdGenerator;
+import com.mycompany.quickchatapplication.SnowflakeIdGenerator;
+import com.mycompany.quickchatapplication.UniqueIdGenerator;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the IdGenerator implementations.
+ * Tests ID format, uniqueness and ordering; throughput is measured by the
+ * MessageIdBenchmark in the benchmarks module.
+ */
+public class IdGeneratorTest {
+
+    @Test
+    public void testRandomIdFormat() {
+        IdGenerator generator = new RandomIdGenerator();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(generator.nextMessageId().matches("\\d{10}"));
+        }
+    }
+
+    @Test
+    public void testRenderDecimalPadsWithZeros() {
+        byte[] buffer = new byte[10];
+        assertEquals(10, IdGenerator.renderDecimal(42, buffer, 0));
+        assertEquals("0000000042", new String(buffer));
+    }
+
+    @Test
+    public void testSnowflakeIdsAreUniqueAndOrdered() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5);
+        Message message = new Message();
+        long previous = -1;
+        String previousText = "";
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(5, SnowflakeIdGenerator.nodeOf(id));
+
+            byte[] buffer = new byte[10];
+            String text = new String(buffer, 0, generator.render(id, buffer, 0));
+            assertTrue(message.checkMessageID(text));
+            assertTrue(text.compareTo(previousText) > 0);
+            previous = id;
+            previousText = text;
+        }
+        assertTrue(Math.abs(SnowflakeIdGenerator.timestampOf(previous) - System.currentTimeMillis()) < 60_000);
+    }
+
+    @Test
+    public void testSnowflakeRejectsInvalidNode() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE + 1));
+    }
+
+    @Test
+    public void testUniqueIdsNeverRepeat() {
+        UniqueIdGenerator generator = new UniqueIdGenerator(200_000, 0.01);
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            long id = generator.nextId();
+            assertTrue(seen.add(id), "Duplicate ID " + id);
+            assertTrue(generator.mightContain(id));
+        }
+    }
+
+    @Test
+    public void testMessageUsesConfiguredGenerator() {
+        Message message = new Message();
+        message.setIdGenerator(new SnowflakeIdGenerator(1));
+        String id = message.generateMessageId();
+        assertEquals(10, id.length());
+        assertTrue(message.checkMessageID(id));
+    }
+}
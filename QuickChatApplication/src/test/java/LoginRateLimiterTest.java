@@ -0,0 +1,122 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Login;
+import com.mycompany.quickchatapplication.LoginRateLimiter;
+import com.mycompany.quickchatapplication.LoginThrottledException;
+import com.mycompany.quickchatapplication.PasswordHasher;
+import com.mycompany.quickchatapplication.UserRegistry;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the LoginRateLimiter class.
+ * Tests bursts and refills, rejection before hashing, concurrent attempts
+ * and behaviour with far more keys than slots.
+ */
+public class LoginRateLimiterTest {
+
+    @Test
+    public void testBurstThenRefill() throws InterruptedException {
+        LoginRateLimiter limiter = new LoginRateLimiter(1024, 3, 20); // a token every 50 ms
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire("kyl_1"));
+        }
+        long wait = limiter.acquire("kyl_1");
+        assertTrue(wait > 0 && wait <= 50, "Wait: " + wait);
+        assertTrue(limiter.tryAcquire("+27838968976"), "keys are limited separately");
+
+        Thread.sleep(wait + 20);
+        assertTrue(limiter.tryAcquire("kyl_1"));
+        assertFalse(limiter.tryAcquire("kyl_1"));
+    }
+
+    @Test
+    public void testRejectsBeforeHashing() {
+        try (PasswordHasher hasher = new PasswordHasher(100_000)) {
+            UserRegistry users = new UserRegistry(16, hasher, 0);
+            users.setRateLimiter(new LoginRateLimiter(1024, 3, 0.001));
+            users.register(new Login("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith"));
+            for (int i = 0; i < 3; i++) {
+                assertNull(users.loginUser("kyl_1", "guess" + i));
+            }
+
+            long start = System.nanoTime();
+            LoginThrottledException e = assertThrows(LoginThrottledException.class, () -> users.loginUser("kyl_1", "Ch&&sec@ke99!"));
+            long nanos = System.nanoTime() - start;
+            assertTrue(e.getRetryAfterMillis() > 0);
+            assertTrue(nanos < 20_000_000, "A refused attempt must not hash; took " + nanos / 1000 + " us");
+
+            // Unknown usernames are limited as well
+            for (int i = 0; i < 3; i++) {
+                assertNull(users.loginUser("nob_1", "guess"));
+            }
+            assertThrows(LoginThrottledException.class, () -> users.loginUser("nob_1", "guess"));
+        }
+    }
+
+    @Test
+    public void testConcurrentAttemptsNeverExceedBurst() throws Exception {
+        int burst = 1_000;
+        LoginRateLimiter limiter = new LoginRateLimiter(1024, burst, 0.001);
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    int allowed = 0;
+                    for (int i = 0; i < burst; i++) {
+                        if (limiter.tryAcquire("kyl_1")) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get();
+            }
+            assertEquals(burst, allowed);
+        }
+    }
+
+    @Test
+    public void testManyKeysStayBoundedAndAllocationFree() {
+        LoginRateLimiter limiter = new LoginRateLimiter(1 << 16, 5, 0.001);
+        while (limiter.tryAcquire("kyl_1")) {
+            // use up kyl_1's attempts
+        }
+
+        int keyCount = 500_000;
+        String[] keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = String.format("+27%09d", i);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < 2; round++) {
+            for (String key : keys) {
+                limiter.tryAcquire(key);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        System.out.printf("%,d attempts over %,d keys in %d ms (%,d evictions, %,d bytes allocated)%n",
+                2 * keyCount, keyCount, nanos / 1_000_000, limiter.evictions(), allocated);
+
+        assertTrue(limiter.evictions() > 0);
+        assertTrue(allocated < 64 * 1024, "Allocated: " + allocated);
+        // A locked out key holds on to its slot however many others come through
+        assertFalse(limiter.tryAcquire("kyl_1"));
+    }
+}
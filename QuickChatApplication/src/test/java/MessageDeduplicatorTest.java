@@ -0,0 +1,211 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageDeduplicator;
+import com.mycompany.quickchatapplication.MessageLog;
+import com.mycompany.quickchatapplication.Metrics;
+import com.mycompany.quickchatapplication.SentMessageList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MessageDeduplicator class.
+ * Tests fingerprints, the sliding window, the measured false positive rate and
+ * suppressing or coalescing repeats in Message.sentMessage, which claims a
+ * message before sending it and records it only once it has gone out.
+ */
+public class MessageDeduplicatorTest {
+
+    @TempDir
+    Path directory;
+
+    private static final long WINDOW = 60_000;
+
+    @Test
+    public void testFingerprint() {
+        String content = "Hi Mike, can you join us for dinner tonight";
+        assertEquals(MessageDeduplicator.fingerprint("+27718693002", content),
+                MessageDeduplicator.fingerprint("+27718693002", new StringBuilder(content)));
+        assertNotEquals(MessageDeduplicator.fingerprint("+27718693002", content),
+                MessageDeduplicator.fingerprint("+27718693003", content));
+        assertNotEquals(MessageDeduplicator.fingerprint("ab", "c"), MessageDeduplicator.fingerprint("a", "bc"));
+        assertNotEquals(MessageDeduplicator.fingerprint(null, ""), MessageDeduplicator.fingerprint("", ""));
+    }
+
+    @Test
+    public void testRepeatsWithinWindow() {
+        MessageDeduplicator deduplicator = new MessageDeduplicator(MessageDeduplicator.Mode.SUPPRESS, WINDOW, 1000, 0.001);
+        long message = MessageDeduplicator.fingerprint("+27718693002", "Where are you? You are late!");
+        long other = MessageDeduplicator.fingerprint("+27838884567", "Where are you? You are late!");
+
+        assertFalse(deduplicator.isDuplicate(message, 0));
+        assertTrue(deduplicator.isDuplicate(message, 1000));
+        assertFalse(deduplicator.isDuplicate(other, 1000));
+        // Every repeat counts as recent again, so a steady resend stays suppressed
+        assertTrue(deduplicator.isDuplicate(message, WINDOW * 3 / 4 - 1));
+        assertTrue(deduplicator.isDuplicate(message, WINDOW * 3 / 2 - 1));
+        assertEquals(3, deduplicator.getDuplicates());
+        assertEquals(5, deduplicator.getChecked());
+
+        // Forgotten once a whole window has passed without it
+        assertFalse(deduplicator.isDuplicate(message, WINDOW * 5 / 2));
+        assertTrue(deduplicator.isDuplicate(message, WINDOW * 5 / 2 + 1));
+        assertFalse(deduplicator.isDuplicate(other, WINDOW * 100));
+    }
+
+    @Test
+    public void testMeasuredFalsePositiveRate() {
+        int expected = 100_000;
+        double target = 0.001;
+        MessageDeduplicator deduplicator = new MessageDeduplicator(MessageDeduplicator.Mode.SUPPRESS, WINDOW, expected, target);
+        long now = 0;
+        int falsePositives = 0;
+        // Distinct messages spread over one window, so every generation fills as it would in use
+        for (int i = 0; i < expected; i++) {
+            now = (long) i * WINDOW / expected;
+            if (deduplicator.isDuplicate(MessageDeduplicator.fingerprint("+277186" + (i % 10_000), "Message number " + i), now)) {
+                falsePositives++;
+            }
+        }
+        double observed = (double) falsePositives / expected;
+        System.out.printf("Deduplication false positives: %d of %,d (%.5f, target %.5f, estimated %.5f), %,d bytes, %d hashes%n",
+                falsePositives, expected, observed, target, deduplicator.getFalsePositiveRate(),
+                deduplicator.getMemoryBytes(), deduplicator.getHashFunctions());
+
+        assertTrue(observed <= target, "Observed " + observed);
+        assertTrue(deduplicator.getFalsePositiveRate() <= target, "Estimated " + deduplicator.getFalsePositiveRate());
+        // Memory is fixed up front, whatever the traffic
+        long memory = deduplicator.getMemoryBytes();
+        for (int i = 0; i < 200_000; i++) {
+            deduplicator.isDuplicate(MessageDeduplicator.fingerprint("+27838884567", "Flood " + i), now);
+        }
+        assertEquals(memory, deduplicator.getMemoryBytes());
+        assertTrue(memory < 1024 * 1024, "Memory " + memory);
+    }
+
+    @Test
+    public void testSuppressInSentMessage() {
+        Message message = new Message(null, new SentMessageList());
+        message.setDeduplicator(new MessageDeduplicator());
+        assertEquals("Message successfully sent.", message.sentMessage(1, "1234567890", "+27718693002", "Hi Mike"));
+        assertEquals("Duplicate message not sent.", message.sentMessage(1, "1234567891", "+27718693002", "Hi Mike"));
+        assertEquals("Message successfully sent.", message.sentMessage(1, "1234567892", "+27838884567", "Hi Mike"));
+        assertEquals("Press 0 to delete message.", message.sentMessage(2, "1234567893", "+27718693002", "Hi Mike"));
+        assertEquals(2, message.returnTotalMessages());
+        assertNull(message.findMessageById("1234567891"));
+
+        message.setDeduplicator(null);
+        assertEquals("Message successfully sent.", message.sentMessage(1, "1234567894", "+27718693002", "Hi Mike"));
+    }
+
+    @Test
+    public void testCoalesceInSentMessage() {
+        Message message = new Message(null, new SentMessageList());
+        message.setDeduplicator(new MessageDeduplicator(MessageDeduplicator.Mode.COALESCE, WINDOW, 1000, 0.001));
+        assertEquals("Message successfully sent.", message.sentMessage(1, "1234567890", "+27718693002", "Hi Mike"));
+        assertEquals("Message already sent.", message.sentMessage(1, "1234567891", "+27718693002", "Hi Mike"));
+        assertEquals("Message already stored.", message.sentMessage(3, "1234567892", "+27718693002", "Hi Mike"));
+        assertEquals(1, message.returnTotalMessages());
+        assertEquals(0, message.returnTotalStored());
+        assertEquals(2, message.getDeduplicator().getDuplicates());
+    }
+
+    @Test
+    public void testCheckingDoesNotRecord() {
+        MessageDeduplicator deduplicator = new MessageDeduplicator();
+        assertFalse(deduplicator.isRecent("+27718693002", "Hi Mike"));
+        assertFalse(deduplicator.isRecent("+27718693002", "Hi Mike"));
+        deduplicator.record("+27718693002", "Hi Mike");
+        assertTrue(deduplicator.isRecent("+27718693002", "Hi Mike"));
+        assertTrue(deduplicator.isDuplicate("+27718693002", "Hi Mike"));
+    }
+
+    @Test
+    public void testClaimHoldsOffTheSameMessage() {
+        MessageDeduplicator deduplicator = new MessageDeduplicator();
+        assertTrue(deduplicator.claim("+27718693002", "Hi Mike"));
+        assertFalse(deduplicator.claim("+27718693002", "Hi Mike"), "still being sent");
+        deduplicator.release("+27718693002", "Hi Mike");
+        assertTrue(deduplicator.claim("+27718693002", "Hi Mike"), "released, so it was never sent");
+        deduplicator.record("+27718693002", "Hi Mike");
+        assertFalse(deduplicator.claim("+27718693002", "Hi Mike"));
+    }
+
+    @Test
+    public void testConcurrentRepeatsSendOnce() throws Exception {
+        Message message = new Message(null, new SentMessageList());
+        message.setDeduplicator(new MessageDeduplicator());
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                String content = "Hi Mike " + round;
+                CountDownLatch ready = new CountDownLatch(threads);
+                List<Future<String>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    results.add(pool.submit(() -> {
+                        ready.countDown();
+                        ready.await();
+                        return message.sentMessage(1, message.generateMessageId(), "+27718693002", content);
+                    }));
+                }
+                int sent = 0;
+                for (Future<String> result : results) {
+                    if (result.get().equals("Message successfully sent.")) {
+                        sent++;
+                    }
+                }
+                assertEquals(1, sent, content);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(200, message.returnTotalMessages());
+    }
+
+    @Test
+    public void testFailedStoreIsNotTakenForARepeat() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Message message = new Message(log);
+            message.setDeduplicator(new MessageDeduplicator());
+            String tooLong = "x".repeat(0x10000);
+            assertEquals("Error storing message.", message.sentMessage(3, "1234567890", "+27718693002", tooLong));
+            assertEquals("Error storing message.", message.sentMessage(3, "1234567891", "+27718693002", tooLong),
+                    "the retry is tried again, not suppressed");
+            assertEquals(0, message.getDeduplicator().getDuplicates());
+
+            assertEquals("Message successfully stored.", message.sentMessage(3, "1234567892", "+27718693002", "Hi Mike"));
+            assertEquals("Duplicate message not stored.", message.sentMessage(3, "1234567893", "+27718693002", "Hi Mike"));
+        }
+    }
+
+    @Test
+    public void testRepeatsCountOnlyAsRejections() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        try {
+            Message message = new Message(null, new SentMessageList());
+            message.setDeduplicator(new MessageDeduplicator());
+            message.sentMessage(1, "1234567890", "+27718693002", "Hi Mike");
+            message.sentMessage(1, "1234567891", "+27718693002", "Hi Mike");
+
+            assertEquals(1, Metrics.getCount(Metrics.Choice.SEND));
+            assertEquals(1, Metrics.getCount(Metrics.Rejection.DUPLICATE));
+        } finally {
+            Metrics.setEnabled(false);
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageEvents;
+import com.mycompany.quickchatapplication.MessageLog;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MessageEvents class.
+ * Records a message's life with the bundled settings and checks each stage's
+ * event, and that the settings enable nothing but the message events.
+ */
+public class MessageEventsTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(MessageEvents.PREFIX + name))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSettingsEnableOnlyMessageEvents() throws IOException {
+        Configuration configuration = MessageEvents.configuration();
+        assertEquals("QuickChat", configuration.getLabel());
+        assertFalse(configuration.getSettings().isEmpty());
+        for (String setting : configuration.getSettings().keySet()) {
+            assertTrue(setting.startsWith(MessageEvents.PREFIX), setting);
+        }
+        assertEquals("true", configuration.getSettings().get(MessageEvents.PREFIX + "MessagePersisted#enabled"));
+    }
+
+    @Test
+    public void testRecordsEachStage() throws IOException {
+        Path file = directory.resolve("quickchat.jfr");
+        String messageId;
+        try (MessageLog store = new MessageLog(directory.resolve("store"))) {
+            Message message = new Message(store);
+            Recording recording = MessageEvents.startRecording(file);
+            messageId = message.generateMessageId();
+            message.validateRecipientCell("+27718693002");
+            message.validateRecipientCell("0857");
+            message.sentMessage(1, messageId, "+27718693002", "Hi Mike, can you join us for dinner tonight");
+            message.sentMessage(2, "1234567890", "+27718693002", "Never mind");
+            message.sentMessage(3, "1234567891", "+27718693002", "For later");
+            recording.stop();
+            recording.close();
+        }
+        List<RecordedEvent> events = new ArrayList<>(RecordingFile.readAllEvents(file));
+
+        List<RecordedEvent> generated = named(events, "MessageIdGenerated");
+        assertEquals(1, generated.size());
+        assertEquals(messageId, generated.get(0).getString("messageId"));
+        assertEquals(10, generated.get(0).getInt("size"));
+
+        List<RecordedEvent> validated = named(events, "RecipientValidated");
+        assertEquals(2, validated.size());
+        assertTrue(validated.get(0).getBoolean("valid"));
+        assertFalse(validated.get(1).getBoolean("valid"));
+        assertEquals("0857", validated.get(1).getString("recipient"));
+
+        List<RecordedEvent> hashed = named(events, "MessageHashed");
+        assertEquals(2, hashed.size());
+        assertEquals(messageId, hashed.get(0).getString("messageId"));
+        assertEquals(1, hashed.get(0).getInt("messageNumber"));
+        assertEquals(43, hashed.get(0).getInt("size"));
+
+        List<RecordedEvent> handled = named(events, "MessageHandled");
+        assertEquals(List.of("send", "disregard", "store"),
+                handled.stream().map(event -> event.getString("choice")).collect(Collectors.toList()));
+        assertEquals(messageId, handled.get(0).getString("messageId"));
+
+        List<RecordedEvent> persisted = named(events, "MessagePersisted");
+        assertEquals(1, persisted.size());
+        assertEquals("1234567891", persisted.get(0).getString("messageId"));
+        assertEquals(9, persisted.get(0).getInt("size"));
+        assertTrue(persisted.get(0).getBoolean("stored"));
+        // Storing happens inside the store choice, so it cannot take longer
+        assertTrue(persisted.get(0).getDuration().compareTo(handled.get(2).getDuration()) <= 0);
+        assertTrue(events.stream().allMatch(event -> event.getEventType().getName().startsWith(MessageEvents.PREFIX)));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.MessageHasher;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property tests for the MessageHasher class.
+ * Random messages are hashed by both MessageHasher and the original
+ * trim/split/replaceAll implementation, and the results must match exactly.
+ */
+public class MessageHasherTest {
+
+    private static final int SAMPLES = 200_000;
+    private static final String ALPHABET = "aZ09 \t\n\u000B\f\r\u0001\u0085 !,.?é😀";
+
+    /**
+     * The implementation createMessageHash used before MessageHasher
+     */
+    private static String originalHash(String messageId, int messageNumber, String messageContent) {
+        if (messageId == null || messageContent == null || messageId.length() < 2) {
+            return "";
+        }
+        String firstTwoDigits = messageId.substring(0, 2);
+        String[] words = messageContent.trim().split("\\s+");
+        String firstWord = words.length > 0 ? words[0].replaceAll("[^a-zA-Z]", "") : "";
+        String lastWord = words.length > 1 ? words[words.length - 1].replaceAll("[^a-zA-Z]", "") : firstWord;
+        return (firstTwoDigits + ":" + messageNumber + ":" + firstWord.toUpperCase() + lastWord.toUpperCase());
+    }
+
+    private static String randomContent(Random random) {
+        int length = random.nextInt(40);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            if (random.nextInt(3) == 0) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            } else {
+                int codePoint = ALPHABET.codePointAt(ALPHABET.offsetByCodePoints(0, random.nextInt(ALPHABET.codePointCount(0, ALPHABET.length()))));
+                sb.appendCodePoint(codePoint);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("Hash matches the original implementation")
+    public void testMatchesOriginalImplementation() {
+        Random random = new Random(250);
+        for (int i = 0; i < SAMPLES; i++) {
+            String content = randomContent(random);
+            int number = random.nextInt(1000);
+            String expected = originalHash("1234567890", number, content);
+            assertEquals(expected, MessageHasher.hash("1234567890", number, content), "Content: " + content);
+
+            byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected, MessageHasher.hash("1234567890", number, utf8, 0, utf8.length), "Content: " + content);
+        }
+    }
+
+    @Test
+    @DisplayName("Search terms match the original word splitting")
+    public void testTermsMatchOriginalSplitting() {
+        Random random = new Random(13);
+        for (int i = 0; i < SAMPLES / 10; i++) {
+            String content = randomContent(random);
+            List<String> expected = new ArrayList<>();
+            for (String word : content.trim().split("\\s+")) {
+                String letters = word.replaceAll("[^a-zA-Z]", "").toUpperCase();
+                if (!letters.isEmpty()) {
+                    expected.add(letters);
+                }
+            }
+            List<String> terms = new ArrayList<>();
+            MessageHasher.forEachTerm(content, terms::add);
+            assertEquals(expected, terms, "Content: " + content);
+        }
+    }
+
+    @Test
+    public void testKnownHashes() {
+        assertEquals("12:0:HITONIGHT", MessageHasher.hash("1234567890", 0, "Hi Mike, can you join us for dinner tonight"));
+        assertEquals("98:1:HIPAYMENT", MessageHasher.hash("9876543210", 1, "Hi Keegan, did you receive the payment?"));
+        assertEquals("11:2:HELLOHELLO", MessageHasher.hash("1111111111", 2, "Hello"));
+        assertEquals("12:1:HELLOWORLD", MessageHasher.hash("1234567890", 1, "  Hello   world  "));
+        assertEquals("12:3:", MessageHasher.hash("1234567890", 3, ""));
+    }
+
+    @Test
+    public void testInvalidInputs() {
+        assertEquals("", MessageHasher.hash(null, 1, "Hello"));
+        assertEquals("", MessageHasher.hash("1", 1, "Hello"));
+        assertEquals("", MessageHasher.hash("1234567890", 1, (String) null));
+        assertFalse(MessageHasher.appendHash("1", 1, "Hello", new StringBuilder()));
+    }
+
+    @Test
+    public void testByteOverloadRespectsOffsetAndLength() {
+        byte[] buffer = "xxHi there friendyy".getBytes(StandardCharsets.US_ASCII);
+        assertEquals("12:4:HIFRIEND", MessageHasher.hash("1234567890", 4, buffer, 2, 15));
+    }
+
+    @Test
+    public void testAppendHashReusesCallerBuffer() {
+        StringBuilder out = new StringBuilder("Hash: ");
+        assertTrue(MessageHasher.appendHash("1234567890", 7, "Hi Mike", out));
+        assertEquals("Hash: 12:7:HIMIKE", out.toString());
+    }
+}
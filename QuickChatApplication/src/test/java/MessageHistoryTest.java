@@ -0,0 +1,105 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageLog;
+import com.mycompany.quickchatapplication.RingBufferMessageHistory;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RingBufferMessageHistory class.
+ * Tests that only the last N sent messages stay in memory, that evicted
+ * messages are spilled to a log, and that numbering is unaffected by eviction.
+ */
+public class MessageHistoryTest {
+
+    @TempDir
+    Path directory;
+
+    private static void send(Message message, int count) {
+        for (int i = 0; i < count; i++) {
+            message.sentMessage(1, "1234567890", "+27718693002", "Hi Mike, can you join us for dinner tonight");
+        }
+    }
+
+    @Test
+    public void testKeepsOnlyLastMessages() {
+        Message message = new Message(null, new RingBufferMessageHistory(3));
+        send(message, 5);
+
+        assertEquals(5, message.returnTotalMessages());
+        List<Message.MessageData> sent = message.getSentMessages();
+        assertEquals(3, sent.size());
+        assertEquals(3, sent.get(0).getMessageNumber());
+        assertEquals(5, sent.get(2).getMessageNumber());
+        assertEquals("12:5:HITONIGHT", sent.get(2).getMessageHash());
+        assertNull(message.getHistory().getByNumber(2));
+        assertEquals(4, message.getHistory().getByNumber(4).getMessageNumber());
+    }
+
+    @Test
+    public void testSentMessagesIsLiveView() {
+        Message message = new Message(null, new RingBufferMessageHistory(2));
+        List<Message.MessageData> sent = message.getSentMessages();
+        assertTrue(sent.isEmpty());
+
+        send(message, 3);
+        assertSame(sent, message.getSentMessages());
+        assertEquals(2, sent.size());
+        assertEquals(2, sent.get(0).getMessageNumber());
+        assertThrows(UnsupportedOperationException.class, () -> sent.remove(0));
+    }
+
+    @Test
+    public void testEvictedMessagesAreSpilled() throws IOException {
+        try (MessageLog spill = new MessageLog(directory)) {
+            Message message = new Message(null, new RingBufferMessageHistory(4, spill));
+            send(message, 10);
+
+            List<Integer> spilled = new ArrayList<>();
+            spill.replay((address, data, timestamp) -> spilled.add(data.getMessageNumber()));
+            assertEquals(List.of(1, 2, 3, 4, 5, 6), spilled);
+        }
+    }
+
+    @Test
+    public void testConcurrentSendsRetainNewestWindow() throws InterruptedException {
+        RingBufferMessageHistory history = new RingBufferMessageHistory(1000);
+        Message message = new Message(null, history);
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] senders = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            senders[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                send(message, 20_000);
+            });
+            senders[t].start();
+        }
+        start.countDown();
+        for (Thread sender : senders) {
+            sender.join();
+        }
+
+        int total = threads * 20_000;
+        assertEquals(total, message.returnTotalMessages());
+        int expected = total - 999;
+        for (Message.MessageData data : history) {
+            assertEquals(expected++, data.getMessageNumber());
+        }
+        assertEquals(total + 1, expected);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageLog;
+import com.mycompany.quickchatapplication.MessageLogCompactor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for deleting stored messages and compacting the message log.
+ * Tests tombstones, dropping deleted and duplicate records, recovering from an
+ * interrupted compaction and compacting in the background while appending.
+ */
+public class MessageLogCompactorTest {
+
+    @TempDir
+    Path directory;
+
+    private static Message.MessageData message(int number) {
+        return new Message.MessageData(String.format("%010d", number), number, "+27718693002",
+                "Stored message number " + number, "00:" + number + ":STOREDNUMBER");
+    }
+
+    private static List<String> replayIds(MessageLog log) throws IOException {
+        List<String> ids = new ArrayList<>();
+        log.replay((address, data, timestamp) -> ids.add(data.getMessageId()));
+        return ids;
+    }
+
+    private static long timeReplay(MessageLog log) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        long start = System.nanoTime();
+        MessageLog.replay(log.getDirectory(), (address, data, timestamp) -> count.incrementAndGet());
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    @Test
+    public void testDeleteHidesMessageAndSurvivesReopen() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Message messageSystem = new Message(log);
+            messageSystem.storeMessage("1234567890", "+27718693002", "Hi Mike, can you join us for dinner tonight");
+            messageSystem.storeMessage("9876543210", "+27838884567", "Hi Keegan, did you receive the payment?");
+
+            assertEquals("Message successfully deleted.", messageSystem.deleteStoredMessage("1234567890"));
+            assertEquals(List.of("9876543210"), replayIds(log));
+            assertFalse(messageSystem.printStoredMessages().contains("1234567890"));
+            assertTrue(messageSystem.searchStoredMessages("dinner").isEmpty());
+            assertEquals(1, log.getTombstoneCount());
+        }
+        try (MessageLog log = new MessageLog(directory)) {
+            assertEquals(List.of("9876543210"), replayIds(log), "tombstones are read back on open");
+
+            // Storing the ID again after the delete brings it back
+            log.append(message(7), 7L);
+            log.delete("0000000008");
+            log.append(new Message.MessageData("1234567890", 3, "+27718693002", "Dinner is at seven", "12:3:DINNERSEVEN"), 3L);
+            assertEquals(List.of("9876543210", "0000000007", "1234567890"), replayIds(log));
+        }
+    }
+
+    @Test
+    public void testIdsAreMatchedExactly() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            for (String id : List.of("1", "01", "+1", "1.0")) {
+                log.append(new Message.MessageData(id, 1, "+27718693002", "Message " + id, "00:1:MESSAGEID"), 1L);
+            }
+            log.delete("01");
+            assertEquals(List.of("1", "+1", "1.0"), replayIds(log));
+
+            log.compact();
+            assertEquals(List.of("1", "+1", "1.0"), replayIds(log), "similar IDs are not duplicates of each other");
+        }
+    }
+
+    @Test
+    public void testOnlyStoredMessagesOfTheSenderAreDeleted() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Message messageSystem = new Message(log);
+            messageSystem.storeMessage("1234567890", "+27718693002", "Hi Mike, can you join us for dinner tonight", "kyl_1");
+
+            assertEquals("Message not found.", messageSystem.deleteStoredMessage("1234567890", "kyl_2"));
+            assertEquals("Message not found.", messageSystem.deleteStoredMessage("0001234567890", "kyl_1"));
+            assertEquals("Message not found.", messageSystem.deleteStoredMessage("9876543210"));
+            assertEquals(0, log.getTombstoneCount());
+            assertEquals(0, log.getDeadBytes());
+
+            assertEquals("Message successfully deleted.", messageSystem.deleteStoredMessage("1234567890", "kyl_1"));
+            assertEquals("Message not found.", messageSystem.deleteStoredMessage("1234567890", "kyl_1"));
+            assertEquals(1, log.getTombstoneCount());
+            assertEquals(log.getSize(), log.getDeadBytes(), "the record and its tombstone are all there is");
+        }
+    }
+
+    @Test
+    public void testConcurrentDeletesWriteOneTombstone() throws Exception {
+        try (MessageLog log = new MessageLog(directory)) {
+            Message messageSystem = new Message(log);
+            messageSystem.storeMessage("1234567890", "+27718693002", "Hi Mike, can you join us for dinner tonight", "kyl_1");
+            long live = log.getSize();
+
+            int threads = 8;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch ready = new CountDownLatch(threads);
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    return messageSystem.deleteStoredMessage("1234567890", "kyl_1");
+                }));
+            }
+            int deleted = 0;
+            for (Future<String> result : results) {
+                if (result.get().equals("Message successfully deleted.")) {
+                    deleted++;
+                }
+            }
+            pool.shutdown();
+
+            assertEquals(1, deleted);
+            assertEquals(1, log.getTombstoneCount());
+            assertEquals(log.getSize(), log.getDeadBytes(), "the record is counted once");
+            assertTrue(log.getDeadBytes() > live);
+
+            // The live IDs are rebuilt after a compaction
+            messageSystem.storeMessage("9876543210", "+27838884567", "Hi Keegan, did you receive the payment?", "kyl_1");
+            log.compact();
+            assertEquals("Message not found.", messageSystem.deleteStoredMessage("1234567890", "kyl_1"));
+            assertEquals("Message successfully deleted.", messageSystem.deleteStoredMessage("9876543210", "kyl_1"));
+            assertEquals(List.of(), replayIds(log));
+        }
+    }
+
+    @Test
+    public void testDeadBytesTriggerCompaction() throws IOException {
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, 1024 * 1024, 0);
+                MessageLogCompactor compactor = new MessageLogCompactor(log, 60_000, 1_000, 0.5)) {
+            Message messageSystem = new Message(log);
+            String content = "x".repeat(60_000);
+            for (int number = 1; number <= 60; number++) {
+                log.append(new Message.MessageData(String.format("%010d", number), number, "+27718693002", content,
+                        "00:" + number + ":XX"), number);
+            }
+            for (int number = 1; number <= 15; number++) {
+                messageSystem.deleteStoredMessage(String.format("%010d", number));
+            }
+            assertFalse(compactor.isDue(), "a quarter of the log is dead");
+
+            for (int number = 16; number <= 25; number++) {
+                messageSystem.deleteStoredMessage(String.format("%010d", number));
+            }
+            assertTrue(compactor.isDue(), "dead bytes are over half the live bytes, with far fewer than 1,000 deletes");
+            compactor.compactNow();
+            assertEquals(0, log.getDeadBytes());
+            assertFalse(compactor.isDue());
+            assertEquals(35, replayIds(log).size());
+        }
+    }
+
+    @Test
+    public void testCompactionDropsDeletedAndDuplicateRecords() throws IOException {
+        int count = 100_000;
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, 1024 * 1024, 0)) {
+            for (int number = 1; number <= count; number++) {
+                log.append(message(number), number);
+            }
+            // The same message stored twice, like the duplicates in stored_messages.json
+            log.append(message(count), count + 1);
+            for (int number = 1; number <= count; number++) {
+                if (number % 10 != 0) {
+                    log.delete(String.format("%010d", number));
+                }
+            }
+            long sizeBefore = log.getSize();
+            long scanBefore = timeReplay(log);
+
+            long reclaimed = log.compact();
+            long sizeAfter = log.getSize();
+            long scanAfter = timeReplay(log);
+            System.out.printf("Compacted %,d to %,d bytes; full scan %d ms before, %d ms after%n",
+                    sizeBefore, sizeAfter, scanBefore, scanAfter);
+
+            assertEquals(sizeBefore - sizeAfter, reclaimed);
+            assertTrue(sizeAfter < sizeBefore / 10, "Size after: " + sizeAfter);
+            assertEquals(0, log.getTombstoneCount());
+            assertEquals(1, log.getCompactions());
+            List<String> ids = replayIds(log);
+            assertEquals(count / 10, ids.size());
+            assertEquals(String.format("%010d", count), ids.get(ids.size() - 1));
+
+            // Everything else keeps working on the compacted segments
+            assertEquals(count / 10, log.getSearchIndex().search("stored message").size());
+            log.append(message(count + 1), count + 2);
+            assertEquals(count / 10 + 1, replayIds(log).size());
+        }
+        try (MessageLog log = new MessageLog(directory)) {
+            assertEquals(count / 10 + 1, replayIds(log).size());
+            assertEquals(0, log.getTombstoneCount());
+        }
+    }
+
+    @Test
+    public void testInterruptedCompactionIsFinishedOnOpen() throws IOException {
+        Path saved = Files.createTempDirectory(directory, "saved");
+        Path logDirectory = directory.resolve("log");
+        try (MessageLog log = new MessageLog(logDirectory, MessageLog.FsyncPolicy.GROUP_COMMIT, 4096, 0)) {
+            for (int number = 1; number <= 500; number++) {
+                log.append(message(number), number);
+            }
+            for (int number = 1; number <= 250; number++) {
+                log.delete(String.format("%010d", number));
+            }
+            log.sync();
+            for (Path segment : MessageLog.listSegments(logDirectory)) {
+                Files.copy(segment, saved.resolve(segment.getFileName()));
+            }
+            log.compact();
+        }
+        // Put back the old segments the compacted one replaced, as if the crash came before they were removed
+        try (var old = Files.list(saved)) {
+            for (Path segment : (Iterable<Path>) old::iterator) {
+                Path target = logDirectory.resolve(segment.getFileName());
+                if (!Files.exists(target)) {
+                    Files.copy(segment, target);
+                }
+            }
+        }
+        Files.writeString(logDirectory.resolve("compact.tmp"), "half written");
+
+        try (MessageLog log = new MessageLog(logDirectory)) {
+            List<String> ids = replayIds(log);
+            assertEquals(250, ids.size());
+            assertEquals("0000000251", ids.get(0));
+            assertFalse(Files.exists(logDirectory.resolve("compact.tmp")));
+            assertEquals(2, MessageLog.listSegments(logDirectory).size(), "the compacted segment and the active one");
+        }
+    }
+
+    @Test
+    public void testBackgroundCompactionWhileAppending() throws Exception {
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, 64 * 1024, 0);
+                MessageLogCompactor compactor = new MessageLogCompactor(log, 5, 1_000)) {
+            compactor.start();
+            int count = 50_000;
+            for (int number = 1; number <= count; number++) {
+                log.append(message(number), number);
+                if (number % 2 == 0) {
+                    log.delete(String.format("%010d", number));
+                }
+            }
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (compactor.getRuns() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(compactor.getRuns() >= 2, "Runs: " + compactor.getRuns());
+            assertTrue(compactor.getReclaimed() > 0);
+
+            List<String> ids = replayIds(log);
+            assertEquals(count / 2, ids.size(), "no live message is lost to a concurrent compaction");
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(String.format("%010d", 2 * i + 1), ids.get(i));
+            }
+        }
+    }
+}
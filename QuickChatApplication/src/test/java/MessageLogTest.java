@@ -0,0 +1,284 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.BatchingMessageWriter;
+import com.mycompany.quickchatapplication.MappedMessageStore;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageLog;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MessageLog class.
+ * Tests appending, replaying, segment rolling, recovery from torn writes,
+ * batched writes and the memory-mapped read path.
+ */
+public class MessageLogTest {
+
+    @TempDir
+    Path directory;
+
+    private List<Message.MessageData> replayAll(MessageLog log) throws IOException {
+        List<Message.MessageData> records = new ArrayList<>();
+        log.replay((address, data, timestamp) -> records.add(data));
+        return records;
+    }
+
+    @Test
+    public void testAppendAndReplay() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            log.append(new Message.MessageData("1234567890", 1, "+27718693002", "Hi Mike, can you join us for dinner tonight", "12:1:HITONIGHT"), 1L);
+            log.append(new Message.MessageData("9876543210", 2, "+27838884567", "Hi Keegan, did you receive the payment?", "98:2:HIPAYMENT"), 2L);
+
+            List<Message.MessageData> records = replayAll(log);
+            assertEquals(2, records.size());
+            assertEquals("1234567890", records.get(0).getMessageId());
+            assertEquals("Hi Keegan, did you receive the payment?", records.get(1).getMessageContent());
+            assertEquals("98:2:HIPAYMENT", records.get(1).getMessageHash());
+            assertEquals(2, records.get(1).getMessageNumber());
+        }
+    }
+
+    @Test
+    public void testRecordsSurviveReopen() throws IOException {
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.PER_RECORD, MessageLog.DEFAULT_SEGMENT_SIZE, 0)) {
+            log.append(new Message.MessageData("1111111111", 1, "+27111111111", "Hello", "11:1:HELLOHELLO"), 1L);
+        }
+        try (MessageLog log = new MessageLog(directory)) {
+            log.append(new Message.MessageData("2222222222", 2, "+27222222222", "World", "22:2:WORLDWORLD"), 2L);
+            assertEquals(2, replayAll(log).size());
+        }
+    }
+
+    @Test
+    public void testIntervalPolicyWritesIdleRecords() throws Exception {
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.INTERVAL, MessageLog.DEFAULT_SEGMENT_SIZE, 50)) {
+            // Appended within the first interval and never followed by another append
+            long end = MessageLog.offsetOf(log.append(new Message.MessageData("1111111111", 1, "+27111111111", "Hello", "11:1:HELLOHELLO"), 1L));
+            Path segment = MessageLog.listSegments(directory).get(0);
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (Files.size(segment) <= end && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(MessageLog.offsetOf(log.getEndAddress()), Files.size(segment));
+        }
+    }
+
+    @Test
+    public void testSegmentRolling() throws IOException {
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, 256, 0)) {
+            long first = 0;
+            long last = 0;
+            for (int i = 0; i < 20; i++) {
+                long address = log.append(new Message.MessageData("1234567890", i, "+27718693002", "Test message " + i, "12:" + i + ":TESTI"), i);
+                if (i == 0) {
+                    first = address;
+                }
+                last = address;
+            }
+            log.sync();
+            assertEquals(0, MessageLog.segmentOf(first));
+            assertTrue(MessageLog.segmentOf(last) > 0);
+            assertTrue(MessageLog.listSegments(directory).size() > 1);
+            assertEquals(20, replayAll(log).size());
+        }
+    }
+
+    @Test
+    public void testTornRecordIsTruncatedOnOpen() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            log.append(new Message.MessageData("1234567890", 1, "+27718693002", "Test message", "12:1:TESTMESSAGE"), 1L);
+        }
+        Path segment = MessageLog.listSegments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 50, 1, 2, 3}));
+        }
+        try (MessageLog log = new MessageLog(directory)) {
+            log.append(new Message.MessageData("9876543210", 2, "+27718693002", "Second", "98:2:SECONDSECOND"), 2L);
+            List<Message.MessageData> records = replayAll(log);
+            assertEquals(2, records.size());
+            assertEquals("Second", records.get(1).getMessageContent());
+        }
+    }
+
+    @Test
+    public void testStoreMessageWritesToLog() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Message message = new Message(log);
+            assertEquals("Message successfully stored.", message.sentMessage(3, "1234567890", "+27718693002", "Test message"));
+
+            List<Message.MessageData> records = replayAll(log);
+            assertEquals(1, records.size());
+            assertEquals("12:1:TESTMESSAGE", records.get(0).getMessageHash());
+        }
+    }
+
+    @Test
+    public void testBatchingWriterGroupsConcurrentWrites() throws Exception {
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, MessageLog.DEFAULT_SEGMENT_SIZE, 0);
+             BatchingMessageWriter writer = new BatchingMessageWriter(log, 256, 500, 1024)) {
+            int threads = 8;
+            int perThread = 500;
+            List<CompletableFuture<Long>> futures = Collections.synchronizedList(new ArrayList<>());
+            Thread[] senders = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                senders[t] = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        futures.add(writer.enqueue(new Message.MessageData("1234567890", i, "+27718693002", "Test message", "12:1:TESTMESSAGE"), i));
+                    }
+                });
+                senders[t].start();
+            }
+            for (Thread sender : senders) {
+                sender.join();
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            assertEquals(threads * perThread, writer.getMessagesWritten());
+            assertTrue(writer.getBatchesWritten() < writer.getMessagesWritten());
+            long histogramTotal = 0;
+            for (long count : writer.getBatchSizeHistogram()) {
+                histogramTotal += count;
+            }
+            assertEquals(writer.getBatchesWritten(), histogramTotal);
+            assertEquals(threads * perThread, replayAll(log).size());
+            System.out.println(writer.batchSizeReport());
+        }
+    }
+
+    @Test
+    public void testClosingWriterLeavesLogUsable() throws Exception {
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, MessageLog.DEFAULT_SEGMENT_SIZE, 0)) {
+            BatchingMessageWriter writer = new BatchingMessageWriter(log, 64, 500, 16);
+            List<CompletableFuture<Long>> futures = Collections.synchronizedList(new ArrayList<>());
+            Thread[] senders = new Thread[4];
+            for (int t = 0; t < senders.length; t++) {
+                senders[t] = new Thread(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        futures.add(writer.enqueue(new Message.MessageData("1234567890", i, "+27718693002", "Test message", "12:1:TESTMESSAGE"), i));
+                    }
+                });
+                senders[t].start();
+            }
+            Thread.sleep(20);
+            writer.close();
+            for (Thread sender : senders) {
+                sender.join();
+            }
+
+            // Every write either reached the log or was refused; none is left waiting
+            long written = 0;
+            for (CompletableFuture<Long> future : futures) {
+                assertTrue(future.isDone());
+                if (!future.isCompletedExceptionally()) {
+                    written++;
+                }
+            }
+            assertEquals(written, writer.getMessagesWritten());
+            // Closing the writer did not close the log's channel
+            log.append(new Message.MessageData("9876543210", 1, "+27718693002", "After close", "98:1:AFTERCLOSE"), 1L);
+            log.sync();
+            assertEquals(written + 1, replayAll(log).size());
+        }
+    }
+
+    @Test
+    public void testStoreMessageThroughBatchingWriter() throws IOException {
+        try (MessageLog log = new MessageLog(directory);
+             BatchingMessageWriter writer = new BatchingMessageWriter(log)) {
+            Message message = new Message(log);
+            message.setBatchWriter(writer);
+            assertEquals("Message successfully stored.", message.sentMessage(3, "1234567890", "+27718693002", "Test message"));
+            assertEquals(1, writer.getMessagesWritten());
+            assertEquals(1, replayAll(log).size());
+        }
+    }
+
+    @Test
+    public void testBatchingWriterSurvivesRejectedMessages() throws IOException {
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, MessageLog.DEFAULT_SEGMENT_SIZE, 0);
+             BatchingMessageWriter writer = new BatchingMessageWriter(log)) {
+            String tooLong = "x".repeat(0x10000);
+            CompletableFuture<Long> rejected = writer.enqueue(new Message.MessageData("1111111111", 1, "+27718693002", tooLong, "11:1:XX"), 1L);
+            CompletableFuture<Long> accepted = writer.enqueue(new Message.MessageData("2222222222", 2, "+27718693002", "Fine", "22:2:FINEFINE"), 2L);
+            CompletionException e = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertTrue(accepted.join() >= 0);
+
+            // The writer thread is still running, and a direct store reports the failure instead of throwing
+            Message message = new Message(log);
+            message.setBatchWriter(writer);
+            assertNull(message.storeMessage("3333333333", "+27718693002", tooLong));
+            assertNotNull(message.storeMessage("4444444444", "+27718693002", "Still working"));
+            message.setBatchWriter(null);
+            assertNull(message.storeMessage("5555555555", "+27718693002", tooLong));
+            assertEquals(2, replayAll(log).size());
+        }
+    }
+
+    @Test
+    public void testMappedStoreReadsAcrossSegments() throws IOException {
+        try (MessageLog log = new MessageLog(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, 512, 0)) {
+            long[] addresses = new long[30];
+            for (int i = 0; i < addresses.length; i++) {
+                addresses[i] = log.append(new Message.MessageData(String.format("%010d", i), i + 1, "+27718693002", "Message " + i + " café", "00:" + (i + 1) + ":MESSAGECAF"), 100 + i);
+            }
+            log.flush();
+
+            try (MappedMessageStore store = new MappedMessageStore(directory)) {
+                assertTrue(store.getSegmentCount() > 1);
+
+                MappedMessageStore.Cursor cursor = store.cursor();
+                int count = 0;
+                while (cursor.next()) {
+                    assertEquals(count + 1, cursor.getMessageNumber());
+                    assertEquals(100 + count, cursor.getTimestamp());
+                    assertEquals(addresses[count], cursor.getAddress());
+                    count++;
+                }
+                assertEquals(addresses.length, count);
+
+                MappedMessageStore.MappedMessage view = store.get(addresses[17]);
+                assertEquals("0000000017", view.getMessageId());
+                StringBuilder content = new StringBuilder();
+                view.appendField(MappedMessageStore.FIELD_MESSAGE_CONTENT, content);
+                assertEquals("Message 17 café", content.toString());
+                assertEquals("Message 17 café", view.toMessageData().getMessageContent());
+            }
+        }
+    }
+
+    @Test
+    public void testPrintStoredMessages() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Message message = new Message(log);
+            assertEquals("No messages stored yet.", message.printStoredMessages());
+
+            message.sentMessage(3, "1234567890", "+27718693002", "Test message");
+            String output = message.printStoredMessages();
+            assertTrue(output.contains("Message ID: 1234567890"));
+            assertTrue(output.contains("Message Hash: 12:1:TESTMESSAGE"));
+            assertTrue(output.contains("Message: Test message"));
+
+            // The streaming form writes the same report straight to a Writer
+            StringWriter out = new StringWriter();
+            assertEquals(1, message.printStoredMessages(out));
+            assertEquals(output, out.toString());
+        }
+    }
+}
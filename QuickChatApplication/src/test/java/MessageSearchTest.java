@@ -0,0 +1,172 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.InvertedIndex;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageHasher;
+import com.mycompany.quickchatapplication.MessageLog;
+import com.mycompany.quickchatapplication.RingBufferMessageHistory;
+import com.mycompany.quickchatapplication.StoredMessageSearch;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the InvertedIndex and StoredMessageSearch classes.
+ * Tests tokenisation, AND/OR/prefix queries, posting compression, removal and
+ * reloading the stored message index without a rebuild.
+ */
+public class MessageSearchTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testTermsMatchHashWords() {
+        List<String> terms = new ArrayList<>();
+        MessageHasher.forEachTerm("  Hi Mike,\tcan you join us for dinner tonight?! 42 ", terms::add);
+        assertEquals(List.of("HI", "MIKE", "CAN", "YOU", "JOIN", "US", "FOR", "DINNER", "TONIGHT"), terms);
+
+        // The first and last terms are what the hash is built from
+        String hash = MessageHasher.hash("12", 1, "Hi Mike, can you join us for dinner tonight?!");
+        assertEquals("12:1:" + terms.get(0) + terms.get(terms.size() - 1), hash);
+    }
+
+    @Test
+    public void testAndOrPrefixQueries() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, "Hi Mike, can you join us for dinner tonight");
+        index.add(2, "Hi Keegan, did you receive the payment?");
+        index.add(3, "Dinner is at seven, pay at the door");
+        index.add(4, "Lunch tomorrow?");
+
+        assertArrayEquals(new int[] {1, 3}, index.search("dinner"));
+        assertArrayEquals(new int[] {1}, index.search("dinner tonight"));
+        assertArrayEquals(new int[] {1, 4}, index.search("dinner tonight OR lunch"));
+        assertArrayEquals(new int[] {2, 3}, index.search("pay*"));
+        assertArrayEquals(new int[] {3}, index.search("pay* door"));
+        assertArrayEquals(new int[0], index.search("breakfast"));
+    }
+
+    @Test
+    public void testPostingsAreDeltaEncodedAndOrderTolerant() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        for (int document = 1; document <= 100_000; document++) {
+            // Swap neighbours, as concurrent senders would
+            int actual = document % 2 == 1 && document < 100_000 ? document + 1 : (document % 2 == 0 ? document - 1 : document);
+            index.add(actual, "Hello world");
+        }
+        index.add(5, "Hello again"); // already indexed, and far behind the newest
+
+        int[] postings = index.postings("hello");
+        assertEquals(100_000, postings.length);
+        for (int i = 0; i < postings.length; i++) {
+            assertEquals(i + 1, postings[i]);
+        }
+        // Gaps of one fit in a byte each
+        assertTrue(index.encodedBytes() <= 2 * 100_000 + 2 * 16, "Encoded bytes: " + index.encodedBytes());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        InvertedIndex copy = InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertArrayEquals(postings, copy.postings("HELLO"));
+        assertArrayEquals(new int[] {5}, copy.search("again"));
+    }
+
+    @Test
+    public void testRemovedDocumentsLeaveThePostings() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        for (int document = 1; document <= 1_000; document++) {
+            index.add(document, document % 10 == 0 ? "Hello tenth" : "Hello world");
+        }
+        // Oldest first, as a bounded history evicts
+        for (int document = 1; document <= 600; document++) {
+            index.remove(document, document % 10 == 0 ? "Hello tenth" : "Hello world");
+        }
+        int[] hello = index.postings("hello");
+        assertEquals(400, hello.length);
+        assertEquals(601, hello[0]);
+        assertEquals(1_000, hello[hello.length - 1]);
+        assertTrue(index.encodedBytes() <= 2 * 400 + 2 * 16, "Encoded bytes: " + index.encodedBytes());
+
+        // From the middle, and a word whose last document goes
+        index.remove(700, "Hello tenth");
+        index.remove(1_000, "Hello tenth");
+        assertEquals(38, index.postings("tenth").length);
+        assertEquals(398, index.search("hello").length);
+        index.add(5, "Goodbye");
+        index.remove(5, "Goodbye");
+        assertEquals(0, index.search("goodbye").length);
+        assertEquals(0, index.search("good*").length);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        InvertedIndex copy = InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertArrayEquals(index.postings("hello"), copy.postings("hello"));
+        assertArrayEquals(index.postings("tenth"), copy.postings("tenth"));
+    }
+
+    @Test
+    public void testEvictedMessagesLeaveTheSearchIndex() {
+        Message message = new Message(null, new RingBufferMessageHistory(2));
+        message.sentMessage(1, "1111111111", "+27111111111", "Did you get the cake?");
+        message.sentMessage(1, "2222222222", "+27222222222", "It is dinner time!");
+        message.sentMessage(1, "3333333333", "+27333333333", "Cake for dinner tonight");
+
+        assertEquals(1, message.searchSentMessages("cake").size());
+        assertEquals(0, message.searchSentMessages("get").size());
+        assertEquals(2, message.searchSentMessages("dinner").size());
+    }
+
+    @Test
+    public void testSearchSentMessages() {
+        Message message = new Message();
+        message.sentMessage(1, "1111111111", "+27111111111", "Did you get the cake?");
+        message.sentMessage(1, "2222222222", "+27222222222", "It is dinner time!");
+        message.sentMessage(1, "3333333333", "+27333333333", "Cake for dinner tonight");
+
+        List<Message.MessageData> found = message.searchSentMessages("cake");
+        assertEquals(2, found.size());
+        assertEquals("1111111111", found.get(0).getMessageId());
+        assertEquals("3333333333", message.searchSentMessages("cake dinner").get(0).getMessageId());
+    }
+
+    @Test
+    public void testStoredIndexReloadsWithoutRebuild() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Message message = new Message(log);
+            message.storeMessage("1111111111", "+27111111111", "Where are you? You are late!");
+            message.storeMessage("2222222222", "+27222222222", "Ok, I am leaving without you.");
+            assertEquals(1, message.searchStoredMessages("late").size());
+        }
+        assertTrue(Files.exists(directory.resolve(StoredMessageSearch.FILE_NAME)));
+
+        // Appended while the index is not open: picked up on the next open
+        try (MessageLog log = new MessageLog(directory)) {
+            log.append(new Message.MessageData("3333333333", 3, "+27333333333", "Running late, sorry", "33:3:RUNNINGSORRY"), 3L);
+        }
+
+        try (MessageLog log = new MessageLog(directory)) {
+            StoredMessageSearch search = log.getSearchIndex();
+            assertEquals(3, search.size());
+            List<Message.MessageData> late = search.search("late");
+            assertEquals(2, late.size());
+            assertEquals("3333333333", late.get(1).getMessageId());
+            assertEquals("2222222222", search.search("leaving OR without").get(0).getMessageId());
+
+            log.append(new Message.MessageData("4444444444", 4, "+27444444444", "Late again", "44:4:LATEAGAIN"), 4L);
+            assertEquals(3, search.search("late").size());
+        }
+    }
+}
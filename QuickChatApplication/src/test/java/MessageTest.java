@@ -6,6 +6,8 @@
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import com.mycompany.quickchatapplication.Message;
+import java.io.IOException;
+import java.io.StringWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
@@ -188,6 +190,34 @@ public class MessageTest {
         assertTrue(output.contains("Message: Test message"));
     }
 
+    @Test
+    public void testPrintMessages_Paged() throws IOException {
+        for (int i = 1; i <= 5; i++) {
+            message.sentMessage(1, "000000000" + i, "+27718693002", "Message " + i);
+        }
+        StringBuilder page = new StringBuilder();
+        int cursor = message.printMessages(page, 0, 2);
+        assertEquals(2, cursor);
+        assertTrue(page.toString().contains("Message: Message 2"));
+        assertFalse(page.toString().contains("Message: Message 3"));
+
+        page.setLength(0);
+        cursor = message.printMessages(page, cursor, 10);
+        assertEquals(5, cursor);
+        assertTrue(page.toString().startsWith("Message ID: 0000000003"));
+        assertEquals(5, message.printMessages(new StringBuilder(), cursor, 10));
+    }
+
+    @Test
+    public void testPrintMessages_PagedMatchesFullReport() throws IOException {
+        message.sentMessage(1, "1111111111", "+27111111111", "Hello");
+        message.sentMessage(1, "2222222222", "+27222222222", "World");
+        StringWriter writer = new StringWriter();
+        writer.append("=== SENT MESSAGES ===\n");
+        message.printMessages(writer, 0, Integer.MAX_VALUE);
+        assertEquals(message.printMessages(), writer.toString());
+    }
+
     @Test
     public void testReturnTotalMessages() {
         assertEquals(0, message.returnTotalMessages());
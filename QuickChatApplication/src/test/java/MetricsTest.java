@@ -0,0 +1,156 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.LatencyHistogram;
+import com.mycompany.quickchatapplication.Login;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageLog;
+import com.mycompany.quickchatapplication.Metrics;
+import com.mycompany.quickchatapplication.MetricsMXBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import javax.management.JMX;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Metrics and LatencyHistogram classes.
+ * Tests choice and rejection counts from Login and Message, latency percentiles,
+ * the text dump, the JMX MBean and that nothing is recorded while disabled.
+ */
+public class MetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void testCountsChoicesAndRejections() throws IOException {
+        try (MessageLog store = new MessageLog(directory)) {
+            Message message = new Message(store);
+            message.sentMessage(1, "1234567890", "+27718693002", "Hi Mike");
+            message.sentMessage(1, "1234567891", "+27718693002", "Hi again");
+            message.sentMessage(2, "1234567892", "+27718693002", "Never mind");
+            message.sentMessage(3, "1234567893", "+27718693002", "For later");
+            message.sentMessage(9, "1234567894", "+27718693002", "Oops");
+            message.validateRecipientCell("08575975889");
+            message.validateMessageLength("x".repeat(251));
+            message.validateMessageLength(null);
+        }
+        new Login("kyle!!!!!!!", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith").registerUser();
+        new Login("kyl_1", "password", "+27838968976", "Kyle", "Smith").registerUser();
+        new Login("kyl_1", "Ch&&sec@ke99!", "08966553", "Kyle", "Smith").registerUser();
+        new Login("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith").loginUser("kyl_1", "wrong");
+
+        assertEquals(2, Metrics.getCount(Metrics.Choice.SEND));
+        assertEquals(1, Metrics.getCount(Metrics.Choice.DISREGARD));
+        assertEquals(1, Metrics.getCount(Metrics.Choice.STORE));
+        assertEquals(1, Metrics.getCount(Metrics.Choice.INVALID));
+        assertEquals(1, Metrics.getCount(Metrics.Rejection.RECIPIENT_FORMAT));
+        assertEquals(1, Metrics.getCount(Metrics.Rejection.MESSAGE_TOO_LONG));
+        assertEquals(1, Metrics.getCount(Metrics.Rejection.MESSAGE_NULL));
+        assertEquals(1, Metrics.getCount(Metrics.Rejection.USERNAME_FORMAT));
+        assertEquals(1, Metrics.getCount(Metrics.Rejection.PASSWORD_COMPLEXITY));
+        assertEquals(1, Metrics.getCount(Metrics.Rejection.CELL_FORMAT));
+        assertEquals(1, Metrics.getCount(Metrics.Rejection.LOGIN_FAILED));
+        assertEquals(1, Metrics.getHistogram(Metrics.Timer.STORE).getCount());
+        assertEquals(3, Metrics.getHistogram(Metrics.Timer.HASH).getCount());
+        assertEquals(6, Metrics.getHistogram(Metrics.Timer.VALIDATE).getCount());
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(1_000_000, histogram.getCount());
+        assertEquals(1_000_000_000L, histogram.getMax());
+        assertEquals(500_000_500, histogram.getMean(), 1);
+        double[][] expected = {{50, 500_000_000}, {90, 900_000_000}, {99, 990_000_000}, {99.9, 999_000_000}, {100, 1_000_000_000}};
+        for (double[] row : expected) {
+            long actual = histogram.getPercentile(row[0]);
+            assertEquals(row[1], actual, row[1] / 64, "p" + row[0]);
+        }
+
+        histogram.record(7);
+        histogram.reset();
+        histogram.record(7);
+        assertEquals(7, histogram.getPercentile(50));
+        assertEquals(7, histogram.getMax());
+    }
+
+    @Test
+    public void testDump() {
+        Metrics.count(Metrics.Choice.SEND);
+        Metrics.reject(Metrics.Rejection.CELL_TAKEN);
+        Metrics.getHistogram(Metrics.Timer.STORE).record(2_000_000);
+
+        String dump = Metrics.dump();
+        assertTrue(dump.startsWith("# QuickChat metrics, enabled\n"));
+        assertTrue(dump.contains("quickchat_choice_total{choice=\"send\"} 1\n"));
+        assertTrue(dump.contains("quickchat_choice_total{choice=\"store\"} 0\n"));
+        assertTrue(dump.contains("quickchat_rejection_total{reason=\"cell_taken\"} 1\n"));
+        assertTrue(dump.contains("quickchat_latency_nanos_count{timer=\"store\"} 1\n"));
+        assertTrue(dump.contains("quickchat_latency_nanos_max{timer=\"store\"} 2000000\n"));
+        assertTrue(dump.contains("quickchat_latency_nanos{timer=\"store\",quantile=\"0.99\"} "));
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        ObjectName name = Metrics.registerMBean();
+        assertEquals(name, Metrics.registerMBean());
+        MetricsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), name, MetricsMXBean.class);
+        Metrics.count(Metrics.Choice.DISREGARD);
+        Metrics.getHistogram(Metrics.Timer.HASH).record(1500);
+
+        assertTrue(bean.isEnabled());
+        assertEquals(1L, bean.getChoiceCounts().get("disregard"));
+        assertEquals(0L, bean.getRejectionCounts().get("login_throttled"));
+        assertEquals(1L, bean.getLatencyNanos().get("hash.count"));
+        assertEquals(1500, bean.getLatencyNanos().get("hash.p99"), 1500 / 64);
+        assertEquals(Metrics.dump(), bean.dump());
+        bean.setEnabled(false);
+        assertFalse(Metrics.isEnabled());
+        bean.reset();
+        assertEquals(0, Metrics.getCount(Metrics.Choice.DISREGARD));
+    }
+
+    @Test
+    public void testNothingRecordedWhileDisabled() {
+        Metrics.setEnabled(false);
+        Message message = new Message(null);
+        message.sentMessage(1, "1234567890", "+27718693002", "Hi Mike");
+        message.validateRecipientCell("0857");
+        long start = Metrics.start();
+        Metrics.stop(Metrics.Timer.STORE, start);
+
+        assertEquals(0, start);
+        assertEquals(0, Metrics.getCount(Metrics.Choice.SEND));
+        assertEquals(0, Metrics.getCount(Metrics.Rejection.RECIPIENT_FORMAT));
+        for (Metrics.Timer timer : Metrics.Timer.values()) {
+            assertEquals(0, Metrics.getHistogram(timer).getCount());
+        }
+        assertTrue(Metrics.dump().startsWith("# QuickChat metrics, disabled\n"));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Login;
+import com.mycompany.quickchatapplication.PasswordHasher;
+import com.mycompany.quickchatapplication.UserRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PasswordHasher class.
+ * Tests hashing, verification, work factor upgrades, the bounded worker pool
+ * and the verified login cache in UserRegistry.
+ */
+public class PasswordHasherTest {
+
+    @Test
+    public void testHashAndVerify() {
+        try (PasswordHasher hasher = new PasswordHasher(1_000)) {
+            String hash = hasher.hash("Ch&&sec@ke99!");
+            assertTrue(hash.startsWith("pbkdf2-sha256$1000$"));
+            assertNotEquals(hash, hasher.hash("Ch&&sec@ke99!"), "every hash gets its own salt");
+            assertTrue(PasswordHasher.verify("Ch&&sec@ke99!", hash));
+            assertFalse(PasswordHasher.verify("Ch&&sec@ke99?", hash));
+            assertFalse(PasswordHasher.verify("Ch&&sec@ke99!", "Ch&&sec@ke99!"), "a plain password is not a hash");
+            assertFalse(PasswordHasher.verify("Ch&&sec@ke99!", "pbkdf2-sha256$x$$"));
+            assertFalse(PasswordHasher.verify(null, hash));
+        }
+    }
+
+    @Test
+    public void testLoginChecksHashInConstantTime() {
+        assertTrue(PasswordHasher.constantTimeEquals("abc", "abc"));
+        assertFalse(PasswordHasher.constantTimeEquals("abc", "abd"));
+        assertFalse(PasswordHasher.constantTimeEquals("abc", null));
+
+        try (PasswordHasher hasher = new PasswordHasher(1_000)) {
+            Login login = new Login("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith");
+            assertTrue(login.loginUser("kyl_1", "Ch&&sec@ke99!"));
+            login.setPasswordHash(hasher.hash("Ch&&sec@ke99!"));
+            assertNull(login.getPassword());
+            assertTrue(login.loginUser("kyl_1", "Ch&&sec@ke99!"));
+            assertFalse(login.loginUser("kyl_1", "wrong"));
+            assertFalse(login.loginUser("kyl_2", "Ch&&sec@ke99!"));
+        }
+    }
+
+    @Test
+    public void testWorkFactorUpgradeOnLogin() {
+        try (PasswordHasher weak = new PasswordHasher(1_000); PasswordHasher strong = new PasswordHasher(2_000)) {
+            Login login = new Login("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith");
+            login.setPasswordHash(weak.hash("Ch&&sec@ke99!"));
+            assertTrue(strong.needsRehash(login.getPasswordHash()));
+
+            // Same user moved to a registry with a higher work factor
+            UserRegistry users = new UserRegistry(16, strong, 0);
+            users.register(new Login("kyl_2", "Ch&&sec@ke99!", "+27838968977", "Kyle", "Smith"));
+            Login registered = users.getUser("kyl_2");
+            registered.setPasswordHash(weak.hash("Ch&&sec@ke99!"));
+            assertNotNull(users.loginUser("kyl_2", "Ch&&sec@ke99!"));
+            assertEquals(2_000, PasswordHasher.iterationsOf(registered.getPasswordHash()));
+            assertNotNull(users.loginUser("kyl_2", "Ch&&sec@ke99!"));
+        }
+    }
+
+    @Test
+    public void testBoundedPoolRefusesExcessWork() {
+        try (PasswordHasher hasher = new PasswordHasher(200_000, 1, 2)) {
+            String hash = hasher.hash("Ch&&sec@ke99!");
+            List<CompletableFuture<Boolean>> accepted = new ArrayList<>();
+            assertThrows(RejectedExecutionException.class, () -> {
+                for (int i = 0; i < 10; i++) {
+                    accepted.add(hasher.verifyAsync("Ch&&sec@ke99!", hash));
+                }
+            });
+            // One running and two queued at most
+            assertTrue(accepted.size() <= 3, "Accepted: " + accepted.size());
+            for (CompletableFuture<Boolean> result : accepted) {
+                assertTrue(result.join());
+            }
+        }
+    }
+
+    @Test
+    public void testVerifiedLoginsSkipHashing() {
+        try (PasswordHasher hasher = new PasswordHasher(100_000)) {
+            UserRegistry cached = new UserRegistry(16, hasher, 60_000);
+            UserRegistry uncached = new UserRegistry(16, hasher, 0);
+            for (UserRegistry users : List.of(cached, uncached)) {
+                users.setRateLimiter(null);
+                users.register(new Login("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith"));
+                assertNotNull(users.loginUser("kyl_1", "Ch&&sec@ke99!"));
+            }
+
+            int logins = 20;
+            long start = System.nanoTime();
+            for (int i = 0; i < logins; i++) {
+                assertNotNull(cached.loginUser("kyl_1", "Ch&&sec@ke99!"));
+            }
+            long cachedNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < logins; i++) {
+                assertNotNull(uncached.loginUser("kyl_1", "Ch&&sec@ke99!"));
+            }
+            long uncachedNanos = System.nanoTime() - start;
+            System.out.printf("%d logins: %d ms hashing every time, %d ms with verified logins cached%n",
+                    logins, uncachedNanos / 1_000_000, cachedNanos / 1_000_000);
+            assertTrue(cachedNanos * 5 < uncachedNanos);
+
+            // A wrong password is never served from the cache
+            assertNull(cached.loginUser("kyl_1", "Ch&&sec@ke99?"));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.RingBufferMessageHistory;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SentMessageIndex class through the Message lookup methods.
+ * Tests finding sent messages by recipient, hash and ID, and paging by sender.
+ */
+public class SentMessageIndexTest {
+
+    private Message message;
+
+    @BeforeEach
+    public void setUp() {
+        message = new Message();
+    }
+
+    @Test
+    public void testFindByRecipient() {
+        for (int i = 0; i < 1000; i++) {
+            message.sentMessage(1, String.format("%010d", i), "+2771869300" + (i % 10), "Message " + i);
+        }
+        List<Message.MessageData> found = message.findMessagesByRecipient("+27718693003");
+        assertEquals(100, found.size());
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals(i * 10 + 4, found.get(i).getMessageNumber());
+            assertEquals("+27718693003", found.get(i).getRecipient());
+        }
+        assertTrue(message.findMessagesByRecipient("+27000000000").isEmpty());
+    }
+
+    @Test
+    public void testRecipientsSharingKeyAreKeptApart() {
+        message.sentMessage(1, "1111111111", "+27718693002", "With plus");
+        message.sentMessage(1, "2222222222", "27718693002", "Without plus");
+        assertEquals("With plus", message.findMessagesByRecipient("+27718693002").get(0).getMessageContent());
+        assertEquals(1, message.findMessagesByRecipient("27718693002").size());
+    }
+
+    @Test
+    public void testPagesBySender() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            message.sentMessage(1, String.format("%010d", i), "+27718693002", "Message " + i, "kyl_" + (i % 4));
+        }
+        int after = 0;
+        int pages = 0;
+        int count = 0;
+        while (true) {
+            StringBuilder page = new StringBuilder();
+            int last = message.printMessages(page, after, 30, "kyl_1");
+            if (last == after) {
+                break;
+            }
+            assertTrue(page.toString().contains("Message: Message " + (last - 1) + "\n"));
+            count += page.toString().split("------------------------\n", -1).length - 1;
+            after = last;
+            pages++;
+        }
+        assertEquals(250, count);
+        assertEquals(9, pages);
+        assertEquals(998, after);
+        assertEquals(0, message.printMessages(new StringBuilder(), 0, 10, "nobody"));
+    }
+
+    @Test
+    public void testFindByHashAndId() {
+        message.sentMessage(1, "1234567890", "+27718693002", "Hi Mike, can you join us for dinner tonight");
+        message.sentMessage(1, "ABC", "+27718693002", "Hello World");
+
+        Message.MessageData byHash = message.findMessageByHash("12:1:HITONIGHT");
+        assertNotNull(byHash);
+        assertEquals("1234567890", byHash.getMessageId());
+        assertEquals("Hello World", message.findMessageById("ABC").getMessageContent());
+        assertNull(message.findMessageById("9999999999"));
+        assertNull(message.findMessageByHash("00:0:NOTHERE"));
+    }
+
+    @Test
+    public void testDuplicateIdReturnsLatest() {
+        message.sentMessage(1, "1234567890", "+27718693002", "First");
+        message.sentMessage(1, "1234567890", "+27718693002", "Second");
+        assertEquals("Second", message.findMessageById("1234567890").getMessageContent());
+    }
+
+    @Test
+    public void testEvictedMessagesLeaveIndex() {
+        Message bounded = new Message(null, new RingBufferMessageHistory(5));
+        for (int i = 0; i < 20; i++) {
+            bounded.sentMessage(1, String.format("%010d", i), "+27718693002", "Message " + i);
+        }
+        assertEquals(5, bounded.findMessagesByRecipient("+27718693002").size());
+        assertNull(bounded.findMessageById("0000000003"));
+        assertEquals("Message 19", bounded.findMessageById("0000000019").getMessageContent());
+
+        bounded.resetMessages();
+        assertTrue(bounded.findMessagesByRecipient("+27718693002").isEmpty());
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageLog;
+import com.mycompany.quickchatapplication.RingBufferMessageHistory;
+import com.mycompany.quickchatapplication.SentMessageJournal;
+import com.mycompany.quickchatapplication.SentMessageList;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SentMessageJournal class.
+ * Tests recovering sent messages and numbering after a crash, that recovery
+ * only replays the log written since the last snapshot, incremental snapshot
+ * chunks, bounded histories and damaged snapshots.
+ */
+public class SentMessageJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static void send(Message message, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            message.sentMessage(1, String.format("%010d", i), "+27718693002", "Journal test message number " + i);
+        }
+    }
+
+    private static SentMessageJournal journal(Path directory, int snapshotInterval) throws IOException {
+        return new SentMessageJournal(directory, MessageLog.FsyncPolicy.GROUP_COMMIT, snapshotInterval);
+    }
+
+    private static int waitForSnapshots(SentMessageJournal journal, int snapshotInterval) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (journal.getSinceSnapshot() >= snapshotInterval && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(journal.getSnapshots() > 0);
+        assertTrue(journal.getSinceSnapshot() < snapshotInterval);
+        return journal.getSinceSnapshot();
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    @Test
+    public void testRecoversMessagesAndNumberingAfterCrash() throws Exception {
+        SentMessageJournal crashed = journal(directory, 1000);
+        Message before = new Message(null, new SentMessageList());
+        assertEquals(0, before.recoverSentMessages(crashed));
+        send(before, 1, 2500);
+        int unsnapshotted = waitForSnapshots(crashed, 1000);
+        // A crash: no final snapshot, only what already reached the log
+        crashed.getLog().close();
+
+        try (SentMessageJournal journal = journal(directory, 1000)) {
+            Message after = new Message(null, new SentMessageList());
+            assertEquals(2500, after.recoverSentMessages(journal));
+            assertTrue(journal.getRecoveredFromLog() <= unsnapshotted);
+            assertEquals(2500, after.returnTotalMessages());
+            for (int number : new int[] {1, 1000, 2001, 2500}) {
+                Message.MessageData expected = before.getHistory().getByNumber(number);
+                Message.MessageData actual = after.getHistory().getByNumber(number);
+                assertEquals(expected.getMessageId(), actual.getMessageId());
+                assertEquals(expected.getMessageContent(), actual.getMessageContent());
+                assertEquals(expected.getMessageHash(), actual.getMessageHash());
+            }
+            assertEquals(2400, after.findMessageById("0000002400").getMessageNumber());
+            assertEquals(2500, after.searchSentMessages("journal").size());
+
+            // Numbering carries on, so hashes do not repeat their number
+            after.sentMessage(1, "9999999999", "+27718693002", "After the crash");
+            assertEquals(2501, after.getHistory().getByNumber(2501).getMessageNumber());
+            assertEquals("99:2501:AFTERCRASH", after.getHistory().getByNumber(2501).getMessageHash());
+        }
+    }
+
+    @Test
+    public void testRecoveryReplaysOnlyTheLogSinceTheSnapshot() throws Exception {
+        int interval = 5000;
+        int total = 100_000;
+        Path logDirectory = directory.resolve(SentMessageJournal.LOG_DIRECTORY);
+        SentMessageJournal crashed = journal(directory, interval);
+        Message before = new Message(null, new SentMessageList());
+        before.recoverSentMessages(crashed);
+        send(before, 1, total);
+        int unsnapshotted = waitForSnapshots(crashed, interval);
+        long logSize = size(logDirectory);
+        crashed.getLog().close();
+
+        try (SentMessageJournal journal = journal(directory, interval)) {
+            Message after = new Message(null, new SentMessageList());
+            long start = System.nanoTime();
+            after.recoverSentMessages(journal);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("Recovered %,d sent messages in %d ms, %,d from the log (%,d log bytes kept)%n",
+                    after.returnTotalMessages(), millis, journal.getRecoveredFromLog(), logSize);
+
+            assertEquals(total, after.returnTotalMessages());
+            assertTrue(journal.getRecoveredFromLog() <= unsnapshotted);
+            // Covered log segments were deleted, leaving at most two 8 MB segments
+            assertTrue(logSize <= 2 * SentMessageJournal.LOG_SEGMENT_SIZE, "Log bytes: " + logSize);
+        }
+    }
+
+    @Test
+    public void testSendersSurviveRecovery() throws IOException {
+        SentMessageJournal crashed = journal(directory, 1000);
+        Message before = new Message(null, new SentMessageList());
+        before.recoverSentMessages(crashed);
+        before.sentMessage(1, "1111111111", "+27718693002", "In the snapshot", "kyl_1");
+        crashed.snapshot();
+        before.sentMessage(1, "2222222222", "+27718693002", "Only in the log", "kyl_2");
+        before.sentMessage(1, "3333333333", "+27718693002", "Nobody in particular");
+        crashed.getLog().close();
+
+        try (SentMessageJournal journal = journal(directory, 1000)) {
+            Message message = new Message(null, new SentMessageList());
+            assertEquals(3, message.recoverSentMessages(journal));
+            assertEquals("kyl_1", message.getHistory().getByNumber(1).getSender());
+            assertEquals("kyl_2", message.getHistory().getByNumber(2).getSender());
+            assertNull(message.getHistory().getByNumber(3).getSender());
+            assertEquals(1, message.findMessagesBySender("kyl_2").size());
+        }
+    }
+
+    @Test
+    public void testSnapshotsWriteOnlyNewMessages() throws IOException {
+        try (SentMessageJournal journal = journal(directory, Integer.MAX_VALUE)) {
+            Message message = new Message(null, new SentMessageList());
+            message.recoverSentMessages(journal);
+            send(message, 1, 4000);
+            journal.snapshot();
+            send(message, 4001, 5000);
+            journal.snapshot();
+            assertEquals(5000, journal.getSnapshotMessages(), "the second snapshot wrote only its 1,000 messages");
+            assertEquals(2, journal.getSnapshotChunks());
+
+            // As many as the chunk before, so the two are written as one
+            send(message, 5001, 6000);
+            journal.snapshot();
+            assertEquals(7000, journal.getSnapshotMessages());
+            assertEquals(2, journal.getSnapshotChunks());
+            assertEquals(2, SentMessageJournal.listSnapshots(directory).size());
+        }
+
+        try (SentMessageJournal journal = journal(directory, Integer.MAX_VALUE)) {
+            Message message = new Message(null, new SentMessageList());
+            assertEquals(6000, message.recoverSentMessages(journal));
+            assertEquals(0, journal.getRecoveredFromLog());
+            assertEquals("0000005001", message.getHistory().getByNumber(5001).getMessageId());
+        }
+    }
+
+    @Test
+    public void testReadsSnapshotFromBeforeChunks() throws IOException {
+        try (SentMessageJournal journal = journal(directory, 1000)) {
+            Message message = new Message(null, new SentMessageList());
+            message.recoverSentMessages(journal);
+            send(message, 1, 10);
+        }
+        // A whole-history snapshot has the same layout as the chunk starting at 1
+        Files.move(SentMessageJournal.listSnapshots(directory).get(0), directory.resolve(SentMessageJournal.SNAPSHOT_FILE));
+
+        try (SentMessageJournal journal = journal(directory, 1000)) {
+            Message message = new Message(null, new SentMessageList());
+            assertEquals(10, message.recoverSentMessages(journal));
+            send(message, 11, 30);
+            journal.snapshot();
+            assertFalse(Files.exists(directory.resolve(SentMessageJournal.SNAPSHOT_FILE)), "taken into the new chunk");
+        }
+        try (SentMessageJournal journal = journal(directory, 1000)) {
+            assertEquals(30, new Message(null, new SentMessageList()).recoverSentMessages(journal));
+        }
+    }
+
+    @Test
+    public void testRecoversBoundedHistory() throws IOException {
+        try (SentMessageJournal journal = journal(directory, 500)) {
+            Message before = new Message(null, new RingBufferMessageHistory(100));
+            before.recoverSentMessages(journal);
+            send(before, 1, 1050);
+        }
+
+        try (SentMessageJournal journal = journal(directory, 500)) {
+            RingBufferMessageHistory history = new RingBufferMessageHistory(100);
+            Message after = new Message(null, history);
+            assertEquals(100, after.recoverSentMessages(journal));
+            assertEquals(0, journal.getRecoveredFromLog());
+            assertEquals(1050, history.totalAppended());
+            assertEquals(951, history.firstRetainedNumber());
+            assertNull(history.getByNumber(950));
+            assertEquals("0000001050", history.getByNumber(1050).getMessageId());
+            after.sentMessage(1, "9999999999", "+27718693002", "Next");
+            assertEquals("9999999999", history.getByNumber(1051).getMessageId());
+        }
+    }
+
+    @Test
+    public void testDamagedSnapshotIsReported() throws IOException {
+        try (SentMessageJournal journal = journal(directory, 1000)) {
+            Message before = new Message(null, new SentMessageList());
+            before.recoverSentMessages(journal);
+            send(before, 1, 10);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(SentMessageJournal.listSnapshots(directory).get(0).toFile(), "rw")) {
+            file.seek(40);
+            int value = file.read();
+            file.seek(40);
+            file.write(value ^ 0xFF);
+        }
+
+        try (SentMessageJournal journal = journal(directory, 1000)) {
+            Message after = new Message(null, new SentMessageList());
+            IOException e = assertThrows(IOException.class, () -> after.recoverSentMessages(journal));
+            assertTrue(e.getMessage().startsWith("Damaged sent message snapshot"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.MessageLog;
+import com.mycompany.quickchatapplication.StoredMessageIndex;
+import com.mycompany.quickchatapplication.StoredMessageReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the StoredMessageReader and StoredMessageIndex classes.
+ * Tests streaming the stored_messages.json format, looking records up by message ID
+ * and importing the file into a MessageLog.
+ */
+public class StoredMessageIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private static String record(String messageId, int messageNumber, String recipient, String content, String hash, long timestamp) {
+        return "{\n"
+                + "  \"messageId\": \"" + messageId + "\",\n"
+                + "  \"messageNumber\": " + messageNumber + ",\n"
+                + "  \"recipient\": \"" + recipient + "\",\n"
+                + "  \"messageContent\": \"" + content + "\",\n"
+                + "  \"messageHash\": \"" + hash + "\",\n"
+                + "  \"timestamp\": \"" + timestamp + "\"\n"
+                + "},\n";
+    }
+
+    private Path writeStore(String... records) throws IOException {
+        Path file = directory.resolve("stored_messages.json");
+        Files.write(file, String.join("", records).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testReaderStreamsAllRecords() throws IOException {
+        Path file = writeStore(
+                record("1234567890", 1, "+27718693002", "Test message", "12:1:TESTMESSAGE", 1748332824173L),
+                record("9876543210", 2, "+27838884567", "Hi Keegan, did you receive the payment?", "98:2:HIPAYMENT", 1748332890953L));
+
+        List<Message.MessageData> records = new ArrayList<>();
+        List<Long> timestamps = new ArrayList<>();
+        try (StoredMessageReader reader = new StoredMessageReader(file)) {
+            long end = reader.forEach(0, (address, data, timestamp) -> {
+                records.add(data);
+                timestamps.add(timestamp);
+            });
+            assertEquals(Files.size(file) - 2, end); // trailing ",\n" is not part of a record
+        }
+        assertEquals(2, records.size());
+        assertEquals("+27838884567", records.get(1).getRecipient());
+        assertEquals(2, records.get(1).getMessageNumber());
+        assertEquals(1748332824173L, timestamps.get(0));
+    }
+
+    @Test
+    public void testReaderIgnoresIncompleteTrailingRecord() throws IOException {
+        String complete = record("1234567890", 1, "+27718693002", "Test message", "12:1:TESTMESSAGE", 1L);
+        String partial = record("9876543210", 2, "+27718693002", "Cut off", "98:2:CUTOFF", 2L).substring(0, 40);
+        Path file = writeStore(complete, partial);
+
+        List<Message.MessageData> records = new ArrayList<>();
+        try (StoredMessageReader reader = new StoredMessageReader(file)) {
+            reader.forEach(0, (address, data, timestamp) -> records.add(data));
+        }
+        assertEquals(1, records.size());
+    }
+
+    @Test
+    public void testReaderHandlesEscapes() throws IOException {
+        Path file = writeStore(record("1234567890", 1, "+27718693002", "Say \\\"hi\\\" \\u00e9", "12:1:SAYHI", 1L));
+        try (StoredMessageReader reader = new StoredMessageReader(file)) {
+            assertEquals("Say \"hi\" é", reader.readAt(0).getMessageContent());
+        }
+    }
+
+    @Test
+    public void testIndexFindsMessageById() throws IOException {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            records.add(record(String.format("%010d", i * 7919L), i + 1, "+27718693002", "Message number " + i, "00:" + (i + 1) + ":MESSAGEI", i));
+        }
+        Path file = writeStore(records.toArray(new String[0]));
+
+        try (StoredMessageIndex index = StoredMessageIndex.open(file)) {
+            assertEquals(5000, index.size());
+            Message.MessageData found = index.find(String.format("%010d", 1234 * 7919L));
+            assertNotNull(found);
+            assertEquals("Message number 1234", found.getMessageContent());
+            assertNull(index.find("0000000001"));
+        }
+    }
+
+    @Test
+    public void testIndexReturnsLatestDuplicate() throws IOException {
+        Path file = writeStore(
+                record("1234567890", 1, "+27718693002", "Test message", "12:1:TESTMESSAGE", 1L),
+                record("1234567890", 1, "+27718693002", "Test message again", "12:1:TESTAGAIN", 2L));
+
+        try (StoredMessageIndex index = StoredMessageIndex.open(file)) {
+            assertEquals(1, index.size());
+            assertEquals("Test message again", index.find("1234567890").getMessageContent());
+        }
+    }
+
+    @Test
+    public void testIndexPicksUpAppendedRecordsOnReopen() throws IOException {
+        Path file = writeStore(record("1111111111", 1, "+27111111111", "Hello", "11:1:HELLOHELLO", 1L));
+        try (StoredMessageIndex index = StoredMessageIndex.open(file)) {
+            assertNotNull(index.find("1111111111"));
+        }
+
+        Files.write(file, record("ABC", 2, "+27222222222", "World", "AB:2:WORLDWORLD", 2L).getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        try (StoredMessageIndex index = StoredMessageIndex.open(file)) {
+            assertEquals(2, index.size());
+            assertEquals("World", index.find("ABC").getMessageContent());
+            assertEquals("Hello", index.find("1111111111").getMessageContent());
+        }
+    }
+
+    @Test
+    public void testIndexGrowsWhenRecordsAreSmallerThanExpected() throws IOException {
+        // About 30 bytes a record, well under the size new tables are planned for
+        StringBuilder records = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            records.append("{\"messageId\":\"").append(i).append("\"},");
+        }
+        Path file = writeStore(records.toString());
+
+        try (StoredMessageIndex index = StoredMessageIndex.open(file)) {
+            assertEquals(20_000, index.size());
+            assertEquals("19999", index.find("19999").getMessageId());
+            assertEquals("0", index.find("0").getMessageId());
+        }
+    }
+
+    @Test
+    public void testIndexKeepsIdsThatDifferOnlyInLeadingZeros() throws IOException {
+        Path file = writeStore(
+                record("1", 1, "+27718693002", "One", "1:1:ONEONE", 1L),
+                record("01", 2, "+27718693002", "Zero one", "01:2:ZEROONE", 2L));
+
+        try (StoredMessageIndex index = StoredMessageIndex.open(file)) {
+            assertEquals(2, index.size());
+            assertEquals("One", index.find("1").getMessageContent());
+            assertEquals("Zero one", index.find("01").getMessageContent());
+            assertNull(index.find("001"));
+        }
+    }
+
+    @Test
+    public void testImportLegacyCopiesLatestRecordOfEachIdOnce() throws IOException {
+        Path file = writeStore(
+                record("1234567890", 1, "+27718693002", "Test message", "12:1:TESTMESSAGE", 1L),
+                record("9876543210", 2, "+27838884567", "Hi Keegan", "98:2:HIKEEGAN", 2L),
+                record("1234567890", 1, "+27718693002", "Test message", "12:1:TESTMESSAGE", 3L));
+
+        try (MessageLog log = new MessageLog(directory.resolve("log"))) {
+            assertEquals(2, log.importLegacy(file));
+            List<Long> timestamps = new ArrayList<>();
+            log.replay((address, data, timestamp) -> timestamps.add(timestamp));
+            assertEquals(List.of(2L, 3L), timestamps);
+        }
+        assertFalse(Files.exists(file));
+        assertTrue(Files.exists(directory.resolve("stored_messages.json.migrated")));
+        assertFalse(Files.exists(directory.resolve("stored_messages.json" + StoredMessageIndex.DEFAULT_SUFFIX)));
+    }
+}
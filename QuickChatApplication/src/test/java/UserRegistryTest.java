@@ -0,0 +1,187 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Login;
+import com.mycompany.quickchatapplication.PasswordHasher;
+import com.mycompany.quickchatapplication.UserRegistry;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UserRegistry class.
+ * Tests registration, sessions, concurrent logins, the on-disk snapshot and
+ * migrating snapshots that kept passwords.
+ */
+public class UserRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    // A tiny work factor keeps tests with thousands of users fast
+    private static final PasswordHasher FAST = new PasswordHasher(1, 2, 100_000);
+
+    private static UserRegistry registry(int expectedUsers) {
+        return new UserRegistry(expectedUsers, FAST, UserRegistry.DEFAULT_VERIFIED_TTL_MILLIS);
+    }
+
+    private static Login user(int i) {
+        // Usernames are at most five characters, so "_" and up to four base-36 digits
+        return new Login("_" + Integer.toString(i, 36), "Ch&&sec@ke99!", String.format("+27%09d", i), "Kyle", "Smith" + i);
+    }
+
+    @Test
+    public void testRegisterRejectsDuplicates() {
+        UserRegistry users = registry(16);
+        assertEquals("Registration successful!", users.register(new Login("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith")));
+        assertEquals("Username already taken, please choose another.",
+                users.register(new Login("kyl_1", "Ch&&sec@ke99!", "+27838968977", "Kyle", "Smith")));
+        assertEquals("Cell phone number already registered to another user.",
+                users.register(new Login("kyl_2", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith")));
+        assertTrue(users.register(new Login("kyle!!!!!!!", "password", "08966553", "", "")).startsWith("Username is not correctly formatted"));
+
+        assertEquals(1, users.size());
+        assertNull(users.getUser("kyl_2"), "a failed registration must not leave a username behind");
+        assertEquals("kyl_1", users.getUserByCell("+27838968976").getUsername());
+    }
+
+    @Test
+    public void testLoginHandsOutSessions() {
+        UserRegistry users = registry(16);
+        users.register(new Login("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith"));
+
+        assertNull(users.loginUser("kyl_1", "wrong"));
+        assertNull(users.loginUser("nobody", "Ch&&sec@ke99!"));
+        String first = users.loginUser("kyl_1", "Ch&&sec@ke99!");
+        String second = users.loginUser("kyl_1", "Ch&&sec@ke99!");
+        assertNotNull(first);
+        assertNotEquals(first, second);
+        assertEquals("Welcome Kyle, Smith it is great to see you again.", users.getSessionUser(first).returnLoginStatus());
+
+        assertTrue(users.getUser("kyl_1").getPasswordHash().startsWith("pbkdf2-sha256$1$"));
+        assertNull(users.getUser("kyl_1").getPassword(), "only the hash is kept after registering");
+
+        assertTrue(users.logout(first));
+        assertNull(users.getSessionUser(first));
+        assertNotNull(users.getSessionUser(second));
+    }
+
+    @Test
+    public void testConcurrentRegistrationAndLogin() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int perThread = 5_000;
+        UserRegistry users = registry(threads * perThread);
+        Set<String> tokens = ConcurrentHashMap.newKeySet();
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                results.add(pool.submit(() -> {
+                    for (int i = base; i < base + perThread; i++) {
+                        assertEquals("Registration successful!", users.register(user(i)));
+                        // Everyone also tries to claim the same name, which only one thread can have
+                        users.register(new Login("kyl_1", "Ch&&sec@ke99!", "+28000000000", "Kyle", "Smith"));
+                        tokens.add(users.loginUser(user(i).getUsername(), "Ch&&sec@ke99!"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        assertEquals(threads * perThread + 1, users.size());
+        assertEquals(threads * perThread, tokens.size());
+        assertEquals("kyl_1", users.getUserByCell("+28000000000").getUsername());
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        int count = 200_000;
+        UserRegistry users = registry(count);
+        for (int i = 0; i < count; i++) {
+            users.register(user(i));
+        }
+        Path file = directory.resolve(UserRegistry.FILE_NAME);
+        long start = System.nanoTime();
+        users.save(file);
+        long saved = System.nanoTime();
+        UserRegistry loaded = UserRegistry.load(file, FAST, 0);
+        long end = System.nanoTime();
+        System.out.printf("Saved %,d users (%,d bytes) in %d ms, loaded in %d ms%n",
+                count, Files.size(file), (saved - start) / 1_000_000, (end - saved) / 1_000_000);
+
+        assertEquals(count, loaded.size());
+        Login login = loaded.getUserByCell(String.format("+27%09d", 12345));
+        assertEquals(user(12345).getUsername(), login.getUsername());
+        assertNotNull(loaded.loginUser(login.getUsername(), "Ch&&sec@ke99!"));
+
+        assertEquals(0, UserRegistry.load(directory.resolve("missing.dat"), FAST, 0).size());
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> UserRegistry.load(file, FAST, 0));
+    }
+
+    @Test
+    public void testLegacyPasswordsAreHashedOnLoad() throws IOException {
+        Path file = directory.resolve(UserRegistry.FILE_NAME);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            // Version 1 snapshot: magic, version, count, then each user's fields with the password itself
+            out.writeInt(0x51435552);
+            out.writeInt(1);
+            out.writeInt(2);
+            for (int i = 0; i < 2; i++) {
+                out.writeUTF("kyl_" + i);
+                out.writeUTF("Legacy@Pass" + i);
+                out.writeUTF("+2783896897" + i);
+                out.writeUTF("Kyle");
+                out.writeUTF("Smith");
+            }
+        }
+
+        UserRegistry loaded = UserRegistry.load(file, FAST, 0);
+        Login login = loaded.getUser("kyl_1");
+        assertNull(login.getPassword());
+        assertNotNull(login.getPasswordHash());
+        assertNotNull(loaded.loginUser("kyl_1", "Legacy@Pass1"));
+        assertNull(loaded.loginUser("kyl_0", "Legacy@Pass1"));
+        // The file was rewritten with hashes only
+        assertFalse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("Legacy@Pass"));
+        assertNotNull(UserRegistry.load(file, FAST, 0).loginUser("kyl_0", "Legacy@Pass0"));
+    }
+
+    @Test
+    public void testUnknownUsersCostAHashCheck() {
+        AtomicInteger verifications = new AtomicInteger();
+        PasswordHasher counting = new PasswordHasher(1, 1, 100) {
+            @Override
+            public CompletableFuture<Boolean> verifyAsync(CharSequence password, String encoded) {
+                verifications.incrementAndGet();
+                return super.verifyAsync(password, encoded);
+            }
+        };
+        UserRegistry users = new UserRegistry(16, counting, 0);
+        users.register(new Login("kyl_1", "Ch&&sec@ke99!", "+27838968976", "Kyle", "Smith"));
+
+        assertNull(users.loginUser("kyl_1", "wrong"));
+        assertEquals(1, verifications.get());
+        assertNull(users.loginUser("nobody", "Ch&&sec@ke99!"));
+        assertEquals(2, verifications.get());
+        counting.close();
+    }
+}
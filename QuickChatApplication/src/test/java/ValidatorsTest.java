@@ -0,0 +1,111 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+
+import com.mycompany.quickchatapplication.Login;
+import com.mycompany.quickchatapplication.Message;
+import com.mycompany.quickchatapplication.Validators;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property tests for the Validators class.
+ * Random inputs are checked against the regular expressions the validators replaced.
+ */
+public class ValidatorsTest {
+
+    private static final int SAMPLES = 200_000;
+    // Characters that sit on the edges of each character class, plus a few non-ASCII ones
+    private static final String ALPHABET = "+09AZaz_@-/:[`{ \té٠１";
+
+    private static boolean regexCellNumber(String cellNumber) {
+        return cellNumber != null
+                && cellNumber.startsWith("+")
+                && cellNumber.length() <= 13
+                && Pattern.compile("^\\+\\d+$").matcher(cellNumber).matches();
+    }
+
+    private static boolean regexPassword(String password) {
+        return password.length() >= 8
+                && Pattern.compile("[A-Z]").matcher(password).find()
+                && Pattern.compile("[0-9]").matcher(password).find()
+                && Pattern.compile("[^a-zA-Z0-9]").matcher(password).find();
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            int pick = random.nextInt(4);
+            if (pick == 0) {
+                sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            } else if (pick == 1) {
+                sb.append((char) ('0' + random.nextInt(10)));
+            } else if (pick == 2) {
+                sb.append((char) random.nextInt(128));
+            } else {
+                sb.append((char) random.nextInt(Character.MAX_VALUE + 1));
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("Cell number check matches ^\\+\\d+$ regex")
+    public void testCellNumberMatchesRegex() {
+        Random random = new Random(27);
+        Message message = new Message();
+        for (int i = 0; i < SAMPLES; i++) {
+            String candidate = (random.nextBoolean() ? "+" : "") + randomString(random, 15);
+            boolean expected = regexCellNumber(candidate);
+            assertEquals(expected, Validators.isInternationalNumber(candidate), "Input: " + candidate);
+            assertEquals(expected ? 1 : 0, message.checkRecipientCell(candidate), "Input: " + candidate);
+        }
+    }
+
+    @Test
+    @DisplayName("Password check matches the three-regex rule")
+    public void testPasswordMatchesRegex() {
+        Random random = new Random(8);
+        Login login = new Login();
+        for (int i = 0; i < SAMPLES; i++) {
+            String candidate = randomString(random, 14);
+            boolean expected = regexPassword(candidate);
+            login.setPassword(candidate);
+            assertEquals(expected, Validators.isComplexPassword(candidate), "Input: " + candidate);
+            assertEquals(expected, login.checkPasswordComplexity(), "Input: " + candidate);
+        }
+    }
+
+    @Test
+    @DisplayName("Username check matches contains(\"_\") and length <= 5")
+    public void testUsernameMatchesOriginalRule() {
+        Random random = new Random(5);
+        for (int i = 0; i < SAMPLES; i++) {
+            String candidate = randomString(random, 7);
+            assertEquals(candidate.contains("_") && candidate.length() <= 5, Validators.isValidUsername(candidate), "Input: " + candidate);
+        }
+    }
+
+    @Test
+    public void testKnownValues() {
+        assertTrue(Validators.isInternationalNumber("+27718693002"));
+        assertFalse(Validators.isInternationalNumber("08575975889"));
+        assertFalse(Validators.isInternationalNumber("+"));
+        assertFalse(Validators.isInternationalNumber("+2771869300212"));
+        assertFalse(Validators.isInternationalNumber(null));
+        assertTrue(Validators.isComplexPassword("Ch&&sec@ke99!"));
+        assertFalse(Validators.isComplexPassword("password"));
+        assertFalse(Validators.isComplexPassword(null));
+    }
+
+    @Test
+    public void testSurrogatePairCountsAsSpecialCharacter() {
+        String withEmoji = "Passw0rd😀";
+        assertEquals(regexPassword(withEmoji), Validators.isComplexPassword(withEmoji));
+    }
+}